@@ -5,6 +5,10 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -26,6 +30,7 @@ import org.yamcs.client.ParameterSubscription;
 import org.yamcs.client.archive.ArchiveClient;
 import org.yamcs.client.archive.ArchiveClient.ListOptions;
 import org.yamcs.client.archive.ArchiveClient.TableLoader;
+import org.yamcs.client.base.HttpClient;
 import org.yamcs.client.processor.ProcessorClient;
 import org.yamcs.events.StreamEventProducer;
 import org.yamcs.protobuf.AlarmData;
@@ -61,6 +66,8 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 import com.google.protobuf.util.Timestamps;
 
+import io.netty.handler.codec.http.HttpMethod;
+
 public class ArchiveIntegrationTest extends AbstractIntegrationTest {
 
     private ColumnSerializer<Integer> csint = ColumnSerializerFactory.getBasicColumnSerializerV2(DataType.INT);
@@ -452,6 +459,49 @@ public class ArchiveIntegrationTest extends AbstractIntegrationTest {
         verifyRecordsDumpFormat("table0", 100);
     }
 
+    @Test
+    public void testExportTableArrow() throws Exception {
+        createTable("table3");
+        TableLoader loader = archiveClient.createTableLoader("table3");
+        for (int i = 0; i < 100; i++) {
+            loader.send(getRecord(i));
+        }
+        loader.complete().get();
+
+        ArrowStream arrow = exportArrow("/api/archive/" + yamcsInstance + "/tables/table3:export");
+        assertEquals(Arrays.asList("a1", "a2"), arrow.names);
+        assertEquals(Arrays.asList(ArrowStream.TYPE_INT, ArrowStream.TYPE_UTF8), arrow.typeIds);
+        assertEquals(100, arrow.columns.get("a1").size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals((long) i, arrow.columns.get("a1").get(i));
+            assertEquals("test " + i, arrow.columns.get("a2").get(i));
+        }
+
+        arrow = exportArrow("/api/archive/" + yamcsInstance + "/tables/table3:export?cols=a2&query=a1%3C10");
+        assertEquals(Arrays.asList("a2"), arrow.names);
+        assertEquals(10, arrow.columns.get("a2").size());
+    }
+
+    @Test
+    public void testExportParameterValuesArrow() throws Exception {
+        generatePkt1AndTm2Pkt1("2023-03-01T10:00:00", 20);
+
+        ArrowStream arrow = exportArrow("/api/archive/" + yamcsInstance + ":exportParameterValues"
+                + "?parameters=/REFMDB/SUBSYS1/IntegerPara1_1_6&parameters=/REFMDB/SUBSYS1/IntegerPara1_1_7"
+                + "&start=2023-03-01T10:00:00Z&stop=2023-03-01T10:00:20Z&header=SHORT_NAME&format=ARROW");
+        assertEquals(Arrays.asList("Time", "IntegerPara1_1_6", "IntegerPara1_1_7"), arrow.names);
+        assertEquals(Arrays.asList(ArrowStream.TYPE_TIMESTAMP, ArrowStream.TYPE_INT, ArrowStream.TYPE_INT),
+                arrow.typeIds);
+
+        long t0 = Instant.parse("2023-03-01T10:00:00Z").toEpochMilli();
+        assertEquals(20, arrow.columns.get("Time").size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(t0 + 1000 * i, arrow.columns.get("Time").get(i));
+            assertEquals((long) packetGenerator.pIntegerPara1_1_6, arrow.columns.get("IntegerPara1_1_6").get(i));
+            assertEquals((long) packetGenerator.pIntegerPara1_1_7, arrow.columns.get("IntegerPara1_1_7").get(i));
+        }
+    }
+
     @Test
     public void testTokenizedHistoIndex() throws Exception {
         generatePkt13AndPps("2015-02-03T10:00:00", 120);
@@ -645,6 +695,92 @@ public class ArchiveIntegrationTest extends AbstractIntegrationTest {
         assertEquals(n, trList.size());
     }
 
+    private ArrowStream exportArrow(String path) throws Exception {
+        HttpClient httpClient = new HttpClient();
+        httpClient.login("http://" + yamcsHost + ":" + yamcsPort + "/auth/token", adminUsername, adminPassword);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        httpClient.doBulkReceiveRequest("http://" + yamcsHost + ":" + yamcsPort + path, HttpMethod.GET, null,
+                out::writeBytes).get();
+        return new ArrowStream(out.toByteArray());
+    }
+
+    /**
+     * Decodes the columns of an Arrow IPC stream, as far as needed for the exports above: 32-bit integers, timestamps
+     * and strings.
+     */
+    static class ArrowStream {
+        static final int TYPE_INT = 2;
+        static final int TYPE_UTF8 = 5;
+        static final int TYPE_TIMESTAMP = 10;
+
+        List<String> names = new ArrayList<>();
+        List<Integer> typeIds = new ArrayList<>();
+        Map<String, List<Object>> columns = new HashMap<>();
+
+        ArrowStream(byte[] data) {
+            ByteBuffer bb = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            int pos = 0;
+            while (bb.getInt(pos + 4) != 0) {
+                assertEquals(0xFFFFFFFF, bb.getInt(pos));
+                int fbStart = pos + 8;
+                int message = fbStart + bb.getInt(fbStart);
+                int headerType = bb.get(field(bb, message, 1));
+                int header = ref(bb, message, 2);
+                int body = fbStart + bb.getInt(pos + 4);
+                if (headerType == 1) { // Schema
+                    int fields = ref(bb, header, 1);
+                    for (int i = 0; i < bb.getInt(fields); i++) {
+                        int slot = fields + 4 + 4 * i;
+                        int field = slot + bb.getInt(slot);
+                        int name = ref(bb, field, 0);
+                        names.add(new String(data, name + 4, bb.getInt(name), StandardCharsets.UTF_8));
+                        typeIds.add((int) bb.get(field(bb, field, 2)));
+                        columns.put(names.get(i), new ArrayList<>());
+                    }
+                } else { // Record batch
+                    long length = bb.getLong(field(bb, header, 0));
+                    int buffers = ref(bb, header, 2) + 4;
+                    for (int col = 0, bufIdx = 0; col < names.size(); col++) {
+                        int validity = body + (int) bb.getLong(buffers + 16 * bufIdx);
+                        int values = body + (int) bb.getLong(buffers + 16 * (bufIdx + 1));
+                        int typeId = typeIds.get(col);
+                        for (int row = 0; row < length; row++) {
+                            Object v;
+                            if ((bb.get(validity + row / 8) & (1 << (row % 8))) == 0) {
+                                v = null;
+                            } else if (typeId == TYPE_INT) {
+                                v = Integer.toUnsignedLong(bb.getInt(values + 4 * row));
+                            } else if (typeId == TYPE_TIMESTAMP) {
+                                v = bb.getLong(values + 8 * row);
+                            } else {
+                                int strings = body + (int) bb.getLong(buffers + 16 * (bufIdx + 2));
+                                int start = bb.getInt(values + 4 * row);
+                                int end = bb.getInt(values + 4 * row + 4);
+                                v = new String(data, strings + start, end - start, StandardCharsets.UTF_8);
+                            }
+                            columns.get(names.get(col)).add(v);
+                        }
+                        bufIdx += typeId == TYPE_UTF8 ? 3 : 2;
+                    }
+                }
+                pos = body + (int) bb.getLong(field(bb, message, 3));
+            }
+            assertEquals(data.length, pos + 8);
+        }
+
+        // Position of a field of a FlatBuffers table
+        private static int field(ByteBuffer bb, int table, int idx) {
+            int vtable = table - bb.getInt(table);
+            return table + bb.getShort(vtable + 4 + 2 * idx);
+        }
+
+        // Target of a reference field of a FlatBuffers table
+        private static int ref(ByteBuffer bb, int table, int idx) {
+            int pos = field(bb, table, idx);
+            return pos + bb.getInt(pos);
+        }
+    }
+
     private void createTable(String tblName) throws Exception {
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
         TupleDefinition td = new TupleDefinition();
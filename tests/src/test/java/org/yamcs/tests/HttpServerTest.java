@@ -1,7 +1,9 @@
 package org.yamcs.tests;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
 import static io.netty.handler.codec.http.HttpMethod.GET;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -83,4 +85,30 @@ public class HttpServerTest extends AbstractIntegrationTest {
         file1.delete();
         file2.delete();
     }
+
+    @Test
+    public void testMdbConditionalRequest() throws Exception {
+        HttpClient httpClient = new HttpClient();
+        String url = "http://localhost:9190/api/mdb/" + yamcsInstance + "/parameters?limit=5";
+
+        byte[] b1 = httpClient.doAsyncRequest(url, GET, null).get();
+        byte[] b2 = httpClient.doAsyncRequest(url, GET, null).get(); // From the cache
+        assertArrayEquals(b1, b2);
+
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(IF_NONE_MATCH, "\"0-0\"");
+        byte[] b3 = httpClient.doAsyncRequest(url, GET, null, httpHeaders).get();
+        assertArrayEquals(b1, b3);
+
+        httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(IF_NONE_MATCH, "*");
+        ClientException e1 = null;
+        try {
+            httpClient.doAsyncRequest(url, GET, null, httpHeaders).get();
+        } catch (ExecutionException e) {
+            e1 = (ClientException) e.getCause();
+        }
+        assertNotNull(e1);
+        assertTrue(e1.toString().contains("304"));
+    }
 }
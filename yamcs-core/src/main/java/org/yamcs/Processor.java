@@ -79,7 +79,7 @@ public class Processor extends AbstractService {
 
     private Mdb mdb;
 
-    private final String name;
+    private String name;
     private final String type;
     private final String yamcsInstance;
 
@@ -241,10 +241,58 @@ public class Processor extends AbstractService {
         }
 
         parameterProcessorManager.init();
+    }
 
+    /**
+     * Notifies the processor listeners that this processor has been added
+     */
+    void announce() {
         listeners.forEach(l -> l.processorAdded(this));
     }
 
+    /**
+     * Changes the name and creator of a processor which has been created in advance, before it is registered to the
+     * instance.
+     */
+    void rename(String name, String creator) {
+        if (state() != State.NEW) {
+            throw new IllegalStateException("Cannot rename a processor in state " + state());
+        }
+        this.name = name;
+        this.creator = creator;
+        log.setContext(name);
+        timer.setThreadFactory(
+                new ThreadFactoryBuilder().setNameFormat("Processor-" + yamcsInstance + "." + name).build());
+    }
+
+    /**
+     * Releases the resources of a processor which has been created in advance and is discarded without having been
+     * started. Stopping a processor which has not been started does not call {@link #doStop()}.
+     */
+    void dispose() {
+        if (state() != State.NEW) {
+            throw new IllegalStateException("Cannot dispose a processor in state " + state());
+        }
+        timer.shutdownNow();
+        for (ProcessorServiceWithConfig swc : serviceList) {
+            swc.service.stopAsync();
+        }
+        if (commandReleaser != null) {
+            commandReleaser.stopAsync();
+            commandingManager.stopAsync();
+        }
+        if (tmProcessor != null) {
+            tmProcessor.stopAsync();
+        }
+        if (eventAlarmServer != null) {
+            eventAlarmServer.stopAsync();
+        }
+        if (parameterProcessorManager != null) {
+            parameterProcessorManager.stopAsync();
+        }
+        stopAsync().awaitTerminated();
+    }
+
     public void setPacketProvider(TmPacketProvider tpp) {
         if (tmPacketProvider != null) {
             throw new IllegalStateException("There is already a packet provider");
@@ -58,6 +58,16 @@ public class ProcessorFactory {
      */
     public static Processor create(String yamcsInstance, String name, String type, String creator, Object spec)
             throws ProcessorException, ConfigurationException, ValidationException, InitException {
+        return create(yamcsInstance, name, type, creator, spec, true);
+    }
+
+    /**
+     * Create a processor which, if register is false, is neither added to the instance nor announced to the processor
+     * listeners. This is done later by {@link #register(Processor)}.
+     */
+    static Processor create(String yamcsInstance, String name, String type, String creator, Object spec,
+            boolean register)
+            throws ProcessorException, ConfigurationException, ValidationException, InitException {
         YConfiguration pc = null;
         YConfiguration conf = YConfiguration.getConfiguration("processor");
 
@@ -77,7 +87,7 @@ public class ProcessorFactory {
         }
         pc = ProcessorConfig.getSpec().validate(pc);
         ProcessorConfig processorConfig = new ProcessorConfig(pc);
-        return create(yamcsInstance, name, type, serviceList, creator, processorConfig, spec);
+        return create(yamcsInstance, name, type, serviceList, creator, processorConfig, spec, register);
     }
 
     /**
@@ -98,18 +108,42 @@ public class ProcessorFactory {
             List<ProcessorServiceWithConfig> serviceList,
             String creator, ProcessorConfig config, Object spec)
             throws ProcessorException, ConfigurationException, InitException, ValidationException {
+        return create(instance, name, type, serviceList, creator, config, spec, true);
+    }
+
+    private static Processor create(String instance, String name, String type,
+            List<ProcessorServiceWithConfig> serviceList,
+            String creator, ProcessorConfig config, Object spec, boolean register)
+            throws ProcessorException, ConfigurationException, InitException, ValidationException {
         if (config == null) {
             throw new NullPointerException("config cannot be null");
         }
         Processor proc = new Processor(instance, name, type, creator);
         YamcsServerInstance ysi = YamcsServer.getServer().getInstance(instance);
-        if (ysi != null) {// Unit Tests create processors outside of any instance
+        if (register && ysi != null) {// Unit Tests create processors outside of any instance
             ysi.addProcessor(proc);
         }
         proc.init(serviceList, config, spec);
+        if (register) {
+            proc.announce();
+        }
         return proc;
     }
 
+    /**
+     * Adds to its instance a processor created without registering it, and announces it to the processor listeners.
+     * 
+     * @throws ProcessorException
+     *             if a processor with the same name already exists
+     */
+    static void register(Processor proc) throws ProcessorException {
+        YamcsServerInstance ysi = YamcsServer.getServer().getInstance(proc.getInstance());
+        if (ysi != null) {
+            ysi.addProcessor(proc);
+        }
+        proc.announce();
+    }
+
     /**
      * creates a processor with the services already instantiated. used from unit tests
      * 
@@ -0,0 +1,215 @@
+package org.yamcs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.yamcs.Spec.OptionType;
+import org.yamcs.archive.ReplayOptions;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.SystemParametersProducer;
+import org.yamcs.parameter.SystemParametersService;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.tctm.ReplayService;
+import org.yamcs.xtce.SystemParameter;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Service.Listener;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps a number of replay processors created and initialised in advance, such that the replays requested through the
+ * API ({@link org.yamcs.http.api.ReplayFactory}, {@link org.yamcs.parameter.ParameterRetrievalService}) do not have to
+ * wait for the creation of the processor data, algorithms, alarm servers...
+ * <p>
+ * A processor can only be started once, so the processors are not returned to the pool after the replay; instead a new
+ * processor is created in the background each time one is taken from the pool.
+ * <p>
+ * The idle processors are not registered to the instance; they receive the name and creator of the replay and are
+ * registered only when taken from the pool.
+ */
+public class ReplayProcessorPool extends AbstractYamcsService implements SystemParametersProducer {
+    static final String DEFAULT_PROCESSOR_TYPE = "ArchiveRetrieval";
+
+    String processorType;
+    int size;
+
+    final LinkedBlockingQueue<Processor> idle = new LinkedBlockingQueue<>();
+    ExecutorService executor;
+    final AtomicInteger count = new AtomicInteger();
+    final AtomicInteger inUse = new AtomicInteger();
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+
+    private SystemParameter spIdle, spInUse, spHits, spMisses;
+
+    @Override
+    public Spec getSpec() {
+        Spec spec = new Spec();
+        spec.addOption("processorType", OptionType.STRING).withDefault(DEFAULT_PROCESSOR_TYPE);
+        spec.addOption("size", OptionType.INTEGER).withDefault(2);
+        return spec;
+    }
+
+    @Override
+    public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
+        super.init(yamcsInstance, serviceName, config);
+        processorType = config.getString("processorType");
+        size = config.getInt("size");
+        executor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("ReplayProcessorPool-" + yamcsInstance).build());
+    }
+
+    @Override
+    protected void doStart() {
+        for (int i = 0; i < size; i++) {
+            executor.execute(this::createIdleProcessor);
+        }
+        setupSystemParameters();
+        notifyStarted();
+    }
+
+    @Override
+    protected void doStop() {
+        executor.shutdownNow();
+        var collector = SystemParametersService.getInstance(yamcsInstance);
+        if (collector != null && spIdle != null) {
+            collector.unregisterProducer(this);
+        }
+        Processor proc;
+        while ((proc = idle.poll()) != null) {
+            discard(proc);
+        }
+        notifyStopped();
+    }
+
+    /**
+     * Creates a replay processor, taking it from the pool of the instance if there is one.
+     *
+     * @param instance
+     *            the yamcs instance
+     * @param name
+     *            the name of the processor
+     * @param type
+     *            the processor type; the pool is only used if the type is the one configured for the pool.
+     * @param creator
+     *            the creator of the processor
+     * @param replayOptions
+     *            the replay request
+     */
+    public static Processor createReplayProcessor(String instance, String name, String type, String creator,
+            ReplayOptions replayOptions)
+            throws ProcessorException, ConfigurationException, ValidationException, InitException {
+        var pool = YamcsServer.getServer().getService(instance, ReplayProcessorPool.class);
+        if (pool != null && pool.isRunning() && pool.processorType.equals(type)) {
+            Processor proc = pool.acquire(name, creator, replayOptions);
+            if (proc != null) {
+                return proc;
+            }
+        }
+        return ProcessorFactory.create(instance, name, type, creator, replayOptions);
+    }
+
+    /**
+     * Takes a processor from the pool, sets its name, creator and replay request and registers it to the instance.
+     * <p>
+     * Returns null if the pool is empty.
+     * 
+     * @throws ProcessorException
+     *             if a processor with the same name already exists
+     */
+    public Processor acquire(String name, String creator, ReplayOptions replayOptions) throws ProcessorException {
+        Processor proc;
+        while ((proc = idle.poll()) != null) {
+            executor.execute(this::createIdleProcessor);
+            if (proc.getMdb() == MdbFactory.getInstance(yamcsInstance)) {
+                break;
+            }
+            // the MDB has been reloaded since the processor was created
+            discard(proc);
+        }
+        if (proc == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        for (ProcessorServiceWithConfig swc : proc.getServices()) {
+            if (swc.getService() instanceof ReplayService rs) {
+                rs.setReplayOptions(replayOptions);
+            }
+        }
+        proc.rename(name, creator);
+        try {
+            ProcessorFactory.register(proc);
+        } catch (ProcessorException e) {
+            discard(proc);
+            throw e;
+        }
+        hits.incrementAndGet();
+        inUse.incrementAndGet();
+        proc.addListener(new Listener() {
+            @Override
+            public void terminated(State from) {
+                inUse.decrementAndGet();
+            }
+
+            @Override
+            public void failed(State from, Throwable failure) {
+                inUse.decrementAndGet();
+            }
+        }, MoreExecutors.directExecutor());
+        return proc;
+    }
+
+    private void createIdleProcessor() {
+        if (!isRunning() && state() != State.STARTING) {
+            return;
+        }
+        String name = "pooled_replay" + count.incrementAndGet();
+        try {
+            String systemUser = YamcsServer.getServer().getSecurityStore().getSystemUser().getName();
+            Processor proc = ProcessorFactory.create(yamcsInstance, name, processorType, systemUser, null, false);
+            idle.add(proc);
+        } catch (Exception e) {
+            log.warn("Cannot create replay processor {}: {}", name, e.toString());
+        }
+    }
+
+    /**
+     * Terminates a processor which has never been started
+     */
+    private void discard(Processor proc) {
+        proc.dispose();
+    }
+
+    void setupSystemParameters() {
+        var collector = SystemParametersService.getInstance(yamcsInstance);
+        if (collector == null) {
+            return;
+        }
+        spIdle = collector.createSystemParameter(serviceName + "/idle", Type.UINT32,
+                "Number of replay processors ready to be used");
+        spInUse = collector.createSystemParameter(serviceName + "/inUse", Type.UINT32,
+                "Number of replay processors taken from the pool which are still running");
+        spHits = collector.createSystemParameter(serviceName + "/hits", Type.UINT64,
+                "Number of replays which have used a processor from the pool");
+        spMisses = collector.createSystemParameter(serviceName + "/misses", Type.UINT64,
+                "Number of replays which had to create a processor because the pool was empty");
+        collector.registerProducer(this);
+    }
+
+    @Override
+    public Collection<ParameterValue> getSystemParameters(long gentime) {
+        List<ParameterValue> pvlist = new ArrayList<>();
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spIdle, gentime, idle.size()));
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spInUse, gentime, inUse.get()));
+        pvlist.add(SystemParametersService.getPV(spHits, gentime, hits.get()));
+        pvlist.add(SystemParametersService.getPV(spMisses, gentime, misses.get()));
+        return pvlist;
+    }
+}
@@ -46,6 +46,7 @@ import org.yamcs.logging.ConsoleFormatter;
 import org.yamcs.logging.Log;
 import org.yamcs.logging.YamcsLogManager;
 import org.yamcs.management.ManagementService;
+import org.yamcs.mdb.CompiledClassCache;
 import org.yamcs.mdb.MdbFactory;
 import org.yamcs.protobuf.YamcsInstance.InstanceState;
 import org.yamcs.security.CryptoUtils;
@@ -1241,6 +1242,7 @@ public class YamcsServer {
         spec.addOption("instances", OptionType.LIST).withElementType(OptionType.STRING);
         spec.addOption("dataDir", OptionType.STRING).withDefault("yamcs-data");
         spec.addOption("cacheDir", OptionType.STRING).withDefault("cache");
+        spec.addOption("persistCompiledClasses", OptionType.BOOLEAN).withDefault(false);
         spec.addOption("incomingDir", OptionType.STRING).withDefault("yamcs-incoming")
                 .withDeprecationMessage("remove \"incomingDir\" property from yamcs.yaml. "
                         + "Links that were using this option, should instead provide a link-specific option");
@@ -1374,6 +1376,9 @@ public class YamcsServer {
             options.cacheDir = Path.of(config.getString("cacheDir")).toAbsolutePath();
         }
         Files.createDirectories(options.cacheDir);
+        if (config.getBoolean("persistCompiledClasses", false)) {
+            CompiledClassCache.setPersistenceDirectory(options.cacheDir.resolve("compiled-classes"));
+        }
 
         Path globalDir = options.dataDir.resolve(GLOBAL_INSTANCE);
         Files.createDirectories(globalDir);
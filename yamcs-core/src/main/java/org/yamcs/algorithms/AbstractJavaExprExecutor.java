@@ -43,5 +43,10 @@ public abstract class AbstractJavaExprExecutor extends AbstractAlgorithmExecutor
         }
     }
 
+    @Override
+    public boolean isParallelSafe() {
+        return true;
+    }
+
     protected abstract Object doExecute(long acqTime, long genTime, List<ParameterValue> outputValues);
 }
@@ -62,6 +62,13 @@ public class ActiveAlgorithm {
      */
     long totalExecTimeNs;
 
+    /**
+     * Execution time of the last run, minimum and maximum execution time of one run in nanoseconds
+     */
+    long lastExecTimeNs;
+    long minExecTimeNs = Long.MAX_VALUE;
+    long maxExecTimeNs;
+
     /**
      * How many times the algorithm run with error
      */
@@ -133,7 +140,11 @@ public class ActiveAlgorithm {
             }
         }
         long t1 = System.nanoTime();
-        totalExecTimeNs += (t1 - t0);
+        long execTimeNs = t1 - t0;
+        totalExecTimeNs += execTimeNs;
+        lastExecTimeNs = execTimeNs;
+        minExecTimeNs = Math.min(minExecTimeNs, execTimeNs);
+        maxExecTimeNs = Math.max(maxExecTimeNs, execTimeNs);
 
         return output;
     }
@@ -201,6 +212,11 @@ public class ActiveAlgorithm {
         }
         statusb.setLastRun(Timestamps.fromMillis(lastRun));
         statusb.setExecTimeNs(totalExecTimeNs);
+        if (runCount > 0) {
+            statusb.setLastExecTimeNs(lastExecTimeNs);
+            statusb.setMinExecTimeNs(minExecTimeNs);
+            statusb.setMaxExecTimeNs(maxExecTimeNs);
+        }
 
         return statusb;
     }
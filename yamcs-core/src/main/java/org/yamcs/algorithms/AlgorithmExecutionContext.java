@@ -1,10 +1,12 @@
 package org.yamcs.algorithms;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
 
 import org.yamcs.events.EventProducer;
 import org.yamcs.logging.Log;
@@ -23,7 +25,7 @@ import org.yamcs.xtce.Algorithm.Scope;
  * There is normally a global context in a processor and a few contexts related to the command verifiers.
  * <p>
  * The {@link #process(long, ProcessingContext)} method will trigger calling all the active algorithms from this context in
- * order.
+ * order. The algorithms which use neither as input nor as trigger any of the parameters from the delivery are skipped.
  *
  */
 public class AlgorithmExecutionContext {
@@ -31,6 +33,12 @@ public class AlgorithmExecutionContext {
 
     CopyOnWriteArrayList<ActiveAlgorithm> executionOrder = new CopyOnWriteArrayList<>();
 
+    // index from parameters to the algorithms interested in them; rebuilt after the executionOrder changes
+    private volatile TriggerIndex triggerIndex;
+
+    // minimum number of algorithms for the parallel execution; 0 means parallel execution disabled
+    private volatile int parallelThreshold = 0;
+
     // algorithm tracers fqn -> AlgorithmTrace
     final Map<String, AlgorithmTrace> tracers = new HashMap<>();
 
@@ -66,50 +74,171 @@ public class AlgorithmExecutionContext {
         } else if (cmdParams != null && !cmdParams.isEmpty()) {
             genTime = cmdParams.getFirst().getGenerationTime();
         }
-        for (ActiveAlgorithm activeAlgo : executionOrder) {
-            boolean shouldRun = activeAlgo.update(pctx);
-            if (shouldRun) {
-                log.trace("Running algorithm {}", activeAlgo.getAlgorithm().getName());
-                List<ParameterValue> r = runAlgorithm(activeAlgo, acqTime, genTime, pctx);
-                if (r == null || r.isEmpty()) {
-                    continue;
+        TriggerIndex index = getTriggerIndex();
+        // positions in the execution order of the algorithms to be updated, more are added as the outputs are produced
+        BitSet pending = (BitSet) index.unconditional.clone();
+        if (tmParams != null) {
+            index.mark(pending, tmParams);
+        }
+        if (cmdParams != null) {
+            index.mark(pending, cmdParams);
+        }
+
+        int threshold = parallelThreshold;
+        if (threshold > 0 && index.byLayer != null && pending.cardinality() >= threshold) {
+            processInLayers(index, pending, threshold, acqTime, genTime, pctx);
+            return;
+        }
+
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+            ActiveAlgorithm activeAlgo = index.algorithms[i];
+            List<ParameterValue> r = updateAndRun(activeAlgo, acqTime, genTime, pctx);
+            if (r != null && !r.isEmpty()) {
+                addOutputs(activeAlgo, r, pctx);
+                index.mark(pending, r, i + 1);
+            }
+        }
+    }
+
+    /**
+     * Runs the pending algorithms layer by layer. The algorithms from one layer are independent of each other, if
+     * there are enough of them, they run in parallel.
+     * <p>
+     * The outputs are added to the processing context at the end of each layer, in execution order. Each algorithm
+     * sees the same input values as in the sequential execution and the values of each parameter are added to the
+     * context in the same order; only the interleaving between different parameters may differ.
+     */
+    private void processInLayers(TriggerIndex index, BitSet pending, int threshold, long acqTime, long genTime,
+            ProcessingContext pctx) {
+        int[] batch = new int[index.size()];
+        @SuppressWarnings("unchecked")
+        List<ParameterValue>[] results = new List[index.size()];
+
+        for (int layer = 0; layer < index.numLayers; layer++) {
+            int n = 0;
+            for (int k = index.layerStart[layer]; k < index.layerStart[layer + 1]; k++) {
+                int pos = index.byLayer[k];
+                if (pending.get(pos)) {
+                    batch[n++] = pos;
                 }
-                if (activeAlgo.getScope() == Scope.GLOBAL) {
-                    if (tmParams != null) {
-                        tmParams.addAll(r);
+            }
+            if (n == 0) {
+                continue;
+            }
+            if (n >= threshold) {
+                // the executors which cannot run in parallel run first, on this thread
+                for (int k = 0; k < n; k++) {
+                    if (!index.parallelSafe[batch[k]]) {
+                        results[k] = updateAndRun(index.algorithms[batch[k]], acqTime, genTime, pctx);
                     }
-                } else if (cmdParams != null) {
-                    for (ParameterValue pv : r) {
-                        if (pv.getParameter().isCommandParameter()) {
-                            cmdParams.add(pv);
-                        } else if (tmParams != null) {
-                            tmParams.add(pv);
-                        }
+                }
+                IntStream.range(0, n).parallel().forEach(k -> {
+                    if (index.parallelSafe[batch[k]]) {
+                        results[k] = updateAndRun(index.algorithms[batch[k]], acqTime, genTime, pctx);
                     }
+                });
+            } else {
+                for (int k = 0; k < n; k++) {
+                    results[k] = updateAndRun(index.algorithms[batch[k]], acqTime, genTime, pctx);
                 }
             }
+
+            for (int k = 0; k < n; k++) {
+                List<ParameterValue> r = results[k];
+                results[k] = null;
+                if (r != null && !r.isEmpty()) {
+                    addOutputs(index.algorithms[batch[k]], r, pctx);
+                    index.mark(pending, r, batch[k] + 1);
+                }
+            }
+        }
+    }
+
+    private List<ParameterValue> updateAndRun(ActiveAlgorithm activeAlgo, long acqTime, long genTime,
+            ProcessingContext pctx) {
+        boolean shouldRun = activeAlgo.update(pctx);
+        if (shouldRun) {
+            log.trace("Running algorithm {}", activeAlgo.getAlgorithm().getName());
+            return runAlgorithm(activeAlgo, acqTime, genTime, pctx);
+        } else {
+            return null;
         }
     }
 
+    private void addOutputs(ActiveAlgorithm activeAlgo, List<ParameterValue> r, ProcessingContext pctx) {
+        ParameterValueList tmParams = pctx.getTmParams();
+        ParameterValueList cmdParams = pctx.getCmdParams();
+        if (activeAlgo.getScope() == Scope.GLOBAL) {
+            if (tmParams != null) {
+                tmParams.addAll(r);
+            }
+        } else if (cmdParams != null) {
+            for (ParameterValue pv : r) {
+                if (pv.getParameter().isCommandParameter()) {
+                    cmdParams.add(pv);
+                } else if (tmParams != null) {
+                    tmParams.add(pv);
+                }
+            }
+        }
+    }
+
+    /**
+     * Enables the parallel execution of the independent algorithms.
+     * <p>
+     * When a delivery triggers at least {@code threshold} algorithms, they are run layer by layer and the layers
+     * containing at least {@code threshold} algorithms are run in parallel on the common fork-join pool.
+     * <p>
+     * A threshold &le; 0 disables the parallel execution.
+     */
+    public synchronized void setParallelExecution(int threshold) {
+        this.parallelThreshold = threshold;
+        triggerIndex = null;
+    }
+
+    private TriggerIndex getTriggerIndex() {
+        TriggerIndex index = triggerIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = triggerIndex;
+                if (index == null) {
+                    index = new TriggerIndex(executionOrder, parallelThreshold > 0);
+                    triggerIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private synchronized void invalidateTriggerIndex() {
+        triggerIndex = null;
+    }
+
     List<ParameterValue> runAlgorithm(ActiveAlgorithm activeAlgo, long acqTime, long genTime, ProcessingContext pctx) {
         List<ParameterValue> params = activeAlgo.runAlgorithm(acqTime, genTime, pctx);
         if (activeAlgo.getErrorCount() >= maxErrCount) {
-            Algorithm algo = activeAlgo.getAlgorithm();
-            log.warn("Algorithm {} has faulted {} times, deactivating", algo.getQualifiedName(),
-                    activeAlgo.getErrorCount());
-            AlgorithmStatus.Builder status = activeAlgo.getStatus()
-                    .setTraceEnabled(tracers.containsKey(algo.getQualifiedName()))
-                    .setActive(false);
-
-            status.setErrorMessage("Deactivated after " + maxErrCount + " errors. Last error: "
-                    + status.getErrorMessage());
-            algorithmsInError.put(algo.getQualifiedName(), status.build());
-
-            executionOrder.remove(activeAlgo);
+            deactivate(activeAlgo);
         }
         return params;
     }
 
+    // synchronized because the algorithms may run in parallel
+    private synchronized void deactivate(ActiveAlgorithm activeAlgo) {
+        Algorithm algo = activeAlgo.getAlgorithm();
+        log.warn("Algorithm {} has faulted {} times, deactivating", algo.getQualifiedName(),
+                activeAlgo.getErrorCount());
+        AlgorithmStatus.Builder status = activeAlgo.getStatus()
+                .setTraceEnabled(tracers.containsKey(algo.getQualifiedName()))
+                .setActive(false);
+
+        status.setErrorMessage("Deactivated after " + maxErrCount + " errors. Last error: "
+                + status.getErrorMessage());
+        algorithmsInError.put(algo.getQualifiedName(), status.build());
+
+        executionOrder.remove(activeAlgo);
+        invalidateTriggerIndex();
+    }
+
     public String getName() {
         return contextName;
     }
@@ -120,6 +249,7 @@ public class AlgorithmExecutionContext {
 
     public void addAlgorithm(ActiveAlgorithm activeAlgorithm) {
         executionOrder.add(activeAlgorithm);
+        invalidateTriggerIndex();
     }
 
     /**
@@ -135,6 +265,7 @@ public class AlgorithmExecutionContext {
         Optional<ActiveAlgorithm> algo = getByFqn(algoFqn);
         if (algo.isPresent()) {
             executionOrder.remove(algo.get());
+            invalidateTriggerIndex();
             algo.get().executor.dispose();
             return algo.get();
         } else {
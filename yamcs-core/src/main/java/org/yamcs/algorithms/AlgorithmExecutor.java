@@ -78,6 +78,17 @@ public interface AlgorithmExecutor {
         return getAlgorithm().getInputList();
     }
 
+    /**
+     * Returns true if this executor can run at the same time as other executors of the same context, in a different
+     * thread.
+     * <p>
+     * This is used when the parallel execution is enabled in the {@link AlgorithmManager}. The default is false, the
+     * executors sharing some state (for example a script engine) have to run sequentially.
+     */
+    default boolean isParallelSafe() {
+        return false;
+    }
+
     /**
      * Called when this executor instance is no longer used.
      * <p>
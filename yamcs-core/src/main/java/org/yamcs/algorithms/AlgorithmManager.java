@@ -118,6 +118,13 @@ public class AlgorithmManager extends AbstractProcessorService
         spec.addOption("maxErrorsBeforeAutomaticDeactivation", OptionType.INTEGER)
                 .withDescription("If an algorithm errors this number of times, it will be deactivated")
                 .withDefault(10);
+        spec.addOption("parallelExecution", OptionType.BOOLEAN)
+                .withDescription("If true, the independent algorithms triggered by the same delivery are run in "
+                        + "parallel")
+                .withDefault(false);
+        spec.addOption("parallelThreshold", OptionType.INTEGER)
+                .withDescription("Minimum number of independent algorithms for running them in parallel")
+                .withDefault(16);
         return spec;
     }
 
@@ -162,6 +169,9 @@ public class AlgorithmManager extends AbstractProcessorService
         timer = processor.getTimer();
 
         globalCtx = new AlgorithmExecutionContext("global", processor.getProcessorData(), maxErrCount);
+        if (config.getBoolean("parallelExecution", false)) {
+            globalCtx.setParallelExecution(config.getInt("parallelThreshold", 16));
+        }
         contexts.add(globalCtx);
 
         for (Algorithm algo : mdb.getAlgorithms()) {
@@ -6,9 +6,9 @@ import java.util.List;
 
 import org.codehaus.commons.compiler.LocatedException;
 import org.codehaus.commons.compiler.Location;
-import org.codehaus.janino.SimpleCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.yamcs.mdb.CompiledClassCache;
 import org.yamcs.parameter.ParameterValue;
 import org.yamcs.xtce.Algorithm.Scope;
 import org.yamcs.xtce.CustomAlgorithm;
@@ -65,11 +65,8 @@ public class JavaExprAlgorithmExecutionFactory implements AlgorithmExecutorFacto
         String code = generateClassCode(className, alg);
         try {
             log.debug("Compiling:\n{}", code);
-            SimpleCompiler compiler = new SimpleCompiler();
-            compiler.cook(code);
-            Class<? extends AlgorithmExecutor> cexprClass = (Class<? extends AlgorithmExecutor>) compiler
-                    .getClassLoader()
-                    .loadClass("org.yamcs.algorithms.javaexpr." + className);
+            Class<? extends AlgorithmExecutor> cexprClass = (Class<? extends AlgorithmExecutor>) CompiledClassCache
+                    .getClass("org.yamcs.algorithms.javaexpr." + className, code);
 
             Constructor<? extends AlgorithmExecutor> constructor = cexprClass
                     .getConstructor(CustomAlgorithm.class, AlgorithmExecutionContext.class);
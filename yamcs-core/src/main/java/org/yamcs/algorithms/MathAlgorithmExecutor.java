@@ -4,7 +4,7 @@ import java.util.Arrays;
 
 import org.codehaus.commons.compiler.LocatedException;
 import org.codehaus.commons.compiler.Location;
-import org.codehaus.janino.SimpleCompiler;
+import org.yamcs.mdb.CompiledClassCache;
 import org.yamcs.mdb.MathOperationCalibratorFactory;
 import org.yamcs.mdb.ParameterTypeUtils;
 import org.yamcs.mdb.ProcessingContext;
@@ -56,6 +56,11 @@ public class MathAlgorithmExecutor extends AbstractAlgorithmExecutor {
         return new AlgorithmExecutionResult(inputValues, value, Arrays.asList(pv));
     }
 
+    @Override
+    public boolean isParallelSafe() {
+        return true;
+    }
+
     @Override
     protected void updateInput(int idx, InputParameter inputParameter, ParameterValue newValue) {
         Value v = inputParameter.getParameterInstance().useCalibratedValue() ? newValue.getEngValue()
@@ -75,22 +80,22 @@ public class MathAlgorithmExecutor extends AbstractAlgorithmExecutor {
 
     private MathOperationEvaluator getEvaluator(MathAlgorithm algo) {
         StringBuilder sb = new StringBuilder();
-        String className = "MathOperationEvaluator" + algo.hashCode();
+        String javaExpr = MathOperationCalibratorFactory.getJavaExpression(algo.getOperation(), algo.getInputList());
+        // the class name depends only on the expression such that the compiled class can be cached
+        String className = "MathOperationEvaluator" + Integer.toHexString(javaExpr.hashCode());
         sb.append("package org.yamcs.algorithms.maeval;\n")
                 .append("public class ").append(className)
                 .append(" implements org.yamcs.algorithms.MathOperationEvaluator {\n")
                 .append("   public double evaluate(double[] input) {\n")
                 .append("       return ")
-                .append(MathOperationCalibratorFactory.getJavaExpression(algo.getOperation(), algo.getInputList()))
+                .append(javaExpr)
                 .append(";\n")
                 .append("   }\n")
                 .append("}\n");
         String expr = sb.toString();
         log.debug("Compiling math operation converted to java:\n {}", expr);
         try {
-            SimpleCompiler compiler = new SimpleCompiler();
-            compiler.cook(expr);
-            Class<?> cexprClass = compiler.getClassLoader().loadClass("org.yamcs.algorithms.maeval." + className);
+            Class<?> cexprClass = CompiledClassCache.getClass("org.yamcs.algorithms.maeval." + className, expr);
             return (MathOperationEvaluator) cexprClass.getDeclaredConstructor().newInstance();
         } catch (LocatedException e) {
             String msg = e.getMessage();
@@ -15,6 +15,8 @@ import javax.script.Invocable;
 import javax.script.ScriptException;
 
 import org.codehaus.janino.SimpleCompiler;
+import org.openjdk.nashorn.api.scripting.JSObject;
+import org.openjdk.nashorn.api.scripting.NashornException;
 import org.openjdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,7 +58,9 @@ import org.yamcs.xtce.StringParameterType;
 public class ScriptAlgorithmExecutor extends AbstractAlgorithmExecutor {
     static final Logger log = LoggerFactory.getLogger(ScriptAlgorithmExecutor.class);
 
+    // exactly one of the invocable or the function is set
     final Invocable invocable;
+    final JSObject function;
     // stores both the function inputs and outputs
     // the position of the inputs corresponds to the position of AlgorithmDef input respectively output List
     final Object[] functionArgs;
@@ -74,10 +78,24 @@ public class ScriptAlgorithmExecutor extends AbstractAlgorithmExecutor {
 
     public ScriptAlgorithmExecutor(CustomAlgorithm algorithmDef, Invocable invocable, String functionName,
             String functionScript, AlgorithmExecutionContext execCtx) {
+        this(algorithmDef, invocable, null, functionName, functionScript, execCtx);
+    }
+
+    /**
+     * Creates an executor calling directly the function object, without looking it up by name at each invocation.
+     */
+    public ScriptAlgorithmExecutor(CustomAlgorithm algorithmDef, JSObject function, String functionName,
+            String functionScript, AlgorithmExecutionContext execCtx) {
+        this(algorithmDef, null, function, functionName, functionScript, execCtx);
+    }
+
+    private ScriptAlgorithmExecutor(CustomAlgorithm algorithmDef, Invocable invocable, JSObject function,
+            String functionName, String functionScript, AlgorithmExecutionContext execCtx) {
         super(algorithmDef, execCtx);
         this.parameterTypeProcessor = new ParameterTypeProcessor(execCtx.getProcessorData());
         this.functionName = functionName;
         this.invocable = invocable;
+        this.function = function;
         this.eventProducer = execCtx.getEventProducer();
         this.functionScript = functionScript;
 
@@ -138,7 +156,7 @@ public class ScriptAlgorithmExecutor extends AbstractAlgorithmExecutor {
                 outvb.rawValue = null;
             }
 
-            Object returnValue = invocable.invokeFunction(functionName, functionArgs);
+            Object returnValue = invoke();
 
             if (log.isTraceEnabled()) {
                 logTraceOutput(returnValue);
@@ -169,6 +187,22 @@ public class ScriptAlgorithmExecutor extends AbstractAlgorithmExecutor {
         }
     }
 
+    private Object invoke() throws ScriptException, NoSuchMethodException {
+        if (function == null) {
+            return invocable.invokeFunction(functionName, functionArgs);
+        }
+        try {
+            Object returnValue = function.call(null, functionArgs);
+            return ScriptObjectMirror.isUndefined(returnValue) ? null : returnValue;
+        } catch (NashornException e) {
+            // same conversion as done by the engine in invokeFunction
+            ScriptException se = new ScriptException(e.getMessage(), e.getFileName(), e.getLineNumber(),
+                    e.getColumnNumber());
+            se.initCause(e);
+            throw se;
+        }
+    }
+
     String getError(ScriptException e) {
         StringBuilder sb = new StringBuilder();
         sb.append(e.getMessage());
@@ -5,11 +5,14 @@ import static org.yamcs.algorithms.AlgorithmManager.JDK_BUILTIN_NASHORN_ENGINE_N
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.Invocable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
@@ -17,6 +20,7 @@ import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
+import org.openjdk.nashorn.api.scripting.JSObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.ConfigurationException;
@@ -31,11 +35,20 @@ import org.yamcs.xtce.OutputParameter;
  * Each algorithm is created as a function in the scriptEngine. There might be multiple executors for the same
  * algorithm: for example in the command verifier there will be one algorithm executor for each command. However there
  * will be only one function created in the script engine.
+ * <p>
+ * For the engines supporting it (Nashorn), the script engine is shared between all the factories of the same language
+ * and each factory has its own {@link ScriptContext}, see {@link SharedScriptEngine}.
  *
  * 
  */
 public class ScriptAlgorithmExecutorFactory implements AlgorithmExecutorFactory {
     final ScriptEngine scriptEngine;
+    // not null if the engine is shared with the other factories for the same language
+    final SharedScriptEngine sharedEngine;
+    // the context where the libraries and the algorithm functions are defined
+    final ScriptContext scriptContext;
+    // the scripts compiled by the shared engine, referenced here to keep them in its cache
+    final Set<CompiledScript> compiledScripts = new HashSet<>();
     static final Logger log = LoggerFactory.getLogger(ScriptAlgorithmExecutorFactory.class);
 
     public ScriptAlgorithmExecutorFactory(ScriptEngineManager scriptEngineManager, String language,
@@ -49,28 +62,40 @@ public class ScriptAlgorithmExecutorFactory implements AlgorithmExecutorFactory
                 .findFirst()
                 .orElse(null);
 
-        if (factory != null) {
-            scriptEngine = factory.getScriptEngine();
-            scriptEngine.setBindings(scriptEngineManager.getBindings(), ScriptContext.GLOBAL_SCOPE);
-        } else {
+        if (factory == null) {
             throw new ConfigurationException("Cannot get a script engine for language " + language);
         }
+        Bindings managerBindings = scriptEngineManager.getBindings();
+        sharedEngine = SharedScriptEngine.get(factory);
+        if (sharedEngine != null) {
+            scriptEngine = sharedEngine.engine;
+            scriptContext = sharedEngine.createContext(managerBindings);
+        } else {
+            scriptEngine = factory.getScriptEngine();
+            scriptEngine.setBindings(managerBindings, ScriptContext.GLOBAL_SCOPE);
+            scriptContext = scriptEngine.getContext();
+        }
 
         if (libraryNames != null) {
             loadLibraries(libraryNames);
         }
 
         // Put engine bindings in shared global scope - we want the variables in the libraries to be global
-        Bindings commonBindings = scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE);
-        Set<String> existingBindings = new HashSet<>(scriptEngineManager.getBindings().keySet());
+        Bindings commonBindings = scriptContext.getBindings(ScriptContext.ENGINE_SCOPE);
+        Set<String> existingBindings = new HashSet<>(managerBindings.keySet());
 
-        existingBindings.retainAll(commonBindings.keySet());
+        if (sharedEngine != null) {
+            // the manager bindings have been copied in the engine scope, an overlap means they have been redefined
+            existingBindings.removeIf(k -> commonBindings.get(k) == managerBindings.get(k));
+        } else {
+            existingBindings.retainAll(commonBindings.keySet());
+        }
         if (!existingBindings.isEmpty()) {
             throw new ConfigurationException(
                     "Overlapping definitions found while loading libraries for language " + language + ": "
                             + existingBindings);
         }
-        commonBindings.putAll(scriptEngineManager.getBindings());
+        commonBindings.putAll(managerBindings);
         scriptEngineManager.setBindings(commonBindings);
     }
 
@@ -82,13 +107,17 @@ public class ScriptAlgorithmExecutorFactory implements AlgorithmExecutorFactory
                 if (!f.exists()) {
                     throw new ConfigurationException("Algorithm library file '" + f + "' does not exist");
                 }
-                scriptEngine.put(ScriptEngine.FILENAME, f.getPath()); // Improves error msgs
-                if (f.isFile()) {
+                if (!f.isFile()) {
+                    throw new ConfigurationException("Specified library is not a file: " + f);
+                }
+                if (sharedEngine != null) {
+                    String script = new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+                    evalShared(f.getPath(), script);
+                } else {
+                    scriptEngine.put(ScriptEngine.FILENAME, f.getPath()); // Improves error msgs
                     try (FileReader fr = new FileReader(f)) {
                         scriptEngine.eval(fr);
                     }
-                } else {
-                    throw new ConfigurationException("Specified library is not a file: " + f);
                 }
             }
         } catch (IOException e) { // Force exit. User should fix this before continuing
@@ -98,12 +127,27 @@ public class ScriptAlgorithmExecutorFactory implements AlgorithmExecutorFactory
         }
     }
 
+    private synchronized void evalShared(String fileName, String script) throws ScriptException {
+        CompiledScript cs = sharedEngine.compile(fileName, script);
+        compiledScripts.add(cs);
+        cs.eval(scriptContext);
+    }
+
     @Override
     public ScriptAlgorithmExecutor makeExecutor(CustomAlgorithm calg, AlgorithmExecutionContext execCtx) {
         String functionName = calg.getQualifiedName().replace("/", "_");
         String functionScript = generateFunctionCode(functionName, calg);
         log.debug("Evaluating script:\n{}", functionScript);
         try {
+            if (sharedEngine != null) {
+                evalShared(calg.getQualifiedName(), functionScript);
+                JSObject function = SharedScriptEngine.getFunction(scriptContext, functionName);
+                if (function == null) {
+                    throw new AlgorithmException("Function " + functionName + " not defined by script "
+                            + functionScript);
+                }
+                return new ScriptAlgorithmExecutor(calg, function, functionName, functionScript, execCtx);
+            }
             // improve error messages as well as required for event generation to know from where it is called
             scriptEngine.put(ScriptEngine.FILENAME, calg.getQualifiedName());
             scriptEngine.eval(functionScript);
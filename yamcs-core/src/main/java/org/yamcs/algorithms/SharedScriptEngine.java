@@ -0,0 +1,115 @@
+package org.yamcs.algorithms;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+
+import org.openjdk.nashorn.api.scripting.JSObject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Script engine shared by all the processors for one language.
+ * <p>
+ * Creating a script engine and compiling the algorithm and library scripts is expensive. Instead of creating one
+ * engine for each processor, the engines which support multiple independent global scopes (like Nashorn) are created
+ * once and each {@link ScriptAlgorithmExecutorFactory} gets its own {@link ScriptContext} from the engine. The scripts
+ * are compiled once using {@link Compilable} and evaluated in each context.
+ * <p>
+ * The compiled scripts are only weakly referenced from here: each factory keeps the scripts it uses, such that the
+ * scripts are released together with the processors using them.
+ * <p>
+ * The functions defined in a context are called directly through their {@link JSObject}, without looking them up by
+ * name at each invocation.
+ */
+class SharedScriptEngine {
+    // Each ScriptEngineManager creates new factory instances, so they are identified by their class
+    static final Map<Class<?>, SharedScriptEngine> engines = new ConcurrentHashMap<>();
+
+    final ScriptEngine engine;
+    // compiled scripts by file name and script text
+    final Cache<String, CompiledScript> scripts = CacheBuilder.newBuilder().weakValues().build();
+
+    private SharedScriptEngine(ScriptEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the shared engine for the given factory or null if the engine created by the factory cannot be shared
+     * (it is not {@link Compilable} or does not support multiple global scopes)
+     */
+    static SharedScriptEngine get(ScriptEngineFactory factory) {
+        SharedScriptEngine sse = engines.get(factory.getClass());
+        if (sse != null) {
+            return sse;
+        }
+        ScriptEngine engine = factory.getScriptEngine();
+        if (!(engine instanceof Compilable) || !(engine.createBindings() instanceof JSObject)) {
+            return null;
+        }
+        sse = new SharedScriptEngine(engine);
+        SharedScriptEngine sse1 = engines.putIfAbsent(factory.getClass(), sse);
+        return sse1 == null ? sse : sse1;
+    }
+
+    /**
+     * Creates a new context with its own engine scope.
+     * <p>
+     * The global bindings are also copied in the engine scope such that they are resolved as any other global variable
+     * when the functions are called outside of the evaluation of a script.
+     */
+    ScriptContext createContext(Bindings globalBindings) {
+        ScriptContext ctx = new SimpleScriptContext();
+        Bindings engineBindings = engine.createBindings();
+        engineBindings.putAll(globalBindings);
+        ctx.setBindings(engineBindings, ScriptContext.ENGINE_SCOPE);
+        ctx.setBindings(globalBindings, ScriptContext.GLOBAL_SCOPE);
+        return ctx;
+    }
+
+    /**
+     * Returns the compiled script. The script is compiled only if it is not already in use by another factory.
+     * <p>
+     * The caller has to keep a reference to the returned script for as long as it uses it.
+     *
+     * @param fileName
+     *            the name used in the error messages
+     */
+    CompiledScript compile(String fileName, String script) throws ScriptException {
+        try {
+            return scripts.get(fileName + "\n" + script, () -> {
+                synchronized (this) {
+                    // the engine takes the file name from its default context when compiling
+                    engine.put(ScriptEngine.FILENAME, fileName);
+                    return ((Compilable) engine).compile(script);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ScriptException se) {
+                throw se;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the function with the given name defined in the context or null if there is no such function
+     */
+    static JSObject getFunction(ScriptContext ctx, String functionName) {
+        Object o = ctx.getBindings(ScriptContext.ENGINE_SCOPE).get(functionName);
+        if (o instanceof JSObject jso && jso.isFunction()) {
+            return jso;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,224 @@
+package org.yamcs.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.OnParameterUpdateTrigger;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.TriggerSetType;
+
+/**
+ * Inverted index from parameters to the algorithms which use them as input or as trigger.
+ * <p>
+ * The algorithms are identified by their position in the execution order, visiting the positions in increasing order
+ * preserves the order in which the algorithms are executed.
+ * <p>
+ * For the parallel execution, the algorithms are also assigned to layers: the algorithms from the same layer do not
+ * depend on each other and can run at the same time. Running the layers in increasing order, with the outputs of each
+ * layer merged in execution order at the end of the layer, each algorithm sees the same inputs as when running the
+ * algorithms sequentially.
+ * <p>
+ * The index is immutable, it is rebuilt by the {@link AlgorithmExecutionContext} when algorithms are added or removed.
+ */
+class TriggerIndex {
+    final ActiveAlgorithm[] algorithms;
+    final Map<Parameter, int[]> byParameter;
+    // algorithms which have to be updated with each delivery
+    final BitSet unconditional;
+
+    // the fields below are only set if the layers are computed
+    // layer of each algorithm
+    int[] layer;
+    int numLayers;
+    // positions sorted by layer and by position inside the layer; the layer k starts at layerStart[k]
+    int[] byLayer;
+    int[] layerStart;
+    // true for the algorithms which can run in parallel with the others
+    boolean[] parallelSafe;
+
+    TriggerIndex(List<ActiveAlgorithm> executionOrder, boolean computeLayers) {
+        algorithms = executionOrder.toArray(new ActiveAlgorithm[0]);
+        unconditional = new BitSet(algorithms.length);
+
+        Map<Parameter, List<Integer>> m = new HashMap<>();
+        for (int i = 0; i < algorithms.length; i++) {
+            ActiveAlgorithm activeAlgo = algorithms[i];
+            if (!isIndexable(activeAlgo)) {
+                unconditional.set(i);
+                continue;
+            }
+            for (Parameter p : getParametersOfInterest(activeAlgo)) {
+                m.computeIfAbsent(p, k -> new ArrayList<>()).add(i);
+            }
+        }
+        byParameter = new HashMap<>(m.size() * 2);
+        for (var me : m.entrySet()) {
+            byParameter.put(me.getKey(), me.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        if (computeLayers) {
+            computeLayers();
+        }
+    }
+
+    /**
+     * Assigns each algorithm i to the lowest layer such that for any previous algorithm j:
+     * <ul>
+     * <li>if j produces a parameter used by i, layer(i) &gt; layer(j) such that i sees the output of j.</li>
+     * <li>if i produces a parameter used by j, layer(i) &ge; layer(j) such that j does not see the output of i.</li>
+     * <li>if i and j produce the same parameter, layer(i) &ge; layer(j) such that the value of i is the last one.</li>
+     * </ul>
+     * The algorithms whose inputs cannot be known (not derived from {@link AbstractAlgorithmExecutor}) are placed alone
+     * in a layer after all the previous ones, and all the following algorithms are placed after it.
+     */
+    private void computeLayers() {
+        int n = algorithms.length;
+        layer = new int[n];
+        parallelSafe = new boolean[n];
+        Map<Parameter, List<Integer>> producers = new HashMap<>();
+        Map<Parameter, List<Integer>> consumers = new HashMap<>();
+        int floor = 0;
+        int maxLayer = -1;
+
+        for (int i = 0; i < n; i++) {
+            ActiveAlgorithm activeAlgo = algorithms[i];
+            parallelSafe[i] = activeAlgo.executor.isParallelSafe();
+            Set<Parameter> outputs = getOutputs(activeAlgo);
+
+            if (!(activeAlgo.executor instanceof AbstractAlgorithmExecutor)) {
+                layer[i] = maxLayer + 1;
+                floor = layer[i] + 1;
+                maxLayer = layer[i];
+                continue;
+            }
+
+            Set<Parameter> inputs = getParametersOfInterest(activeAlgo);
+            int l = floor;
+            for (Parameter p : inputs) {
+                for (int j : producers.getOrDefault(p, List.of())) {
+                    l = Math.max(l, layer[j] + 1);
+                }
+            }
+            for (Parameter p : outputs) {
+                for (int j : consumers.getOrDefault(p, List.of())) {
+                    l = Math.max(l, layer[j]);
+                }
+                for (int j : producers.getOrDefault(p, List.of())) {
+                    l = Math.max(l, layer[j]);
+                }
+            }
+            layer[i] = l;
+            maxLayer = Math.max(maxLayer, l);
+
+            for (Parameter p : inputs) {
+                consumers.computeIfAbsent(p, k -> new ArrayList<>()).add(i);
+            }
+            for (Parameter p : outputs) {
+                producers.computeIfAbsent(p, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        numLayers = maxLayer + 1;
+        layerStart = new int[numLayers + 1];
+        for (int i = 0; i < n; i++) {
+            layerStart[layer[i] + 1]++;
+        }
+        for (int k = 0; k < numLayers; k++) {
+            layerStart[k + 1] += layerStart[k];
+        }
+        byLayer = new int[n];
+        int[] next = Arrays.copyOf(layerStart, numLayers);
+        for (int i = 0; i < n; i++) {
+            byLayer[next[layer[i]]++] = i;
+        }
+    }
+    /**
+     * The {@link AbstractAlgorithmExecutor} only runs if one of the parameters from the trigger set is part of the
+     * delivery so these algorithms can be skipped if none of their inputs and triggers is part of the delivery.
+     * <p>
+     * Other executors may decide to run based on anything, as well as the algorithms without trigger set which run
+     * with each delivery.
+     */
+    static boolean isIndexable(ActiveAlgorithm activeAlgo) {
+        if (!(activeAlgo.executor instanceof AbstractAlgorithmExecutor)) {
+            return false;
+        }
+        TriggerSetType triggerSet = activeAlgo.getAlgorithm().getTriggerSet();
+        return triggerSet != null && !triggerSet.isEmpty();
+    }
+
+    private static Set<Parameter> getParametersOfInterest(ActiveAlgorithm activeAlgo) {
+        Set<Parameter> s = new LinkedHashSet<>();
+        TriggerSetType triggerSet = activeAlgo.getAlgorithm().getTriggerSet();
+        if (triggerSet != null) {
+            for (OnParameterUpdateTrigger trigger : triggerSet.getOnParameterUpdateTriggers()) {
+                s.add(trigger.getParameter());
+            }
+        }
+        addInputs(s, activeAlgo.getAlgorithm().getInputList());
+        addInputs(s, activeAlgo.getInputList());
+        return s;
+    }
+
+    private static Set<Parameter> getOutputs(ActiveAlgorithm activeAlgo) {
+        Set<Parameter> s = new LinkedHashSet<>();
+        addOutputs(s, activeAlgo.getAlgorithm().getOutputList());
+        addOutputs(s, activeAlgo.getOutputList());
+        return s;
+    }
+
+    private static void addOutputs(Set<Parameter> s, List<OutputParameter> outputList) {
+        if (outputList == null) {
+            return;
+        }
+        for (OutputParameter op : outputList) {
+            s.add(op.getParameter());
+        }
+    }
+
+    private static void addInputs(Set<Parameter> s, List<InputParameter> inputList) {
+        if (inputList == null) {
+            return;
+        }
+        for (InputParameter ip : inputList) {
+            if (ip.getParameterInstance() != null) {
+                s.add(ip.getParameterInstance().getParameter());
+            }
+        }
+    }
+
+    /**
+     * Marks in the bitset the positions of the algorithms depending on the parameter values
+     */
+    void mark(BitSet pending, Iterable<ParameterValue> params) {
+        mark(pending, params, 0);
+    }
+
+    /**
+     * Same as above but only the positions greater or equal than {@code fromPosition} are marked
+     */
+    void mark(BitSet pending, Iterable<ParameterValue> params, int fromPosition) {
+        for (ParameterValue pv : params) {
+            int[] positions = byParameter.get(pv.getParameter());
+            if (positions != null) {
+                for (int i : positions) {
+                    if (i >= fromPosition) {
+                        pending.set(i);
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return algorithms.length;
+    }
+}
@@ -0,0 +1,589 @@
+package org.yamcs.archive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.logging.Log;
+import org.yamcs.utils.ByteArrayUtils;
+import org.yamcs.utils.TimeInterval;
+import org.yamcs.yarch.DbRange;
+import org.yamcs.yarch.ExecutionContext;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableVisitor;
+import org.yamcs.yarch.TableWalker;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchDatabase;
+import org.yamcs.yarch.YarchDatabaseInstance;
+import org.yamcs.yarch.YarchException;
+import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.rocksdb.RdbStorageEngine;
+import org.yamcs.yarch.rocksdb.Tablespace;
+import org.yamcs.yarch.rocksdb.YRDB;
+import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord;
+import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord.Type;
+import org.yamcs.yarch.streamsql.StreamSqlException;
+
+/**
+ * Inverted index of the event messages, used to search the events table without reading all the events.
+ * <p>
+ * The messages are split in tokens (sequences of letters and digits, converted to lower case). For each token of an
+ * event there is one record in the {@value #CF_NAME} column family:
+ *
+ * <pre>
+ * key: tbsIndex[4 bytes], token[utf8], 0[1 byte], gentime[8 bytes], event primary key
+ * value: empty
+ * </pre>
+ *
+ * The records of one token (its posting list) are therefore sorted by generation time. An additional record with the
+ * tbsIndex as key marks that all the events from the table have been indexed.
+ * <p>
+ * Each word of a search query is matched against the beginning of the tokens; the posting lists of the tokens starting
+ * with the same word are merged and the resulting lists of the different words are intersected. The search yields a
+ * superset of the events containing the words, it is up to the caller to verify the messages.
+ */
+public class EventIndex implements StreamSubscriber {
+
+    public static final String CF_NAME = "events_index";
+
+    /**
+     * Tokens are truncated to this number of characters. A query word is matched against the beginning of the tokens,
+     * so truncating does not lose any match.
+     */
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    /**
+     * Maximum number of tokens a query word can expand to. Searches with shorter (more common) words are better done
+     * by scanning the table.
+     */
+    static final int MAX_EXPANSION = 256;
+
+    private static final int TBS_INDEX_SIZE = 4;
+    private static final byte[] EMPTY = new byte[0];
+    private static final AtomicInteger searchCounter = new AtomicInteger();
+
+    private final Log log;
+    private final String yamcsInstance;
+    private final YarchDatabaseInstance ydb;
+    private final TableDefinition tblDef;
+    private final YRDB rdb;
+    private final ColumnFamilyHandle cfh;
+    private final int tbsIndex;
+
+    private volatile boolean complete;
+    private volatile boolean stopping;
+    private volatile TableWalker backfillWalker;
+
+    public EventIndex(String yamcsInstance) throws RocksDBException {
+        this.yamcsInstance = yamcsInstance;
+        log = new Log(EventIndex.class, yamcsInstance);
+        ydb = YarchDatabase.getInstance(yamcsInstance);
+        tblDef = ydb.getTable(EventRecorder.TABLE_NAME);
+        if (tblDef == null) {
+            throw new IllegalStateException("Table " + EventRecorder.TABLE_NAME + " does not exist");
+        }
+
+        Tablespace tablespace = RdbStorageEngine.getInstance().getTablespace(ydb);
+        rdb = tablespace.getRdb();
+        cfh = rdb.createAndGetColumnFamilyHandle(CF_NAME);
+
+        List<TablespaceRecord> l = tablespace.filter(Type.EVENT_INDEX, yamcsInstance, tr -> true);
+        if (l.isEmpty()) {
+            TablespaceRecord tbr = tablespace.createMetadataRecord(yamcsInstance,
+                    TablespaceRecord.newBuilder().setType(Type.EVENT_INDEX));
+            tbsIndex = tbr.getTbsIndex();
+        } else {
+            tbsIndex = l.get(0).getTbsIndex();
+            complete = rdb.get(cfh, completeKey()) != null;
+        }
+    }
+
+    /**
+     * Removes the index of the given instance, if there is one.
+     * <p>
+     * Called when the index is disabled, so that it does not miss the events recorded in the meantime when it is
+     * enabled again.
+     */
+    public static void remove(String yamcsInstance) throws RocksDBException {
+        YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
+        Tablespace tablespace = RdbStorageEngine.getInstance().getTablespace(ydb);
+        for (TablespaceRecord tr : tablespace.filter(Type.EVENT_INDEX, yamcsInstance, tr -> true)) {
+            YRDB rdb = tablespace.getRdb();
+            ColumnFamilyHandle cfh = rdb.getColumnFamilyHandle(CF_NAME);
+            if (cfh != null) {
+                byte[] beginKey = ByteArrayUtils.encodeInt(tr.getTbsIndex());
+                byte[] endKey = ByteArrayUtils.encodeInt(tr.getTbsIndex() + 1);
+                rdb.getDb().deleteRange(cfh, beginKey, endKey);
+            }
+            tablespace.removeTbsIndex(Type.EVENT_INDEX, tr.getTbsIndex());
+        }
+    }
+
+    /**
+     * Returns true if all the events from the table are indexed.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public void onTuple(Stream stream, Tuple tuple) {
+        try {
+            byte[] pk = tblDef.generateRow(tuple).getKey();
+            long gentime = tuple.getTimestampColumn(StandardTupleDefinitions.GENTIME_COLUMN);
+            Event event = (Event) tuple.getColumn(StandardTupleDefinitions.BODY_COLUMN);
+            addEvent(gentime, pk, event.getMessage());
+        } catch (YarchException | RocksDBException e) {
+            log.warn("Failed to index event {}", tuple, e);
+        }
+    }
+
+    private void addEvent(long gentime, byte[] pk, String message) throws RocksDBException {
+        Set<String> tokens = tokenize(message);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        byte[] posting = new byte[8 + pk.length];
+        ByteArrayUtils.encodeLong(gentime ^ Long.MIN_VALUE, posting, 0);
+        System.arraycopy(pk, 0, posting, 8, pk.length);
+
+        try (WriteBatch wb = new WriteBatch(); WriteOptions wo = new WriteOptions()) {
+            for (String token : tokens) {
+                wb.put(cfh, concat(tokenPrefix(token), posting), EMPTY);
+            }
+            rdb.getDb().write(wo, wb);
+        }
+    }
+
+    /**
+     * Indexes in a background thread the events already present in the table, then marks the index as complete.
+     * <p>
+     * New events have to be indexed (by subscribing to the event streams) before calling this method.
+     */
+    void startBackfill() {
+        stopping = false;
+        new Thread(this::backfill, "EventIndexBackfill[" + yamcsInstance + "]").start();
+    }
+
+    void stopBackfill() {
+        stopping = true;
+        TableWalker walker = backfillWalker;
+        if (walker != null) {
+            walker.close();
+        }
+    }
+
+    private void backfill() {
+        log.info("Indexing the event messages from table {}", tblDef.getName());
+        try (ExecutionContext ctx = new ExecutionContext(ydb)) {
+            TableWalker walker = ydb.getStorageEngine(tblDef).newTableWalker(ctx, tblDef, true, false);
+            backfillWalker = walker;
+            if (stopping) {
+                return;
+            }
+            walker.walk((k, v) -> {
+                Tuple tuple = tblDef.deserialize(k, v);
+                Event event = (Event) tuple.getColumn(StandardTupleDefinitions.BODY_COLUMN);
+                try {
+                    addEvent(tuple.getTimestampColumn(StandardTupleDefinitions.GENTIME_COLUMN), k,
+                            event.getMessage());
+                } catch (RocksDBException e) {
+                    throw new YarchException(e);
+                }
+                return stopping ? TableVisitor.ACTION_STOP : TableVisitor.ACTION_CONTINUE;
+            });
+            if (!stopping) {
+                rdb.put(cfh, completeKey(), EMPTY);
+                complete = true;
+                log.info("Event messages indexed");
+            }
+        } catch (YarchException | StreamSqlException | RocksDBException e) {
+            log.error("Failed to index the event messages", e);
+        } finally {
+            backfillWalker = null;
+        }
+    }
+
+    /**
+     * Creates a stream emitting the events whose messages contain tokens starting with each of the words of the
+     * query, in the given time interval, sorted by generation time.
+     * <p>
+     * The stream is registered in the database under a unique name, so that it can be used as source in a select
+     * statement, and is removed when closed.
+     *
+     * @return the stream, or null if the query cannot be resolved with the index: it does not contain any word, it
+     *         contains wildcards or its words are too short
+     */
+    public Stream newSearchStream(String query, TimeInterval interval, boolean ascending) {
+        if (query.indexOf('%') >= 0 || query.indexOf('?') >= 0) {
+            return null;
+        }
+        Set<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return null;
+        }
+
+        ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+        List<WordPostings> wordPostings = new ArrayList<>(words.size());
+        try {
+            for (String word : words) {
+                List<String> tokens = expand(readOptions, word);
+                if (tokens == null) {
+                    log.debug("Word '{}' matches too many tokens, not using the index", word);
+                    wordPostings.forEach(WordPostings::close);
+                    readOptions.close();
+                    return null;
+                }
+                List<TokenPostings> tokenPostings = new ArrayList<>(tokens.size());
+                for (String token : tokens) {
+                    RocksIterator it = rdb.getDb().newIterator(cfh, readOptions);
+                    tokenPostings.add(new TokenPostings(it, tokenPrefix(token), interval, ascending));
+                }
+                wordPostings.add(new WordPostings(tokenPostings, ascending));
+            }
+        } catch (RuntimeException e) {
+            wordPostings.forEach(WordPostings::close);
+            readOptions.close();
+            throw e;
+        }
+
+        SearchStream stream = new SearchStream(wordPostings, readOptions, ascending);
+        try {
+            ydb.addStream(stream);
+        } catch (YarchException e) {
+            stream.release();
+            throw e;
+        }
+        return stream;
+    }
+
+    /**
+     * Returns the indexed tokens starting with the word, or null if there are more than {@link #MAX_EXPANSION}
+     */
+    private List<String> expand(ReadOptions readOptions, String word) {
+        byte[] wordPrefix = concat(ByteArrayUtils.encodeInt(tbsIndex),
+                word.getBytes(UTF_8));
+        List<String> tokens = new ArrayList<>();
+        try (RocksIterator it = rdb.getDb().newIterator(cfh, readOptions)) {
+            it.seek(wordPrefix);
+            while (it.isValid()) {
+                byte[] k = it.key();
+                if (!startsWith(k, wordPrefix)) {
+                    break;
+                }
+                int end = TBS_INDEX_SIZE;
+                while (end < k.length && k[end] != 0) {
+                    end++;
+                }
+                tokens.add(new String(k, TBS_INDEX_SIZE, end - TBS_INDEX_SIZE, UTF_8));
+                if (tokens.size() > MAX_EXPANSION) {
+                    return null;
+                }
+                // skip the posting list of this token
+                byte[] next = Arrays.copyOf(k, end + 1);
+                next[end] = 1;
+                it.seek(next);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Splits the text in lower case tokens made of letters and digits.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                int end = Math.min(i, start + MAX_TOKEN_LENGTH);
+                tokens.add(text.substring(start, end).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private byte[] completeKey() {
+        return ByteArrayUtils.encodeInt(tbsIndex);
+    }
+
+    private byte[] tokenPrefix(String token) {
+        byte[] tb = token.getBytes(UTF_8);
+        byte[] prefix = new byte[TBS_INDEX_SIZE + tb.length + 1];
+        ByteArrayUtils.encodeInt(tbsIndex, prefix, 0);
+        System.arraycopy(tb, 0, prefix, TBS_INDEX_SIZE, tb.length);
+        return prefix;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] r = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    private static boolean startsWith(byte[] a, byte[] prefix) {
+        return a.length >= prefix.length && Arrays.equals(a, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static boolean before(byte[] p1, byte[] p2, boolean ascending) {
+        int c = Arrays.compareUnsigned(p1, p2);
+        return ascending ? c < 0 : c > 0;
+    }
+
+    /**
+     * Iterates over the posting list of one token, restricted to a time interval.
+     * <p>
+     * The postings are the keys without the token prefix: gentime followed by the event primary key.
+     */
+    private static class TokenPostings {
+        final RocksIterator it;
+        final byte[] prefix;
+        final byte[] lower; // inclusive
+        final byte[] upper; // exclusive
+        final boolean ascending;
+        byte[] current;
+
+        TokenPostings(RocksIterator it, byte[] prefix, TimeInterval interval, boolean ascending) {
+            this.it = it;
+            this.prefix = prefix;
+            this.ascending = ascending;
+            if (interval.hasStart()) {
+                lower = concat(prefix, ByteArrayUtils.encodeLong(interval.getStart() ^ Long.MIN_VALUE));
+            } else {
+                lower = prefix;
+            }
+            if (interval.hasEnd()) {
+                upper = concat(prefix, ByteArrayUtils.encodeLong(interval.getEnd() ^ Long.MIN_VALUE));
+            } else {
+                upper = Arrays.copyOf(prefix, prefix.length);
+                upper[upper.length - 1] = 1;
+            }
+            if (ascending) {
+                it.seek(lower);
+            } else {
+                it.seekForPrev(upper);
+            }
+            update();
+        }
+
+        void next() {
+            if (ascending) {
+                it.next();
+            } else {
+                it.prev();
+            }
+            update();
+        }
+
+        /**
+         * Moves to the first posting equal to or after the target in the iteration direction
+         */
+        void seek(byte[] target) {
+            byte[] k = concat(prefix, target);
+            if (ascending) {
+                it.seek(k);
+            } else {
+                it.seekForPrev(k);
+            }
+            update();
+        }
+
+        private void update() {
+            current = null;
+            if (it.isValid()) {
+                byte[] k = it.key();
+                if (ByteArrayUtils.compare(k, lower) >= 0 && ByteArrayUtils.compare(k, upper) < 0) {
+                    current = Arrays.copyOfRange(k, prefix.length, k.length);
+                }
+            }
+        }
+
+        void close() {
+            it.close();
+        }
+    }
+
+    /**
+     * Merges the posting lists of all the tokens starting with a query word.
+     */
+    private static class WordPostings {
+        final List<TokenPostings> tokens;
+        final boolean ascending;
+        byte[] current;
+
+        WordPostings(List<TokenPostings> tokens, boolean ascending) {
+            this.tokens = tokens;
+            this.ascending = ascending;
+            update();
+        }
+
+        void next() {
+            byte[] c = current;
+            for (TokenPostings tp : tokens) {
+                if (tp.current != null && Arrays.equals(tp.current, c)) {
+                    tp.next();
+                }
+            }
+            update();
+        }
+
+        void seek(byte[] target) {
+            for (TokenPostings tp : tokens) {
+                if (tp.current != null && before(tp.current, target, ascending)) {
+                    tp.seek(target);
+                }
+            }
+            update();
+        }
+
+        private void update() {
+            current = null;
+            for (TokenPostings tp : tokens) {
+                if (tp.current != null && (current == null || before(tp.current, current, ascending))) {
+                    current = tp.current;
+                }
+            }
+        }
+
+        void close() {
+            tokens.forEach(TokenPostings::close);
+        }
+    }
+
+    /**
+     * Emits the events present in the posting lists of all the query words.
+     */
+    private class SearchStream extends Stream implements Runnable {
+        final List<WordPostings> words;
+        final ReadOptions readOptions;
+        final boolean ascending;
+        final ExecutionContext ctx;
+        byte[] match;
+        Thread thread;
+        boolean released;
+
+        SearchStream(List<WordPostings> words, ReadOptions readOptions, boolean ascending) {
+            super(EventIndex.this.ydb, "event_search" + searchCounter.incrementAndGet(),
+                    tblDef.getTupleDefinition());
+            this.words = words;
+            this.readOptions = readOptions;
+            this.ascending = ascending;
+            ctx = new ExecutionContext(ydb);
+        }
+
+        @Override
+        public void doStart() {
+            thread = new Thread(this, "EventSearchStream[" + getName() + "]");
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] posting;
+                while (isRunning() && (posting = nextMatch()) != null) {
+                    Tuple tuple = fetch(posting);
+                    if (tuple != null) {
+                        emitTuple(tuple);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error searching the event index", e);
+            } finally {
+                release();
+                close();
+            }
+        }
+
+        /**
+         * Returns the next posting present in the lists of all words, or null if there is none
+         */
+        private byte[] nextMatch() {
+            if (match != null) {
+                words.forEach(WordPostings::next);
+                match = null;
+            }
+            while (true) {
+                byte[] target = null;
+                for (WordPostings w : words) {
+                    if (w.current == null) {
+                        return null;
+                    }
+                    if (target == null || before(target, w.current, ascending)) {
+                        target = w.current;
+                    }
+                }
+                boolean aligned = true;
+                for (WordPostings w : words) {
+                    if (!Arrays.equals(w.current, target)) {
+                        w.seek(target);
+                        aligned = false;
+                    }
+                }
+                if (aligned) {
+                    match = target;
+                    return target;
+                }
+            }
+        }
+
+        /**
+         * Reads the event from the table, returns null if it is not there anymore
+         */
+        private Tuple fetch(byte[] posting) throws StreamSqlException {
+            long gentime = ByteArrayUtils.decodeLong(posting, 0) ^ Long.MIN_VALUE;
+            byte[] pk = Arrays.copyOfRange(posting, 8, posting.length);
+
+            TableWalker walker = ydb.getStorageEngine(tblDef).newTableWalker(ctx, tblDef, true, false);
+            walker.setPartitionFilter(new TimeInterval(gentime, gentime + 1), null);
+            DbRange range = new DbRange();
+            range.rangeStart = pk;
+            range.rangeEnd = pk;
+            walker.setPrimaryIndexRange(range);
+
+            Tuple[] result = new Tuple[1];
+            walker.walk((k, v) -> {
+                if (Arrays.equals(k, pk)) {
+                    result[0] = tblDef.deserialize(k, v);
+                }
+                return TableVisitor.ACTION_STOP;
+            });
+            return result[0];
+        }
+
+        synchronized void release() {
+            if (!released) {
+                released = true;
+                words.forEach(WordPostings::close);
+                readOptions.close();
+                ctx.close();
+            }
+        }
+
+        @Override
+        protected void doClose() {
+            // when running, the resources are released by the thread
+            if (thread == null) {
+                release();
+            }
+        }
+    }
+}
@@ -2,12 +2,14 @@ package org.yamcs.archive;
 
 import java.util.stream.Collectors;
 
+import org.rocksdb.RocksDBException;
 import org.yamcs.AbstractYamcsService;
 import org.yamcs.InitException;
 import org.yamcs.StreamConfig;
 import org.yamcs.StreamConfig.StreamConfigEntry;
 import org.yamcs.YConfiguration;
 import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.protobuf.Db.Event;
@@ -23,7 +25,9 @@ public class EventRecorder extends AbstractYamcsService {
     public static final String REALTIME_EVENT_STREAM_NAME = "events_realtime";
     public static final String DUMP_EVENT_STREAM_NAME = "events_dump";
     public static final String CF_NAME = XtceTmRecorder.CF_NAME;
-    
+
+    private EventIndex eventIndex;
+
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
         super.init(yamcsInstance, serviceName, config);
@@ -52,10 +56,30 @@ public class EventRecorder extends AbstractYamcsService {
         } catch (ParseException | StreamSqlException e) {
             throw new InitException(e);
         }
+
+        try {
+            if (config.getBoolean("fullTextIndex", false)) {
+                eventIndex = new EventIndex(yamcsInstance);
+            } else {
+                EventIndex.remove(yamcsInstance);
+            }
+        } catch (RocksDBException e) {
+            throw new InitException("Failed to open the event index", e);
+        }
     }
 
     @Override
     protected void doStart() {
+        if (eventIndex != null) {
+            YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
+            StreamConfig sc = StreamConfig.getInstance(yamcsInstance);
+            for (StreamConfigEntry sce : sc.getEntries(StreamConfig.StandardStreamType.EVENT)) {
+                ydb.getStream(sce.getName()).addSubscriber(eventIndex);
+            }
+            if (!eventIndex.isComplete()) {
+                eventIndex.startBackfill();
+            }
+        }
         notifyStarted();
     }
 
@@ -64,8 +88,24 @@ public class EventRecorder extends AbstractYamcsService {
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
         StreamConfig sc = StreamConfig.getInstance(yamcsInstance);
 
+        if (eventIndex != null) {
+            eventIndex.stopBackfill();
+            for (StreamConfigEntry sce : sc.getEntries(StreamConfig.StandardStreamType.EVENT)) {
+                Stream stream = ydb.getStream(sce.getName());
+                if (stream != null) {
+                    stream.removeSubscriber(eventIndex);
+                }
+            }
+        }
         Utils.closeTableWriters(ydb, sc.getEntries().stream().map(sce -> sce.getName()).collect(Collectors.toList()));
 
         notifyStopped();
     }
+
+    /**
+     * Returns the full-text index of the event messages, or null if it is not enabled.
+     */
+    public EventIndex getEventIndex() {
+        return eventIndex;
+    }
 }
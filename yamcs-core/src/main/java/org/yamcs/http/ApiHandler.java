@@ -15,13 +15,17 @@ import com.google.protobuf.Message;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
-import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.DeflateFrameServerExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -58,7 +62,10 @@ public class ApiHandler extends HttpHandler {
         var nettyRequest = ctx.getNettyHttpRequest();
         var uri = HttpUtils.getPathWithoutContext(nettyRequest, ctx.getContextPath());
         if (uri.equals(HttpServer.WEBSOCKET_ROUTE.getGet())) {
-            if (nettyRequest.method() == HttpMethod.GET) {
+            if (nettyContext.channel() instanceof Http2StreamChannel) {
+                // Clients open a separate HTTP/1.1 connection for WebSocket
+                throw new BadRequestException("WebSocket upgrade requires HTTP/1.1");
+            } else if (nettyRequest.method() == HttpMethod.GET) {
                 prepareChannelForWebSocketUpgrade(nettyContext, nettyRequest, ctx.getUser());
                 return;
             } else {
@@ -122,11 +129,14 @@ public class ApiHandler extends HttpHandler {
         var pipeline = nettyContext.pipeline();
         pipeline.addLast(new HttpObjectAggregator(65536));
         pipeline.addLast(new WebSocketFrameDropper(waterMark.high()));
-        pipeline.addLast(new WebSocketServerCompressionHandler());
+        var compressionConfig = wsConfig.getConfig("compression");
+        if (compressionConfig.getBoolean("enabled")) {
+            pipeline.addLast(createCompressionHandler(compressionConfig));
+        }
 
         // Add websocket-specific handlers to channel pipeline
         String webSocketPath = req.uri();
-        String subprotocols = "json, protobuf";
+        String subprotocols = "json, protobuf, " + WebSocketBatchMessageHandler.SUBPROTOCOL;
         pipeline.addLast(new WebSocketServerProtocolHandler(webSocketPath, subprotocols, true, maxFrameLength));
 
         // Emit idle events (interpreted by WebSocketFrameHandler).
@@ -142,6 +152,21 @@ public class ApiHandler extends HttpHandler {
         nettyContext.fireChannelRead(req);
     }
 
+    /**
+     * Negotiates permessage-deflate (and the older deflate-frame) compression with the client
+     */
+    private static WebSocketServerExtensionHandler createCompressionHandler(YConfiguration compressionConfig) {
+        int level = compressionConfig.getInt("level");
+        boolean allowServerNoContext = compressionConfig.getBoolean("allowServerNoContextTakeover");
+        boolean preferredClientNoContext = compressionConfig.getBoolean("requestClientNoContextTakeover");
+        return new WebSocketServerExtensionHandler(
+                new PerMessageDeflateServerExtensionHandshaker(level,
+                        ZlibCodecFactory.isSupportingWindowSizeAndMemLevel(),
+                        PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE,
+                        allowServerNoContext, preferredClientNoContext),
+                new DeflateFrameServerExtensionHandshaker(level));
+    }
+
     private RouteMatch matchRoute(HttpMethod method, String uri) throws MethodNotAllowedException {
         for (Route route : httpServer.getRoutes()) {
             if (route.getHttpMethod().equals(method)) {
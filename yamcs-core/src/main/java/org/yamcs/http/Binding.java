@@ -18,8 +18,15 @@ import org.yamcs.YConfiguration;
 
 import com.google.common.io.ByteStreams;
 
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 
 public class Binding {
 
@@ -27,6 +34,10 @@ public class Binding {
     private int port;
     private List<String> tlsCerts;
     private String tlsKey;
+    private boolean http2;
+    private boolean epoll;
+    private boolean reusePort;
+    private int acceptThreads = 1;
 
     public Binding(int port) {
         this(null, port);
@@ -50,6 +61,50 @@ public class Binding {
         this.tlsKey = tlsKey;
     }
 
+    /**
+     * Whether HTTP/2 is offered on this binding: negotiated with ALPN when using TLS, otherwise (h2c) with an HTTP/1.1
+     * upgrade or with prior knowledge.
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * Whether the native epoll transport should be used for this binding. Ignored (with a warning) on platforms where
+     * it is not available.
+     */
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    public void setEpoll(boolean epoll) {
+        this.epoll = epoll;
+    }
+
+    /**
+     * Whether the server socket is bound with {@code SO_REUSEPORT}, once for each accept thread. Only applies to the
+     * epoll transport.
+     */
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public int getAcceptThreads() {
+        return acceptThreads;
+    }
+
+    public void setAcceptThreads(int acceptThreads) {
+        this.acceptThreads = acceptThreads;
+    }
+
     public InetAddress getAddress() {
         return address;
     }
@@ -68,9 +123,17 @@ public class Binding {
 
         try (InputStream chain = new ByteArrayInputStream(buf.toByteArray());
                 InputStream key = new FileInputStream(tlsKey)) {
-            return SslContextBuilder
-                    .forServer(chain, key)
-                    .build();
+            SslContextBuilder builder = SslContextBuilder.forServer(chain, key);
+            if (http2) {
+                builder.ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                        .applicationProtocolConfig(new ApplicationProtocolConfig(
+                                Protocol.ALPN,
+                                SelectorFailureBehavior.NO_ADVERTISE,
+                                SelectedListenerFailureBehavior.ACCEPT,
+                                ApplicationProtocolNames.HTTP_2,
+                                ApplicationProtocolNames.HTTP_1_1));
+            }
+            return builder.build();
         }
     }
 
@@ -87,6 +150,10 @@ public class Binding {
             String tlsKey = config.getString("tlsKey");
             binding.setTLS(tlsCerts, tlsKey);
         }
+        binding.setHttp2(config.getBoolean("http2", false));
+        binding.setEpoll(config.getBoolean("epoll", false));
+        binding.setReusePort(config.getBoolean("reusePort", false));
+        binding.setAcceptThreads(config.getInt("acceptThreads", 1));
         return binding;
     }
 
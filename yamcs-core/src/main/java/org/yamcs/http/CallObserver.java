@@ -27,6 +27,7 @@ import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
@@ -170,9 +171,12 @@ public class CallObserver implements Observer<Message> {
                 ctx.reportStatusCode(status.code());
                 return HttpRequestHandler.sendPlainTextError(ctx.nettyContext, req, status, e.toString());
             }
-            HttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, body);
+            FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, body);
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType.toString());
             response.headers().set(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+            if (ctx.pendingCacheEntry != null) {
+                response = ctx.pendingCacheEntry.store(response);
+            }
             ctx.reportStatusCode(OK.code());
             return HttpRequestHandler.sendResponse(ctx.nettyContext, req, response);
         }
@@ -209,9 +213,12 @@ public class CallObserver implements Observer<Message> {
             return HttpRequestHandler.sendPlainTextError(ctx.nettyContext, ctx.nettyRequest, INTERNAL_SERVER_ERROR,
                     e.toString());
         }
-        HttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, body);
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, body);
         response.headers().set(CONTENT_TYPE, contentType.toString());
         response.headers().set(CONTENT_LENGTH, body.readableBytes());
+        if (status == OK && ctx.pendingCacheEntry != null) {
+            response = ctx.pendingCacheEntry.store(response);
+        }
 
         return HttpRequestHandler.sendResponse(ctx.nettyContext, ctx.nettyRequest, response);
     }
@@ -52,6 +52,7 @@ import io.netty.handler.codec.http.multipart.Attribute;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.ssl.SslHandler;
 
 public class HandlerContext {
@@ -84,7 +85,10 @@ public class HandlerContext {
      * @return a url of the form [protocol]://[host]:[port][context]
      */
     public String getRequestBaseURL() {
-        boolean tls = nettyContext.channel().pipeline().get(SslHandler.class) != null;
+        // With HTTP/2, the TLS handler is in the pipeline of the parent (connection) channel
+        var channel = nettyContext.channel();
+        boolean tls = channel.pipeline().get(SslHandler.class) != null
+                || (channel instanceof Http2StreamChannel && channel.parent().pipeline().get(SslHandler.class) != null);
         String forwardedProto = nettyRequest.headers().get("x-forwarded-proto");
         if ("https".equals(forwardedProto)) {
             tls = true;
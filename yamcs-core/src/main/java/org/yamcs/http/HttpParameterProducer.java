@@ -0,0 +1,110 @@
+package org.yamcs.http;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.SystemParametersProducer;
+import org.yamcs.parameter.SystemParametersService;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.UnitType;
+
+/**
+ * Publishes HTTP API usage as system parameters, aggregated per API service (for example AlarmsApi or MdbApi).
+ */
+public class HttpParameterProducer implements SystemParametersProducer {
+
+    private final HttpServer httpServer;
+
+    private Parameter spInFlight;
+    private Parameter spActiveSubscriptions;
+    private Map<String, ServiceParameters> serviceParameters = new TreeMap<>();
+
+    public HttpParameterProducer(SystemParametersService sysParamsService, HttpServer httpServer) {
+        this.httpServer = httpServer;
+
+        spInFlight = sysParamsService.createSystemParameter("http/inFlight", Type.UINT32,
+                "Number of HTTP API requests that are currently being handled");
+        spActiveSubscriptions = sysParamsService.createSystemParameter("http/activeSubscriptions", Type.UINT32,
+                "Number of WebSocket subscriptions that are currently open");
+
+        UnitType msUnit = new UnitType("ms");
+        Set<RpcDescriptor> descriptors = new HashSet<>();
+        for (Route route : httpServer.getRoutes()) {
+            if (!descriptors.add(route.getDescriptor())) {
+                continue; // Additional bindings of the same method share their metrics
+            }
+            String service = route.getDescriptor().getService();
+            serviceParameters.computeIfAbsent(service, k -> {
+                ServiceParameters params = new ServiceParameters();
+                params.spRequests = sysParamsService.createSystemParameter("http/" + service + "/requests",
+                        Type.UINT64, "Total number of requests to " + service);
+                params.spErrors = sysParamsService.createSystemParameter("http/" + service + "/errors",
+                        Type.UINT64, "Total number of failed requests to " + service);
+                params.spInFlight = sysParamsService.createSystemParameter("http/" + service + "/inFlight",
+                        Type.UINT32, "Number of requests to " + service + " that are currently being handled");
+                params.spLatencyP99 = sysParamsService.createSystemParameter("http/" + service + "/latencyP99",
+                        Type.DOUBLE, msUnit, "Highest 99th percentile latency among the routes of " + service);
+                return params;
+            }).routes.add(route);
+        }
+    }
+
+    @Override
+    public Collection<ParameterValue> getSystemParameters(long gentime) {
+        List<ParameterValue> pvlist = new ArrayList<>();
+
+        long totalInFlight = 0;
+        for (ServiceParameters params : serviceParameters.values()) {
+            long requests = 0;
+            long errors = 0;
+            long inFlight = 0;
+            double latencyP99 = 0;
+            for (Route route : params.routes) {
+                requests += route.getRequestCount();
+                errors += route.getErrorCount();
+                inFlight += route.getInFlightCount();
+                if (route.getLatencyTimer().getCount() > 0) {
+                    latencyP99 = Math.max(latencyP99, route.getLatencyTimer().getSnapshot().get99thPercentile());
+                }
+            }
+            totalInFlight += inFlight;
+
+            pvlist.add(SystemParametersService.getPV(params.spRequests, gentime, requests));
+            pvlist.add(SystemParametersService.getPV(params.spErrors, gentime, errors));
+            pvlist.add(SystemParametersService.getUnsignedIntPV(params.spInFlight, gentime, (int) inFlight));
+            pvlist.add(SystemParametersService.getPV(params.spLatencyP99, gentime,
+                    latencyP99 / TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spInFlight, gentime, (int) totalInFlight));
+
+        long activeSubscriptions = 0;
+        for (Topic topic : httpServer.getTopics()) {
+            activeSubscriptions += topic.getActiveSubscriptionCount();
+        }
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spActiveSubscriptions, gentime,
+                (int) activeSubscriptions));
+
+        return pvlist;
+    }
+
+    @Override
+    public int getFrequency() {
+        return 10;
+    }
+
+    private static class ServiceParameters {
+        List<Route> routes = new ArrayList<>();
+        Parameter spRequests;
+        Parameter spErrors;
+        Parameter spInFlight;
+        Parameter spLatencyP99;
+    }
+}
@@ -30,7 +30,13 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.netty.handler.codec.compression.Zstd;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpContentCompressor;
@@ -73,6 +79,16 @@ public class HttpRequestHandler extends ChannelInboundHandlerAdapter {
 
     private static final Log log = new Log(HttpRequestHandler.class);
 
+    // zstd is offered only when its native library is on the classpath (com.github.luben:zstd-jni)
+    private static final CompressionOptions[] COMPRESSION_OPTIONS = Zstd.isAvailable()
+            ? new CompressionOptions[] {
+                    StandardCompressionOptions.zstd(),
+                    StandardCompressionOptions.gzip(),
+                    StandardCompressionOptions.deflate() }
+            : new CompressionOptions[] {
+                    StandardCompressionOptions.gzip(),
+                    StandardCompressionOptions.deflate() };
+
     public static final Object CONTENT_FINISHED_EVENT = new Object();
 
     private HttpServer httpServer;
@@ -100,6 +116,18 @@ public class HttpRequestHandler extends ChannelInboundHandlerAdapter {
             }
         }
 
+        if (msg instanceof FullHttpRequest) {
+            // HTTP/2 streams deliver a request without body as a single message. Split it in the way it is received
+            // on HTTP/1.1 connections, the handlers added to the pipeline take ownership of what they are passed.
+            FullHttpRequest full = (FullHttpRequest) msg;
+            HttpRequest req = new DefaultHttpRequest(full.protocolVersion(), full.method(), full.uri(),
+                    full.headers());
+            req.setDecoderResult(full.decoderResult());
+            channelRead(ctx, req);
+            channelRead(ctx, new DefaultLastHttpContent(full.content(), full.trailingHeaders()));
+            return;
+        }
+
         if (msg instanceof HttpRequest) {
             HttpRequest req = (HttpRequest) msg;
 
@@ -122,6 +150,10 @@ public class HttpRequestHandler extends ChannelInboundHandlerAdapter {
 
             ReferenceCountUtil.release(msg);
         } else if (msg instanceof HttpContent) {
+            RouteContext routeContext = ctx.channel().attr(CTX_CONTEXT).get();
+            if (routeContext != null) {
+                routeContext.addReceivedSize(((HttpContent) msg).content().readableBytes());
+            }
             ctx.fireChannelRead(msg);
             if (msg instanceof LastHttpContent) {
                 ctx.fireUserEventTriggered(CONTENT_FINISHED_EVENT);
@@ -152,7 +184,7 @@ public class HttpRequestHandler extends ChannelInboundHandlerAdapter {
 
         var handler = httpServer.createHandler(pathComponent);
         if (handler != null) {
-            ctx.pipeline().addLast(new HttpContentCompressor());
+            ctx.pipeline().addLast(new HttpContentCompressor(COMPRESSION_OPTIONS));
             ctx.pipeline().addLast(new HttpObjectAggregator(65536));
             ctx.pipeline().addLast(handler);
             ctx.fireChannelRead(req);
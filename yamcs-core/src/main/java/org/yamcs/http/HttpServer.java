@@ -70,6 +70,7 @@ import org.yamcs.utils.ExceptionUtil;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ServiceManager;
 import com.google.protobuf.Descriptors.MethodDescriptor;
@@ -81,6 +82,10 @@ import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -115,6 +120,8 @@ public class HttpServer extends AbstractYamcsService {
 
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
+    private EventLoopGroup epollBossGroup;
+    private EventLoopGroup epollWorkerGroup;
     private ChannelGroup clientChannels;
     private GlobalTrafficShapingHandler globalTrafficHandler;
 
@@ -165,9 +172,22 @@ public class HttpServer extends AbstractYamcsService {
         lohiSpec.addOption("low", OptionType.INTEGER).withDefault(32 * 1024);
         lohiSpec.addOption("high", OptionType.INTEGER).withDefault(128 * 1024);
 
+        Spec compressionSpec = new Spec();
+        compressionSpec.addOption("enabled", OptionType.BOOLEAN).withDefault(true);
+        compressionSpec.addOption("level", OptionType.INTEGER).withDefault(6);
+        compressionSpec.addOption("allowServerNoContextTakeover", OptionType.BOOLEAN).withDefault(false);
+        compressionSpec.addOption("requestClientNoContextTakeover", OptionType.BOOLEAN).withDefault(false);
+
+        Spec batchSpec = new Spec();
+        batchSpec.addOption("flushInterval", OptionType.INTEGER).withDefault(50);
+        batchSpec.addOption("maxSize", OptionType.INTEGER).withDefault(65536);
+
         Spec websocketSpec = new Spec();
         websocketSpec.addOption("writeBufferWaterMark", OptionType.MAP).withSpec(lohiSpec).withApplySpecDefaults(true);
         websocketSpec.addOption("maxFrameLength", OptionType.INTEGER).withDefault(65536);
+        websocketSpec.addOption("compression", OptionType.MAP).withSpec(compressionSpec)
+                .withApplySpecDefaults(true);
+        websocketSpec.addOption("batch", OptionType.MAP).withSpec(batchSpec).withApplySpecDefaults(true);
 
         // Value in seconds. Both nginx and apache have a default timeout of 60 seconds before
         // they will close an idle WebSocket connection, therefore we choose a value well below that.
@@ -179,12 +199,14 @@ public class HttpServer extends AbstractYamcsService {
         bindingSpec.addOption("tlsCert", OptionType.LIST_OR_ELEMENT).withElementType(OptionType.STRING);
         bindingSpec.addOption("tlsKey", OptionType.STRING);
         bindingSpec.requireTogether("tlsCert", "tlsKey");
+        addTransportOptions(bindingSpec);
 
         Spec spec = new Spec();
         spec.addOption("address", OptionType.STRING);
         spec.addOption("port", OptionType.INTEGER).withDefault(8090);
         spec.addOption("tlsCert", OptionType.LIST_OR_ELEMENT).withElementType(OptionType.STRING);
         spec.addOption("tlsKey", OptionType.STRING);
+        addTransportOptions(spec);
         spec.addOption("contextPath", OptionType.STRING).withDefault("" /* NOT null */);
         spec.addOption("zeroCopyEnabled", OptionType.BOOLEAN).withDefault(true)
                 .withDeprecationMessage("This optimization is automatically enabled where possible");
@@ -205,11 +227,26 @@ public class HttpServer extends AbstractYamcsService {
         spec.mutuallyExclusive("port", "bindings");
         spec.mutuallyExclusive("tlsCert", "bindings");
         spec.mutuallyExclusive("tlsKey", "bindings");
+        spec.mutuallyExclusive("http2", "bindings");
+        spec.mutuallyExclusive("epoll", "bindings");
+        spec.mutuallyExclusive("reusePort", "bindings");
+        spec.mutuallyExclusive("acceptThreads", "bindings");
 
         spec.requireTogether("tlsCert", "tlsKey");
         return spec;
     }
 
+    /**
+     * Options of a binding for the protocols and transport. No defaults are specified: the top-level options are
+     * mutually exclusive with the bindings (see {@link Binding#fromConfig(YConfiguration)} for the defaults).
+     */
+    private static void addTransportOptions(Spec spec) {
+        spec.addOption("http2", OptionType.BOOLEAN);
+        spec.addOption("epoll", OptionType.BOOLEAN);
+        spec.addOption("reusePort", OptionType.BOOLEAN);
+        spec.addOption("acceptThreads", OptionType.INTEGER);
+    }
+
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
         super.init(yamcsInstance, serviceName, config);
@@ -348,9 +385,9 @@ public class HttpServer extends AbstractYamcsService {
             }
 
             if (WEBSOCKET_ROUTE.equals(descriptor.getHttpRoute())) {
-                topics.add(new Topic(api, descriptor.getWebSocketTopic(), descriptor));
+                topics.add(new Topic(api, descriptor.getWebSocketTopic(), descriptor, metricRegistry));
                 for (WebSocketTopic topic : descriptor.getAdditionalWebSocketTopics()) {
-                    topics.add(new Topic(api, topic, descriptor));
+                    topics.add(new Topic(api, topic, descriptor, metricRegistry));
                 }
             } else {
                 routes.add(new Route(api, descriptor.getHttpRoute(), descriptor, metricRegistry));
@@ -399,17 +436,31 @@ public class HttpServer extends AbstractYamcsService {
         workerGroup = new NioEventLoopGroup(nThreads,
                 new ThreadPerTaskExecutor(new DefaultThreadFactory("YamcsHttpServer")));
 
+        if (bindings.stream().anyMatch(Binding::isEpoll)) {
+            if (Epoll.isAvailable()) {
+                int acceptThreads = bindings.stream()
+                        .filter(b -> b.isEpoll() && b.isReusePort())
+                        .mapToInt(Binding::getAcceptThreads)
+                        .max().orElse(1);
+                epollBossGroup = new EpollEventLoopGroup(acceptThreads);
+                epollWorkerGroup = new EpollEventLoopGroup(nThreads,
+                        new ThreadPerTaskExecutor(new DefaultThreadFactory("YamcsHttpServer")));
+            } else {
+                log.warn("Native epoll transport is not available, using NIO instead: {}",
+                        Epoll.unavailabilityCause().toString());
+            }
+        }
+
         // Measure global traffic, we also add a channel-specific measurer in channel-init.
         globalTrafficHandler = new GlobalTrafficShapingHandler(workerGroup, 5000);
 
         for (var binding : bindings) {
-            createAndBindBootstrap(workerGroup, binding, globalTrafficHandler);
+            createAndBindBootstrap(binding, globalTrafficHandler);
             log.debug("Serving from {}{}", binding, contextPath);
         }
     }
 
-    private void createAndBindBootstrap(EventLoopGroup workerGroup, Binding binding,
-            GlobalTrafficShapingHandler globalTrafficHandler)
+    private void createAndBindBootstrap(Binding binding, GlobalTrafficShapingHandler globalTrafficHandler)
             throws InterruptedException, SSLException, IOException {
         SslContext sslContext = null;
         if (binding.isTLS()) {
@@ -417,19 +468,33 @@ public class HttpServer extends AbstractYamcsService {
         }
 
         ServerBootstrap bootstrap = new ServerBootstrap();
-        bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
-                .handler(new LoggingHandler(HttpServer.class, LogLevel.DEBUG))
+        int bindCount = 1;
+        if (binding.isEpoll() && epollWorkerGroup != null) {
+            bootstrap.group(epollBossGroup, epollWorkerGroup)
+                    .channel(EpollServerSocketChannel.class);
+            if (binding.isReusePort()) {
+                // Each server channel gets its own accept thread, the kernel spreads the connections between them
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+                bindCount = binding.getAcceptThreads();
+            }
+        } else {
+            bootstrap.group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class);
+        }
+        bootstrap.handler(new LoggingHandler(HttpServer.class, LogLevel.DEBUG))
                 .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
-                .childHandler(new HttpServerChannelInitializer(this, sslContext, globalTrafficHandler));
+                .childHandler(new HttpServerChannelInitializer(this, sslContext, globalTrafficHandler,
+                        binding.isHttp2()));
 
         // Bind and start to accept incoming connections.
         InetAddress address = binding.getAddress();
         int port = binding.getPort();
-        if (address == null) {
-            bootstrap.bind(new InetSocketAddress(port)).sync();
-        } else {
-            bootstrap.bind(new InetSocketAddress(address, port)).sync();
+        for (int i = 0; i < bindCount; i++) {
+            if (address == null) {
+                bootstrap.bind(new InetSocketAddress(port)).sync();
+            } else {
+                bootstrap.bind(new InetSocketAddress(address, port)).sync();
+            }
         }
     }
 
@@ -522,8 +587,17 @@ public class HttpServer extends AbstractYamcsService {
             serviceManager.awaitStopped(5, TimeUnit.SECONDS);
             return true; // Force use of Callable interface, instead of Runnable
         });
+        List<ListenableFuture<?>> futures = new ArrayList<>(List.of(future1, future2, future3));
+        if (epollWorkerGroup != null) {
+            futures.add(closers.submit(() -> {
+                return epollWorkerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).get();
+            }));
+            futures.add(closers.submit(() -> {
+                return epollBossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).get();
+            }));
+        }
         closers.shutdown();
-        Futures.addCallback(Futures.allAsList(future1, future2, future3), new FutureCallback<>() {
+        Futures.addCallback(Futures.allAsList(futures), new FutureCallback<>() {
             @Override
             public void onSuccess(List<Object> result) {
                 notifyStopped();
@@ -2,31 +2,62 @@ package org.yamcs.http;
 
 import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE;
 
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http.cors.CorsConfig;
 import io.netty.handler.codec.http.cors.CorsHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.traffic.ChannelTrafficShapingHandler;
 import io.netty.handler.traffic.GlobalTrafficShapingHandler;
+import io.netty.util.AsciiString;
 
+/**
+ * Initializes the pipeline of a new connection.
+ * <p>
+ * When HTTP/2 is enabled, the protocol is negotiated with ALPN (TLS) or with an HTTP/1.1 upgrade or prior knowledge
+ * (cleartext). Each HTTP/2 stream is then handled in a child channel which converts the frames to HTTP/1.1 objects, so
+ * that the same {@link HttpRequestHandler} serves both protocols.
+ */
 public class HttpServerChannelInitializer extends ChannelInitializer<SocketChannel> {
 
     private final HttpServer httpServer;
     private final SslContext sslCtx;
     private final GlobalTrafficShapingHandler globalTrafficHandler;
+    private final boolean http2;
     private final int maxInitialLineLength;
     private final int maxHeaderSize;
+    private final int maxContentLength;
 
     public HttpServerChannelInitializer(HttpServer httpServer, SslContext sslCtx,
             GlobalTrafficShapingHandler globalTrafficHandler) {
+        this(httpServer, sslCtx, globalTrafficHandler, false);
+    }
+
+    public HttpServerChannelInitializer(HttpServer httpServer, SslContext sslCtx,
+            GlobalTrafficShapingHandler globalTrafficHandler, boolean http2) {
         this.httpServer = httpServer;
         this.sslCtx = sslCtx;
         this.globalTrafficHandler = globalTrafficHandler;
+        this.http2 = http2;
         maxInitialLineLength = httpServer.getConfig().getInt("maxInitialLineLength");
         maxHeaderSize = httpServer.getConfig().getInt("maxHeaderSize");
+        maxContentLength = httpServer.getConfig().getInt("maxContentLength");
     }
 
     @Override
@@ -38,8 +69,31 @@ public class HttpServerChannelInitializer extends ChannelInitializer<SocketChann
         }
 
         pipeline.addLast(new ChannelTrafficShapingHandler(5000));
-        pipeline.addLast(new HttpServerCodec(maxInitialLineLength, maxHeaderSize, DEFAULT_MAX_CHUNK_SIZE));
 
+        if (!http2) {
+            pipeline.addLast(new HttpServerCodec(maxInitialLineLength, maxHeaderSize, DEFAULT_MAX_CHUNK_SIZE));
+            addRequestHandlers(pipeline);
+        } else if (sslCtx != null) {
+            pipeline.addLast(new ProtocolNegotiationHandler());
+        } else {
+            var sourceCodec = new HttpServerCodec(maxInitialLineLength, maxHeaderSize, DEFAULT_MAX_CHUNK_SIZE);
+            var upgradeHandler = new HttpServerUpgradeHandler(sourceCodec, protocol -> {
+                if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+                    return new Http2ServerUpgradeCodec(Http2FrameCodecBuilder.forServer().build(),
+                            new Http2ConnectionSetup(null));
+                } else {
+                    return null;
+                }
+            }, maxContentLength);
+            pipeline.addLast(new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler,
+                    new Http2ConnectionSetup(Http2FrameCodecBuilder.forServer().build())));
+
+            // Used if the client stays with HTTP/1.1
+            addRequestHandlers(pipeline);
+        }
+    }
+
+    private void addRequestHandlers(ChannelPipeline pipeline) {
         CorsConfig corsConfig = httpServer.getCorsConfig();
         if (corsConfig != null) {
             pipeline.addLast(new CorsHandler(corsConfig));
@@ -48,4 +102,71 @@ public class HttpServerChannelInitializer extends ChannelInitializer<SocketChann
         // this has to be the last handler in the pipeline
         pipeline.addLast(new HttpRequestHandler(httpServer));
     }
+
+    /**
+     * Configures the pipeline for the protocol selected during the TLS handshake.
+     */
+    private class ProtocolNegotiationHandler extends ApplicationProtocolNegotiationHandler {
+
+        ProtocolNegotiationHandler() {
+            super(ApplicationProtocolNames.HTTP_1_1);
+        }
+
+        @Override
+        protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+            if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                ctx.pipeline().addLast(new Http2ConnectionSetup(Http2FrameCodecBuilder.forServer().build()));
+            } else if (ApplicationProtocolNames.HTTP_1_1.equals(protocol)) {
+                ctx.pipeline().addLast(
+                        new HttpServerCodec(maxInitialLineLength, maxHeaderSize, DEFAULT_MAX_CHUNK_SIZE));
+                addRequestHandlers(ctx.pipeline());
+            } else {
+                throw new IllegalStateException("Unsupported protocol: " + protocol);
+            }
+        }
+    }
+
+    /**
+     * Completes the pipeline of a connection that switched to HTTP/2: the HTTP/1.1 request handlers are removed and
+     * each stream is served by a child channel.
+     */
+    private class Http2ConnectionSetup extends ChannelHandlerAdapter {
+
+        // null if the codec was already added (HTTP/1.1 upgrade)
+        private final Http2FrameCodec frameCodec;
+
+        Http2ConnectionSetup(Http2FrameCodec frameCodec) {
+            this.frameCodec = frameCodec;
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            ChannelPipeline pipeline = ctx.pipeline();
+            if (frameCodec != null) {
+                pipeline.addBefore(ctx.name(), null, frameCodec);
+            }
+            pipeline.addBefore(ctx.name(), null, new Http2MultiplexHandler(new Http2StreamInitializer()));
+            removeIfPresent(pipeline, CorsHandler.class);
+            removeIfPresent(pipeline, HttpRequestHandler.class);
+            pipeline.remove(this);
+        }
+
+        private void removeIfPresent(ChannelPipeline pipeline, Class<? extends ChannelHandler> handlerType) {
+            if (pipeline.get(handlerType) != null) {
+                pipeline.remove(handlerType);
+            }
+        }
+    }
+
+    /**
+     * Pipeline of an HTTP/2 stream. The stream frames are converted to HTTP/1.1 objects for the request handler.
+     */
+    private class Http2StreamInitializer extends ChannelInitializer<Http2StreamChannel> {
+
+        @Override
+        protected void initChannel(Http2StreamChannel ch) {
+            ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(true));
+            addRequestHandlers(ch.pipeline());
+        }
+    }
 }
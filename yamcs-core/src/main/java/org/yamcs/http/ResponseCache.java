@@ -0,0 +1,222 @@
+package org.yamcs.http;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
+import static io.netty.handler.codec.http.HttpHeaderNames.VARY;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.util.FieldMaskUtil;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Cache of serialized responses to GET calls whose result depends only on the request and on a version of the
+ * underlying data.
+ * <p>
+ * Responses carry a strong ETag derived from the version, so that clients can revalidate with
+ * <code>If-None-Match</code> and receive a 304 without any response being built. Serialized responses are also kept
+ * (gzipped when large enough) in a cache bounded by size, and are discarded when the version changes.
+ */
+public class ResponseCache {
+
+    private static final int MIN_COMPRESS_SIZE = 1024;
+    private static final String GZIP_SUFFIX = "-gzip";
+    private static final String VARY_HEADERS = "Accept, Accept-Encoding, X-Yamcs-Fields";
+
+    private final Cache<String, Entry> entries;
+
+    /**
+     * @param maxSize
+     *            maximum number of bytes taken by the cached responses
+     */
+    public ResponseCache(long maxSize) {
+        entries = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((String key, Entry entry) -> entry.size())
+                .build();
+    }
+
+    /**
+     * Completes the call, either with a 304 if the client has the current version, or with a cached response.
+     * <p>
+     * If this returns false, the caller must handle the call as usual. Its response is then stored in this cache under
+     * the given version.
+     *
+     * @return true if the call was completed
+     */
+    public boolean serve(Context ctx, long version) {
+        if (!(ctx instanceof RouteContext)) {
+            return false;
+        }
+        RouteContext routeCtx = (RouteContext) ctx;
+        HttpRequest req = routeCtx.nettyRequest;
+        if (!HttpMethod.GET.equals(req.method())) {
+            return false;
+        }
+
+        String variant = routeCtx.deriveTargetContentType() + " "
+                + (ctx.getFieldMask() != null ? FieldMaskUtil.toString(ctx.getFieldMask()) : "");
+        String key = req.uri() + " " + variant;
+        String etag = Long.toHexString(version) + "-" + Integer.toHexString(variant.hashCode());
+
+        String ifNoneMatch = req.headers().get(IF_NONE_MATCH);
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, NOT_MODIFIED);
+            setCacheHeaders(response, '"' + etag + '"');
+            response.headers().set(CONTENT_LENGTH, 0);
+            complete(routeCtx, response);
+            return true;
+        }
+
+        boolean acceptGzip = acceptsGzip(req);
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && entry.version == version) {
+            complete(routeCtx, entry.toResponse(etag, acceptGzip));
+            return true;
+        } else if (entry != null) {
+            entries.invalidate(key);
+        }
+
+        routeCtx.pendingCacheEntry = new PendingEntry(key, version, etag, acceptGzip);
+        return false;
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    private void complete(RouteContext ctx, FullHttpResponse response) {
+        ctx.addTransferredSize(response.content().readableBytes());
+        ctx.reportStatusCode(response.status().code());
+        HttpRequestHandler.sendResponse(ctx.nettyContext, ctx.nettyRequest, response).addListener(l -> {
+            ctx.requestFuture.complete(null);
+        });
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) { // If-None-Match uses weak comparison
+                candidate = candidate.substring(2);
+            }
+            if (candidate.length() >= 2 && candidate.startsWith("\"") && candidate.endsWith("\"")) {
+                candidate = candidate.substring(1, candidate.length() - 1);
+            }
+            if (candidate.endsWith(GZIP_SUFFIX)) {
+                candidate = candidate.substring(0, candidate.length() - GZIP_SUFFIX.length());
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpRequest req) {
+        String acceptEncoding = req.headers().get(ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains(HttpHeaderValues.GZIP);
+    }
+
+    private static void setCacheHeaders(FullHttpResponse response, String etag) {
+        response.headers().set(ETAG, etag);
+        response.headers().set(CACHE_CONTROL, "private, no-cache");
+        response.headers().set(VARY, VARY_HEADERS);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzout = new GZIPOutputStream(bout)) {
+            gzout.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Response of a call that was not found in the cache, to be stored when it is sent.
+     */
+    class PendingEntry {
+        final String key;
+        final long version;
+        final String etag;
+        final boolean acceptGzip;
+
+        PendingEntry(String key, long version, String etag, boolean acceptGzip) {
+            this.key = key;
+            this.version = version;
+            this.etag = etag;
+            this.acceptGzip = acceptGzip;
+        }
+
+        /**
+         * Stores the successful response, and returns the response to send instead.
+         */
+        FullHttpResponse store(FullHttpResponse response) {
+            byte[] data = ByteBufUtil.getBytes(response.content());
+            byte[] gzipped = data.length >= MIN_COMPRESS_SIZE ? gzip(data) : null;
+            Entry entry = new Entry(version, response.headers().get(CONTENT_TYPE), data, gzipped);
+            entries.put(key, entry);
+
+            response.release();
+            return entry.toResponse(etag, acceptGzip);
+        }
+    }
+
+    private static final class Entry {
+        final long version;
+        final String contentType;
+        final byte[] data;
+        final byte[] gzipped;
+
+        Entry(long version, String contentType, byte[] data, byte[] gzipped) {
+            this.version = version;
+            this.contentType = contentType;
+            this.data = data;
+            this.gzipped = gzipped;
+        }
+
+        int size() {
+            return data.length + (gzipped != null ? gzipped.length : 0);
+        }
+
+        FullHttpResponse toResponse(String etag, boolean acceptGzip) {
+            FullHttpResponse response;
+            if (acceptGzip && gzipped != null) {
+                response = new DefaultFullHttpResponse(HTTP_1_1, OK, Unpooled.wrappedBuffer(gzipped));
+                // Set the encoding, so that the content is not compressed once more
+                response.headers().set(CONTENT_ENCODING, HttpHeaderValues.GZIP);
+                setCacheHeaders(response, '"' + etag + GZIP_SUFFIX + '"');
+            } else {
+                response = new DefaultFullHttpResponse(HTTP_1_1, OK, Unpooled.wrappedBuffer(data));
+                setCacheHeaders(response, '"' + etag + '"');
+            }
+            response.headers().set(CONTENT_TYPE, contentType);
+            response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
+            return response;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.yamcs.http;
 
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -7,7 +8,9 @@ import org.yamcs.api.Api;
 import org.yamcs.api.HttpRoute;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.LockFreeExponentiallyDecayingReservoir;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 
 import io.netty.handler.codec.http.HttpMethod;
 
@@ -32,6 +35,10 @@ public class Route implements Comparable<Route> {
 
     private Counter requestCounter;
     private Counter errorCounter;
+    private Counter inFlightCounter;
+    private Counter requestBytesCounter;
+    private Counter responseBytesCounter;
+    private Timer latencyTimer;
 
     Route(Api<Context> api, HttpRoute httpOptions, RpcDescriptor descriptor, MetricRegistry metricRegistry) {
         this.api = api;
@@ -41,6 +48,16 @@ public class Route implements Comparable<Route> {
                 "yamcs.api.requests.total.%s.%s", descriptor.getService(), descriptor.getMethod()));
         errorCounter = metricRegistry.counter(String.format(
                 "yamcs.api.errors.total.%s.%s", descriptor.getService(), descriptor.getMethod()));
+        inFlightCounter = metricRegistry.counter(String.format(
+                "yamcs.api.requests.inflight.%s.%s", descriptor.getService(), descriptor.getMethod()));
+        requestBytesCounter = metricRegistry.counter(String.format(
+                "yamcs.api.requests.bytes.%s.%s", descriptor.getService(), descriptor.getMethod()));
+        responseBytesCounter = metricRegistry.counter(String.format(
+                "yamcs.api.responses.bytes.%s.%s", descriptor.getService(), descriptor.getMethod()));
+        // Lock-free reservoir, biased towards the last five minutes
+        latencyTimer = metricRegistry.timer(String.format(
+                "yamcs.api.latency.%s.%s", descriptor.getService(), descriptor.getMethod()),
+                () -> new Timer(LockFreeExponentiallyDecayingReservoir.builder().build()));
 
         offloaded = httpOptions.getOffloaded();
         deprecated = httpOptions.getDeprecated();
@@ -179,6 +196,42 @@ public class Route implements Comparable<Route> {
         return errorCounter;
     }
 
+    void requestStarted() {
+        inFlightCounter.inc();
+    }
+
+    void requestBytesReceived(long byteCount) {
+        requestBytesCounter.inc(byteCount);
+    }
+
+    void requestFinished(long durationNanos, long responseBytes) {
+        inFlightCounter.dec();
+        responseBytesCounter.inc(responseBytes);
+        latencyTimer.update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Number of requests that have started, but not yet completed.
+     */
+    public long getInFlightCount() {
+        return inFlightCounter.getCount();
+    }
+
+    public long getRequestBytes() {
+        return requestBytesCounter.getCount();
+    }
+
+    public long getResponseBytes() {
+        return responseBytesCounter.getCount();
+    }
+
+    /**
+     * Latency from the start of a request, until its response is completely written.
+     */
+    public Timer getLatencyTimer() {
+        return latencyTimer;
+    }
+
     @Override
     public int compareTo(Route o) {
         int pathLengthCompare = Integer.compare(uriTemplate.length(), o.uriTemplate.length());
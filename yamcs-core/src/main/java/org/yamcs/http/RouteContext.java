@@ -44,8 +44,12 @@ public class RouteContext extends Context {
     private Matcher regexMatch;
 
     private int maxBodySize;
+    private final long startNanos = System.nanoTime();
     private Set<String> fieldMaskRoots = new HashSet<>(1);
 
+    // Set when the response of this call is to be stored in a response cache
+    ResponseCache.PendingEntry pendingCacheEntry;
+
     RouteContext(HttpServer httpServer, ChannelHandlerContext nettyContext, User user, HttpRequest nettyRequest,
             Route route, Matcher regexMatch) {
         super(httpServer, nettyContext, user, route.getApi());
@@ -55,6 +59,7 @@ public class RouteContext extends Context {
         maxBodySize = Math.max(httpServer.getConfig().getInt("maxContentLength"), route.getMaxBodySize());
 
         route.incrementRequestCount();
+        route.requestStarted();
 
         var fieldMaskRoot = route.getFieldMaskRoot();
         if (fieldMaskRoot != null) {
@@ -92,6 +97,7 @@ public class RouteContext extends Context {
         }
 
         requestFuture.whenComplete((channelFuture, e) -> {
+            route.requestFinished(System.nanoTime() - startNanos, txSize);
             if (e != null) {
                 log.debug("API call finished with error: {}, transferred bytes: {}", e.getMessage(), txSize);
             } else {
@@ -100,12 +106,20 @@ public class RouteContext extends Context {
 
             if (statusCode == 0) {
                 log.warn("{}: Status code not reported", this);
-            } else if (statusCode < 200 || statusCode >= 300) {
+            } else if (statusCode < 200 || (statusCode >= 300 && statusCode != 304)) {
                 route.incrementErrorCount();
             }
         });
     }
 
+    /**
+     * Called for each part of the request body, as received on the channel. The body may be sent without
+     * Content-Length (chunked transfer encoding, HTTP/2).
+     */
+    void addReceivedSize(long byteCount) {
+        route.requestBytesReceived(byteCount);
+    }
+
     void setFullNettyRequest(FullHttpRequest fullNettyRequest) {
         this.fullNettyRequest = fullNettyRequest;
     }
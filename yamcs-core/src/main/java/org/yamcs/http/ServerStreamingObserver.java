@@ -17,13 +17,16 @@ import org.yamcs.api.HttpBody;
 import org.yamcs.api.Observer;
 import org.yamcs.logging.Log;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpResponse;
@@ -32,19 +35,26 @@ import io.netty.handler.codec.http.LastHttpContent;
 
 /**
  * A message observer that implements a streaming response over HTTP using chunked transfer encoding.
+ * <p>
+ * Data is written in chunks of pooled direct buffers. When the channel is not writable, the producing thread is held in
+ * {@link #next(Message)} until the client has caught up, which pauses the underlying retrieval.
  */
 @NotThreadSafe
 public class ServerStreamingObserver implements Observer<Message> {
 
     private static final int CHUNK_SIZE = 8096;
+    private static final int BODY_CHUNK_SIZE = 65536; // For HttpBody downloads
+    private static final long WRITABILITY_TIMEOUT_SECONDS = 10;
     private static final Log log = new Log(ServerStreamingObserver.class);
 
     private RouteContext ctx;
 
     private MediaType mediaType;
 
+    private int chunkSize = CHUNK_SIZE;
     private ByteBuf buf;
     protected ByteBufOutputStream bufOut;
+    private final Object writabilityLock = new Object();
 
     private int messageCount = 0;
     private boolean cancelled;
@@ -69,7 +79,16 @@ public class ServerStreamingObserver implements Observer<Message> {
             if (message instanceof HttpBody) {
                 HttpBody body = (HttpBody) message;
                 if (body.hasData()) {
-                    body.getData().writeTo(bufOut);
+                    ByteString data = body.getData();
+                    // Large enough for a chunk of its own: wrapped rather than copied into buf. Note that the
+                    // transport still copies this heap data to direct memory when writing it.
+                    if (data.size() >= chunkSize) {
+                        flushBuffer();
+                        ctx.addTransferredSize(data.size());
+                        writeChunk(Unpooled.wrappedBuffer(data.asReadOnlyByteBuffer()));
+                    } else {
+                        data.writeTo(bufOut);
+                    }
                 }
             } else {
                 if (MediaType.PROTOBUF.equals(mediaType)) {
@@ -80,11 +99,8 @@ public class ServerStreamingObserver implements Observer<Message> {
                 }
             }
 
-            if (buf.readableBytes() >= CHUNK_SIZE) {
-                bufOut.close();
-                ctx.addTransferredSize(buf.readableBytes());
-                writeChunk(buf);
-                resetBuffer();
+            if (buf.readableBytes() >= chunkSize) {
+                flushBuffer();
             }
         } catch (ClosedChannelException e) {
             cancelCall("closed channel");
@@ -108,11 +124,10 @@ public class ServerStreamingObserver implements Observer<Message> {
     }
 
     private void initializeHttpResponse(Message firstMessage) {
-        resetBuffer();
-
         String filename = null;
 
         if (firstMessage instanceof HttpBody) {
+            chunkSize = BODY_CHUNK_SIZE;
             HttpBody body = (HttpBody) firstMessage;
             mediaType = MediaType.from(body.getContentType());
             if (body.hasFilename()) {
@@ -122,27 +137,52 @@ public class ServerStreamingObserver implements Observer<Message> {
             mediaType = RouteContext.deriveTargetContentType(ctx.nettyRequest);
         }
 
+        resetBuffer();
+        ctx.nettyContext.pipeline().addLast(new WritabilityListener());
         startChunkedTransfer(mediaType, filename);
         ctx.reportStatusCode(200);
     }
 
     private void resetBuffer() {
-        buf = ctx.nettyContext.alloc().buffer();
+        buf = ctx.nettyContext.alloc().directBuffer(chunkSize);
         bufOut = new ByteBufOutputStream(buf);
     }
 
+    private void flushBuffer() throws IOException {
+        if (buf.readableBytes() > 0) {
+            bufOut.close();
+            ByteBuf chunk = buf;
+            resetBuffer();
+            ctx.addTransferredSize(chunk.readableBytes());
+            writeChunk(chunk);
+        }
+    }
+
+    /**
+     * Aborts the transfer by closing the channel, and completes the call exceptionally.
+     * <p>
+     * For the route metrics, the call ends here (in-flight count, latency and response bytes). It counts as an error
+     * only if it fails before the first message, because otherwise the response status 200 was already sent.
+     */
     @Override
     public void completeExceptionally(Throwable t) {
         if (completed) {
             throw new IllegalStateException("Observer already completed");
         }
         completed = true;
+        if (buf != null) {
+            buf.release();
+        }
 
         Channel ch = ctx.nettyContext.channel();
         if (ch.isOpen()) {
             log.warn("Closing channel because transfer failed");
             ch.close();
         }
+        if (messageCount == 0) {
+            ctx.reportStatusCode(500);
+        }
+        ctx.requestFuture.completeExceptionally(t);
     }
 
     @Override
@@ -153,6 +193,9 @@ public class ServerStreamingObserver implements Observer<Message> {
         completed = true;
 
         if (cancelled) {
+            if (buf != null) {
+                buf.release();
+            }
             ctx.requestFuture.complete(null);
             return;
         }
@@ -161,15 +204,12 @@ public class ServerStreamingObserver implements Observer<Message> {
             initializeHttpResponse(null);
         } else {
             try {
-                bufOut.close();
-                if (buf.readableBytes() > 0) {
-                    ctx.addTransferredSize(buf.readableBytes());
-                    writeChunk(buf);
-                }
+                flushBuffer();
             } catch (IOException e) {
                 log.error("Could not write final chunk of data", e);
             }
         }
+        buf.release();
 
         ctx.nettyContext.channel().writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT)
                 .addListener(l -> {
@@ -205,21 +245,65 @@ public class ServerStreamingObserver implements Observer<Message> {
         ctx.nettyContext.channel().writeAndFlush(response).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
     }
 
-    private void writeChunk(ByteBuf buf) throws IOException {
+    private void writeChunk(ByteBuf chunk) throws IOException {
         Channel ch = ctx.nettyContext.channel();
         if (!ch.isOpen()) {
+            chunk.release();
             throw new ClosedChannelException();
         }
-        ChannelFuture writeFuture = ctx.nettyContext.channel().writeAndFlush(new DefaultHttpContent(buf));
+        ch.writeAndFlush(new DefaultHttpContent(chunk));
+        awaitWritable(ch);
+    }
+
+    /**
+     * Blocks the calling thread until the channel is writable again. Calls from the event loop are never blocked, as
+     * that would prevent the pending data from being written.
+     */
+    private void awaitWritable(Channel ch) throws IOException {
+        if (ch.isWritable() || ch.eventLoop().inEventLoop()) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WRITABILITY_TIMEOUT_SECONDS);
         try {
-            if (!ch.isWritable()) {
-                boolean writeCompleted = writeFuture.await(10, TimeUnit.SECONDS);
-                if (!writeCompleted) {
-                    throw new IOException("Channel did not become writable in 10 seconds");
+            synchronized (writabilityLock) {
+                while (!ch.isWritable() && ch.isOpen()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new IOException("Channel did not become writable in "
+                                + WRITABILITY_TIMEOUT_SECONDS + " seconds");
+                    }
+                    writabilityLock.wait(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
                 }
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        if (!ch.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Wakes up a producer waiting in {@link #awaitWritable(Channel)}.
+     */
+    private class WritabilityListener extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext nettyContext) throws Exception {
+            signalWritability();
+            super.channelWritabilityChanged(nettyContext);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext nettyContext) throws Exception {
+            signalWritability();
+            super.channelInactive(nettyContext);
+        }
+
+        private void signalWritability() {
+            synchronized (writabilityLock) {
+                writabilityLock.notifyAll();
+            }
+        }
     }
 }
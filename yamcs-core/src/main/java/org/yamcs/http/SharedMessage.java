@@ -0,0 +1,74 @@
+package org.yamcs.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.AbstractReferenceCounted;
+
+/**
+ * Message sent unchanged on several WebSocket calls (for example the parameter updates of identical subscriptions).
+ * <p>
+ * The protobuf encoding of the message, as the <code>data</code> field of a
+ * {@link org.yamcs.protobuf.ServerMessage}, is computed once, when first needed, and the resulting buffer is shared by
+ * the frames of all the calls. Only the small header containing the call and the sequence count is encoded for each
+ * call.
+ * <p>
+ * The producer creates the message with a reference count of one and releases it after having passed it to all the
+ * observers. Each pending write holds its own reference.
+ */
+public class SharedMessage extends AbstractReferenceCounted {
+    static final int DATA_FIELD_NUMBER = 4;
+
+    private final Message message;
+    private ByteBuf encodedData;
+
+    public SharedMessage(Message message) {
+        this.message = message;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the encoded data field (tag, length and {@link Any}) of the server message. The buffer is owned by this
+     * object; the caller should use a retained duplicate if it outlives its reference to this object.
+     */
+    synchronized ByteBuf getEncodedData() {
+        if (encodedData == null) {
+            Any any = Any.pack(message, HttpServer.TYPE_URL_PREFIX);
+            int size = CodedOutputStream.computeMessageSize(DATA_FIELD_NUMBER, any);
+            ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer(size);
+            try (ByteBufOutputStream out = new ByteBufOutputStream(buf)) {
+                CodedOutputStream cos = CodedOutputStream.newInstance(out, size);
+                cos.writeMessage(DATA_FIELD_NUMBER, any);
+                cos.flush();
+            } catch (IOException e) {
+                buf.release();
+                throw new UncheckedIOException(e);
+            }
+            encodedData = buf;
+        }
+        return encodedData;
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        if (encodedData != null) {
+            encodedData.release();
+            encodedData = null;
+        }
+    }
+
+    @Override
+    public SharedMessage touch(Object hint) {
+        return this;
+    }
+}
@@ -0,0 +1,12 @@
+package org.yamcs.http;
+
+/**
+ * Implemented by the observers which can send a {@link SharedMessage} without encoding it again.
+ */
+public interface SharedMessageObserver {
+
+    /**
+     * Sends the message. The observer takes its own reference if the message is used after this call returns.
+     */
+    void nextShared(SharedMessage message);
+}
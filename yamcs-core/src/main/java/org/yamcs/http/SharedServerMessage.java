@@ -0,0 +1,73 @@
+package org.yamcs.http;
+
+import org.yamcs.protobuf.ServerMessage;
+
+import io.netty.util.ReferenceCounted;
+
+/**
+ * Outbound equivalent of a {@link ServerMessage} whose data is a {@link SharedMessage}. It is converted to a WebSocket
+ * frame by the {@link WebSocketServerMessageHandler}.
+ * <p>
+ * Holds one reference to the shared message, released once the frame has been written.
+ */
+class SharedServerMessage implements ReferenceCounted {
+    final String type;
+    final int call;
+    final int seq;
+    final SharedMessage data;
+
+    SharedServerMessage(String type, int call, int seq, SharedMessage data) {
+        this.type = type;
+        this.call = call;
+        this.seq = seq;
+        this.data = data;
+    }
+
+    /**
+     * The message without the data field
+     */
+    ServerMessage getHeader() {
+        return ServerMessage.newBuilder()
+                .setType(type)
+                .setCall(call)
+                .setSeq(seq)
+                .build();
+    }
+
+    @Override
+    public int refCnt() {
+        return data.refCnt();
+    }
+
+    @Override
+    public SharedServerMessage retain() {
+        data.retain();
+        return this;
+    }
+
+    @Override
+    public SharedServerMessage retain(int increment) {
+        data.retain(increment);
+        return this;
+    }
+
+    @Override
+    public SharedServerMessage touch() {
+        return this;
+    }
+
+    @Override
+    public SharedServerMessage touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return data.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return data.release(decrement);
+    }
+}
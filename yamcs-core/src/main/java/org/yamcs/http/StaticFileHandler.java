@@ -46,6 +46,7 @@ import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedFile;
 import io.netty.handler.stream.ChunkedWriteHandler;
@@ -157,7 +158,10 @@ public class StaticFileHandler extends HttpHandler {
             }
         }
 
-        boolean zeroCopy = zeroCopyEnabled && ctx.pipeline().get(SslHandler.class) == null;
+        // A file region can only be written directly to the socket: not through TLS, nor to an HTTP/2 stream (the
+        // child channel of the connection), whose codec cannot encode it
+        boolean zeroCopy = zeroCopyEnabled && ctx.pipeline().get(SslHandler.class) == null
+                && !(ctx.channel() instanceof Http2StreamChannel);
 
         long fileLength = file.length();
 
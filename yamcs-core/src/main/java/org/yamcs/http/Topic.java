@@ -4,6 +4,8 @@ import org.yamcs.api.Api;
 import org.yamcs.api.Observer;
 import org.yamcs.api.WebSocketTopic;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.protobuf.Descriptors.MethodDescriptor;
 import com.google.protobuf.Message;
 
@@ -15,12 +17,22 @@ public class Topic {
 
     private final boolean deprecated;
 
-    Topic(Api<Context> api, WebSocketTopic topic, RpcDescriptor descriptor) {
+    private Counter subscriptionCounter;
+    private Counter activeSubscriptionCounter;
+    private Counter messageCounter;
+    private Counter messageBytesCounter;
+
+    Topic(Api<Context> api, WebSocketTopic topic, RpcDescriptor descriptor, MetricRegistry metricRegistry) {
         this.api = api;
         this.name = topic.getTopic();
         this.descriptor = descriptor;
 
         deprecated = topic.getDeprecated();
+
+        subscriptionCounter = metricRegistry.counter("yamcs.ws.subscriptions.total." + name);
+        activeSubscriptionCounter = metricRegistry.counter("yamcs.ws.subscriptions.active." + name);
+        messageCounter = metricRegistry.counter("yamcs.ws.messages.total." + name);
+        messageBytesCounter = metricRegistry.counter("yamcs.ws.messages.bytes." + name);
     }
 
     public RpcDescriptor getDescriptor() {
@@ -39,6 +51,36 @@ public class Topic {
         return name;
     }
 
+    void subscriptionStarted() {
+        subscriptionCounter.inc();
+        activeSubscriptionCounter.inc();
+    }
+
+    void subscriptionEnded() {
+        activeSubscriptionCounter.dec();
+    }
+
+    void messageSent(int serializedSize) {
+        messageCounter.inc();
+        messageBytesCounter.inc(serializedSize);
+    }
+
+    public long getSubscriptionCount() {
+        return subscriptionCounter.getCount();
+    }
+
+    public long getActiveSubscriptionCount() {
+        return activeSubscriptionCounter.getCount();
+    }
+
+    public long getMessageCount() {
+        return messageCounter.getCount();
+    }
+
+    public long getMessageBytes() {
+        return messageBytesCounter.getCount();
+    }
+
     public MethodDescriptor getMethodDescriptor() {
         String methodName = descriptor.getMethod();
         return api.getDescriptorForType().findMethodByName(methodName);
@@ -29,6 +29,7 @@ public class TopicContext extends Context {
         super(httpServer, nettyContext, user, topic.getApi());
         this.clientMessage = clientMessage;
         this.topic = topic;
+        topic.subscriptionStarted();
     }
 
     @Override
@@ -45,6 +46,7 @@ public class TopicContext extends Context {
         if (!cancelled) {
             cancelled = true;
             cancellationCause = cause;
+            topic.subscriptionEnded();
             listeners.forEach(l -> l.onCancel(cause));
             return true;
         }
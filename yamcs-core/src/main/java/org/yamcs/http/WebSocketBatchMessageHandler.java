@@ -0,0 +1,189 @@
+package org.yamcs.http;
+
+import static org.yamcs.http.WebSocketFramePriority.HIGH;
+import static org.yamcs.http.WebSocketFramePriority.LOW;
+import static org.yamcs.http.WebSocketFramePriority.NORMAL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.yamcs.http.WebSocketFrameDropper.MessageDroppedException;
+import org.yamcs.logging.Log;
+import org.yamcs.protobuf.ServerMessage;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Used instead of the {@link WebSocketServerMessageHandler} when the client selects the
+ * <code>protobuf-batch</code> subprotocol.
+ * <p>
+ * Each binary frame contains one or more {@link ServerMessage}, each prefixed by its length encoded as a protobuf
+ * varint. The messages are accumulated until:
+ * <ul>
+ * <li>a message with {@link WebSocketFramePriority#HIGH} priority (for example a reply) is flushed;</li>
+ * <li>the flush interval has elapsed since the first flush of a message with lower priority;</li>
+ * <li>the batch reaches the maximum size.</li>
+ * </ul>
+ * Low priority messages which would make the channel not writable are dropped individually, before being added to the
+ * batch. The batch frame is written with the highest priority of its messages.
+ */
+public class WebSocketBatchMessageHandler extends WebSocketServerMessageHandler {
+
+    public static final String SUBPROTOCOL = "protobuf-batch";
+
+    private static final Log log = new Log(WebSocketBatchMessageHandler.class);
+
+    private final long flushInterval;
+    private final int maxSize;
+
+    private CompositeByteBuf batch;
+    private List<ChannelPromise> promises = new ArrayList<>();
+    private WebSocketFramePriority batchPriority = LOW;
+    private ScheduledFuture<?> scheduledFlush;
+
+    // avoid flooding the log with messages about dropped messages
+    private boolean logDroppedMessages = true;
+
+    /**
+     * @param flushInterval
+     *            maximum time in milliseconds a message of normal or low priority is kept in the batch
+     * @param maxSize
+     *            size in bytes at which the batch is written regardless of the flush interval
+     */
+    public WebSocketBatchMessageHandler(HttpServer httpServer, long flushInterval, int maxSize) {
+        super(httpServer, true);
+        this.flushInterval = flushInterval;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        ByteBuf buf;
+        try {
+            buf = encode(ctx, msg);
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+
+        var priority = ctx.channel().attr(WebSocketFramePriority.ATTR).get();
+        if (priority == null) {
+            priority = NORMAL;
+        }
+
+        int length = buf.readableBytes();
+        long pending = batch == null ? 0 : batch.readableBytes();
+        long bytesBeforeUnwritable = ctx.channel().bytesBeforeUnwritable();
+        if (priority == LOW && bytesBeforeUnwritable <= pending + length) {
+            buf.release();
+            if (logDroppedMessages) {
+                log.warn("Message skipped because writing it would make the channel not writable "
+                        + "(length: {}, bytesBeforeUnwritable: {})", length, bytesBeforeUnwritable);
+                logDroppedMessages = false;
+            }
+            promise.setFailure(new MessageDroppedException(bytesBeforeUnwritable));
+            return;
+        }
+        logDroppedMessages = true;
+
+        if (batch == null) {
+            batch = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+        }
+        ByteBuf prefix = ctx.alloc().buffer(5);
+        writeVarint32(prefix, length);
+        batch.addComponent(true, prefix);
+        batch.addComponent(true, buf);
+        promises.add(promise);
+        if (priority.compareTo(batchPriority) > 0) {
+            batchPriority = priority;
+        }
+
+        if (batch.readableBytes() >= maxSize) {
+            writeBatch(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (batch == null) {
+            ctx.flush();
+        } else if (batchPriority == HIGH || flushInterval <= 0) {
+            writeBatch(ctx);
+            ctx.flush();
+        } else if (scheduledFlush == null) {
+            scheduledFlush = ctx.executor().schedule(() -> {
+                scheduledFlush = null;
+                writeBatch(ctx);
+                ctx.flush();
+            }, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        discardBatch();
+        super.close(ctx, promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        discardBatch();
+    }
+
+    private void writeBatch(ChannelHandlerContext ctx) {
+        if (batch == null) {
+            return;
+        }
+        var frame = new BinaryWebSocketFrame(batch);
+        var batchPromises = promises;
+        var priority = batchPriority;
+        batch = null;
+        promises = new ArrayList<>();
+        batchPriority = LOW;
+
+        // The frame dropper uses the priority of the channel; set it for this write only
+        var prioAttr = ctx.channel().attr(WebSocketFramePriority.ATTR);
+        var previousPriority = prioAttr.getAndSet(priority);
+        ChannelFuture future = ctx.write(frame);
+        prioAttr.compareAndSet(priority, previousPriority);
+
+        future.addListener(f -> {
+            for (ChannelPromise p : batchPromises) {
+                if (f.isSuccess()) {
+                    p.trySuccess();
+                } else {
+                    p.tryFailure(f.cause());
+                }
+            }
+        });
+    }
+
+    private void discardBatch() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (batch != null) {
+            batch.release();
+            batch = null;
+            var e = new IllegalStateException("Channel closed");
+            promises.forEach(p -> p.tryFailure(e));
+            promises = new ArrayList<>();
+        }
+    }
+
+    static void writeVarint32(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+}
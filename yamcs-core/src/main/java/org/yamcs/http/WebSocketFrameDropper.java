@@ -67,6 +67,7 @@ public class WebSocketFrameDropper extends ChannelOutboundHandlerAdapter {
                             + " (slow network?). Closing connection.");
                     ctx.close();
                 }
+                frame.release();
                 promise.setFailure(new MessageDroppedException(bytesBeforeUnwritable));
             }
         } else {
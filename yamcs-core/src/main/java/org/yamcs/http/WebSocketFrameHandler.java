@@ -70,10 +70,14 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
         if (evt instanceof HandshakeComplete) {
             HandshakeComplete handshakeEvt = (HandshakeComplete) evt;
             String subprotocol = handshakeEvt.selectedSubprotocol();
-            protobuf = "protobuf".equals(subprotocol);
+            boolean batch = WebSocketBatchMessageHandler.SUBPROTOCOL.equals(subprotocol);
+            protobuf = batch || "protobuf".equals(subprotocol);
             String channelId = nettyContext.channel().id().asShortText();
 
-            if (protobuf) {
+            if (batch) {
+                log.info("{} {} {} {} [subprotocol: protobuf-batch]", channelId, nettyRequest.method(),
+                        nettyRequest.uri(), HttpResponseStatus.SWITCHING_PROTOCOLS.code());
+            } else if (protobuf) {
                 log.info("{} {} {} {} [subprotocol: protobuf]", channelId, nettyRequest.method(), nettyRequest.uri(),
                         HttpResponseStatus.SWITCHING_PROTOCOLS.code());
             } else {
@@ -84,7 +88,13 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
             // After upgrade, no further HTTP messages will be received
             nettyContext.pipeline().remove(HttpRequestHandler.class);
 
-            nettyContext.pipeline().addLast(new WebSocketServerMessageHandler(httpServer, protobuf));
+            if (batch) {
+                var batchConfig = httpServer.getConfig().getConfig("webSocket").getConfig("batch");
+                nettyContext.pipeline().addLast(new WebSocketBatchMessageHandler(httpServer,
+                        batchConfig.getInt("flushInterval"), batchConfig.getInt("maxSize")));
+            } else {
+                nettyContext.pipeline().addLast(new WebSocketServerMessageHandler(httpServer, protobuf));
+            }
         } else if (evt instanceof IdleStateEvent) {
             nettyContext.writeAndFlush(new PingWebSocketFrame());
         } else {
@@ -15,7 +15,7 @@ import org.yamcs.protobuf.ServerMessage;
 import com.google.protobuf.Any;
 import com.google.protobuf.Message;
 
-public class WebSocketObserver implements Observer<Message> {
+public class WebSocketObserver implements Observer<Message>, SharedMessageObserver {
 
     private Log log;
 
@@ -70,9 +70,34 @@ public class WebSocketObserver implements Observer<Message> {
             return;
         }
 
+        ctx.getTopic().messageSent(message.getSerializedSize()); // Memoized, reused when encoding
         sendMessage(ctx.getTopic().getName(), message, lowPriority ? LOW : NORMAL);
     }
 
+    /**
+     * Sends a message shared with other calls. The protobuf encoding of the message data is reused for all of them.
+     */
+    @Override
+    public synchronized void nextShared(SharedMessage message) {
+        if (!replied) {
+            pendingMessages.add(message.getMessage());
+            return;
+        }
+
+        messageCount++;
+
+        if (!ctx.nettyContext.channel().isOpen()) {
+            ctx.cancel(null);
+            return;
+        }
+
+        message.retain();
+        ctx.getTopic().messageSent(message.getMessage().getSerializedSize());
+        ctx.nettyContext.channel().attr(WebSocketFramePriority.ATTR).set(lowPriority ? LOW : NORMAL);
+        ctx.nettyContext.channel().writeAndFlush(
+                new SharedServerMessage(ctx.getTopic().getName(), ctx.getId(), messageCount, message));
+    }
+
     private void sendMessage(String type, Message data, WebSocketFramePriority priority) {
         ServerMessage serverMessage = ServerMessage.newBuilder()
                 .setType(type)
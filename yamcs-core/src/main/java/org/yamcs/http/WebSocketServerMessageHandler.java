@@ -1,19 +1,28 @@
 package org.yamcs.http;
 
+import java.io.IOException;
+
 import org.yamcs.protobuf.ServerMessage;
 
+import com.google.protobuf.Any;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * Encodes {@link ServerMessage} to either {@link BinaryWebSocketFrame} or {@link TextWebSocketFrame} depending if the
  * protobuf or json has to be sent.
+ * <p>
+ * A {@link SharedServerMessage} is encoded in protobuf by prepending the header of this call to the data encoded once
+ * for all the calls.
  */
 public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter {
 
@@ -27,20 +36,56 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-        ServerMessage serverMessage = (ServerMessage) msg;
         WebSocketFrame frame;
+        try {
+            if (protobuf) {
+                frame = new BinaryWebSocketFrame(encode(ctx, msg));
+            } else {
+                frame = new TextWebSocketFrame(toJson(msg));
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+
+        ctx.write(frame, promise);
+    }
 
-        if (protobuf) {
+    /**
+     * Encodes a {@link ServerMessage} or {@link SharedServerMessage} in protobuf. The message is not released.
+     */
+    ByteBuf encode(ChannelHandlerContext ctx, Object msg) throws IOException {
+        if (msg instanceof SharedServerMessage) {
+            SharedServerMessage sharedMessage = (SharedServerMessage) msg;
+            ServerMessage header = sharedMessage.getHeader();
+            ByteBuf headerBuf = ctx.alloc().buffer(header.getSerializedSize());
+            try (ByteBufOutputStream bufOut = new ByteBufOutputStream(headerBuf)) {
+                header.writeTo(bufOut);
+            }
+            // Fields may appear in any order in a protobuf message, the data field is simply appended
+            CompositeByteBuf buf = ctx.alloc().compositeBuffer(2);
+            buf.addComponent(true, headerBuf);
+            buf.addComponent(true, sharedMessage.data.getEncodedData().retainedDuplicate());
+            return buf;
+        } else {
+            ServerMessage serverMessage = (ServerMessage) msg;
             ByteBuf buf = ctx.alloc().buffer();
             try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
                 serverMessage.writeTo(bufOut);
             }
-            frame = new BinaryWebSocketFrame(buf);
-        } else {
-            String json = httpServer.getJsonPrinter().print(serverMessage);
-            frame = new TextWebSocketFrame(json);
+            return buf;
         }
+    }
 
-        ctx.write(frame, promise);
+    private String toJson(Object msg) throws IOException {
+        ServerMessage serverMessage;
+        if (msg instanceof SharedServerMessage) {
+            SharedServerMessage sharedMessage = (SharedServerMessage) msg;
+            serverMessage = sharedMessage.getHeader().toBuilder()
+                    .setData(Any.pack(sharedMessage.data.getMessage(), HttpServer.TYPE_URL_PREFIX))
+                    .build();
+        } else {
+            serverMessage = (ServerMessage) msg;
+        }
+        return httpServer.getJsonPrinter().print(serverMessage);
     }
 }
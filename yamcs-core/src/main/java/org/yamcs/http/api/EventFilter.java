@@ -4,10 +4,16 @@ import static org.yamcs.StandardTupleDefinitions.BODY_COLUMN;
 import static org.yamcs.StandardTupleDefinitions.SEQNUM_COLUMN;
 import static org.yamcs.StandardTupleDefinitions.SOURCE_COLUMN;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
 import org.yamcs.protobuf.Event.EventSeverity;
 import org.yamcs.utils.parser.Filter;
 import org.yamcs.utils.parser.ParseException;
 import org.yamcs.utils.parser.UnknownFieldException;
+import org.yamcs.yarch.SqlBuilder;
+import org.yamcs.yarch.TableDefinition;
 import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.protobuf.Db;
 
@@ -33,6 +39,45 @@ public class EventFilter extends Filter<Tuple> {
         parse();
     }
 
+    /**
+     * Adds conditions on the source and severity columns, derived from the filter, to a query on the event table, so
+     * that the events which cannot match are discarded by the query.
+     * <p>
+     * The filter still has to be applied to the resulting tuples.
+     */
+    public void addSqlConditions(SqlBuilder sqlb, TableDefinition table) {
+        Predicate<String> sourceConstraint = getFieldConstraint(FIELD_SOURCE);
+        if (sourceConstraint != null) {
+            var enumValues = table.getEnumValues(SOURCE_COLUMN);
+            if (enumValues != null) {
+                List<String> sources = new ArrayList<>();
+                for (String source : enumValues.keySet()) {
+                    if (sourceConstraint.test(source)) {
+                        sources.add(source);
+                    }
+                }
+                if (!sources.isEmpty()) {
+                    sqlb.whereColIn(SOURCE_COLUMN, sources);
+                }
+            }
+        }
+
+        Predicate<EventSeverity> severityConstraint = getFieldConstraint(FIELD_SEVERITY);
+        if (severityConstraint != null) {
+            List<String> severities = new ArrayList<>();
+            for (EventSeverity severity : EventSeverity.values()) {
+                // Events without severity are seen as INFO by the query
+                if (severityConstraint.test(severity)
+                        || (severity == EventSeverity.INFO && severityConstraint.test(null))) {
+                    severities.add(severity.name());
+                }
+            }
+            if (!severities.isEmpty()) {
+                sqlb.whereColIn("body.severity", severities);
+            }
+        }
+    }
+
     @Override
     public void beforeItem(Tuple tuple) {
         // Preload lowercase variants to boost non-field text search
@@ -41,6 +41,7 @@ import org.yamcs.protobuf.StreamEventsRequest;
 import org.yamcs.protobuf.SubscribeEventsRequest;
 import org.yamcs.security.SystemPrivilege;
 import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.TimeInterval;
 import org.yamcs.yarch.SqlBuilder;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
@@ -78,6 +79,10 @@ public class EventsApi extends AbstractEventsApi<Context> {
 
         ctx.checkSystemPrivilege(SystemPrivilege.ReadEvents);
 
+        var filter = request.hasFilter()
+                ? EventFilterFactory.create(request.getFilter())
+                : null;
+
         Long pos = request.hasPos() ? request.getPos() : null;
         int limit = request.hasLimit() ? request.getLimit() : 100;
         boolean desc = !request.getOrder().equals("asc");
@@ -92,7 +97,26 @@ public class EventsApi extends AbstractEventsApi<Context> {
             nextToken = EventPageToken.decode(request.getNext());
         }
 
-        SqlBuilder sqlb = new SqlBuilder(EventRecorder.TABLE_NAME);
+        Stream searchStream = null;
+        if (request.hasQ()) {
+            TimeInterval interval = new TimeInterval();
+            if (request.hasStart()) {
+                interval.setStart(TimeEncoding.fromProtobufTimestamp(request.getStart()));
+            }
+            if (request.hasStop()) {
+                interval.setEnd(TimeEncoding.fromProtobufTimestamp(request.getStop()));
+            }
+            if (nextToken != null) {
+                if (desc && (!interval.hasEnd() || nextToken.gentime < interval.getEnd())) {
+                    interval.setEnd(nextToken.gentime + 1);
+                } else if (!desc && (!interval.hasStart() || nextToken.gentime > interval.getStart())) {
+                    interval.setStart(nextToken.gentime);
+                }
+            }
+            searchStream = newSearchStream(instance, request.getQ(), interval, !desc);
+        }
+
+        SqlBuilder sqlb = new SqlBuilder(searchStream != null ? searchStream.getName() : EventRecorder.TABLE_NAME);
 
         if (request.hasStart()) {
             sqlb.whereColAfterOrEqual(GENTIME_COLUMN, request.getStart());
@@ -119,6 +143,9 @@ public class EventsApi extends AbstractEventsApi<Context> {
             }
         }
         addSeverityFilter(sqlb, severity);
+        if (filter != null) {
+            filter.addSqlConditions(sqlb, YarchDatabase.getInstance(instance).getTable(EventRecorder.TABLE_NAME));
+        }
 
         sqlb.descend(desc);
 
@@ -126,12 +153,8 @@ public class EventsApi extends AbstractEventsApi<Context> {
             sqlb.limit(pos, limit + 1l); // one more to detect hasMore
         }
 
-        var filter = request.hasFilter()
-                ? EventFilterFactory.create(request.getFilter())
-                : null;
-
         var responseb = ListEventsResponse.newBuilder();
-        StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), new StreamSubscriber() {
+        streamEvents(instance, sqlb, searchStream, new StreamSubscriber() {
 
             Db.Event last;
             int count;
@@ -271,7 +294,23 @@ public class EventsApi extends AbstractEventsApi<Context> {
         verifyEventArchiveSupport(instance);
         ctx.checkSystemPrivilege(SystemPrivilege.ReadEvents);
 
-        SqlBuilder sqlb = new SqlBuilder(EventRecorder.TABLE_NAME);
+        var filter = request.hasFilter()
+                ? EventFilterFactory.create(request.getFilter())
+                : null;
+
+        Stream searchStream = null;
+        if (request.hasQ()) {
+            TimeInterval interval = new TimeInterval();
+            if (request.hasStart()) {
+                interval.setStart(TimeEncoding.fromProtobufTimestamp(request.getStart()));
+            }
+            if (request.hasStop()) {
+                interval.setEnd(TimeEncoding.fromProtobufTimestamp(request.getStop()));
+            }
+            searchStream = newSearchStream(instance, request.getQ(), interval, true);
+        }
+
+        SqlBuilder sqlb = new SqlBuilder(searchStream != null ? searchStream.getName() : EventRecorder.TABLE_NAME);
         if (request.hasStart()) {
             sqlb.whereColAfterOrEqual(GENTIME_COLUMN, request.getStart());
         }
@@ -289,12 +328,11 @@ public class EventsApi extends AbstractEventsApi<Context> {
         if (request.hasQ()) {
             sqlb.where("body.message like ?", "%" + request.getQ() + "%");
         }
+        if (filter != null) {
+            filter.addSqlConditions(sqlb, YarchDatabase.getInstance(instance).getTable(EventRecorder.TABLE_NAME));
+        }
 
-        var filter = request.hasFilter()
-                ? EventFilterFactory.create(request.getFilter())
-                : null;
-
-        StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), new StreamSubscriber() {
+        streamEvents(instance, sqlb, searchStream, new StreamSubscriber() {
 
             @Override
             public void onTuple(Stream stream, Tuple tuple) {
@@ -344,11 +382,14 @@ public class EventsApi extends AbstractEventsApi<Context> {
             sqlb.where("body.message like ?", "%" + request.getQ() + "%");
         }
 
-        String sql = sqlb.toString();
-
         var filter = request.hasFilter()
                 ? EventFilterFactory.create(request.getFilter())
                 : null;
+        if (filter != null) {
+            filter.addSqlConditions(sqlb, YarchDatabase.getInstance(instance).getTable(EventRecorder.TABLE_NAME));
+        }
+
+        String sql = sqlb.toString();
 
         char delimiter = '\t';
         if (request.hasDelimiter()) {
@@ -386,6 +427,43 @@ public class EventsApi extends AbstractEventsApi<Context> {
         }
     }
 
+    /**
+     * Creates a stream with the events matching the text query, using the full-text index of the event recorder.
+     * <p>
+     * The index only narrows down the events: the query conditions, including the like on the message, are applied to
+     * the stream as they would be to the table.
+     *
+     * @return the stream, or null if the index is not available or cannot be used for this query
+     */
+    private static Stream newSearchStream(String instance, String q, TimeInterval interval, boolean ascending) {
+        var ysi = YamcsServer.getServer().getInstance(instance);
+        if (ysi == null) {
+            return null;
+        }
+        for (var recorder : ysi.getServices(EventRecorder.class)) {
+            var index = recorder.getEventIndex();
+            if (index != null && index.isComplete()) {
+                return index.newSearchStream(q, interval, ascending);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the select, with the search stream (if not null) as source instead of the event table
+     */
+    private static void streamEvents(String instance, SqlBuilder sqlb, Stream searchStream,
+            StreamSubscriber subscriber) {
+        try {
+            StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), subscriber);
+        } catch (RuntimeException e) {
+            if (searchStream != null) {
+                searchStream.close();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Stateless continuation token for paged requests on the event table
      */
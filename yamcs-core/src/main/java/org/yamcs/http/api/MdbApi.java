@@ -25,6 +25,7 @@ import org.yamcs.http.Context;
 import org.yamcs.http.ForbiddenException;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.http.NotFoundException;
+import org.yamcs.http.ResponseCache;
 import org.yamcs.http.api.MdbPageBuilder.MdbPage;
 import org.yamcs.http.api.MdbSearchHelpers.EntryMatch;
 import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
@@ -107,6 +108,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
     private static final String JAVA_SERIALIZED_OBJECT = "application/x-java-serialized-object";
     private static final String TEXT_XML = "text/xml";
     private static final Log log = new Log(MdbApi.class);
+    private static final long RESPONSE_CACHE_SIZE = 32 * 1024 * 1024;
+
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_SIZE);
 
     @Override
     public void getMissionDatabase(Context ctx, GetMissionDatabaseRequest request,
@@ -115,6 +119,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         MissionDatabase converted = toMissionDatabase(instance, mdb);
         observer.complete(converted);
     }
@@ -211,11 +218,14 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ctx.checkSystemPrivilege(SystemPrivilege.GetMissionDatabase);
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
 
         // Should eventually be replaced in a generic mdb search operation
         NameDescriptionSearchMatcher matcher = null;
         if (request.hasQ()) {
-            matcher = new NameDescriptionSearchMatcher(request.getQ());
+            matcher = new NameDescriptionSearchMatcher(request.getQ(), MdbSearchIndex.get(mdb).getSpaceSystems());
         }
 
         List<SpaceSystem> matchedSpaceSystems = new ArrayList<>();
@@ -285,6 +295,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
         String instance = InstancesApi.verifyInstance(request.getInstance());
 
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         SpaceSystem spaceSystem = verifySpaceSystem(mdb, request.getName());
 
         SpaceSystemInfo info = XtceToGpbAssembler.toSpaceSystemInfo(spaceSystem, DetailLevel.FULL);
@@ -295,73 +308,100 @@ public class MdbApi extends AbstractMdbApi<Context> {
     public void listParameters(Context ctx, ListParametersRequest request, Observer<ListParametersResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
 
         Predicate<Parameter> hasPrivilege = p -> {
             return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
                     || ctx.user.hasParameterPrivilege(ObjectPrivilegeType.ReadParameter, p);
         };
 
-        // Establish only the parameters and space-systems that the user is authorised for
-        Set<String> allSpaceSystemNames = new HashSet<>();
-        List<Parameter> allParameters = new ArrayList<>();
-        mdb.getParameters().stream().filter(hasPrivilege).forEach(parameter -> {
-            allSpaceSystemNames.add(parameter.getSubsystemName());
-            allParameters.add(parameter);
-        });
-        Set<SpaceSystem> allSpaceSystems = new HashSet<>();
-        for (String spaceSystemName : allSpaceSystemNames) {
-            SpaceSystem spaceSystem = mdb.getSpaceSystem(spaceSystemName);
-            while (!spaceSystem.getName().isEmpty()) {
-                allSpaceSystems.add(spaceSystem);
-                spaceSystem = spaceSystem.getParent();
-            }
-        }
-
-        // Determine search scope within the tree
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         final List<Parameter> candidates = new ArrayList<>();
-        if (request.hasSystem()) {
-            // Add trailing slash, to ignore siblings with similar name
-            var systemPrefix = request.getSystem().endsWith("/")
-                    ? request.getSystem()
-                    : request.getSystem() + "/";
+        NameDescriptionSearchMatcher matcher = null;
+        if (request.hasQ() && !request.getSearchMembers()) {
+            // Deep search, optionally starting from the system. Only the matches found in the index are considered.
+            var systemPrefix = "";
+            if (request.hasSystem()) {
+                systemPrefix = request.getSystem().endsWith("/") ? request.getSystem() : request.getSystem() + "/";
+            }
+            for (Parameter parameter : MdbSearchIndex.get(mdb).getParameters().search(request.getQ())) {
+                if (parameter.getQualifiedName().startsWith(systemPrefix) && hasPrivilege.test(parameter)) {
+                    candidates.add(parameter);
+                }
+            }
+        } else {
+            // Establish only the parameters and space-systems that the user is authorised for
+            Set<String> allSpaceSystemNames = new HashSet<>();
+            List<Parameter> allParameters = new ArrayList<>();
+            mdb.getParameters().stream().filter(hasPrivilege).forEach(parameter -> {
+                allSpaceSystemNames.add(parameter.getSubsystemName());
+                allParameters.add(parameter);
+            });
+            Set<SpaceSystem> allSpaceSystems = new HashSet<>();
+            for (String spaceSystemName : allSpaceSystemNames) {
+                SpaceSystem spaceSystem = mdb.getSpaceSystem(spaceSystemName);
+                while (!spaceSystem.getName().isEmpty()) {
+                    allSpaceSystems.add(spaceSystem);
+                    spaceSystem = spaceSystem.getParent();
+                }
+            }
 
-            if (request.hasQ()) { // get candidates for deep search starting from the system
-                allParameters.forEach(parameter -> {
-                    if (parameter.getQualifiedName().startsWith(systemPrefix)) {
-                        candidates.add(parameter);
-                    }
-                });
-            } else { // get direct children of the system
-                for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
-                    if (!allSpaceSystems.contains(spaceSystem)) {
-                        continue;
-                    }
-                    if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
-                        spaceSystem.getParameters().stream().filter(hasPrivilege).forEach(candidates::add);
-                    } else if (spaceSystem.getQualifiedName().startsWith(systemPrefix)) {
-                        if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
-                            spaceSystems.add(spaceSystem);
+            // Determine search scope within the tree
+            if (request.hasSystem()) {
+                // Add trailing slash, to ignore siblings with similar name
+                var systemPrefix = request.getSystem().endsWith("/")
+                        ? request.getSystem()
+                        : request.getSystem() + "/";
+
+                if (request.hasQ()) { // get candidates for deep search starting from the system
+                    allParameters.forEach(parameter -> {
+                        if (parameter.getQualifiedName().startsWith(systemPrefix)) {
+                            candidates.add(parameter);
+                        }
+                    });
+                } else { // get direct children of the system
+                    for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
+                        if (!allSpaceSystems.contains(spaceSystem)) {
+                            continue;
+                        }
+                        if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
+                            spaceSystem.getParameters().stream().filter(hasPrivilege).forEach(candidates::add);
+                        } else if (spaceSystem.getQualifiedName().startsWith(systemPrefix)) {
+                            if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
+                                spaceSystems.add(spaceSystem);
+                            }
                         }
                     }
                 }
+            } else {
+                candidates.addAll(allParameters);
+            }
+
+            if (request.hasQ()) {
+                matcher = new NameDescriptionSearchMatcher(request.getQ(), MdbSearchIndex.get(mdb).getParameters());
             }
-        } else {
-            candidates.addAll(allParameters);
         }
 
         // Match parameters
-        NameDescriptionSearchMatcher matcher = request.hasQ() ? new NameDescriptionSearchMatcher(request.getQ()) : null;
+        NameDescriptionSearchMatcher finalMatcher = matcher;
         List<NameDescription> matches = candidates.stream()
                 .filter(p -> !request.hasSource() || parameterSourceMatches((Parameter) p, request.getSource()))
                 .filter(item -> parameterTypeMatches(item.getParameterType(), request.getTypeList()))
-                .filter(item -> matcher == null || matcher.matches(item))
+                .filter(item -> finalMatcher == null || finalMatcher.matches(item))
                 .collect(Collectors.toList());
 
         // If requested, match also member paths inside parameters
         if (request.getSearchMembers() && request.hasQ()) {
+            // Only the parameters with entries that may match, as found in the index, are searched
+            Set<Parameter> entryCandidates = MdbSearchHelpers.getEntryCandidates(
+                    MdbSearchIndex.get(mdb).getParameterEntries(), request.getQ());
             List<NameDescription> memberMatches = new ArrayList<>();
             for (Parameter parameter : candidates) {
+                if (entryCandidates != null && !entryCandidates.contains(parameter)) {
+                    continue;
+                }
                 if (!request.hasSource() || parameterSourceMatches(parameter, request.getSource())) {
                     MdbSearchHelpers.searchEntries(parameter, request.getQ()).stream()
                             .filter(entry -> parameterTypeMatches(entry.entryType, request.getTypeList()))
@@ -412,6 +452,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
         String instance = InstancesApi.verifyInstance(request.getInstance());
 
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         ParameterWithId match = verifyParameterWithId(ctx, mdb, request.getName());
 
         ParameterInfo pinfo = XtceToGpbAssembler.toParameterInfo(match, DetailLevel.FULL);
@@ -618,6 +661,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ctx.checkSystemPrivilege(SystemPrivilege.GetMissionDatabase);
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         List<ParameterType> ptypes = new ArrayList<>();
@@ -651,7 +697,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
             ptypes = new ArrayList<>(mdb.getParameterTypes());
         }
 
-        NameDescriptionSearchMatcher matcher = request.hasQ() ? new NameDescriptionSearchMatcher(request.getQ()) : null;
+        NameDescriptionSearchMatcher matcher = request.hasQ()
+                ? new NameDescriptionSearchMatcher(request.getQ(), MdbSearchIndex.get(mdb).getParameterTypes())
+                : null;
 
         ptypes = ptypes.stream().filter(c -> {
             if (matcher != null && !matcher.matches((NameDescription) c)) {
@@ -691,6 +739,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
         String instance = InstancesApi.verifyInstance(request.getInstance());
 
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         ParameterType ptype = verifyParameterType(mdb, request.getName());
 
         var pinfo = XtceToGpbAssembler.toParameterTypeInfo(ptype, DetailLevel.FULL);
@@ -715,6 +766,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ctx.checkSystemPrivilege(SystemPrivilege.GetMissionDatabase);
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         List<SequenceContainer> containers = new ArrayList<>();
@@ -748,7 +802,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
             containers = new ArrayList<>(mdb.getSequenceContainers());
         }
 
-        NameDescriptionSearchMatcher matcher = request.hasQ() ? new NameDescriptionSearchMatcher(request.getQ()) : null;
+        NameDescriptionSearchMatcher matcher = request.hasQ()
+                ? new NameDescriptionSearchMatcher(request.getQ(), MdbSearchIndex.get(mdb).getContainers())
+                : null;
 
         containers = containers.stream().filter(c -> {
             if (matcher != null && !matcher.matches(c)) {
@@ -785,6 +841,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
         String instance = InstancesApi.verifyInstance(request.getInstance());
 
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         SequenceContainer c = verifyContainer(mdb, request.getName());
 
         ContainerInfo cinfo = XtceToGpbAssembler.toContainerInfo(c, DetailLevel.FULL);
@@ -817,6 +876,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
     public void listCommands(Context ctx, ListCommandsRequest request, Observer<ListCommandsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
 
         Predicate<MetaCommand> hasPrivilege = c -> {
             return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
@@ -871,7 +933,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
             candidates.addAll(allCommands);
         }
 
-        NameDescriptionSearchMatcher matcher = request.hasQ() ? new NameDescriptionSearchMatcher(request.getQ()) : null;
+        NameDescriptionSearchMatcher matcher = request.hasQ()
+                ? new NameDescriptionSearchMatcher(request.getQ(), MdbSearchIndex.get(mdb).getCommands())
+                : null;
 
         List<MetaCommand> commands = candidates.stream().filter(c -> {
             if (matcher != null && !matcher.matches(c)) {
@@ -909,6 +973,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
     public void getCommand(Context ctx, GetCommandRequest request, Observer<CommandInfo> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         MetaCommand cmd = verifyCommand(mdb, request.getName());
 
         if (!ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase) &&
@@ -925,6 +992,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
             Observer<ListAlgorithmsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
 
         Predicate<Algorithm> hasPrivilege = a -> {
             return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
@@ -979,7 +1049,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
             candidates.addAll(allAlgorithms);
         }
 
-        NameDescriptionSearchMatcher matcher = request.hasQ() ? new NameDescriptionSearchMatcher(request.getQ()) : null;
+        NameDescriptionSearchMatcher matcher = request.hasQ()
+                ? new NameDescriptionSearchMatcher(request.getQ(), MdbSearchIndex.get(mdb).getAlgorithms())
+                : null;
 
         List<Algorithm> algorithms = candidates.stream().filter(a -> {
             if (matcher != null && !matcher.matches(a)) {
@@ -1019,6 +1091,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
     public void getAlgorithm(Context ctx, GetAlgorithmRequest request, Observer<AlgorithmInfo> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        if (serveFromCache(ctx, mdb)) {
+            return;
+        }
         Algorithm algo = verifyAlgorithm(mdb, request.getName());
 
         if (!ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase) &&
@@ -1045,6 +1120,17 @@ public class MdbApi extends AbstractMdbApi<Context> {
         return xtceSource != null && xtceSource.toString().equals(source.toString());
     }
 
+    /**
+     * Completes the call from the response cache, or with a 304 if the client is up to date with the MDB.
+     * <p>
+     * Only calls by users that can read the full MDB are considered, because the responses to other users depend on
+     * their object privileges.
+     */
+    private boolean serveFromCache(Context ctx, Mdb mdb) {
+        return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
+                && responseCache.serve(ctx, mdb.getVersion());
+    }
+
     private static SpaceSystem verifySpaceSystem(Mdb mdb, String pathName) {
         String namespace;
         String name;
@@ -3,8 +3,10 @@ package org.yamcs.http.api;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.regex.MatchResult;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,6 +43,44 @@ public class MdbSearchHelpers {
                 .map(entry -> new EntryMatch(entry)).collect(Collectors.toList());
     }
 
+    /**
+     * Returns the parameters which may contain entries matching the search term, as found in an index of
+     * {@link #getEntryNames(Parameter)}. The other parameters certainly do not contain matching entries.
+     * <p>
+     * Returns null if the index cannot narrow down the parameters, because the search term is too short.
+     */
+    public static Set<Parameter> getEntryCandidates(NameDescriptionIndex<Parameter> entryIndex, String searchTerm) {
+        SearchTerm term = new SearchTerm(searchTerm);
+        if (term.searchPath == null) {
+            return Collections.emptySet();
+        }
+        // Each name of the search path is contained in the qualified name of a matching entry
+        String[] names = Arrays.stream(term.searchPath)
+                .map(el -> el.getName() != null ? el.getName() : "")
+                .toArray(String[]::new);
+        List<Parameter> indexMatches = entryIndex.getCandidates(names);
+        if (indexMatches == null) {
+            return null;
+        }
+        Set<Parameter> candidates = Collections.newSetFromMap(new IdentityHashMap<>(indexMatches.size()));
+        candidates.addAll(indexMatches);
+        return candidates;
+    }
+
+    /**
+     * Returns the qualified names of the aggregate members and array entries of a parameter, with -1 as array index.
+     * These are the names that {@link #searchEntries(Parameter, String)} matches.
+     */
+    static List<String> getEntryNames(Parameter parameter) {
+        ParameterType ptype = parameter.getParameterType();
+        if (ptype == null || (!(ptype instanceof AggregateParameterType) && !(ptype instanceof ArrayParameterType))) {
+            return Collections.emptyList();
+        }
+        return new Entry(parameter).findSubEntries().stream()
+                .map(Entry::getQualifiedName)
+                .collect(Collectors.toList());
+    }
+
     private static class SearchTerm {
         String term;
         PathElement[] searchPath;
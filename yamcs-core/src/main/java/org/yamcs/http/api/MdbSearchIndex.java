@@ -0,0 +1,94 @@
+package org.yamcs.http.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.yamcs.mdb.Mdb;
+import org.yamcs.xtce.Algorithm;
+import org.yamcs.xtce.MetaCommand;
+import org.yamcs.xtce.NameDescription;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterType;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.SpaceSystem;
+
+/**
+ * Search indexes of the objects of an MDB.
+ * <p>
+ * The indexes are built when first requested, and brought up to date whenever the MDB version changes. Objects are
+ * never removed from an MDB, so an update only has to index the new objects.
+ */
+public class MdbSearchIndex {
+
+    private static final Map<Mdb, MdbSearchIndex> indexes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private long version = -1;
+    private final NameDescriptionIndex<SpaceSystem> spaceSystems = new NameDescriptionIndex<>();
+    private final NameDescriptionIndex<Parameter> parameters = new NameDescriptionIndex<>();
+    // Parameters by the paths of their aggregate members and array entries
+    private final NameDescriptionIndex<Parameter> parameterEntries = new NameDescriptionIndex<>(
+            MdbSearchHelpers::getEntryNames);
+    private final NameDescriptionIndex<NameDescription> parameterTypes = new NameDescriptionIndex<>();
+    private final NameDescriptionIndex<SequenceContainer> containers = new NameDescriptionIndex<>();
+    private final NameDescriptionIndex<MetaCommand> commands = new NameDescriptionIndex<>();
+    private final NameDescriptionIndex<Algorithm> algorithms = new NameDescriptionIndex<>();
+
+    /**
+     * Returns the up-to-date search index of an MDB.
+     */
+    public static MdbSearchIndex get(Mdb mdb) {
+        MdbSearchIndex index = indexes.computeIfAbsent(mdb, k -> new MdbSearchIndex());
+        index.update(mdb);
+        return index;
+    }
+
+    private synchronized void update(Mdb mdb) {
+        long mdbVersion = mdb.getVersion();
+        if (mdbVersion == version) {
+            return;
+        }
+        spaceSystems.addAll(mdb.getSpaceSystems());
+        parameters.addAll(mdb.getParameters());
+        parameterEntries.addAll(mdb.getParameters());
+        List<NameDescription> ptypes = new ArrayList<>();
+        for (ParameterType ptype : mdb.getParameterTypes()) {
+            ptypes.add((NameDescription) ptype);
+        }
+        parameterTypes.addAll(ptypes);
+        containers.addAll(mdb.getSequenceContainers());
+        commands.addAll(mdb.getMetaCommands());
+        algorithms.addAll(mdb.getAlgorithms());
+        version = mdbVersion;
+    }
+
+    public NameDescriptionIndex<SpaceSystem> getSpaceSystems() {
+        return spaceSystems;
+    }
+
+    public NameDescriptionIndex<Parameter> getParameters() {
+        return parameters;
+    }
+
+    public NameDescriptionIndex<Parameter> getParameterEntries() {
+        return parameterEntries;
+    }
+
+    public NameDescriptionIndex<NameDescription> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public NameDescriptionIndex<SequenceContainer> getContainers() {
+        return containers;
+    }
+
+    public NameDescriptionIndex<MetaCommand> getCommands() {
+        return commands;
+    }
+
+    public NameDescriptionIndex<Algorithm> getAlgorithms() {
+        return algorithms;
+    }
+}
@@ -0,0 +1,179 @@
+package org.yamcs.http.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.yamcs.utils.IntArray;
+import org.yamcs.xtce.NameDescription;
+
+/**
+ * Trigram index of the qualified names, short descriptions and aliases of a collection of XTCE objects (or of other
+ * texts derived from the objects).
+ * <p>
+ * A lookup returns the objects that contain all trigrams of the search terms. This is a superset of the objects that
+ * contain the terms, which still have to be checked with a {@link NameDescriptionSearchMatcher}.
+ */
+public class NameDescriptionIndex<T extends NameDescription> {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final List<T> items = new ArrayList<>();
+    private final Set<T> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Ids of the items containing a trigram, in ascending order
+    private final Map<Long, IntArray> postings = new HashMap<>();
+
+    private final Function<T, Collection<String>> textFunction;
+
+    /**
+     * Creates an index of the qualified names, short descriptions and aliases.
+     */
+    public NameDescriptionIndex() {
+        this(NameDescriptionIndex::getNameDescriptionTexts);
+    }
+
+    /**
+     * Creates an index of the texts returned by the function.
+     * <p>
+     * {@link #search(String)} can only be used with the default texts, whereas {@link #getCandidates(String[])} works
+     * with any texts.
+     */
+    public NameDescriptionIndex(Function<T, Collection<String>> textFunction) {
+        this.textFunction = textFunction;
+    }
+
+    /**
+     * Adds the objects that are not yet indexed.
+     */
+    public synchronized void addAll(Collection<T> candidates) {
+        for (T item : candidates) {
+            if (indexed.add(item)) {
+                add(item);
+            }
+        }
+    }
+
+    private void add(T item) {
+        int id = items.size();
+        items.add(item);
+
+        Set<Long> grams = new HashSet<>();
+        for (String text : textFunction.apply(item)) {
+            addGrams(text, grams);
+        }
+        for (Long gram : grams) {
+            postings.computeIfAbsent(gram, k -> new IntArray(4)).add(id);
+        }
+    }
+
+    private static Collection<String> getNameDescriptionTexts(NameDescription item) {
+        List<String> texts = new ArrayList<>();
+        texts.add(item.getQualifiedName());
+        texts.add(item.getShortDescription());
+        if (item.getAliasSet() != null) {
+            texts.addAll(item.getAliasSet().getAliases().values());
+        }
+        return texts;
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * Returns the objects that match the search term, in the order in which they were indexed.
+     */
+    public List<T> search(String searchTerm) {
+        NameDescriptionSearchMatcher matcher = new NameDescriptionSearchMatcher(searchTerm);
+        List<T> candidates = getCandidates(matcher.getTerms());
+        if (candidates == null) {
+            synchronized (this) {
+                candidates = new ArrayList<>(items);
+            }
+        }
+        List<T> result = new ArrayList<>();
+        for (T item : candidates) {
+            if (matcher.matches(item)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the objects that may contain all of the given lowercase terms, in the order in which they were indexed.
+     * <p>
+     * Terms shorter than a trigram do not narrow the result. If all terms are that short, this returns null.
+     */
+    synchronized List<T> getCandidates(String[] terms) {
+        List<IntArray> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                IntArray ids = postings.get(gram(term, i));
+                if (ids == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(ids);
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        // Start with the most selective trigram, to keep intermediate results small
+        lists.sort(Comparator.comparingInt(IntArray::size));
+        IntArray ids = lists.get(0);
+        for (int i = 1; i < lists.size() && !ids.isEmpty(); i++) {
+            ids = intersect(ids, lists.get(i));
+        }
+
+        List<T> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(items.get(ids.get(i)));
+        }
+        return result;
+    }
+
+    private static IntArray intersect(IntArray a1, IntArray a2) {
+        IntArray result = new IntArray(Math.min(a1.size(), a2.size()));
+        int i = 0;
+        int j = 0;
+        while (i < a1.size() && j < a2.size()) {
+            int x1 = a1.get(i);
+            int x2 = a2.get(j);
+            if (x1 < x2) {
+                i++;
+            } else if (x1 > x2) {
+                j++;
+            } else {
+                result.add(x1);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private static void addGrams(String text, Set<Long> grams) {
+        if (text == null) {
+            return;
+        }
+        String lcText = text.toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= lcText.length(); i++) {
+            grams.add(gram(lcText, i));
+        }
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+}
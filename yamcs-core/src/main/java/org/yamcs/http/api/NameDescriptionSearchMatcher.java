@@ -1,5 +1,10 @@
 package org.yamcs.http.api;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
 import org.yamcs.xtce.NameDescription;
 
 /**
@@ -10,10 +15,29 @@ public class NameDescriptionSearchMatcher {
     private String[] terms;
     private boolean searchDescription = true;
 
+    // Objects that may match, as found in an index
+    private Set<NameDescription> candidates;
+
     public NameDescriptionSearchMatcher(String searchTerm) {
         terms = searchTerm.toLowerCase().split("\\s+");
     }
 
+    /**
+     * Creates a matcher that rejects the objects which the index excludes, without having to check their names.
+     */
+    public NameDescriptionSearchMatcher(String searchTerm, NameDescriptionIndex<?> index) {
+        this(searchTerm);
+        List<? extends NameDescription> indexMatches = index.getCandidates(terms);
+        if (indexMatches != null) {
+            candidates = Collections.newSetFromMap(new IdentityHashMap<>(indexMatches.size()));
+            candidates.addAll(indexMatches);
+        }
+    }
+
+    String[] getTerms() {
+        return terms;
+    }
+
     public void setSearchDescription(boolean searchDescription) {
         this.searchDescription = searchDescription;
     }
@@ -28,6 +52,9 @@ public class NameDescriptionSearchMatcher {
     }
 
     public boolean matches(NameDescription nameDescription) {
+        if (candidates != null && !candidates.contains(nameDescription)) {
+            return false;
+        }
         for (String term : terms) {
             boolean match = false;
             if (nameDescription.getQualifiedName().toLowerCase().contains(term)) {
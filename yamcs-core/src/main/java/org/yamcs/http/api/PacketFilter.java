@@ -1,5 +1,7 @@
 package org.yamcs.http.api;
 
+import java.util.function.Predicate;
+
 import org.yamcs.StandardTupleDefinitions;
 import org.yamcs.archive.XtceTmRecorder;
 import org.yamcs.utils.parser.Filter;
@@ -17,6 +19,7 @@ public class PacketFilter extends Filter<Tuple> {
 
     private String lcName;
     private String lcLink;
+    private Predicate<String> nameConstraint;
 
     public PacketFilter(String query) throws ParseException, UnknownFieldException {
         super(query);
@@ -26,6 +29,17 @@ public class PacketFilter extends Filter<Tuple> {
         addNumberField(FIELD_SEQ_NUMBER, this::getSequenceNumber);
         addBinaryField(FIELD_BINARY, this::getBinary);
         parse();
+        nameConstraint = getFieldConstraint(FIELD_NAME);
+    }
+
+    /**
+     * Returns false if no packet with this name can match the filter.
+     * <p>
+     * Used to restrict the packet names in a query on the tm table, before applying the filter to the resulting
+     * tuples.
+     */
+    public boolean acceptsName(String name) {
+        return nameConstraint == null || nameConstraint.test(name);
     }
 
     @Override
@@ -68,6 +68,7 @@ import org.yamcs.yarch.protobuf.Db.Event;
 import com.google.common.collect.BiMap;
 import com.google.gson.Gson;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
 public class PacketsApi extends AbstractPacketsApi<Context> {
 
@@ -136,6 +137,17 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
             return;
         }
 
+        var filter = request.hasFilter()
+                ? PacketFilterFactory.create(request.getFilter())
+                : null;
+        if (filter != null) {
+            nameSet.removeIf(name -> !filter.acceptsName(name));
+            if (nameSet.isEmpty()) {
+                observer.complete(ListPacketsResponse.getDefaultInstance());
+                return;
+            }
+        }
+
         PacketPageToken nextToken = null;
         if (request.hasNext()) {
             String next = request.getNext();
@@ -173,10 +185,6 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
             sqlb.limit(pos, limit + 1l); // one more to detect hasMore
         }
 
-        var filter = request.hasFilter()
-                ? PacketFilterFactory.create(request.getFilter())
-                : null;
-
         var responseb = ListPacketsResponse.newBuilder();
         StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), new StreamSubscriber() {
 
@@ -474,7 +482,7 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
 
                 byte[] raw = (byte[]) tuple.getColumn(StandardTupleDefinitions.TM_PACKET_COLUMN);
                 HttpBody body = HttpBody.newBuilder()
-                        .setData(ByteString.copyFrom(raw))
+                        .setData(UnsafeByteOperations.unsafeWrap(raw)) // Tuple data is not modified
                         .build();
                 observer.next(body);
             }
@@ -0,0 +1,179 @@
+package org.yamcs.http.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterValueWithId;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.utils.ValueUtility;
+
+/**
+ * Reduces the parameter updates sent to a subscriber, before they are converted to protobuf.
+ * <p>
+ * An update is dropped if it does not change the status of the parameter and:
+ * <ul>
+ * <li>its numeric engineering value is within the absolute or relative deadband of the last accepted value, or</li>
+ * <li>only changes are requested and its engineering value equals the last accepted value.</li>
+ * </ul>
+ * The accepted updates can further be limited to a maximum rate: the updates received before the next emission are
+ * kept aside, only the latest one for each parameter, and are emitted together by {@link #flush(long)}.
+ */
+public class ParameterUpdateFilter {
+    private double deadband;
+    private double relativeDeadband;
+    private boolean onChangeOnly;
+    private long minInterval;
+
+    private final Map<NamedObjectId, ParameterValue> lastAccepted = new HashMap<>();
+    private final Map<NamedObjectId, ParameterValueWithId> pending = new LinkedHashMap<>();
+    private long lastEmission;
+    private boolean emitted;
+    private boolean flushScheduled;
+
+    public synchronized void setDeadband(double deadband) {
+        this.deadband = deadband;
+    }
+
+    public synchronized void setRelativeDeadband(double relativeDeadband) {
+        this.relativeDeadband = relativeDeadband;
+    }
+
+    public synchronized void setOnChangeOnly(boolean onChangeOnly) {
+        this.onChangeOnly = onChangeOnly;
+    }
+
+    /**
+     * Sets the maximum number of emissions per second; 0 means no limit.
+     */
+    public synchronized void setMaxRate(double maxRate) {
+        this.minInterval = maxRate > 0 ? (long) (1000 / maxRate) : 0;
+    }
+
+    /**
+     * Returns true if this filter may drop or delay updates.
+     */
+    public synchronized boolean isActive() {
+        return deadband > 0 || relativeDeadband > 0 || onChangeOnly || minInterval > 0;
+    }
+
+    /**
+     * Filters the updates received at the given time and returns those which have to be sent now.
+     * <p>
+     * If some updates are delayed because of the rate limit, {@link #scheduleFlush(long)} returns the delay after which
+     * {@link #flush(long)} has to be called.
+     */
+    public synchronized List<ParameterValueWithId> filter(Collection<ParameterValueWithId> params, long now) {
+        List<ParameterValueWithId> accepted = new ArrayList<>(params.size());
+        for (ParameterValueWithId pvwi : params) {
+            ParameterValue pv = pvwi.getParameterValue();
+            ParameterValue last = lastAccepted.get(pvwi.getId());
+            if (last == null || isSignificant(last, pv)) {
+                lastAccepted.put(pvwi.getId(), pv);
+                accepted.add(pvwi);
+            }
+        }
+        if (minInterval <= 0) {
+            return accepted;
+        }
+
+        for (ParameterValueWithId pvwi : accepted) {
+            pending.remove(pvwi.getId());
+            pending.put(pvwi.getId(), pvwi);
+        }
+        if (emitted && now - lastEmission < minInterval) {
+            return new ArrayList<>();
+        }
+        return emit(now);
+    }
+
+    /**
+     * Returns the delay in milliseconds after which {@link #flush(long)} has to be called, or -1 if there is nothing
+     * to flush or a flush is already scheduled.
+     */
+    public synchronized long scheduleFlush(long now) {
+        if (pending.isEmpty() || flushScheduled) {
+            return -1;
+        }
+        flushScheduled = true;
+        return emitted ? Math.max(0, lastEmission + minInterval - now) : 0;
+    }
+
+    /**
+     * Returns the updates delayed because of the rate limit.
+     */
+    public synchronized List<ParameterValueWithId> flush(long now) {
+        flushScheduled = false;
+        return emit(now);
+    }
+
+    /**
+     * Records a value sent to the subscriber without going through the filter (e.g. the initial value from the
+     * cache).
+     */
+    public synchronized void sent(NamedObjectId id, ParameterValue pv) {
+        lastAccepted.put(id, pv);
+    }
+
+    /**
+     * Forgets the state of parameters no longer subscribed
+     */
+    public synchronized void remove(Collection<NamedObjectId> ids) {
+        for (NamedObjectId id : ids) {
+            lastAccepted.remove(id);
+            pending.remove(id);
+        }
+    }
+
+    public synchronized void clear() {
+        lastAccepted.clear();
+        pending.clear();
+        emitted = false;
+        flushScheduled = false;
+    }
+
+    private List<ParameterValueWithId> emit(long now) {
+        List<ParameterValueWithId> result = new ArrayList<>(pending.values());
+        pending.clear();
+        if (!result.isEmpty()) {
+            lastEmission = now;
+            emitted = true;
+        }
+        return result;
+    }
+
+    private boolean isSignificant(ParameterValue last, ParameterValue pv) {
+        if (!Objects.equals(last.getStatus(), pv.getStatus())) {
+            return true;
+        }
+        Value lastv = last.getEngValue();
+        Value v = pv.getEngValue();
+        if (lastv == null || v == null) {
+            return lastv != v || !onChangeOnly;
+        }
+        if (deadband > 0 || relativeDeadband > 0) {
+            double d1 = toDouble(lastv);
+            double d2 = toDouble(v);
+            if (!Double.isNaN(d1) && !Double.isNaN(d2)) {
+                double delta = Math.abs(d2 - d1);
+                if (delta <= deadband || delta <= relativeDeadband * Math.abs(d1)) {
+                    return false;
+                }
+                return true;
+            }
+        }
+        return !onChangeOnly || !lastv.equals(v);
+    }
+
+    private static double toDouble(Value v) {
+        double[] d = { Double.NaN };
+        ValueUtility.processAsDouble(v, x -> d[0] = x);
+        return d[0];
+    }
+}
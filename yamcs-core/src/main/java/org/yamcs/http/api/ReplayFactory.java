@@ -4,7 +4,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.yamcs.Processor;
-import org.yamcs.ProcessorFactory;
+import org.yamcs.ReplayProcessorPool;
 import org.yamcs.archive.ReplayOptions;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.http.ServiceUnavailableException;
@@ -41,8 +41,8 @@ public class ReplayFactory {
         }
 
         try {
-            Processor processor = ProcessorFactory.create(instance, "api_replay" + count.incrementAndGet(),
-                    "ArchiveRetrieval", "internal", replayRequest);
+            Processor processor = ReplayProcessorPool.createReplayProcessor(instance,
+                    "api_replay" + count.incrementAndGet(), "ArchiveRetrieval", "internal", replayRequest);
             ReplayWrapper wrapper = new ReplayWrapper(l, processor);
 
             ParameterWithIdRequestHelper pidrm = new ParameterWithIdRequestHelper(
@@ -48,6 +48,7 @@ import org.yamcs.protobuf.GetServerInfoResponse.CommandOptionInfo;
 import org.yamcs.protobuf.GetServerInfoResponse.PluginInfo;
 import org.yamcs.protobuf.GetThreadRequest;
 import org.yamcs.protobuf.HttpTraffic;
+import org.yamcs.protobuf.LatencyInfo;
 import org.yamcs.protobuf.ListRoutesResponse;
 import org.yamcs.protobuf.ListThreadsRequest;
 import org.yamcs.protobuf.ListThreadsResponse;
@@ -62,6 +63,7 @@ import org.yamcs.protobuf.TopicInfo;
 import org.yamcs.protobuf.TraceElementInfo;
 import org.yamcs.security.SystemPrivilege;
 
+import com.codahale.metrics.Snapshot;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Empty;
 import com.google.protobuf.Timestamp;
@@ -71,6 +73,7 @@ import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.traffic.ChannelTrafficShapingHandler;
 import io.netty.handler.traffic.TrafficCounter;
 
@@ -179,6 +182,12 @@ public class ServerApi extends AbstractServerApi<Context> {
             routeb.setUrl(httpServer.getContextPath() + route.getUriTemplate());
             routeb.setRequestCount(route.getRequestCount());
             routeb.setErrorCount(route.getErrorCount());
+            routeb.setInFlightCount(route.getInFlightCount());
+            routeb.setRequestBytes(route.getRequestBytes());
+            routeb.setResponseBytes(route.getResponseBytes());
+            if (route.getLatencyTimer().getCount() > 0) {
+                routeb.setLatency(toLatencyInfo(route.getLatencyTimer().getSnapshot()));
+            }
             RpcDescriptor descriptor = route.getDescriptor();
             if (descriptor != null) {
                 routeb.setService(descriptor.getService());
@@ -214,7 +223,11 @@ public class ServerApi extends AbstractServerApi<Context> {
         List<TopicInfo> result = new ArrayList<>();
         for (Topic topic : httpServer.getTopics()) {
             TopicInfo.Builder topicb = TopicInfo.newBuilder()
-                    .setTopic(topic.getName());
+                    .setTopic(topic.getName())
+                    .setSubscriptionCount(topic.getSubscriptionCount())
+                    .setActiveSubscriptionCount(topic.getActiveSubscriptionCount())
+                    .setMessageCount(topic.getMessageCount())
+                    .setMessageBytes(topic.getMessageBytes());
             RpcDescriptor descriptor = topic.getDescriptor();
             if (descriptor != null) {
                 topicb.setService(descriptor.getService());
@@ -451,7 +464,9 @@ public class ServerApi extends AbstractServerApi<Context> {
                 connectionb.setRemoteAddress(address.getAddress().getHostAddress() + ":" + address.getPort());
             }
 
-            var trafficHandler = channel.pipeline().get(ChannelTrafficShapingHandler.class);
+            // HTTP/2 streams share the traffic handler of their connection
+            var connection = channel instanceof Http2StreamChannel ? channel.parent() : channel;
+            var trafficHandler = connection.pipeline().get(ChannelTrafficShapingHandler.class);
             if (trafficHandler != null) {
                 TrafficCounter counter = trafficHandler.trafficCounter();
                 if (counter != null) {
@@ -470,6 +485,8 @@ public class ServerApi extends AbstractServerApi<Context> {
             String protocol = httpRequest.protocolVersion().text();
             if (channel.pipeline().get(WebSocketFrameHandler.class) != null) {
                 protocol = "WebSocket";
+            } else if (channel instanceof Http2StreamChannel) {
+                protocol = "HTTP/2";
             }
             var httpRequestb = HttpRequestInfo.newBuilder()
                     .setKeepAlive(HttpUtil.isKeepAlive(httpRequest))
@@ -607,4 +624,15 @@ public class ServerApi extends AbstractServerApi<Context> {
 
         return processb.build();
     }
+
+    private static LatencyInfo toLatencyInfo(Snapshot snapshot) {
+        double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+        return LatencyInfo.newBuilder()
+                .setMean(snapshot.getMean() / nanosPerMilli)
+                .setP50(snapshot.getMedian() / nanosPerMilli)
+                .setP90(snapshot.getValue(0.9) / nanosPerMilli)
+                .setP99(snapshot.get99thPercentile() / nanosPerMilli)
+                .setMax(snapshot.getMax() / nanosPerMilli)
+                .build();
+    }
 }
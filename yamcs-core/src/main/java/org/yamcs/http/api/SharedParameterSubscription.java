@@ -0,0 +1,320 @@
+package org.yamcs.http.api;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.yamcs.InvalidIdentification;
+import org.yamcs.NoPermissionException;
+import org.yamcs.Processor;
+import org.yamcs.http.SharedMessage;
+import org.yamcs.logging.Log;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterValueWithId;
+import org.yamcs.parameter.ParameterWithId;
+import org.yamcs.parameter.ParameterWithIdRequestHelper;
+import org.yamcs.protobuf.SubscribeParametersData;
+import org.yamcs.protobuf.SubscribeParametersRequest;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.security.ObjectPrivilegeType;
+import org.yamcs.security.User;
+
+/**
+ * Parameter subscription shared by all the WebSocket calls subscribing to the same set of parameters, on the same
+ * processor and with the same options.
+ * <p>
+ * The parameters are subscribed once; each update is converted to a {@link SubscribeParametersData} message and
+ * encoded once, then written to all the calls (see {@link SharedMessage}). For this to work, all the members use the
+ * numeric identifiers assigned by the shared subscription; they receive the mapping when joining.
+ * <p>
+ * A call leaves the shared subscription as soon as it modifies its list of parameters, and continues with a
+ * subscription of its own.
+ * <p>
+ * The updates from the processor, the flushes of the rate limited updates and the joining of new members are
+ * serialized on the monitor of the subscription. A new member receives each update either as such or as part of its
+ * initial message, never both or neither.
+ */
+public class SharedParameterSubscription {
+
+    private static final Log log = new Log(SharedParameterSubscription.class);
+
+    private static final Map<Key, SharedParameterSubscription> subscriptions = new HashMap<>();
+
+    private final Key key;
+    private final Processor processor;
+    private final ParameterWithIdRequestHelper pidrm;
+    private final ParameterUpdateFilter filter = new ParameterUpdateFilter();
+    private int subscriptionId = -1;
+
+    private final Map<NamedObjectId, Integer> numericIds = new ConcurrentHashMap<>();
+    private final List<SubscribeParameterObserver> members = new CopyOnWriteArrayList<>();
+    // The last values delivered by the processor, which updates its cache only after the delivery
+    private final Map<NamedObjectId, ParameterValue> lastValues = new HashMap<>();
+    private ScheduledFuture<?> flushFuture;
+    // set when the last member leaves
+    private volatile boolean closed;
+
+    private SharedParameterSubscription(Key key, Processor processor) {
+        this.key = key;
+        this.processor = processor;
+        filter.setDeadband(key.deadband);
+        filter.setRelativeDeadband(key.relativeDeadband);
+        filter.setMaxRate(key.maxRate);
+        filter.setOnChangeOnly(key.onChangeOnly);
+        pidrm = new ParameterWithIdRequestHelper(processor.getParameterRequestManager(),
+                (subscriptionId, params) -> deliver(params));
+    }
+
+    /**
+     * Adds the call to the shared subscription matching the request, creating it if necessary, and sends the initial
+     * message (mapping and optionally the values from the cache).
+     *
+     * @return the shared subscription or null if the request contains invalid identifiers.
+     * @throws NoPermissionException
+     *             if the user is not allowed to read one of the parameters
+     */
+    static SharedParameterSubscription join(Processor processor, SubscribeParametersRequest request, User user,
+            SubscribeParameterObserver member) throws NoPermissionException {
+        Key key = new Key(processor, request);
+        boolean sendFromCache = !request.hasSendFromCache() || request.getSendFromCache();
+        while (true) {
+            SharedParameterSubscription sub;
+            synchronized (subscriptions) {
+                sub = subscriptions.get(key);
+                if (sub == null || sub.closed) {
+                    sub = new SharedParameterSubscription(key, processor);
+                    try {
+                        sub.subscribe(request.getIdList(), user);
+                    } catch (InvalidIdentification e) {
+                        // let the caller report the invalid parameters
+                        sub.pidrm.quit();
+                        return null;
+                    }
+                    subscriptions.put(key, sub);
+                } else {
+                    try {
+                        sub.checkPrivileges(request.getIdList(), user);
+                    } catch (InvalidIdentification e) {
+                        // the parameters were valid when the subscription was created; the MDB has changed
+                        return null;
+                    }
+                }
+            }
+            // not under the lock of the map: a member may leave from the delivery thread, which holds the lock of the
+            // subscription
+            if (sub.addMember(member, sendFromCache)) {
+                log.debug("Joined shared subscription to {} parameters ({} members)", key.ids.size(),
+                        sub.members.size());
+                return sub;
+            }
+            // the last member has left in the meantime
+        }
+    }
+
+    /**
+     * Removes the call from the subscription. The processor subscription is removed with the last member.
+     */
+    void leave(SubscribeParameterObserver member) {
+        synchronized (this) {
+            if (!members.remove(member) || !members.isEmpty()) {
+                return;
+            }
+            closed = true;
+            pidrm.quit();
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+                flushFuture = null;
+            }
+            filter.clear();
+            lastValues.clear();
+        }
+        synchronized (subscriptions) {
+            subscriptions.remove(key, this);
+        }
+    }
+
+    /**
+     * Sends the initial message to the new member and adds it to the recipients of the updates. The mapping has to be
+     * sent before the first update.
+     *
+     * @return false if the subscription has been closed
+     */
+    private synchronized boolean addMember(SubscribeParameterObserver member, boolean sendFromCache) {
+        if (closed) {
+            return false;
+        }
+        member.sendInitialData(getInitialData(sendFromCache));
+        members.add(member);
+        return true;
+    }
+
+    /**
+     * Number of calls using this subscription
+     */
+    int getMemberCount() {
+        return members.size();
+    }
+
+    /**
+     * The parameters of this subscription and their numeric identifiers
+     */
+    Map<NamedObjectId, Integer> getNumericIds() {
+        return numericIds;
+    }
+
+    boolean isUpdateOnExpiration() {
+        return key.updateOnExpiration;
+    }
+
+    Processor getProcessor() {
+        return processor;
+    }
+
+    private void subscribe(List<NamedObjectId> idList, User user)
+            throws InvalidIdentification, NoPermissionException {
+        subscriptionId = pidrm.addRequest(idList, key.updateOnExpiration, user);
+        int numericId = 0;
+        for (NamedObjectId id : key.ids) {
+            numericIds.put(id, ++numericId);
+        }
+    }
+
+    private void checkPrivileges(List<NamedObjectId> idList, User user)
+            throws InvalidIdentification, NoPermissionException {
+        for (ParameterWithId pwid : ParameterWithIdRequestHelper.checkNames(pidrm.getPrm(), idList)) {
+            if (!user.hasParameterPrivilege(ObjectPrivilegeType.ReadParameter, pwid.getParameter())) {
+                throw new NoPermissionException("User " + user + " has no permission for parameter "
+                        + pwid.getParameter().getQualifiedName());
+            }
+        }
+    }
+
+    private SubscribeParametersData getInitialData(boolean sendFromCache) {
+        SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
+        numericIds.forEach((id, numericId) -> {
+            datab.putMapping(numericId, id);
+            datab.putInfo(numericId, SubscribeParameterObserver.generateInfo(pidrm.getPrm(), id));
+        });
+        if (sendFromCache) {
+            Map<NamedObjectId, ParameterValue> values = new HashMap<>();
+            for (ParameterValueWithId rec : pidrm.getValuesFromCache(subscriptionId)) {
+                values.put(rec.getId(), rec.getParameterValue());
+            }
+            values.putAll(lastValues);
+            values.forEach((id, pv) -> {
+                Integer numericId = numericIds.get(id);
+                if (numericId != null) {
+                    datab.addValues(SubscribeParameterObserver.toGpb(pv, numericId, key.maxBytes));
+                }
+            });
+        }
+        return datab.build();
+    }
+
+    /**
+     * Called by the processor with the updated values of the subscribed parameters
+     */
+    private synchronized void deliver(List<ParameterValueWithId> params) {
+        for (ParameterValueWithId pvwi : params) {
+            lastValues.put(pvwi.getId(), pvwi.getParameterValue());
+        }
+        if (filter.isActive()) {
+            long now = System.currentTimeMillis();
+            params = filter.filter(params, now);
+            long delay = filter.scheduleFlush(now);
+            if (delay >= 0) {
+                flushFuture = processor.getTimer().schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+        sendValues(params);
+    }
+
+    private synchronized void flush() {
+        flushFuture = null;
+        sendValues(filter.flush(System.currentTimeMillis()));
+    }
+
+    private void sendValues(List<ParameterValueWithId> params) {
+        if (params.isEmpty() || members.isEmpty()) {
+            return;
+        }
+        SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
+        for (ParameterValueWithId pvwi : params) {
+            Integer numericId = numericIds.get(pvwi.getId());
+            if (numericId != null) {
+                datab.addValues(SubscribeParameterObserver.toGpb(pvwi.getParameterValue(), numericId, key.maxBytes));
+            }
+        }
+        SharedMessage message = new SharedMessage(datab.build());
+        try {
+            for (SubscribeParameterObserver member : members) {
+                member.sendShared(message);
+            }
+        } finally {
+            message.release();
+        }
+    }
+
+    /**
+     * Two requests can share a subscription if they have the same processor, parameters and options.
+     */
+    static final class Key {
+        final Processor processor;
+        final Set<NamedObjectId> ids;
+        final boolean updateOnExpiration;
+        final int maxBytes;
+        final double deadband;
+        final double relativeDeadband;
+        final double maxRate;
+        final boolean onChangeOnly;
+
+        Key(Processor processor, SubscribeParametersRequest request) {
+            this.processor = processor;
+            this.ids = new HashSet<>(request.getIdList());
+            this.updateOnExpiration = request.getUpdateOnExpiration();
+            this.maxBytes = request.hasMaxBytes() ? request.getMaxBytes() : -1;
+            this.deadband = request.getDeadband();
+            this.relativeDeadband = request.getRelativeDeadband();
+            this.maxRate = request.getMaxRate();
+            this.onChangeOnly = request.getOnChangeOnly();
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(processor);
+            result = 31 * result + ids.hashCode();
+            result = 31 * result + Boolean.hashCode(updateOnExpiration);
+            result = 31 * result + maxBytes;
+            result = 31 * result + Double.hashCode(deadband);
+            result = 31 * result + Double.hashCode(relativeDeadband);
+            result = 31 * result + Double.hashCode(maxRate);
+            result = 31 * result + Boolean.hashCode(onChangeOnly);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return processor == other.processor
+                    && ids.equals(other.ids)
+                    && updateOnExpiration == other.updateOnExpiration
+                    && maxBytes == other.maxBytes
+                    && Double.compare(deadband, other.deadband) == 0
+                    && Double.compare(relativeDeadband, other.relativeDeadband) == 0
+                    && Double.compare(maxRate, other.maxRate) == 0
+                    && onChangeOnly == other.onChangeOnly;
+        }
+    }
+}
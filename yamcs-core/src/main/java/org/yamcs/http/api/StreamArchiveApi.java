@@ -40,6 +40,7 @@ import org.yamcs.protobuf.Pvalue.TimeSeries;
 import org.yamcs.protobuf.Yamcs.NamedObjectId;
 import org.yamcs.protobuf.Yamcs.PacketReplayRequest;
 import org.yamcs.security.ObjectPrivilegeType;
+import org.yamcs.utils.ArrowParameterFormatter;
 import org.yamcs.utils.ParameterFormatter;
 import org.yamcs.utils.ParameterFormatter.Header;
 import org.yamcs.utils.TimeEncoding;
@@ -378,6 +379,20 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
             }
         }
 
+        boolean arrow = false;
+        if (request.hasFormat()) {
+            switch (request.getFormat()) {
+            case "CSV":
+                break;
+            case "ARROW":
+                arrow = true;
+                break;
+            default:
+                throw new BadRequestException("Unexpected value for format option");
+            }
+        }
+        String extension = arrow ? ".arrows" : ".csv";
+
         String filename;
         if (request.hasFilename()) {
             filename = request.getFilename();
@@ -386,9 +401,9 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
             if (ids.size() == 1) {
                 NamedObjectId id = ids.get(0);
                 String parameterName = id.hasNamespace() ? id.getName() : id.getName().substring(1);
-                filename = parameterName.replace('/', '_') + "_export_" + dateString + ".csv";
+                filename = parameterName.replace('/', '_') + "_export_" + dateString + extension;
             } else {
-                filename = "parameter_export_" + dateString + ".csv";
+                filename = "parameter_export_" + dateString + extension;
             }
         }
 
@@ -459,8 +474,22 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
                 .withoutReplay(false)
                 .build();
 
-        var listener = new CsvParameterStreamer(observer, pos, limit, filename, ids, addRaw, addMonitoring,
-                preserveLastValue, interval, columnDelimiter, header);
+        ParameterFormatter formatter;
+        MediaType mediaType;
+        if (arrow) {
+            formatter = new ArrowParameterFormatter(null, pids, addRaw, addMonitoring, header);
+            mediaType = MediaType.ARROW_STREAM;
+        } else {
+            formatter = new ParameterFormatter(null, ids, columnDelimiter);
+            formatter.setWriteHeader(header);
+            formatter.setPrintRaw(addRaw);
+            formatter.setPrintMonitoring(addMonitoring);
+            mediaType = MediaType.CSV;
+        }
+        formatter.setKeepValues(preserveLastValue);
+        formatter.setTimeWindow(interval);
+
+        var listener = new ParameterExportStreamer(observer, pos, limit, filename, formatter, mediaType);
 
         prs.retrieveMulti(pids, opts, listener).thenRun(() -> {
             listener.finished();
@@ -489,26 +518,19 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
         return b.build();
     }
 
-    private static class CsvParameterStreamer extends PaginatedMultiParameterRetrievalConsumer {
+    private static class ParameterExportStreamer extends PaginatedMultiParameterRetrievalConsumer {
 
         Observer<HttpBody> observer;
         ParameterFormatter formatter;
 
-        CsvParameterStreamer(Observer<HttpBody> observer, long pos, int limit, String filename, List<NamedObjectId> ids,
-                boolean addRaw, boolean addMonitoring, boolean preserveLastValue, int interval, char columnDelimiter,
-                Header header) {
+        ParameterExportStreamer(Observer<HttpBody> observer, long pos, int limit, String filename,
+                ParameterFormatter formatter, MediaType mediaType) {
             super(pos, limit);
             this.observer = observer;
-
-            formatter = new ParameterFormatter(null, ids, columnDelimiter);
-            formatter.setWriteHeader(header);
-            formatter.setPrintRaw(addRaw);
-            formatter.setPrintMonitoring(addMonitoring);
-            formatter.setKeepValues(preserveLastValue);
-            formatter.setTimeWindow(interval);
+            this.formatter = formatter;
 
             HttpBody metadata = HttpBody.newBuilder()
-                    .setContentType(MediaType.CSV.toString())
+                    .setContentType(mediaType.toString())
                     .setFilename(filename)
                     .build();
             observer.next(metadata);
@@ -526,10 +548,12 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
                 throw new UncheckedIOException(e);
             }
 
-            HttpBody body = HttpBody.newBuilder()
-                    .setData(data.toByteString())
-                    .build();
-            observer.next(body);
+            if (data.size() > 0) { // Arrow output is only written once a batch is complete
+                HttpBody body = HttpBody.newBuilder()
+                        .setData(data.toByteString())
+                        .build();
+                observer.next(body);
+            }
         }
 
         public void failed(Throwable t) {
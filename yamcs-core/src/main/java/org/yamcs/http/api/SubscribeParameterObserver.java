@@ -9,6 +9,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.yamcs.InvalidIdentification;
@@ -16,6 +19,8 @@ import org.yamcs.NoPermissionException;
 import org.yamcs.Processor;
 import org.yamcs.api.Observer;
 import org.yamcs.http.BadRequestException;
+import org.yamcs.http.SharedMessage;
+import org.yamcs.http.SharedMessageObserver;
 import org.yamcs.logging.Log;
 import org.yamcs.parameter.ParameterRequestManager;
 import org.yamcs.parameter.ParameterValue;
@@ -51,6 +56,17 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
     // Max emitted bytes for a singular binary value updates (either raw or eng)
     private int maxBytes = -1;
 
+    // Deadband, rate limit and on-change filtering of the updates
+    private ParameterUpdateFilter filter = new ParameterUpdateFilter();
+    private ScheduledExecutorService timer;
+
+    // The updates are filtered and sent under this lock, both by the delivery thread and by the flush on the timer
+    private final Object sendLock = new Object();
+    private ScheduledFuture<?> flushFuture;
+
+    // Set while this call uses a subscription shared with other calls
+    private volatile SharedParameterSubscription shared;
+
     public SubscribeParameterObserver(User user, Observer<SubscribeParametersData> responseObserver) {
         this.user = user;
         this.responseObserver = responseObserver;
@@ -61,24 +77,17 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         if (request.hasMaxBytes()) {
             maxBytes = request.getMaxBytes();
         }
-
-        if (pidrm == null) {
-            Processor processor = ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
-            ParameterRequestManager requestManager = processor.getParameterRequestManager();
-            pidrm = new ParameterWithIdRequestHelper(requestManager, (subscriptionId, params) -> {
-                if (params.isEmpty()) {
-                    return;
-                }
-                SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
-                for (ParameterValueWithId pvwi : params) {
-                    ParameterValue pval = pvwi.getParameterValue();
-                    Integer numericId = numericIdMap.get(pvwi.getId());
-                    if (numericId != null) {
-                        datab.addValues(toGpb(pval, numericId));
-                    }
-                }
-                responseObserver.next(datab.build());
-            });
+        if (request.hasDeadband()) {
+            filter.setDeadband(request.getDeadband());
+        }
+        if (request.hasRelativeDeadband()) {
+            filter.setRelativeDeadband(request.getRelativeDeadband());
+        }
+        if (request.hasMaxRate()) {
+            filter.setMaxRate(request.getMaxRate());
+        }
+        if (request.hasOnChangeOnly()) {
+            filter.setOnChangeOnly(request.getOnChangeOnly());
         }
 
         Action action = Action.REPLACE;
@@ -86,7 +95,34 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
             action = request.getAction();
         }
 
+        // The first subscription of a call is shared with the identical subscriptions of other calls
+        if (pidrm == null && shared == null && action != Action.REMOVE && !request.getIdList().isEmpty()
+                && responseObserver instanceof SharedMessageObserver) {
+            Processor processor = ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
+            try {
+                shared = SharedParameterSubscription.join(processor, request, user, this);
+            } catch (NoPermissionException e) {
+                log.warn("No permission for parameters: {}", e.getMessage());
+                responseObserver.completeExceptionally(e);
+                return;
+            }
+            if (shared != null) {
+                return;
+            }
+        }
+
+        if (pidrm == null) {
+            Processor processor = shared != null ? shared.getProcessor()
+                    : ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
+            timer = processor.getTimer();
+            ParameterRequestManager requestManager = processor.getParameterRequestManager();
+            pidrm = new ParameterWithIdRequestHelper(requestManager, (subscriptionId, params) -> deliver(params));
+        }
+
         try {
+            if (shared != null) {
+                leaveSharedSubscription();
+            }
             List<NamedObjectId> idList = request.getIdList();
             List<NamedObjectId> invalid = new ArrayList<>();
             try {
@@ -128,25 +164,28 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
                 mappingUpdate.put(id, numericId);
                 datab.putMapping(numericId, id);
 
-                var info = generateInfo(id);
+                var info = generateInfo(pidrm.getPrm(), id);
                 datab.putInfo(numericId, info);
             }
-            if (subscriptionId != -1 && (!request.hasSendFromCache() || request.getSendFromCache())) {
-                for (ParameterValueWithId rec : pidrm.getValuesFromCache(subscriptionId)) {
-                    ParameterValue pval = rec.getParameterValue();
-                    Integer numericId = mappingUpdate.get(rec.getId());
-                    if (numericId != null) {
-                        datab.addValues(toGpb(pval, numericId));
+            synchronized (sendLock) {
+                if (subscriptionId != -1 && (!request.hasSendFromCache() || request.getSendFromCache())) {
+                    for (ParameterValueWithId rec : pidrm.getValuesFromCache(subscriptionId)) {
+                        ParameterValue pval = rec.getParameterValue();
+                        Integer numericId = mappingUpdate.get(rec.getId());
+                        if (numericId != null) {
+                            datab.addValues(toGpb(pval, numericId, maxBytes));
+                            filter.sent(rec.getId(), pval);
+                        }
                     }
                 }
-            }
 
-            responseObserver.next(datab.build());
+                responseObserver.next(datab.build());
 
-            // After having sent out the mapping, update internal state
-            // (updates come from another thread, and we want to client to
-            // know a mapping before receiving a value for it)
-            numericIdMap.putAll(mappingUpdate);
+                // After having sent out the mapping, update internal state
+                // (updates come from another thread, and we want to client to
+                // know a mapping before receiving a value for it)
+                numericIdMap.putAll(mappingUpdate);
+            }
         } catch (InvalidIdentification e) {
             log.warn("Invalid identification: {}", e.getMessage());
             responseObserver.completeExceptionally(e);
@@ -156,10 +195,89 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         }
     }
 
-    private SubscribedParameterInfo generateInfo(NamedObjectId id) {
+    /**
+     * Called by the processor with the updated values of the subscribed parameters
+     */
+    private void deliver(List<ParameterValueWithId> params) {
+        synchronized (sendLock) {
+            if (filter.isActive()) {
+                long now = System.currentTimeMillis();
+                params = filter.filter(params, now);
+                long delay = filter.scheduleFlush(now);
+                if (delay >= 0) {
+                    flushFuture = timer.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+                }
+            }
+            sendValues(params);
+        }
+    }
+
+    private void sendValues(List<ParameterValueWithId> params) {
+        if (params.isEmpty()) {
+            return;
+        }
+        SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
+        for (ParameterValueWithId pvwi : params) {
+            ParameterValue pval = pvwi.getParameterValue();
+            Integer numericId = numericIdMap.get(pvwi.getId());
+            if (numericId != null) {
+                datab.addValues(toGpb(pval, numericId, maxBytes));
+            }
+        }
+        responseObserver.next(datab.build());
+    }
+
+    private void flush() {
+        synchronized (sendLock) {
+            flushFuture = null;
+            sendValues(filter.flush(System.currentTimeMillis()));
+        }
+    }
+
+    private void cancelFlush() {
+        synchronized (sendLock) {
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+                flushFuture = null;
+            }
+            filter.clear();
+        }
+    }
+
+    /**
+     * Continues with a subscription of this call, using the numeric ids already sent by the shared subscription.
+     */
+    private void leaveSharedSubscription() throws InvalidIdentification, NoPermissionException {
+        SharedParameterSubscription sub = shared;
+        shared = null;
+        sub.leave(this);
+
+        Map<NamedObjectId, Integer> mapping = sub.getNumericIds();
+        subscriptionId = pidrm.addRequest(new ArrayList<>(mapping.keySet()), sub.isUpdateOnExpiration(), user);
+        numericIdMap.putAll(mapping);
+        // the shared subscription numbers its parameters from 1
+        numericIdGenerator.set(mapping.size());
+    }
+
+    /**
+     * The shared subscription used by this call, or null if it has a subscription of its own
+     */
+    SharedParameterSubscription getSharedSubscription() {
+        return shared;
+    }
+
+    void sendInitialData(SubscribeParametersData data) {
+        responseObserver.next(data);
+    }
+
+    void sendShared(SharedMessage message) {
+        ((SharedMessageObserver) responseObserver).nextShared(message);
+    }
+
+    static SubscribedParameterInfo generateInfo(ParameterRequestManager prm, NamedObjectId id) {
         var infob = SubscribedParameterInfo.newBuilder();
         try {
-            var parameterWithId = ParameterWithIdRequestHelper.checkName(pidrm.getPrm(), id);
+            var parameterWithId = ParameterWithIdRequestHelper.checkName(prm, id);
             var parameter = parameterWithId.getParameter();
 
             infob.setParameter(parameter.getQualifiedName());
@@ -200,6 +318,7 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
                 pidrm.removeRequest(subscriptionId);
                 subscriptionId = -1;
             }
+            filter.clear();
             subscriptionId = pidrm.addRequest(idList, updateOnExpiration, user);
         } else if (action == Action.ADD) {
             if (subscriptionId == -1) {
@@ -210,11 +329,12 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         } else if (action == Action.REMOVE) {
             if (subscriptionId != -1) {
                 pidrm.removeItemsFromRequest(subscriptionId, idList, user);
+                filter.remove(idList);
             }
         }
     }
 
-    private org.yamcs.protobuf.Pvalue.ParameterValue toGpb(ParameterValue pval, int numericId) {
+    static org.yamcs.protobuf.Pvalue.ParameterValue toGpb(ParameterValue pval, int numericId, int maxBytes) {
         var gpb = pval.toGpb(numericId);
         if (maxBytes >= 0) {
             var hasRawBinaryValue = gpb.hasRawValue() && gpb.getRawValue().hasBinaryValue();
@@ -244,15 +364,27 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
     @Override
     public void completeExceptionally(Throwable t) {
         log.error("Parameter subscription errored", t);
+        leaveShared();
         if (pidrm != null) {
             pidrm.quit();
         }
+        cancelFlush();
     }
 
     @Override
     public void complete() {
+        leaveShared();
         if (pidrm != null) {
             pidrm.quit();
         }
+        cancelFlush();
+    }
+
+    private void leaveShared() {
+        SharedParameterSubscription sub = shared;
+        if (sub != null) {
+            shared = null;
+            sub.leave(this);
+        }
     }
 }
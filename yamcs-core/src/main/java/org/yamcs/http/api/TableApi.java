@@ -1,21 +1,26 @@
 package org.yamcs.http.api;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
+import org.yamcs.api.HttpBody;
 import org.yamcs.api.Observer;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.http.Context;
 import org.yamcs.http.ForbiddenException;
 import org.yamcs.http.HttpException;
 import org.yamcs.http.InternalServerErrorException;
+import org.yamcs.http.MediaType;
 import org.yamcs.http.NotFoundException;
 import org.yamcs.logging.Log;
 import org.yamcs.management.ManagementService;
@@ -26,6 +31,7 @@ import org.yamcs.protobuf.Table.ColumnData;
 import org.yamcs.protobuf.Table.ColumnInfo;
 import org.yamcs.protobuf.Table.EnumValue;
 import org.yamcs.protobuf.Table.ExecuteSqlRequest;
+import org.yamcs.protobuf.Table.ExportTableRequest;
 import org.yamcs.protobuf.Table.GetStreamRequest;
 import org.yamcs.protobuf.Table.GetTableDataRequest;
 import org.yamcs.protobuf.Table.GetTableRequest;
@@ -59,6 +65,8 @@ import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.security.ObjectPrivilegeType;
 import org.yamcs.security.SystemPrivilege;
 import org.yamcs.time.Instant;
+import org.yamcs.utils.ArrowStreamWriter;
+import org.yamcs.utils.ArrowStreamWriter.ColumnType;
 import org.yamcs.utils.TimeEncoding;
 import org.yamcs.utils.TimeInterval;
 import org.yamcs.utils.ValueUtility;
@@ -280,6 +288,38 @@ public class TableApi extends AbstractTableApi<Context> {
         StreamFactory.stream(ydb.getName(), sql, new RowReader(observer));
     }
 
+    @Override
+    public void exportTable(Context ctx, ExportTableRequest request, Observer<HttpBody> observer) {
+        ctx.checkAnyOfSystemPrivileges(SystemPrivilege.ControlArchiving, SystemPrivilege.ReadTables);
+        YarchDatabaseInstance ydb = DatabaseApi.verifyDatabase(request.getInstance());
+
+        TableDefinition table = verifyTable(ydb, request.getTable());
+
+        List<ColumnDefinition> columns = new ArrayList<>();
+        if (request.getColsCount() > 0) {
+            for (String col : request.getColsList()) {
+                ColumnDefinition cd = table.getColumnDefinition(col);
+                if (cd == null) {
+                    throw new BadRequestException("No column named '" + col + "'");
+                }
+                columns.add(cd);
+            }
+        } else {
+            columns.addAll(table.getTupleDefinition().getColumnDefinitions());
+        }
+
+        SqlBuilder sqlb = new SqlBuilder(table.getName());
+        columns.forEach(cd -> sqlb.select(cd.getName()));
+        if (request.hasQuery()) {
+            sqlb.where(request.getQuery());
+        }
+        String sql = sqlb.toString();
+
+        String filename = table.getName() + "_export_" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date())
+                + ".arrows";
+        StreamFactory.stream(ydb.getName(), sql, new ArrowRowExporter(columns, filename, observer));
+    }
+
     @Override
     public Observer<WriteRowsRequest> writeRows(Context ctx, Observer<WriteRowsResponse> observer) {
         if (!ctx.user.hasSystemPrivilege(SystemPrivilege.WriteTables)
@@ -580,6 +620,140 @@ public class TableApi extends AbstractTableApi<Context> {
         }
     }
 
+    /**
+     * Writes tuples as Arrow record batches. Values are converted directly from their column type, without going through
+     * their string or protobuf representation.
+     */
+    private static class ArrowRowExporter implements StreamSubscriber {
+
+        static final int BATCH_SIZE = 8192;
+
+        Observer<HttpBody> observer;
+        List<ColumnDefinition> columns;
+        String filename;
+        ArrowStreamWriter writer = new ArrowStreamWriter();
+        boolean started;
+        boolean failed;
+
+        ArrowRowExporter(List<ColumnDefinition> columns, String filename, Observer<HttpBody> observer) {
+            this.columns = columns;
+            this.filename = filename;
+            this.observer = observer;
+            for (ColumnDefinition cd : columns) {
+                writer.addColumn(cd.getName(), getColumnType(cd.getType()));
+            }
+        }
+
+        @Override
+        public void onTuple(Stream stream, Tuple tuple) {
+            if (observer.isCancelled() || failed) {
+                stream.close();
+                return;
+            }
+
+            for (int i = 0; i < columns.size(); i++) {
+                Object v = tuple.hasColumn(columns.get(i).getName()) ? tuple.getColumn(columns.get(i).getName())
+                        : null;
+                if (v != null) {
+                    setValue(i, v);
+                }
+            }
+            writer.endRow();
+
+            if (writer.getRowCount() >= BATCH_SIZE) {
+                write(writer::writeBatch);
+            }
+        }
+
+        private void setValue(int colIdx, Object v) {
+            switch (writer.getColumnType(colIdx)) {
+            case BOOL:
+                writer.setBoolean(colIdx, (Boolean) v);
+                break;
+            case INT32:
+            case INT64:
+                writer.setLong(colIdx, ((Number) v).longValue());
+                break;
+            case FLOAT64:
+                writer.setDouble(colIdx, ((Number) v).doubleValue());
+                break;
+            case TIMESTAMP:
+                long instant = (v instanceof Instant) ? ((Instant) v).getMillis() : (Long) v;
+                writer.setLong(colIdx, TimeEncoding.toUnixMillisec(instant));
+                break;
+            case BINARY:
+                writer.setBinary(colIdx, (v instanceof MessageLite) ? ((MessageLite) v).toByteArray() : (byte[]) v);
+                break;
+            default:
+                writer.setString(colIdx, v.toString());
+            }
+        }
+
+        @Override
+        public void streamClosed(Stream stream) {
+            if (failed) {
+                return;
+            }
+            write(out -> {
+                writer.writeBatch(out);
+                writer.writeEnd(out);
+            });
+            if (!failed) {
+                observer.complete();
+            }
+        }
+
+        private void write(ArrowOutput output) {
+            ByteString.Output out = ByteString.newOutput();
+            try {
+                if (!started) { // Deferred, so that the stream is known to be valid
+                    observer.next(HttpBody.newBuilder()
+                            .setContentType(MediaType.ARROW_STREAM.toString())
+                            .setFilename(filename)
+                            .build());
+                    writer.writeSchema(out);
+                    started = true;
+                }
+                output.writeTo(out);
+            } catch (IOException e) {
+                failed = true;
+                observer.completeExceptionally(e);
+                return;
+            }
+            if (out.size() > 0) {
+                observer.next(HttpBody.newBuilder().setData(out.toByteString()).build());
+            }
+        }
+
+        private static ColumnType getColumnType(DataType type) {
+            switch (type.val) {
+            case BYTE:
+            case SHORT:
+            case INT:
+                return ColumnType.INT32;
+            case LONG:
+                return ColumnType.INT64;
+            case DOUBLE:
+                return ColumnType.FLOAT64;
+            case BOOLEAN:
+                return ColumnType.BOOL;
+            case TIMESTAMP:
+            case HRES_TIMESTAMP:
+                return ColumnType.TIMESTAMP;
+            case BINARY:
+            case PROTOBUF:
+                return ColumnType.BINARY;
+            default: // Strings, enums and composite types
+                return ColumnType.UTF8;
+            }
+        }
+
+        @FunctionalInterface
+        private interface ArrowOutput {
+            void writeTo(OutputStream out) throws IOException;
+        }
+    }
+
     private static TableInfo toTableInfo(TableDefinition def) {
         TableInfo.Builder infob = TableInfo.newBuilder();
         infob.setName(def.getName());
@@ -0,0 +1,93 @@
+package org.yamcs.mdb;
+
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Pvalue.RangeCondition;
+import org.yamcs.xtce.AlarmRanges;
+import org.yamcs.xtce.util.DoubleRange;
+
+/**
+ * Flat representation of {@link AlarmRanges} used for checking numeric values.
+ * <p>
+ * The ranges are stored in decreasing order of severity in primitive arrays, such that the check is a simple loop
+ * stopping at the first violated limit. The result is the same as checking each {@link DoubleRange#inRange(double)}
+ * from SEVERE down to WATCH.
+ */
+class CompiledAlarmRanges {
+    final AlarmRanges ranges;
+    final MonitoringResult[] levels;
+    final double[] min;
+    final double[] max;
+    final boolean[] minIncl;
+    final boolean[] maxIncl;
+
+    CompiledAlarmRanges(AlarmRanges ranges) {
+        this.ranges = ranges;
+        DoubleRange[] r = { ranges.getSevereRange(), ranges.getCriticalRange(), ranges.getDistressRange(),
+                ranges.getWarningRange(), ranges.getWatchRange() };
+        MonitoringResult[] mr = { MonitoringResult.SEVERE, MonitoringResult.CRITICAL, MonitoringResult.DISTRESS,
+                MonitoringResult.WARNING, MonitoringResult.WATCH };
+
+        int n = 0;
+        for (DoubleRange dr : r) {
+            if (dr != null) {
+                n++;
+            }
+        }
+        levels = new MonitoringResult[n];
+        min = new double[n];
+        max = new double[n];
+        minIncl = new boolean[n];
+        maxIncl = new boolean[n];
+
+        int k = 0;
+        for (int i = 0; i < r.length; i++) {
+            DoubleRange dr = r[i];
+            if (dr == null) {
+                continue;
+            }
+            levels[k] = mr[i];
+            // a NaN limit means open interval; all comparisons with NaN are false so no special check is needed
+            min[k] = dr.getMin();
+            max[k] = dr.getMax();
+            minIncl[k] = dr.isMinInclusive();
+            maxIncl[k] = dr.isMaxInclusive();
+            k++;
+        }
+    }
+
+    /**
+     * Sets the monitoring result, range condition and the alarm ranges on the parameter value.
+     */
+    void check(ParameterValue pv, double v) {
+        MonitoringResult result = MonitoringResult.IN_LIMITS;
+        RangeCondition condition = null;
+        for (int k = 0; k < levels.length; k++) {
+            double lo = min[k];
+            if (minIncl[k] ? v < lo : v <= lo) {
+                result = levels[k];
+                condition = RangeCondition.LOW;
+                break;
+            }
+            double hi = max[k];
+            if (maxIncl[k] ? v > hi : v >= hi) {
+                result = levels[k];
+                condition = RangeCondition.HIGH;
+                break;
+            }
+        }
+        pv.setMonitoringResult(result);
+        if (condition != null) {
+            pv.setRangeCondition(condition);
+        }
+        setRanges(pv);
+    }
+
+    void setRanges(ParameterValue pv) {
+        pv.setWatchRange(ranges.getWatchRange());
+        pv.setWarningRange(ranges.getWarningRange());
+        pv.setDistressRange(ranges.getDistressRange());
+        pv.setCriticalRange(ranges.getCriticalRange());
+        pv.setSevereRange(ranges.getSevereRange());
+    }
+}
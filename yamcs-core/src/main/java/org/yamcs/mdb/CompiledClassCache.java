@@ -0,0 +1,216 @@
+package org.yamcs.mdb;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codehaus.commons.compiler.CompileException;
+import org.codehaus.janino.SimpleCompiler;
+import org.codehaus.janino.util.ClassFile;
+import org.yamcs.YamcsVersion;
+import org.yamcs.logging.Log;
+import org.yamcs.utils.StringConverter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * JVM-wide cache of the classes compiled with Janino from the MDB (java expression and math operation algorithms and
+ * calibrators).
+ * <p>
+ * The classes are identified by their complete generated source code. The source contains the algorithm text and the
+ * names derived from the MDB definition, so a processor created on the same MDB reuses the classes compiled by the
+ * previous processors instead of compiling them again.
+ * <p>
+ * Optionally the bytecode is saved in a directory (by default a sub-directory of the cache directory where the
+ * serialized MDB is also stored) such that the classes can be loaded without compilation after a server restart. The
+ * saved bytecode is used only if it has been compiled by the same Yamcs build and Janino version, otherwise the source
+ * is compiled again.
+ * <p>
+ * The classes are kept in memory only as long as they are in use, such that the classes of algorithms which have been
+ * changed or removed (for example after an MDB reload) can be unloaded.
+ */
+public class CompiledClassCache {
+    static final Log log = new Log(CompiledClassCache.class);
+    static final int FORMAT_VERSION = 2;
+    // the saved bytecode refers to the Yamcs and Janino classes it has been compiled against
+    static final String BUILD_ID = YamcsVersion.VERSION + "-" + YamcsVersion.REVISION + "/" + janinoVersion();
+
+    static final Cache<String, Class<?>> classes = CacheBuilder.newBuilder().weakValues().build();
+    static volatile Path persistenceDirectory;
+
+    /**
+     * Enables the saving of the compiled bytecode in the given directory. If the directory is null, the bytecode is
+     * only kept in memory.
+     */
+    public static void setPersistenceDirectory(Path dir) {
+        persistenceDirectory = dir;
+    }
+
+    public static Path getPersistenceDirectory() {
+        return persistenceDirectory;
+    }
+
+    /**
+     * Returns the class with the given name compiled from the source code.
+     * <p>
+     * If the same source has been compiled before (or its bytecode is found in the persistence directory), the
+     * previously compiled class is returned.
+     *
+     * @param className
+     *            the fully qualified name of the class defined in the source
+     * @param source
+     *            the java source code
+     * @throws CompileException
+     *             if the source cannot be compiled
+     * @throws ClassNotFoundException
+     *             if the source does not define the given class
+     */
+    public static Class<?> getClass(String className, String source) throws CompileException, ClassNotFoundException {
+        Class<?> c = classes.getIfPresent(source);
+        if (c != null) {
+            return c;
+        }
+
+        Path dir = persistenceDirectory;
+        String key = dir == null ? null : sha1(source);
+        if (dir != null) {
+            c = loadFromDisk(dir.resolve(key + ".classes"), className, source);
+        }
+        if (c == null) {
+            SimpleCompiler compiler = new SimpleCompiler();
+            compiler.cook(source);
+            c = compiler.getClassLoader().loadClass(className);
+            if (dir != null) {
+                saveToDisk(dir.resolve(key + ".classes"), source, compiler.getClassFiles());
+            }
+        }
+        // another thread may have compiled the same source in the meanwhile
+        Class<?> c1 = classes.asMap().putIfAbsent(source, c);
+        return c1 == null ? c : c1;
+    }
+
+    /**
+     * Removes all the classes from the memory cache. The persisted bytecode is not removed.
+     */
+    public static void clear() {
+        classes.invalidateAll();
+    }
+
+    static int size() {
+        return (int) classes.size();
+    }
+
+    private static Class<?> loadFromDisk(Path file, String className, String source) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream is = Files.newInputStream(file);
+                DataInputStream in = new DataInputStream(is)) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String buildId = in.readUTF();
+            if (!BUILD_ID.equals(buildId)) {
+                log.debug("Ignoring {} compiled by a different build ({})", file, buildId);
+                return null;
+            }
+            int length = in.readInt();
+            byte[] sourceBytes = new byte[length];
+            in.readFully(sourceBytes);
+            if (!source.equals(new String(sourceBytes, StandardCharsets.UTF_8))) {
+                return null;
+            }
+            int n = in.readInt();
+            Map<String, byte[]> bytecode = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                String name = in.readUTF();
+                byte[] b = new byte[in.readInt()];
+                in.readFully(b);
+                bytecode.put(name, b);
+            }
+            return new BytecodeClassLoader(bytecode).loadClass(className);
+        } catch (IOException | ClassNotFoundException | LinkageError e) {
+            log.warn("Cannot load compiled classes from {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private static void saveToDisk(Path file, String source, ClassFile[] classFiles) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmpFile);
+                    DataOutputStream out = new DataOutputStream(os)) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(BUILD_ID);
+                byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(sourceBytes.length);
+                out.write(sourceBytes);
+                out.writeInt(classFiles.length);
+                for (ClassFile cf : classFiles) {
+                    byte[] b = cf.toByteArray();
+                    out.writeUTF(cf.getThisClassName());
+                    out.writeInt(b.length);
+                    out.write(b);
+                }
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Cannot save compiled classes to {}: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * The Janino jar does not declare its version in the manifest, use the name of the jar (e.g. janino-3.1.12.jar)
+     */
+    private static String janinoVersion() {
+        try {
+            var location = SimpleCompiler.class.getProtectionDomain().getCodeSource().getLocation();
+            return Path.of(location.toURI()).getFileName().toString();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private static String sha1(String input) {
+        try {
+            MessageDigest msgDigest = MessageDigest.getInstance("SHA-1");
+            return StringConverter.arrayToHexString(msgDigest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Defines the classes from the bytecode loaded from disk. As for the Janino compiler, the parent is the context
+     * class loader such that the classes can refer to the classes from the plugins.
+     */
+    static class BytecodeClassLoader extends ClassLoader {
+        final Map<String, byte[]> bytecode;
+
+        BytecodeClassLoader(Map<String, byte[]> bytecode) {
+            super(Thread.currentThread().getContextClassLoader());
+            this.bytecode = bytecode;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] b = bytecode.get(name);
+            if (b == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, b, 0, b.length);
+        }
+    }
+}
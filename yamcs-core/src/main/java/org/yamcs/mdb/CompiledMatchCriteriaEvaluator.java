@@ -0,0 +1,61 @@
+package org.yamcs.mdb;
+
+import org.yamcs.xtce.ParameterOrArgumentRef;
+
+/**
+ * Base class for the evaluators generated by the {@link MatchCriteriaCompiler}.
+ * <p>
+ * The generated code only depends on the structure of the criteria, the operators and the types of the compared
+ * values. The references, the constants they are compared with and the interpreted evaluators used when the value
+ * types are not the expected ones are passed in the arrays below, such that the same class is used for all criteria
+ * with the same structure.
+ * <p>
+ * Inside the generated code, the results of the comparisons are represented as integers: {@link #NOK}, {@link #OK}
+ * and {@link #UNDEF}.
+ */
+public abstract class CompiledMatchCriteriaEvaluator implements MatchCriteriaEvaluator {
+    public static final int NOK = 0;
+    public static final int OK = 1;
+    public static final int UNDEF = 2;
+    private static final MatchResult[] RESULTS = { MatchResult.NOK, MatchResult.OK, MatchResult.UNDEF };
+
+    protected final ParameterOrArgumentRef[] refs;
+    protected final long[] longs;
+    protected final double[] doubles;
+    protected final Object[] objects;
+    protected final MatchCriteriaEvaluator[] fallbacks;
+    private final MatchCriteriaEvaluator interpreted;
+
+    protected CompiledMatchCriteriaEvaluator(ParameterOrArgumentRef[] refs, long[] longs, double[] doubles,
+            Object[] objects, MatchCriteriaEvaluator[] fallbacks, MatchCriteriaEvaluator interpreted) {
+        this.refs = refs;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.objects = objects;
+        this.fallbacks = fallbacks;
+        this.interpreted = interpreted;
+    }
+
+    protected abstract int doEvaluate(ProcessingContext ctx);
+
+    @Override
+    public MatchResult evaluate(ProcessingContext ctx) {
+        return RESULTS[doEvaluate(ctx)];
+    }
+
+    protected static int toInt(MatchResult r) {
+        switch (r) {
+        case OK:
+            return OK;
+        case NOK:
+            return NOK;
+        default:
+            return UNDEF;
+        }
+    }
+
+    @Override
+    public String toExpressionString() {
+        return interpreted.toExpressionString();
+    }
+}
@@ -2,7 +2,6 @@ package org.yamcs.mdb;
 
 import org.codehaus.commons.compiler.LocatedException;
 import org.codehaus.commons.compiler.Location;
-import org.codehaus.janino.SimpleCompiler;
 import org.yamcs.xtce.JavaExpressionCalibrator;
 
 public class JavaExpressionNumericCalibratorFactory {
@@ -15,7 +14,8 @@ public class JavaExpressionNumericCalibratorFactory {
      *             if the expression cannot be compiled
      */
     public static NumericCalibrator compile(JavaExpressionCalibrator c) {
-        String className = "Expression" + c.hashCode();
+        // the class name depends only on the formula such that the compiled class can be cached
+        String className = "Expression" + Integer.toHexString(c.getFormula().hashCode());
         StringBuilder sb = new StringBuilder();
         sb.append("package org.yamcs.mdb.jecf;\n")
                 .append("public class ").append(className).append(" implements org.yamcs.mdb.NumericCalibrator {\n")
@@ -24,9 +24,7 @@ public class JavaExpressionNumericCalibratorFactory {
                 .append("  }\n")
                 .append("}\n");
         try {
-            SimpleCompiler compiler = new SimpleCompiler();
-            compiler.cook(sb.toString());
-            Class<?> cexprClass = compiler.getClassLoader().loadClass("org.yamcs.mdb.jecf." + className);
+            Class<?> cexprClass = CompiledClassCache.getClass("org.yamcs.mdb.jecf." + className, sb.toString());
             return (NumericCalibrator) cexprClass.getDeclaredConstructor().newInstance();
         } catch (LocatedException e) {
             String msg = e.getMessage();
@@ -0,0 +1,246 @@
+package org.yamcs.mdb;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.yamcs.logging.Log;
+import org.yamcs.mdb.MatchCriteriaEvaluatorFactory.ANDedConditionsEvaluator;
+import org.yamcs.mdb.MatchCriteriaEvaluatorFactory.ORedConditionsEvaluator;
+import org.yamcs.mdb.MatchCriteriaEvaluatorFactory.RefValueEvaluator;
+import org.yamcs.xtce.MatchCriteria;
+import org.yamcs.xtce.OperatorType;
+import org.yamcs.xtce.ParameterOrArgumentRef;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Compiles the match criteria evaluator trees built by the {@link MatchCriteriaEvaluatorFactory} into Java classes.
+ * <p>
+ * Each comparison between a reference and a constant becomes a method comparing directly the primitive value with the
+ * constant, for the value types corresponding to the type of the constant. The AND and OR conditions become methods
+ * calling the methods of their members. The result is the same as the one of the interpreted evaluator: if the value
+ * has another type than expected, or for the comparisons which are not compiled (between two references, binary
+ * values), the interpreted evaluator is called.
+ * <p>
+ * The evaluators are cached by criteria identity and the generated classes are shared by all criteria having the same
+ * structure (see {@link CompiledMatchCriteriaEvaluator}).
+ */
+public class MatchCriteriaCompiler {
+    static final Log log = new Log(MatchCriteriaCompiler.class);
+    static final String PACKAGE = "org.yamcs.mdb.mce";
+
+    static final Cache<MatchCriteria, MatchCriteriaEvaluator> evaluators = CacheBuilder.newBuilder().weakKeys()
+            .build();
+
+    /**
+     * Returns the compiled evaluator for the criteria.
+     * <p>
+     * If the criteria cannot be compiled, the interpreted evaluator is returned.
+     *
+     * @throws IllegalArgumentException
+     *             if the constants in the criteria cannot be converted to the type of the references
+     */
+    public static MatchCriteriaEvaluator getEvaluator(MatchCriteria mc) {
+        MatchCriteriaEvaluator evaluator = evaluators.getIfPresent(mc);
+        if (evaluator == null) {
+            evaluator = compile(MatchCriteriaEvaluatorFactory.getEvaluator(mc));
+            evaluators.put(mc, evaluator);
+        }
+        return evaluator;
+    }
+
+    static MatchCriteriaEvaluator compile(MatchCriteriaEvaluator interpreted) {
+        Generator g = new Generator();
+        String root = g.generate(interpreted);
+        if (g.numCompiled == 0) {
+            // everything would be delegated to the interpreted evaluator
+            return interpreted;
+        }
+        g.methods.append("    protected int doEvaluate(ProcessingContext ctx) {\n")
+                .append("        return ").append(root).append("(ctx);\n")
+                .append("    }\n");
+        String body = g.methods.toString();
+        String className = "MatchCriteria" + Integer.toHexString(body.hashCode());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import org.yamcs.mdb.CompiledMatchCriteriaEvaluator;\n")
+                .append("import org.yamcs.mdb.MatchCriteriaEvaluator;\n")
+                .append("import org.yamcs.mdb.MatchCriteriaEvaluatorFactory;\n")
+                .append("import org.yamcs.mdb.ProcessingContext;\n")
+                .append("import org.yamcs.parameter.Value;\n")
+                .append("import org.yamcs.protobuf.Yamcs.Value.Type;\n")
+                .append("import org.yamcs.xtce.ParameterOrArgumentRef;\n\n")
+                .append("public class ").append(className).append(" extends CompiledMatchCriteriaEvaluator {\n")
+                .append("    public ").append(className).append("(ParameterOrArgumentRef[] refs, long[] longs, ")
+                .append("double[] doubles, Object[] objects, MatchCriteriaEvaluator[] fallbacks, ")
+                .append("MatchCriteriaEvaluator interpreted) {\n")
+                .append("        super(refs, longs, doubles, objects, fallbacks, interpreted);\n")
+                .append("    }\n\n")
+                .append(body)
+                .append("}\n");
+        String source = sb.toString();
+        log.trace("Compiling match criteria {}:\n{}", interpreted.toExpressionString(), source);
+        try {
+            Class<?> c = CompiledClassCache.getClass(PACKAGE + "." + className, source);
+            Constructor<?> constructor = c.getConstructor(ParameterOrArgumentRef[].class, long[].class,
+                    double[].class, Object[].class, MatchCriteriaEvaluator[].class, MatchCriteriaEvaluator.class);
+            return (MatchCriteriaEvaluator) constructor.newInstance(g.refs.toArray(new ParameterOrArgumentRef[0]),
+                    g.longs.stream().mapToLong(Long::longValue).toArray(),
+                    g.doubles.stream().mapToDouble(Double::doubleValue).toArray(),
+                    g.objects.toArray(), g.fallbacks.toArray(new MatchCriteriaEvaluator[0]), interpreted);
+        } catch (Exception e) {
+            log.warn("Cannot compile match criteria {}, using the interpreted evaluator: {}",
+                    interpreted.toExpressionString(), e.toString());
+            return interpreted;
+        }
+    }
+
+    static class Generator {
+        final StringBuilder methods = new StringBuilder();
+        final List<ParameterOrArgumentRef> refs = new ArrayList<>();
+        final List<Long> longs = new ArrayList<>();
+        final List<Double> doubles = new ArrayList<>();
+        final List<Object> objects = new ArrayList<>();
+        final List<MatchCriteriaEvaluator> fallbacks = new ArrayList<>();
+        int numMethods = 0;
+        int numCompiled = 0;
+
+        /**
+         * Generates the method for the evaluator and returns its name
+         */
+        String generate(MatchCriteriaEvaluator evaluator) {
+            if (evaluator instanceof RefValueEvaluator rve && isCompilable(rve)) {
+                return generateComparison(rve);
+            } else if (evaluator instanceof ANDedConditionsEvaluator ace) {
+                return generateList(ace.evaluatorList, true);
+            } else if (evaluator instanceof ORedConditionsEvaluator oce) {
+                return generateList(oce.evaluatorList, false);
+            } else {
+                return generateFallback(evaluator);
+            }
+        }
+
+        private boolean isCompilable(RefValueEvaluator rve) {
+            if (rve.rValue == null) {
+                return false;
+            }
+            Object c = rve.rValue.value;
+            return (c instanceof Long || c instanceof Double || c instanceof String || c instanceof Boolean)
+                    && javaOperator(rve.comparisonOperator) != null;
+        }
+
+        private String generateComparison(RefValueEvaluator rve) {
+            numCompiled++;
+            String name = "m" + numMethods++;
+            int fb = fallbacks.size();
+            fallbacks.add(rve);
+            String op = javaOperator(rve.comparisonOperator);
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("    private int ").append(name).append("(ProcessingContext ctx) {\n")
+                    .append("        Value v = MatchCriteriaEvaluatorFactory.getValue(refs[").append(refs.size())
+                    .append("], ctx);\n")
+                    .append("        if (v == null) {\n")
+                    .append("            return UNDEF;\n")
+                    .append("        }\n")
+                    .append("        Type t = v.getType();\n");
+            refs.add(rve.ref);
+
+            Object c = rve.rValue.value;
+            if (c instanceof Long l) {
+                String cst = "longs[" + longs.size() + "]";
+                longs.add(l);
+                // the interpreted evaluator compares signed unless both values are unsigned; the constant is never
+                // unsigned, so the comparison is always signed
+                appendCase(sb, "SINT32", "v.getSint32Value() " + op + " " + cst);
+                appendCase(sb, "UINT32", "v.getUint32Value() " + op + " " + cst);
+                appendCase(sb, "SINT64", "v.getSint64Value() " + op + " " + cst);
+                appendCase(sb, "UINT64", "v.getUint64Value() " + op + " " + cst);
+            } else if (c instanceof Double d) {
+                String cst = "doubles[" + doubles.size() + "]";
+                doubles.add(d);
+                appendCase(sb, "FLOAT", "(double) v.getFloatValue() " + op + " " + cst);
+                appendCase(sb, "DOUBLE", "v.getDoubleValue() " + op + " " + cst);
+            } else if (c instanceof String) {
+                String cst = "(String) objects[" + objects.size() + "]";
+                objects.add(c);
+                appendCase(sb, "STRING", "v.getStringValue().compareTo(" + cst + ") " + op + " 0");
+                appendCase(sb, "ENUMERATED", "v.getStringValue().compareTo(" + cst + ") " + op + " 0");
+            } else {
+                String cst = "((Boolean) objects[" + objects.size() + "]).booleanValue()";
+                objects.add(c);
+                appendCase(sb, "BOOLEAN", "Boolean.compare(v.getBooleanValue(), " + cst + ") " + op + " 0");
+            }
+            sb.append("        return toInt(fallbacks[").append(fb).append("].evaluate(ctx));\n")
+                    .append("    }\n\n");
+            methods.append(sb);
+            return name;
+        }
+
+        private static void appendCase(StringBuilder sb, String type, String condition) {
+            sb.append("        if (t == Type.").append(type).append(") {\n")
+                    .append("            return ").append(condition).append(" ? OK : NOK;\n")
+                    .append("        }\n");
+        }
+
+        /**
+         * Same logic as the {@link ANDedConditionsEvaluator} respectively {@link ORedConditionsEvaluator}: stop at the
+         * first NOK (respectively OK) result, otherwise return UNDEF if any of the results is UNDEF.
+         */
+        private String generateList(List<MatchCriteriaEvaluator> evaluatorList, boolean and) {
+            String name = "m" + numMethods++;
+            List<String> children = new ArrayList<>();
+            for (MatchCriteriaEvaluator mce : evaluatorList) {
+                children.add(generate(mce));
+            }
+            String stop = and ? "NOK" : "OK";
+            StringBuilder sb = new StringBuilder();
+            sb.append("    private int ").append(name).append("(ProcessingContext ctx) {\n")
+                    .append("        int result = ").append(and ? "OK" : "NOK").append(";\n")
+                    .append("        int r;\n");
+            for (String child : children) {
+                sb.append("        r = ").append(child).append("(ctx);\n")
+                        .append("        if (r == ").append(stop).append(") {\n")
+                        .append("            return ").append(stop).append(";\n")
+                        .append("        } else if (r == UNDEF) {\n")
+                        .append("            result = UNDEF;\n")
+                        .append("        }\n");
+            }
+            sb.append("        return result;\n")
+                    .append("    }\n\n");
+            methods.append(sb);
+            return name;
+        }
+
+        private String generateFallback(MatchCriteriaEvaluator evaluator) {
+            String name = "m" + numMethods++;
+            methods.append("    private int ").append(name).append("(ProcessingContext ctx) {\n")
+                    .append("        return toInt(fallbacks[").append(fallbacks.size()).append("].evaluate(ctx));\n")
+                    .append("    }\n\n");
+            fallbacks.add(evaluator);
+            return name;
+        }
+    }
+
+    static String javaOperator(OperatorType op) {
+        switch (op) {
+        case EQUALITY:
+            return "==";
+        case INEQUALITY:
+            return "!=";
+        case LARGERTHAN:
+            return ">";
+        case LARGEROREQUALTHAN:
+            return ">=";
+        case SMALLERTHAN:
+            return "<";
+        case SMALLEROREQUALTHAN:
+            return "<=";
+        default:
+            return null;
+        }
+    }
+}
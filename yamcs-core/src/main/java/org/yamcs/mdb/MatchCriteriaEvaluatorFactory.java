@@ -297,14 +297,22 @@ public class MatchCriteriaEvaluatorFactory {
     }
 
     static ResolvedValue resolveValue(ParameterOrArgumentRef ref, ProcessingContext input) {
+        return getResolvedValue(getValue(ref, input));
+    }
+
+    /**
+     * Returns the value of the referenced parameter or argument (or of its member if the reference has a member path)
+     * to be used in a comparison, or null if the value is not available.
+     */
+    public static Value getValue(ParameterOrArgumentRef ref, ProcessingContext input) {
         if (ref instanceof ParameterInstanceRef) {
-            return resolveParameter((ParameterInstanceRef) ref, input);
+            return getParameterValue((ParameterInstanceRef) ref, input);
         } else {
-            return resolveArgument((ArgumentInstanceRef) ref, input.cmdArgs);
+            return getArgumentValue((ArgumentInstanceRef) ref, input.cmdArgs);
         }
     }
 
-    static ResolvedValue resolveParameter(ParameterInstanceRef paramRef, ProcessingContext input) {
+    static Value getParameterValue(ParameterInstanceRef paramRef, ProcessingContext input) {
         ParameterValue pv = null;
         Parameter p = paramRef.getParameter();
         if (p.getDataSource() == DataSource.COMMAND || p.getDataSource() == DataSource.COMMAND_HISTORY) {
@@ -339,10 +347,10 @@ public class MatchCriteriaEvaluatorFactory {
             }
             v = AggregateUtil.getMemberValue(v, path);
         }
-        return getResolvedValue(v);
+        return v;
     }
 
-    static ResolvedValue resolveArgument(ArgumentInstanceRef argRef, Map<Argument, ArgumentValue> cmdArgs) {
+    static Value getArgumentValue(ArgumentInstanceRef argRef, Map<Argument, ArgumentValue> cmdArgs) {
         Argument arg = argRef.getArgument();
         ArgumentValue argv = cmdArgs.get(arg);
 
@@ -363,7 +371,7 @@ public class MatchCriteriaEvaluatorFactory {
             }
             v = AggregateUtil.getMemberValue(v, path);
         }
-        return getResolvedValue(v);
+        return v;
     }
 
     static ResolvedValue getResolvedValue(Value v) {
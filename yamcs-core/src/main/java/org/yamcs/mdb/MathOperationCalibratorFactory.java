@@ -5,7 +5,6 @@ import java.util.Stack;
 
 import org.codehaus.commons.compiler.LocatedException;
 import org.codehaus.commons.compiler.Location;
-import org.codehaus.janino.SimpleCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.xtce.InputParameter;
@@ -28,19 +27,19 @@ public class MathOperationCalibratorFactory {
      */
     public static NumericCalibrator compile(MathOperationCalibrator c) {
         StringBuilder sb = new StringBuilder();
-        String className = "Expression" + c.hashCode();
+        String javaExpr = getJavaExpression(c, null);
+        // the class name depends only on the expression such that the compiled class can be cached
+        String className = "Expression" + Integer.toHexString(javaExpr.hashCode());
         sb.append("package org.yamcs.mdb.mocf;\n")
                 .append("public class ").append(className).append(" implements org.yamcs.mdb.NumericCalibrator {\n")
                 .append("   public double calibrate(double v) {\n")
-                .append("       return ").append(getJavaExpression(c, null)).append(";\n")
+                .append("       return ").append(javaExpr).append(";\n")
                 .append("   }\n")
                 .append("}\n");
         String expr = sb.toString();
         log.debug("Compiling math operation converted to java:\n {}", expr);
         try {
-            SimpleCompiler compiler = new SimpleCompiler();
-            compiler.cook(expr);
-            Class<?> cexprClass = compiler.getClassLoader().loadClass("org.yamcs.mdb.mocf." + className);
+            Class<?> cexprClass = CompiledClassCache.getClass("org.yamcs.mdb.mocf." + className, expr);
             return (NumericCalibrator) cexprClass.getDeclaredConstructor().newInstance();
         } catch (LocatedException e) {
             String msg = e.getMessage();
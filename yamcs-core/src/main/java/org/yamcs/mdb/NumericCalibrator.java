@@ -9,4 +9,19 @@ package org.yamcs.mdb;
  */
 public interface NumericCalibrator {
     double calibrate(double v);
+
+    /**
+     * Batch calibration: calibrates the first n elements of the input array and stores the results into the output
+     * array.
+     * <p>
+     * The input and output arrays can be the same array.
+     * <p>
+     * The default implementation calls {@link #calibrate(double)} for each element; the implementations can override
+     * it with a more efficient version.
+     */
+    default void calibrate(double[] in, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = calibrate(in[i]);
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package org.yamcs.mdb;
 
+import org.yamcs.parameter.ArrayValue;
 import org.yamcs.parameter.Value;
 import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.utils.UnsignedLong;
@@ -31,9 +32,46 @@ public class NumericCalibratorProc implements CalibratorProc {
         return transform(engValue, DataEncodingUtils.rawValueType(dataType.getEncoding()));
     }
 
+    /**
+     * Batch calibration of the elements of an array value.
+     * <p>
+     * The elements are converted to a primitive double array, calibrated in one go using
+     * {@link NumericCalibrator#calibrate(double[], double[], int)} and converted to the engineering element type.
+     * 
+     * @param rawValue
+     *            the array of raw values; all the elements have to be of the same (numeric or string) type
+     * @param targetType
+     *            the type of the engineering elements
+     * @return the array containing the calibrated values, having the same dimensions as the raw array
+     */
+    public ArrayValue calibrateArray(ArrayValue rawValue, Type targetType) {
+        int n = rawValue.flatLength();
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = toDouble(rawValue.getElementValue(i));
+        }
+        numericCalibrator.calibrate(values, values, n);
+
+        ArrayValue engValue = new ArrayValue(rawValue.getDimensions(), targetType);
+        for (int i = 0; i < n; i++) {
+            engValue.setElementValue(i, fromDouble(values[i], targetType));
+        }
+        return engValue;
+    }
+
     private Value transform(Value value, Type targetType) {
         // first convert the value to double
-        double uncalibrated = switch (value.getType()) {
+        double uncalibrated = toDouble(value);
+
+        // then calibrate
+        double calibrated = numericCalibrator.calibrate(uncalibrated);
+
+        // and then convert the result to the target type
+        return fromDouble(calibrated, targetType);
+    }
+
+    private static double toDouble(Value value) {
+        return switch (value.getType()) {
         case DOUBLE -> value.getDoubleValue();
         case FLOAT -> value.getFloatValue();
         case SINT32 -> value.getSint32Value();
@@ -52,11 +90,9 @@ public class NumericCalibratorProc implements CalibratorProc {
             throw new XtceProcessingException("Cannot numerically calibrate a raw value of type " + value.getType());
         }
         };
+    }
 
-        // then calibrate
-        double calibrated = numericCalibrator.calibrate(uncalibrated);
-
-        // and then convert the result to the target type
+    private static Value fromDouble(double calibrated, Type targetType) {
         return switch (targetType) {
         case SINT32 -> ValueUtility.getSint32Value((int) Math.round(calibrated));
         case SINT64 -> ValueUtility.getSint64Value(Math.round(calibrated));
@@ -77,6 +113,13 @@ public class NumericCalibratorProc implements CalibratorProc {
         return numericCalibrator.calibrate(v);
     }
 
+    /**
+     * performs double to double batch calibration of the first n elements using the inner calibrator
+     */
+    public void calibrate(double[] in, double[] out, int n) {
+        numericCalibrator.calibrate(in, out, n);
+    }
+
     @Override
     public String toString() {
         return "NumericCalibratorProc [dataType=" + dataType + ", numericCalibrator=" + numericCalibrator + "]";
@@ -1,7 +1,12 @@
 package org.yamcs.mdb;
 
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,19 +16,21 @@ import org.yamcs.alarms.AlarmServer;
 import org.yamcs.mdb.MatchCriteriaEvaluator.MatchResult;
 import org.yamcs.parameter.LastValueCache;
 import org.yamcs.parameter.ParameterProcessorManager;
+import org.yamcs.parameter.Value;
 import org.yamcs.protobuf.Pvalue.MonitoringResult;
 import org.yamcs.protobuf.Pvalue.RangeCondition;
 import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.xtce.AlarmLevels;
 import org.yamcs.xtce.AlarmRanges;
 import org.yamcs.xtce.AlarmType;
+import org.yamcs.xtce.DataSource;
 import org.yamcs.xtce.EnumeratedParameterType;
 import org.yamcs.xtce.EnumerationAlarm;
 import org.yamcs.xtce.EnumerationAlarm.EnumerationAlarmItem;
-import org.yamcs.xtce.util.DoubleRange;
 import org.yamcs.xtce.EnumerationContextAlarm;
 import org.yamcs.xtce.FloatParameterType;
 import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.MatchCriteria;
 import org.yamcs.xtce.NumericAlarm;
 import org.yamcs.xtce.NumericContextAlarm;
 import org.yamcs.xtce.Parameter;
@@ -45,12 +52,29 @@ public class ParameterAlarmChecker {
     LastValueCache lastValueCache;
     final ProcessorData pdata;
 
+    static final ParameterValue[] NO_INPUTS = new ParameterValue[0];
+    static final Parameter[] NOT_TRACKABLE = new Parameter[0];
+
+    // result of the last check for each parameter, used to skip the evaluation if nothing has changed
+    final Map<Parameter, CheckResult> lastResults = new ConcurrentHashMap<>();
+    // parameters used in the context match criteria of each type
+    final Map<ParameterType, Parameter[]> contextParameters = new ConcurrentHashMap<>();
+    final Map<AlarmRanges, CompiledAlarmRanges> compiledRanges = new ConcurrentHashMap<>();
+
     public ParameterAlarmChecker(ParameterProcessorManager ppm, ProcessorData pdata) {
         this.ppm = ppm;
         this.lastValueCache = ppm.getLastValueCache();
         this.pdata = pdata;
     }
 
+    /**
+     * Creates an alarm checker without parameter subscription, used in unit tests
+     */
+    ParameterAlarmChecker(ProcessorData pdata) {
+        this.lastValueCache = pdata.getLastValueCache();
+        this.pdata = pdata;
+    }
+
     /**
      * Called from the ParameterRequestManager when a new parameter has been subscribed Check and subscribe any
      * dependencies required for alarm checking
@@ -124,51 +148,8 @@ public class ParameterAlarmChecker {
             throw new IllegalStateException("Unexpected integer value");
         }
 
-        // Determine applicable ranges based on context
-        boolean mon = false;
-        AlarmType alarmType = null;
-        AlarmRanges staticAlarmRanges = null;
-        int minViolations = 1;
-        boolean autoAck = false;
-        boolean latching = false;
-        if (ipt.getContextAlarmList() != null) {
-            for (NumericContextAlarm nca : ipt.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
-                    mon = true;
-                    alarmType = nca;
-                    staticAlarmRanges = nca.getStaticAlarmRanges();
-                    minViolations = nca.getMinViolations();
-                    autoAck = nca.isAutoAck();
-                    latching = nca.isLatching();
-                    break;
-                }
-            }
-        }
-
-        NumericAlarm defaultAlarm = ipt.getDefaultAlarm();
-        if (!mon && defaultAlarm != null) {
-            alarmType = defaultAlarm;
-            staticAlarmRanges = defaultAlarm.getStaticAlarmRanges();
-            minViolations = defaultAlarm.getMinViolations();
-            autoAck = defaultAlarm.isAutoAck();
-            latching = defaultAlarm.isLatching();
-        }
-
-        // Set MonitoringResult
-        pv.setMonitoringResult(null); // The default is DISABLED, but set it to null, so that below code is more
-                                      // readable
-        if (staticAlarmRanges != null) {
-            checkStaticAlarmRanges(pv, intCalValue, staticAlarmRanges);
-        }
-
-        // Notify when severity changes
-        if (alarmReporter != null) {
-            alarmReporter.reportNumericParameterEvent(pv, alarmType, minViolations);
-        }
-        if (alarmServer != null) {
-            alarmServer.update(pv, minViolations, autoAck, latching);
-        }
+        performAlarmCheckingNumeric(processingCtx, ipt, ipt.getContextAlarmList(), ipt.getDefaultAlarm(), pv,
+                intCalValue);
     }
 
     private void performAlarmCheckingFloat(ProcessingContext processingCtx,
@@ -182,151 +163,125 @@ public class ParameterAlarmChecker {
             throw new IllegalStateException("Unexpected float value");
         }
 
-        // Determine applicable AlarmType based on context
-        boolean mon = false;
-        AlarmType alarmType = null;
-        AlarmRanges staticAlarmRanges = null;
+        performAlarmCheckingNumeric(processingCtx, fpt, fpt.getContextAlarmList(), fpt.getDefaultAlarm(), pv,
+                doubleCalValue);
+    }
 
-        int minViolations = 1;
-        boolean autoAck = false;
-        boolean latching = false;
-        if (fpt.getContextAlarmList() != null) {
-            for (NumericContextAlarm nca : fpt.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
-                    mon = true;
-                    alarmType = nca;
-                    staticAlarmRanges = nca.getStaticAlarmRanges();
-                    minViolations = nca.getMinViolations();
-                    autoAck = nca.isAutoAck();
-                    latching = nca.isLatching();
-                    break;
+    private void performAlarmCheckingNumeric(ProcessingContext processingCtx, ParameterType ptype,
+            List<NumericContextAlarm> contextAlarmList, NumericAlarm defaultAlarm, ParameterValue pv,
+            double doubleCalValue) {
+        ParameterValue[] inputs = getContextInputs(processingCtx, ptype, contextAlarmList,
+                NumericContextAlarm::getContextMatch);
+        CheckResult last = lastResults.get(pv.getParameter());
+
+        NumericAlarm alarm;
+        if (last != null && last.isValidFor(ptype, pv.getEngValue(), inputs)) {
+            alarm = (NumericAlarm) last.alarm;
+            last.applyTo(pv);
+        } else {
+            // Determine applicable AlarmType based on context
+            alarm = defaultAlarm;
+            if (contextAlarmList != null) {
+                for (NumericContextAlarm nca : contextAlarmList) {
+                    MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
+                    if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
+                        alarm = nca;
+                        break;
+                    }
                 }
             }
-        }
 
-        NumericAlarm defaultAlarm = fpt.getDefaultAlarm();
-        if (!mon && defaultAlarm != null) {
-            alarmType = defaultAlarm;
-            staticAlarmRanges = defaultAlarm.getStaticAlarmRanges();
-            minViolations = defaultAlarm.getMinViolations();
-            autoAck = defaultAlarm.isAutoAck();
-            latching = defaultAlarm.isLatching();
+            // Set MonitoringResult
+            pv.setMonitoringResult(null); // The default is DISABLED, but set it to null, so that below code is more
+                                          // readable
+            CompiledAlarmRanges ranges = null;
+            if (alarm != null && alarm.getStaticAlarmRanges() != null) {
+                ranges = compiledRanges.computeIfAbsent(alarm.getStaticAlarmRanges(), CompiledAlarmRanges::new);
+                ranges.check(pv, doubleCalValue);
+            }
+            if (inputs != null) {
+                lastResults.put(pv.getParameter(), new CheckResult(ptype, pv, inputs, alarm, ranges));
+            }
         }
 
-        // Set MonitoringResult
-        pv.setMonitoringResult(null); // The default is DISABLED, but set it to null, so that below code is more
-                                      // readable
-        if (staticAlarmRanges != null) {
-            checkStaticAlarmRanges(pv, doubleCalValue, staticAlarmRanges);
-        }
+        int minViolations = (alarm == null) ? 1 : alarm.getMinViolations();
+        boolean autoAck = (alarm == null) ? false : alarm.isAutoAck();
+        boolean latching = (alarm == null) ? false : alarm.isLatching();
 
         // Notify when severity changes
         if (alarmReporter != null) {
-            alarmReporter.reportNumericParameterEvent(pv, alarmType, minViolations);
+            alarmReporter.reportNumericParameterEvent(pv, alarm, minViolations);
         }
         if (alarmServer != null) {
             alarmServer.update(pv, minViolations, autoAck, latching);
         }
     }
 
-    private void checkRange(ParameterValue pv, MonitoringResult mr, DoubleRange fr, double v) {
-        int x = fr.inRange(v);
-        if (x < 0) {
-            pv.setMonitoringResult(mr);
-            pv.setRangeCondition(RangeCondition.LOW);
-        } else if (x > 0) {
-            pv.setMonitoringResult(mr);
-            pv.setRangeCondition(RangeCondition.HIGH);
-        }
-    }
-
-    /**
-     * Verify limits, giving priority to highest severity
-     */
-    private void checkStaticAlarmRanges(ParameterValue pv, double doubleCalValue, AlarmRanges staticAlarmRanges) {
-        pv.setMonitoringResult(null);
-        DoubleRange watchRange = staticAlarmRanges.getWatchRange();
-        DoubleRange warningRange = staticAlarmRanges.getWarningRange();
-        DoubleRange distressRange = staticAlarmRanges.getDistressRange();
-        DoubleRange criticalRange = staticAlarmRanges.getCriticalRange();
-        DoubleRange severeRange = staticAlarmRanges.getSevereRange();
-        if (severeRange != null) {
-            checkRange(pv, MonitoringResult.SEVERE, severeRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && criticalRange != null) {
-            checkRange(pv, MonitoringResult.CRITICAL, criticalRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && distressRange != null) {
-            checkRange(pv, MonitoringResult.DISTRESS, distressRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && warningRange != null) {
-            checkRange(pv, MonitoringResult.WARNING, warningRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && watchRange != null) {
-            checkRange(pv, MonitoringResult.WATCH, watchRange, doubleCalValue);
-        }
-
-        if (pv.getMonitoringResult() == null) {
-            pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
-        }
-
-        pv.setWatchRange(watchRange);
-        pv.setWarningRange(warningRange);
-        pv.setDistressRange(distressRange);
-        pv.setCriticalRange(criticalRange);
-        pv.setSevereRange(severeRange);
-    }
-
     private void performAlarmCheckingEnumerated(ProcessingContext processingCtx,
             EnumeratedParameterType ept, ParameterValue pv) {
-        pv.setMonitoringResult(null); // Default is DISABLED, but that doesn't seem fit when we are checking
-        String s = pv.getEngValue().getStringValue();
+        List<EnumerationContextAlarm> contextAlarmList = ept.getContextAlarmList();
+        ParameterValue[] inputs = getContextInputs(processingCtx, ept, contextAlarmList,
+                EnumerationContextAlarm::getContextMatch);
+        CheckResult last = lastResults.get(pv.getParameter());
+
+        EnumerationAlarm alarm;
+        if (last != null && last.isValidFor(ept, pv.getEngValue(), inputs)) {
+            alarm = (EnumerationAlarm) last.alarm;
+            last.applyTo(pv);
+        } else {
+            pv.setMonitoringResult(null); // Default is DISABLED, but that doesn't seem fit when we are checking
+            String s = pv.getEngValue().getStringValue();
+
+            alarm = ept.getDefaultAlarm();
+            if (contextAlarmList != null) {
+                for (EnumerationContextAlarm nca : contextAlarmList) {
+                    MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
+                    if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
+                        alarm = nca;
+                        break;
+                    }
+                }
+            }
 
-        EnumerationAlarm alarm = ept.getDefaultAlarm();
-        int minViolations = (alarm == null) ? 1 : alarm.getMinViolations();
-        if (ept.getContextAlarmList() != null) {
-            for (EnumerationContextAlarm nca : ept.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
-                    alarm = nca;
-                    minViolations = nca.getMinViolations();
+            if (alarm != null) {
+                AlarmLevels level = alarm.getDefaultAlarmLevel();
+                for (EnumerationAlarmItem eai : alarm.getAlarmList()) {
+                    if (eai.getEnumerationLabel().equals(s)) {
+                        level = eai.getAlarmLevel();
+                    }
+                }
+
+                switch (level) {
+                case NORMAL:
+                    pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+                    break;
+                case WATCH:
+                    pv.setMonitoringResult(MonitoringResult.WATCH);
+                    break;
+                case WARNING:
+                    pv.setMonitoringResult(MonitoringResult.WARNING);
+                    break;
+                case DISTRESS:
+                    pv.setMonitoringResult(MonitoringResult.DISTRESS);
+                    break;
+                case CRITICAL:
+                    pv.setMonitoringResult(MonitoringResult.CRITICAL);
+                    break;
+                case SEVERE:
+                    pv.setMonitoringResult(MonitoringResult.SEVERE);
                     break;
                 }
             }
+            if (inputs != null) {
+                lastResults.put(pv.getParameter(), new CheckResult(ept, pv, inputs, alarm, null));
+            }
         }
+
+        int minViolations = (alarm == null) ? 1 : alarm.getMinViolations();
         boolean autoAck = false;
         boolean latching = false;
 
         if (alarm != null) {
-            AlarmLevels level = alarm.getDefaultAlarmLevel();
-            for (EnumerationAlarmItem eai : alarm.getAlarmList()) {
-                if (eai.getEnumerationLabel().equals(s)) {
-                    level = eai.getAlarmLevel();
-                }
-            }
-
-            switch (level) {
-            case NORMAL:
-                pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
-                break;
-            case WATCH:
-                pv.setMonitoringResult(MonitoringResult.WATCH);
-                break;
-            case WARNING:
-                pv.setMonitoringResult(MonitoringResult.WARNING);
-                break;
-            case DISTRESS:
-                pv.setMonitoringResult(MonitoringResult.DISTRESS);
-                break;
-            case CRITICAL:
-                pv.setMonitoringResult(MonitoringResult.CRITICAL);
-                break;
-            case SEVERE:
-                pv.setMonitoringResult(MonitoringResult.SEVERE);
-                break;
-            }
-
             if (alarmReporter != null) {
                 alarmReporter.reportEnumeratedParameterEvent(pv, alarm, minViolations);
             }
@@ -338,4 +293,101 @@ public class ParameterAlarmChecker {
             alarmServer.update(pv, minViolations, autoAck, latching);
         }
     }
+
+    /**
+     * Returns the values of the parameters used in the context match criteria, as they would be retrieved by the
+     * {@link MatchCriteriaEvaluator}.
+     * <p>
+     * Returns null if the context inputs cannot be tracked (e.g. the criteria refer to command parameters) which means
+     * that the alarm has to be evaluated each time.
+     */
+    private <T> ParameterValue[] getContextInputs(ProcessingContext processingCtx, ParameterType ptype,
+            List<T> contextAlarmList, Function<T, MatchCriteria> contextMatch) {
+        if (contextAlarmList == null || contextAlarmList.isEmpty()) {
+            return NO_INPUTS;
+        }
+        if (processingCtx == null) {
+            return null;
+        }
+        Parameter[] params = contextParameters.computeIfAbsent(ptype, t -> {
+            Set<Parameter> s = new LinkedHashSet<>();
+            for (T ca : contextAlarmList) {
+                s.addAll(contextMatch.apply(ca).getDependentParameters());
+            }
+            for (Parameter p : s) {
+                if (p.getDataSource() == DataSource.COMMAND || p.getDataSource() == DataSource.COMMAND_HISTORY) {
+                    return NOT_TRACKABLE;
+                }
+            }
+            return s.toArray(new Parameter[0]);
+        });
+        if (params == NOT_TRACKABLE) {
+            return null;
+        }
+
+        ParameterValue[] inputs = new ParameterValue[params.length];
+        for (int i = 0; i < params.length; i++) {
+            Parameter p = params[i];
+            ParameterValue pv = null;
+            if (processingCtx.tmParams != null) {
+                pv = processingCtx.tmParams.getLastInserted(p);
+            }
+            if (pv == null && processingCtx.tmParamsCache != null) {
+                pv = processingCtx.tmParamsCache.getValue(p);
+            }
+            inputs[i] = pv;
+        }
+        return inputs;
+    }
+
+    /**
+     * The outcome of the last alarm check of a parameter.
+     * <p>
+     * It can be reused if the parameter type, the engineering value and the values of the parameters used in the
+     * context match criteria are unchanged. The context values are compared by identity: a new delivery of an input
+     * parameter always invalidates the result, even if its value is the same.
+     */
+    static final class CheckResult {
+        final ParameterType ptype;
+        final Value engValue;
+        final ParameterValue[] inputs;
+        final AlarmType alarm;
+        final MonitoringResult monitoringResult;
+        final RangeCondition rangeCondition;
+        final CompiledAlarmRanges ranges;
+
+        CheckResult(ParameterType ptype, ParameterValue pv, ParameterValue[] inputs, AlarmType alarm,
+                CompiledAlarmRanges ranges) {
+            this.ptype = ptype;
+            this.engValue = pv.getEngValue();
+            this.inputs = inputs;
+            this.alarm = alarm;
+            this.monitoringResult = pv.getMonitoringResult();
+            this.rangeCondition = pv.getRangeCondition();
+            this.ranges = ranges;
+        }
+
+        boolean isValidFor(ParameterType ptype, Value engValue, ParameterValue[] inputs) {
+            if (this.ptype != ptype || inputs == null || inputs.length != this.inputs.length
+                    || !this.engValue.equals(engValue)) {
+                return false;
+            }
+            for (int i = 0; i < inputs.length; i++) {
+                if (inputs[i] != this.inputs[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void applyTo(ParameterValue pv) {
+            pv.setMonitoringResult(monitoringResult);
+            if (rangeCondition != null) {
+                pv.setRangeCondition(rangeCondition);
+            }
+            if (ranges != null) {
+                ranges.setRanges(pv);
+            }
+        }
+    }
 }
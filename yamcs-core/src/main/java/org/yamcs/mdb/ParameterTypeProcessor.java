@@ -501,6 +501,11 @@ public class ParameterTypeProcessor {
         ParameterType engElementType = (ParameterType) ptype.getElementType();
 
         int fl = rawValue.flatLength();
+        if (fl > 0 && engElementType instanceof BaseDataType bdt
+                && pdata.getCalibrator(processingCtx, bdt) instanceof NumericCalibratorProc ncp) {
+            // numeric calibration of all the elements in one go
+            return ncp.calibrateArray(rawValue, bdt.getValueType());
+        }
         Value rv = rawValue.getElementValue(0);
         Value ev = doCalibrate(processingCtx, engElementType, rv);
         ArrayValue engValue = new ArrayValue(rawValue.getDimensions(), ev.getType());
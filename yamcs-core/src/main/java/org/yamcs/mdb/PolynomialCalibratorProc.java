@@ -26,6 +26,25 @@ public class PolynomialCalibratorProc implements NumericCalibrator {
         return val;
     }
 
+    /**
+     * Evaluates the polynomial for all the elements using the same Horner scheme as {@link #calibrate(double)} (so the
+     * results are identical) but iterating over the coefficients in the outer loop. The inner loop is a simple
+     * multiply-add over primitive arrays which the JIT compiler can vectorize.
+     */
+    @Override
+    public void calibrate(double[] in, double[] out, int n) {
+        if (in == out) {
+            in = Arrays.copyOf(in, n);
+        }
+        Arrays.fill(out, 0, n, 0);
+        for (int j = coefficients.length - 1; j >= 0; j--) {
+            double c = coefficients[j];
+            for (int i = 0; i < n; i++) {
+                out[i] = in[i] * out[i] + c;
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "PolynomialCalibrator" + Arrays.toString(coefficients);
@@ -278,7 +278,7 @@ public class ProcessorData {
 
     public MatchCriteriaEvaluator getEvaluator(MatchCriteria mc) {
         return evaluators.computeIfAbsent(mc,
-                k -> MatchCriteriaEvaluatorFactory.getEvaluator(k));
+                k -> MatchCriteriaCompiler.getEvaluator(k));
     }
 
     public DataDecoder getDataDecoder(DataEncoding de) {
@@ -13,9 +13,27 @@ import org.yamcs.xtce.SplinePoint;
  */
 public class SplineCalibratorProc implements NumericCalibrator {
     SplinePoint[] points;
+    // raw and calibrated values of the points copied in primitive arrays
+    final double[] raw;
+    final double[] calibrated;
+    // the batch calibration can continue the search from the previous position only if the points are sorted
+    final boolean sorted;
 
     public SplineCalibratorProc(SplineCalibrator c) {
         this.points = c.getPoints();
+        raw = new double[points.length];
+        calibrated = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            raw[i] = points[i].getRaw();
+            calibrated[i] = points[i].getCalibrated();
+        }
+        boolean s = true;
+        for (int i = 1; i < raw.length; i++) {
+            if (raw[i - 1] > raw[i]) {
+                s = false;
+            }
+        }
+        sorted = s;
     }
 
     @Override
@@ -23,29 +41,69 @@ public class SplineCalibratorProc implements NumericCalibrator {
         double val;
 
         int i = 0, j = 0;
-        for (i = 0; i < points.length; i++) {
-            if (points[i].getRaw() >= d)
+        for (i = 0; i < raw.length; i++) {
+            if (raw[i] >= d)
                 break;
         }
         if (i == 0) {
             j = 0;
             i = 1;
-        } else if (i == points.length) {
-            j = points.length - 2;
-            i = points.length - 1;
+        } else if (i == raw.length) {
+            j = raw.length - 2;
+            i = raw.length - 1;
         } else {
             j = i - 1;
         }
-        double a1 = points[i].getRaw();
-        double b1 = points[i].getCalibrated();
+        double a1 = raw[i];
+        double b1 = calibrated[i];
 
-        double a2 = points[j].getRaw();
-        double b2 = points[j].getCalibrated();
+        double a2 = raw[j];
+        double b2 = calibrated[j];
 
         val = ((b1 - b2) * d + (a1 * b2 - b1 * a2)) / (a1 - a2);
         return val;
     }
 
+    /**
+     * Batch version: the segment search starts from the segment of the previous element such that the consecutive
+     * samples of slowly varying signals (the common case for arrays) are calibrated without scanning all the points.
+     */
+    @Override
+    public void calibrate(double[] in, double[] out, int n) {
+        if (!sorted) {
+            NumericCalibrator.super.calibrate(in, out, n);
+            return;
+        }
+        int m = raw.length;
+        int i = 0;
+        for (int k = 0; k < n; k++) {
+            double d = in[k];
+            // find the first point with raw >= d, starting from the previous position
+            if (i > 0 && raw[i - 1] >= d) {
+                i = 0;
+            }
+            while (i < m && raw[i] < d) {
+                i++;
+            }
+            int i1, j;
+            if (i == 0) {
+                j = 0;
+                i1 = 1;
+            } else if (i == m) {
+                j = m - 2;
+                i1 = m - 1;
+            } else {
+                j = i - 1;
+                i1 = i;
+            }
+            double a1 = raw[i1];
+            double b1 = calibrated[i1];
+            double a2 = raw[j];
+            double b2 = calibrated[j];
+            out[k] = ((b1 - b2) * d + (a1 * b2 - b1 * a2)) / (a1 - a2);
+        }
+    }
+
     @Override
     public String toString() {
         return "SplineCalibrator" + Arrays.toString(points);
@@ -61,7 +61,7 @@ public class SubscribedContainer {
         public InheritingContainer(SubscribedContainer container, MatchCriteria matchCriteria) {
             this.container = container;
             criteriaEvaluator = matchCriteria == null ? MatchCriteriaEvaluatorFactory.ALWAYS_MATCH
-                    : MatchCriteriaEvaluatorFactory.getEvaluator(matchCriteria);
+                    : MatchCriteriaCompiler.getEvaluator(matchCriteria);
         }
 
         public MatchResult matches(ProcessingContext ctx) {
@@ -1,6 +1,8 @@
 package org.yamcs.parameter;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
@@ -9,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -20,9 +23,17 @@ import org.yamcs.utils.TimeEncoding;
 import org.yamcs.utils.ValueUtility;
 import org.yamcs.xtce.Parameter;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
 /**
  * This is another implementation of the parameter cache using arrays to store primitive values (instead of storing
  * {@link Value}).
+ * <p>
+ * If configured with {@code offHeap: true}, the primitive columns are stored in direct memory.
+ * <p>
+ * If a memory limit is configured, after each update the tables holding the oldest data are shrunk (or removed if
+ * they are already at the minimum size) until the memory usage is below the limit.
  */
 public class ArrayParameterCache implements ParameterCache {
     SimpleParameterIdMap pidMap = new SimpleParameterIdMap();
@@ -31,6 +42,8 @@ public class ArrayParameterCache implements ParameterCache {
     ConcurrentHashMap<SortedIntArray, ParameterValueTable> tables = new ConcurrentHashMap<>();
     final ConcurrentHashMap<Parameter, Boolean> parametersToCache;
     final ParameterCacheConfig cacheConfig;
+    final AtomicLong memoryUsage = new AtomicLong();
+    final AtomicLong numEvictions = new AtomicLong();
 
     ArrayParameterCache(String instance, ParameterCacheConfig cacheConfig) {
         log = new Log(this.getClass(), instance);
@@ -66,20 +79,77 @@ public class ArrayParameterCache implements ParameterCache {
                 maxTimestamp = t;
             }
         }
+        if (cacheConfig.maxMemory >= 0) {
+            enforceMemoryLimit();
+        }
     }
 
     private void addToCache(long t, SortedParameterList pvList) {
         SortedIntArray sia = pvList.getParameterIdArray();
-        ParameterValueTable table = tables.get(sia);
-        if (table == null) {
-            table = new ParameterValueTable(sia, cacheConfig.maxDuration, cacheConfig.maxNumEntries);
-            ParameterValueTable table1 = tables.putIfAbsent(sia, table);
-            if (table1 != null) {
-                table = table1;
+        while (true) {
+            ParameterValueTable table = tables.get(sia);
+            if (table == null) {
+                table = new ParameterValueTable(sia, cacheConfig, memoryUsage);
+                ParameterValueTable table1 = tables.putIfAbsent(sia, table);
+                if (table1 != null) {
+                    table = table1;
+                }
             }
+            if (table.add(t, pvList.getParameterValueList())) {
+                return;
+            }
+            // the table has been evicted by another thread in the meantime
+            tables.remove(sia, table);
         }
+    }
 
-        table.add(t, pvList.getParameterValueList());
+    /**
+     * Evicts the oldest data until the memory usage is below the configured limit.
+     * <p>
+     * The table with the oldest first row is shrunk to half its size, or removed completely if it is already at the
+     * minimum size.
+     */
+    private void enforceMemoryLimit() {
+        while (memoryUsage.get() > cacheConfig.maxMemory) {
+            SortedIntArray victimKey = null;
+            ParameterValueTable victim = null;
+            long tmin = Long.MAX_VALUE;
+            for (Map.Entry<SortedIntArray, ParameterValueTable> me : tables.entrySet()) {
+                long t = me.getValue().getFirstTime();
+                if (victim == null || t < tmin) {
+                    victimKey = me.getKey();
+                    victim = me.getValue();
+                    tmin = t;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            if (!victim.shrink()) {
+                tables.remove(victimKey, victim);
+                victim.release();
+            }
+            numEvictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of bytes used by the cache. For the values which are not stored as primitives (strings,
+     *         binaries, aggregates, arrays and enumerations), only the size of the object reference is accounted.
+     */
+    public long getMemoryUsage() {
+        return memoryUsage.get();
+    }
+
+    /**
+     * @return the number of times data has been evicted from the cache in order to stay within the memory limit
+     */
+    public long getNumEvictions() {
+        return numEvictions.get();
+    }
+
+    public int getNumTables() {
+        return tables.size();
     }
 
     @Override
@@ -94,12 +164,18 @@ public class ArrayParameterCache implements ParameterCache {
             }
 
             ParameterValueTable table = tables.get(sia);
+            if (table == null) {
+                continue;
+            }
             long t = table.getLastTime();
             if (t < tmax) {
                 continue;
             }
 
             ParameterValue pv = table.getLastValue(p);
+            if (pv == null) {
+                continue;
+            }
             if (t == tmax) {
                 if (result != null && result.getAcquisitionTime() < pv.getAcquisitionTime()) {
                     result = pv;
@@ -133,6 +209,9 @@ public class ArrayParameterCache implements ParameterCache {
                 continue;
             }
             ParameterValueTable table = tables.get(sai);
+            if (table == null) {
+                continue;
+            }
             List<ParameterId> sublist = new ArrayList<>();
             sublist.add(p);
             for (int j = i + 1; j < pidlist.size(); j++) {
@@ -412,72 +491,113 @@ public class ArrayParameterCache implements ParameterCache {
 
     /**
      * Stores values for list of parameters of predefined types
-     * 
+     *
      * It's like a big table:
-     * 
+     *
      * <pre>
      * t0, ev01, rv01, ps01, ev02, rv02, ps02 ...
      * t1, ev11, rv11, ps11, ev12, rv12, ps12 ... ....
      * </pre>
-     * 
+     *
      * where: t = timestamp ev = engineering value rv = raw value ps = parameter status
      *
      * Each column is stored as an array of different type (depending on the parameter type). The array works as a
      * circular list
-     * 
+     * <p>
+     * If the table is created in off-heap mode, the columns of primitive values (int, long, float, double) and the
+     * acquisition times are stored in direct buffers. The parameter status is stored as a two bytes index into a
+     * palette of distinct status objects.
+     *
      */
     static class ParameterValueTable {
         static final int MAX_NUM_ENTRIES = 1024;
         static final int INITIAL_CAPACITY = 16;
+        // estimated size of an object reference, used for memory accounting of the heap columns
+        static final int REF_SIZE = 8;
         long[] generationTimeColumn;
         final Object[] rawValueColumns;
         final Object[] engValueColumns;
         final Object[] statusColumns;
-        final long[][] acquisitionTimeColumns;
+        final Object[] acquisitionTimeColumns;
         final int numParams;
         final long timeToCache;
+        final boolean offHeap;
         int head = 0;
         int tail = head;
         int maxNumEntries = MAX_NUM_ENTRIES;
         final SortedIntArray pids;
         long coverageStart = TimeEncoding.INVALID_INSTANT;
+        // number of bytes used by one row, computed at init
+        int rowSize;
+        // the memory usage of all the tables of the cache
+        final AtomicLong memoryUsage;
+        // the memory limit of the cache, or -1 if unlimited
+        final long maxMemory;
+        // set when the table has been evicted, it does not accept new data afterwards
+        boolean released;
 
         ReadWriteLock lock = new ReentrantReadWriteLock();
 
-        ParameterValueTable(SortedIntArray pids, long timeToCache, int maxNumEntries) {
+        ParameterValueTable(SortedIntArray pids, ParameterCacheConfig cacheConfig, AtomicLong memoryUsage) {
             this.numParams = pids.size();
             this.pids = pids;
             this.rawValueColumns = new Object[numParams];
             this.engValueColumns = new Object[numParams];
             this.statusColumns = new Object[numParams];
-            this.acquisitionTimeColumns = new long[numParams][];
-            this.timeToCache = timeToCache;
-            this.maxNumEntries = maxNumEntries;
+            this.acquisitionTimeColumns = new Object[numParams];
+            this.timeToCache = cacheConfig.maxDuration;
+            // in off-heap mode the capacity is limited by the size of the status palette
+            this.maxNumEntries = cacheConfig.offHeap
+                    ? Math.min(cacheConfig.maxNumEntries, StatusColumn.MAX_PALETTE_SIZE)
+                    : cacheConfig.maxNumEntries;
+            this.offHeap = cacheConfig.offHeap;
+            this.memoryUsage = memoryUsage;
+            this.maxMemory = cacheConfig.maxMemory;
         }
 
         private void init(List<ParameterValue> sortedPvList) {
             this.generationTimeColumn = new long[INITIAL_CAPACITY];
+            int size = 8;
             for (int i = 0; i < sortedPvList.size(); i++) {
                 ParameterValue pv = sortedPvList.get(i);
                 Value v = pv.getEngValue();
                 if (v != null) {
                     engValueColumns[i] = getNewColumn(v.getType());
+                    size += getColumnWidth(v.getType());
                 }
                 Value rawV = pv.getRawValue();
                 if (rawV != null) {
                     rawValueColumns[i] = getNewColumn(rawV.getType());
+                    size += getColumnWidth(rawV.getType());
+                }
+                if (offHeap) {
+                    statusColumns[i] = new StatusColumn(allocateDirect(2 * INITIAL_CAPACITY));
+                    acquisitionTimeColumns[i] = allocateDirect(8 * INITIAL_CAPACITY);
+                    size += 2 + 8;
+                } else {
+                    statusColumns[i] = new ParameterStatus[INITIAL_CAPACITY];
+                    acquisitionTimeColumns[i] = new long[INITIAL_CAPACITY];
+                    size += REF_SIZE + 8;
                 }
-                statusColumns[i] = new ParameterStatus[INITIAL_CAPACITY];
-                acquisitionTimeColumns[i] = new long[INITIAL_CAPACITY];
             }
+            this.rowSize = size;
+            memoryUsage.addAndGet((long) INITIAL_CAPACITY * rowSize);
         }
 
-        public void add(long t, List<ParameterValue> sortedPvList) {
+        /**
+         * Adds a row to the table.
+         *
+         * @return false if the table has been released, in which case the row has not been added
+         */
+        public boolean add(long t, List<ParameterValue> sortedPvList) {
             lock.writeLock().lock();
             try {
                 if (numParams != sortedPvList.size()) {
                     throw new IllegalArgumentException("Invalid number of parameters, expected " + sortedPvList.size());
                 }
+                if (released) {
+                    return false;
+                }
                 int _head = head;
                 if (generationTimeColumn == null) {
                     init(sortedPvList);
@@ -485,7 +605,7 @@ public class ArrayParameterCache implements ParameterCache {
                     long t0 = generationTimeColumn[_head];
                     if (t < t0) {
                         // parameter older than the last one in the table -> ignore
-                        return;
+                        return true;
                     }
                     boolean doubled = false;
                     if (t - t0 < timeToCache) {
@@ -502,6 +622,7 @@ public class ArrayParameterCache implements ParameterCache {
                     storeParameter(i, _head, sortedPvList.get(i));
                 }
                 head = (_head + 1) & (generationTimeColumn.length - 1);
+                return true;
             } finally {
                 lock.writeLock().unlock();
             }
@@ -510,6 +631,9 @@ public class ArrayParameterCache implements ParameterCache {
         public void retrieveLastValues(List<ParameterId> sublist, List<ParameterValue> result) {
             lock.readLock().lock();
             try {
+                if (generationTimeColumn == null) {
+                    return;
+                }
                 int row = (head - 1) & (generationTimeColumn.length - 1);
                 for (ParameterId p : sublist) {
                     result.add(getParameterValue(row, p));
@@ -519,9 +643,15 @@ public class ArrayParameterCache implements ParameterCache {
             }
         }
 
+        /**
+         * returns the last value of the parameter or null if the table is empty (or has been released)
+         */
         public ParameterValue getLastValue(ParameterId p) {
             lock.readLock().lock();
             try {
+                if (generationTimeColumn == null) {
+                    return null;
+                }
                 int row = (head - 1) & (generationTimeColumn.length - 1);
                 return getParameterValue(row, p);
             } finally {
@@ -533,6 +663,9 @@ public class ArrayParameterCache implements ParameterCache {
 
             lock.readLock().lock();
             try {
+                if (generationTimeColumn == null) {
+                    return;
+                }
                 // col1 will be different than col2 when there are multiple values for the same parameter
                 int col2 = pids.higherBound(p.id);
                 int col1 = col2;
@@ -560,6 +693,9 @@ public class ArrayParameterCache implements ParameterCache {
         public boolean retrieveAll(List<ParameterId> plist, long start, long stop, List<List<ParameterValue>> result) {
             lock.readLock().lock();
             try {
+                if (generationTimeColumn == null) {
+                    return false;
+                }
                 // Precompute column bounds for all requested ParameterIds
                 IntArray bounds = new IntArray();
                 for (ParameterId p : plist) {
@@ -621,7 +757,7 @@ public class ArrayParameterCache implements ParameterCache {
         public boolean retrieveAllIfCovered(ParameterId p, long start, long stop, List<ParameterValue> result) {
             lock.readLock().lock();
             try {
-                if (start + 1 < generationTimeColumn[tail]) {
+                if (generationTimeColumn == null || start + 1 < generationTimeColumn[tail]) {
                     return false;
                 }
                 // col1 will be different than col2 when there are multiple values for the same parameter
@@ -664,13 +800,27 @@ public class ArrayParameterCache implements ParameterCache {
                 pv.setEngValue(getValue(engValueColumns[col], p.engType, row));
             }
             pv.setGenerationTime(generationTimeColumn[row]);
-            pv.setAcquisitionTime(acquisitionTimeColumns[col][row]);
 
-            pv.setStatus((ParameterStatus) ((Object[]) statusColumns[col])[row]);
+            Object acqTimeColumn = acquisitionTimeColumns[col];
+            if (acqTimeColumn instanceof ByteBuf buf) {
+                pv.setAcquisitionTime(buf.getLong(8 * row));
+            } else {
+                pv.setAcquisitionTime(((long[]) acqTimeColumn)[row]);
+            }
+
+            Object statusColumn = statusColumns[col];
+            if (statusColumn instanceof StatusColumn sc) {
+                pv.setStatus(sc.get(row));
+            } else {
+                pv.setStatus((ParameterStatus) ((Object[]) statusColumn)[row]);
+            }
             return pv;
         }
 
         private Value getValue(Object o, Type type, int idx) {
+            if (o instanceof ByteBuf buf) {
+                return getDirectValue(buf, type, idx);
+            }
             switch (type) {
             case BOOLEAN:
                 return ValueUtility.getBooleanValue(((BitSet) o).get(idx));
@@ -701,9 +851,33 @@ public class ArrayParameterCache implements ParameterCache {
             }
         }
 
+        private Value getDirectValue(ByteBuf buf, Type type, int idx) {
+            switch (type) {
+            case DOUBLE:
+                return ValueUtility.getDoubleValue(buf.getDouble(8 * idx));
+            case FLOAT:
+                return ValueUtility.getFloatValue(buf.getFloat(4 * idx));
+            case SINT32:
+                return ValueUtility.getSint32Value(buf.getInt(4 * idx));
+            case UINT32:
+                return ValueUtility.getUint32Value(buf.getInt(4 * idx));
+            case SINT64:
+                return ValueUtility.getSint64Value(buf.getLong(8 * idx));
+            case UINT64:
+                return ValueUtility.getUint64Value(buf.getLong(8 * idx));
+            case TIMESTAMP:
+                return ValueUtility.getTimestampValue(buf.getLong(8 * idx));
+            default:
+                throw new IllegalStateException("Unexpected off-heap type " + type);
+            }
+        }
+
         public long getLastTime() {
             lock.readLock().lock();
             try {
+                if (generationTimeColumn == null) {
+                    return Long.MIN_VALUE;
+                }
                 int row = (head - 1) & (generationTimeColumn.length - 1);
                 return generationTimeColumn[row];
             } finally {
@@ -711,6 +885,21 @@ public class ArrayParameterCache implements ParameterCache {
             }
         }
 
+        /**
+         * returns the generation time of the oldest row in the table or {@link Long#MAX_VALUE} if the table is empty
+         */
+        public long getFirstTime() {
+            lock.readLock().lock();
+            try {
+                if (generationTimeColumn == null) {
+                    return Long.MAX_VALUE;
+                }
+                return generationTimeColumn[tail];
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
         private void storeParameter(int col, int row, ParameterValue pv) {
             Value v = pv.getEngValue();
             if (v != null) {
@@ -722,19 +911,33 @@ public class ArrayParameterCache implements ParameterCache {
                 storeValue(rawValueColumns[col], row, v);
             }
             ParameterStatus status = pv.getStatus();
-
-            if (row > 0) { // avoid filling up memory with identical ParameterStatus
-                ParameterStatus prevStatus = (ParameterStatus) ((Object[]) statusColumns[col])[row - 1];
-                if (prevStatus.equals(status)) {
-                    status = prevStatus;
+            Object statusColumn = statusColumns[col];
+            if (statusColumn instanceof StatusColumn sc) {
+                sc.set(row, status);
+            } else {
+                if (row > 0) { // avoid filling up memory with identical ParameterStatus
+                    ParameterStatus prevStatus = (ParameterStatus) ((Object[]) statusColumn)[row - 1];
+                    if (prevStatus.equals(status)) {
+                        status = prevStatus;
+                    }
                 }
+                ((Object[]) statusColumn)[row] = status;
+            }
+
+            Object acqTimeColumn = acquisitionTimeColumns[col];
+            if (acqTimeColumn instanceof ByteBuf buf) {
+                buf.setLong(8 * row, pv.getAcquisitionTime());
+            } else {
+                ((long[]) acqTimeColumn)[row] = pv.getAcquisitionTime();
             }
-            ((Object[]) statusColumns[col])[row] = status;
-            acquisitionTimeColumns[col][row] = pv.getAcquisitionTime();
         }
 
         private void storeValue(Object o, int pos, Value v) {
             Type type = v.getType();
+            if (o instanceof ByteBuf buf) {
+                storeDirectValue(buf, pos, v);
+                return;
+            }
 
             switch (type) {
             case BOOLEAN -> ((BitSet) o).set(pos, v.getBooleanValue());
@@ -775,7 +978,24 @@ public class ArrayParameterCache implements ParameterCache {
             }
         }
 
+        private void storeDirectValue(ByteBuf buf, int pos, Value v) {
+            Type type = v.getType();
+            switch (type) {
+            case DOUBLE -> buf.setDouble(8 * pos, v.getDoubleValue());
+            case FLOAT -> buf.setFloat(4 * pos, v.getFloatValue());
+            case SINT32 -> buf.setInt(4 * pos, v.getSint32Value());
+            case UINT32 -> buf.setInt(4 * pos, v.getUint32Value());
+            case SINT64 -> buf.setLong(8 * pos, v.getSint64Value());
+            case UINT64 -> buf.setLong(8 * pos, v.getUint64Value());
+            case TIMESTAMP -> buf.setLong(8 * pos, v.getTimestampValue());
+            default -> throw new IllegalStateException("Unexpected off-heap type " + type);
+            }
+        }
+
         private Object getNewColumn(Type type) {
+            if (offHeap && isPrimitive(type)) {
+                return allocateDirect(getColumnWidth(type) * INITIAL_CAPACITY);
+            }
             switch (type) {
             case BOOLEAN:
                 return new BitSet(INITIAL_CAPACITY);
@@ -801,84 +1021,262 @@ public class ArrayParameterCache implements ParameterCache {
             }
         }
 
+        private static boolean isPrimitive(Type type) {
+            switch (type) {
+            case DOUBLE:
+            case FLOAT:
+            case SINT32:
+            case UINT32:
+            case SINT64:
+            case UINT64:
+            case TIMESTAMP:
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * number of bytes used by one element of the column of the given type. For the object columns this is the size
+         * of the reference; the size of the referenced objects is not accounted.
+         */
+        private static int getColumnWidth(Type type) {
+            switch (type) {
+            case BOOLEAN:
+                return 1;
+            case FLOAT:
+            case SINT32:
+            case UINT32:
+                return 4;
+            case DOUBLE:
+            case SINT64:
+            case UINT64:
+            case TIMESTAMP:
+                return 8;
+            default:
+                return REF_SIZE;
+            }
+        }
+
+        /**
+         * Doubles the capacity of the table, unless it is at its maximum number of entries or the memory limit of the
+         * cache would be exceeded. In that case the oldest row is overwritten instead.
+         */
         private boolean doubleCapacity() {
             int capacity = generationTimeColumn.length;
             if (capacity >= maxNumEntries) {
                 return false;
             }
+            if (maxMemory >= 0 && memoryUsage.get() + (long) capacity * rowSize > maxMemory) {
+                return false;
+            }
 
             int newCapacity = 2 * capacity;
+            resizeColumns(capacity, head, capacity, newCapacity);
+
+            tail = 0;
+            head = capacity;
+            memoryUsage.addAndGet((long) capacity * rowSize);
+            return true;
+        }
+
+        /**
+         * Halves the capacity of the table keeping only the most recent rows.
+         *
+         * @return false if the table is already at its minimum capacity (and nothing has been done)
+         */
+        public boolean shrink() {
+            lock.writeLock().lock();
+            try {
+                if (generationTimeColumn == null || generationTimeColumn.length <= INITIAL_CAPACITY) {
+                    return false;
+                }
+                int capacity = generationTimeColumn.length;
+                int newCapacity = capacity / 2;
+                int numRows = (head == tail) ? capacity : (head - tail) & (capacity - 1);
+                int count = Math.min(numRows, newCapacity);
+                int first = (head - count) & (capacity - 1);
 
-            long[] o2 = new long[newCapacity];
-            System.arraycopy(generationTimeColumn, head, o2, 0, capacity - head);
-            System.arraycopy(generationTimeColumn, 0, o2, capacity - head, head);
-            generationTimeColumn = o2;
+                resizeColumns(capacity, first, count, newCapacity);
+
+                tail = 0;
+                head = count & (newCapacity - 1);
+                memoryUsage.addAndGet(-(long) (capacity - newCapacity) * rowSize);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Frees all the memory used by the table. The table will be empty after this call, and {@link #add} will
+         * refuse new data.
+         */
+        public void release() {
+            lock.writeLock().lock();
+            try {
+                released = true;
+                if (generationTimeColumn == null) {
+                    return;
+                }
+                memoryUsage.addAndGet(-(long) generationTimeColumn.length * rowSize);
+                for (int i = 0; i < numParams; i++) {
+                    releaseColumn(engValueColumns[i]);
+                    releaseColumn(rawValueColumns[i]);
+                    releaseColumn(statusColumns[i]);
+                    releaseColumn(acquisitionTimeColumns[i]);
+                    engValueColumns[i] = null;
+                    rawValueColumns[i] = null;
+                    statusColumns[i] = null;
+                    acquisitionTimeColumns[i] = null;
+                }
+                generationTimeColumn = null;
+                head = tail = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void releaseColumn(Object o) {
+            if (o instanceof ByteBuf buf) {
+                buf.release();
+            } else if (o instanceof StatusColumn sc) {
+                sc.indexes.release();
+            }
+        }
+
+        /**
+         * copies count rows starting from first into new columns of size newCapacity
+         */
+        private void resizeColumns(int capacity, int first, int count, int newCapacity) {
+            generationTimeColumn = (long[]) resize(generationTimeColumn, capacity, first, count, newCapacity);
 
             for (int i = 0; i < numParams; i++) {
                 Object c = engValueColumns[i];
                 if (c != null) {
-                    engValueColumns[i] = growCapacity(c, newCapacity);
+                    engValueColumns[i] = resize(c, capacity, first, count, newCapacity);
                 }
 
                 c = rawValueColumns[i];
                 if (c != null) {
-                    rawValueColumns[i] = growCapacity(c, newCapacity);
+                    rawValueColumns[i] = resize(c, capacity, first, count, newCapacity);
                 }
 
                 c = statusColumns[i];
                 if (c != null) {
-                    statusColumns[i] = growCapacity(c, newCapacity);
+                    statusColumns[i] = resize(c, capacity, first, count, newCapacity);
                 }
-                c = acquisitionTimeColumns[i];
-                acquisitionTimeColumns[i] = (long[]) growCapacity(c, newCapacity);
+                acquisitionTimeColumns[i] = resize(acquisitionTimeColumns[i], capacity, first, count, newCapacity);
             }
-            tail = 0;
-            head = capacity;
-            return true;
         }
 
-        private Object growCapacity(Object o, int newCapacity) {
-            if (o instanceof int[]) {
-                int[] o1 = (int[]) o;
-                int[] o2 = new int[newCapacity];
-                System.arraycopy(o1, head, o2, 0, o1.length - head);
-                System.arraycopy(o1, 0, o2, o1.length - head, head);
-                return o2;
-            } else if (o instanceof double[]) {
-                double[] o1 = (double[]) o;
-                double[] o2 = new double[newCapacity];
-                System.arraycopy(o1, head, o2, 0, o1.length - head);
-                System.arraycopy(o1, 0, o2, o1.length - head, head);
-                return o2;
-            } else if (o instanceof float[]) {
-                float[] o1 = (float[]) o;
-                float[] o2 = new float[newCapacity];
-                System.arraycopy(o1, head, o2, 0, o1.length - head);
-                System.arraycopy(o1, 0, o2, o1.length - head, head);
-                return o2;
-            } else if (o instanceof long[]) {
-                long[] o1 = (long[]) o;
-                long[] o2 = new long[newCapacity];
-                System.arraycopy(o1, head, o2, 0, o1.length - head);
-                System.arraycopy(o1, 0, o2, o1.length - head, head);
-                return o2;
-            } else if (o instanceof Object[]) {
-                Object[] o1 = (Object[]) o;
-                Object[] o2 = new Object[newCapacity];
-                System.arraycopy(o1, head, o2, 0, o1.length - head);
-                System.arraycopy(o1, 0, o2, o1.length - head, head);
+        private Object resize(Object o, int capacity, int first, int count, int newCapacity) {
+            // the circular list is copied in two parts: from first to the end and from the beginning
+            int n1 = Math.min(count, capacity - first);
+            int n2 = count - n1;
+
+            if (o instanceof ByteBuf buf) {
+                int w = buf.capacity() / capacity;
+                ByteBuf buf2 = allocateDirect(newCapacity * w);
+                buf2.setBytes(0, buf, first * w, n1 * w);
+                buf2.setBytes(n1 * w, buf, 0, n2 * w);
+                buf.release();
+                return buf2;
+            } else if (o instanceof StatusColumn sc) {
+                sc.indexes = (ByteBuf) resize(sc.indexes, capacity, first, count, newCapacity);
+                return sc;
+            } else if (o instanceof BitSet bs) {
+                BitSet bs2 = new BitSet(newCapacity);
+                for (int i = 0; i < count; i++) {
+                    bs2.set(i, bs.get((first + i) & (capacity - 1)));
+                }
+                return bs2;
+            } else if (o.getClass().isArray()) {
+                Object o2 = Array.newInstance(o.getClass().getComponentType(), newCapacity);
+                System.arraycopy(o, first, o2, 0, n1);
+                System.arraycopy(o, 0, o2, n1, n2);
                 return o2;
-            } else if (o instanceof BitSet) {
-                return o;
             } else {
-                throw new IllegalArgumentException("Cannot double objects of type " + o.getClass());
+                throw new IllegalArgumentException("Cannot resize objects of type " + o.getClass());
+            }
+        }
+
+        private static ByteBuf allocateDirect(int size) {
+            ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(size, size);
+            // the status column relies on the unused rows pointing to a valid palette entry
+            buf.setZero(0, size);
+            return buf;
+        }
+    }
+
+    /**
+     * Off-heap status column: the status of each row is stored as an unsigned short index in a palette of distinct
+     * {@link ParameterStatus} objects (kept on the heap).
+     * <p>
+     * The table capacity is limited to {@link #MAX_PALETTE_SIZE} rows in off-heap mode such that when the palette is
+     * full, it can always be compacted by keeping only the entries referenced by the rows.
+     */
+    static class StatusColumn {
+        static final int MAX_PALETTE_SIZE = 0x10000;
+        ByteBuf indexes;
+        List<ParameterStatus> palette = new ArrayList<>();
+        Map<ParameterStatus, Integer> paletteIndex = new HashMap<>();
+
+        StatusColumn(ByteBuf indexes) {
+            this.indexes = indexes;
+        }
+
+        ParameterStatus get(int row) {
+            return palette.get(indexes.getUnsignedShort(2 * row));
+        }
+
+        void set(int row, ParameterStatus status) {
+            Integer idx = paletteIndex.get(status);
+            if (idx == null) {
+                if (palette.size() >= MAX_PALETTE_SIZE) {
+                    compact(row);
+                }
+                idx = palette.size();
+                palette.add(status);
+                paletteIndex.put(status, idx);
+            }
+            indexes.setShort(2 * row, idx);
+        }
+
+        // rebuild the palette keeping only the statuses referenced by the rows (except the one about to be overwritten)
+        private void compact(int excludedRow) {
+            int numRows = indexes.capacity() / 2;
+            int[] remap = new int[palette.size()];
+            Arrays.fill(remap, -1);
+            List<ParameterStatus> newPalette = new ArrayList<>();
+            Map<ParameterStatus, Integer> newPaletteIndex = new HashMap<>();
+
+            for (int row = 0; row < numRows; row++) {
+                if (row == excludedRow) {
+                    continue;
+                }
+                int oldIdx = indexes.getUnsignedShort(2 * row);
+                if (remap[oldIdx] == -1) {
+                    ParameterStatus status = palette.get(oldIdx);
+                    remap[oldIdx] = newPalette.size();
+                    newPaletteIndex.putIfAbsent(status, newPalette.size());
+                    newPalette.add(status);
+                }
+                indexes.setShort(2 * row, remap[oldIdx]);
             }
+            palette = newPalette;
+            paletteIndex = newPaletteIndex;
         }
     }
 
     @Override
     public void clear() {
-        tables.clear();
+        var it = tables.values().iterator();
+        while (it.hasNext()) {
+            ParameterValueTable table = it.next();
+            it.remove();
+            table.release();
+        }
     }
 
     @Override
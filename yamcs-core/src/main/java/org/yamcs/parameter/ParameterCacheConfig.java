@@ -8,28 +8,46 @@ public class ParameterCacheConfig {
     //maximum duration of the cache
     final long maxDuration;
     final int maxNumEntries;
-    
+    // if true, the primitive values are stored outside of the java heap
+    final boolean offHeap;
+    // maximum memory in bytes used by the cache; -1 means no limit
+    final long maxMemory;
+
     public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries) {
+        this(enabled, cacheAll, duration, maxNumEntries, false, -1);
+    }
+
+    public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries, boolean offHeap,
+            long maxMemory) {
         this.cacheAll = cacheAll;
         this.maxDuration = duration;
         this.maxNumEntries = maxNumEntries;
+        this.offHeap = offHeap;
+        this.maxMemory = maxMemory;
     }
-    
+
     public ParameterCacheConfig() {
         this.cacheAll = false;
         this.maxDuration = 0;
         this.maxNumEntries = 0;
+        this.offHeap = false;
+        this.maxMemory = -1;
     }
 
     public ParameterCacheConfig(YConfiguration cacheConfig, Log log) {
         cacheAll = cacheConfig.getBoolean("cacheAll", true);
         maxDuration = 1000L * cacheConfig.getInt("duration", 600);
         maxNumEntries = cacheConfig.getInt("maxNumEntries", 4096);
+        offHeap = cacheConfig.getBoolean("offHeap", false);
+        maxMemory = cacheConfig.getLong("maxMemory", -1);
+        if (offHeap && maxMemory < 0) {
+            log.warn("The parameter cache is stored off-heap without a memory limit (maxMemory)");
+        }
     }
 
     @Override
     public String toString() {
         return "ParameterCacheConfig [cacheAll=" + cacheAll + ", maxDuration=" + maxDuration
-                + ", maxNumEntries=" + maxNumEntries + "]";
+                + ", maxNumEntries=" + maxNumEntries + ", offHeap=" + offHeap + ", maxMemory=" + maxMemory + "]";
     }
 }
@@ -3,6 +3,7 @@ package org.yamcs.parameter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -18,7 +19,7 @@ import org.rocksdb.RocksDBException;
 import org.yamcs.AbstractYamcsService;
 import org.yamcs.InitException;
 import org.yamcs.Processor;
-import org.yamcs.ProcessorFactory;
+import org.yamcs.ReplayProcessorPool;
 import org.yamcs.YConfiguration;
 import org.yamcs.YamcsServer;
 import org.yamcs.archive.ReplayOptions;
@@ -31,12 +32,15 @@ import org.yamcs.parameterarchive.ParameterIdDb;
 import org.yamcs.parameterarchive.ParameterValueArray;
 import org.yamcs.parameterarchive.SingleParameterRetrieval;
 import org.yamcs.protobuf.Yamcs.ParameterReplayRequest;
+import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.time.Instant;
 import org.yamcs.utils.AggregateUtil;
 import org.yamcs.utils.IntArray;
 import org.yamcs.utils.TimeEncoding;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.xtce.PathElement;
+import org.yamcs.xtce.SystemParameter;
+import org.yamcs.xtce.UnitType;
 
 import com.google.common.collect.Lists;
 
@@ -50,7 +54,7 @@ import com.google.common.collect.Lists;
  * </ul>
  * 
  */
-public class ParameterRetrievalService extends AbstractYamcsService {
+public class ParameterRetrievalService extends AbstractYamcsService implements SystemParametersProducer {
     private static final String DEFAULT_PROCESSOR = "realtime";
 
     String procName = DEFAULT_PROCESSOR;
@@ -65,6 +69,8 @@ public class ParameterRetrievalService extends AbstractYamcsService {
     // filler is not enabled
     boolean pcacheConfigured;
 
+    private SystemParameter spCacheMemoryUsage, spCacheMaxMemory, spCacheNumTables, spCacheNumEvictions;
+
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
         super.init(yamcsInstance, serviceName, config);
@@ -105,6 +111,7 @@ public class ParameterRetrievalService extends AbstractYamcsService {
                 proc.getParameterRequestManager()
                         .subscribeAll((id, items) -> pcache.update(items));
             }
+            setupSystemParameters();
         }
 
         notifyStarted();
@@ -113,9 +120,52 @@ public class ParameterRetrievalService extends AbstractYamcsService {
     @Override
     protected void doStop() {
         executor.shutdown();
+        var collector = SystemParametersService.getInstance(yamcsInstance);
+        if (collector != null && spCacheMemoryUsage != null) {
+            collector.unregisterProducer(this);
+        }
+        if (pcache != null) {
+            pcache.clear();
+        }
         notifyStopped();
     }
 
+    void setupSystemParameters() {
+        var collector = SystemParametersService.getInstance(yamcsInstance);
+        if (collector == null) {
+            return;
+        }
+        UnitType kbunit = new UnitType("KB");
+        spCacheMemoryUsage = collector.createSystemParameter(serviceName + "/cache/memoryUsage", Type.UINT64, kbunit,
+                "Memory used by the parameter cache");
+        if (cacheConfig.maxMemory >= 0) {
+            spCacheMaxMemory = collector.createSystemParameter(serviceName + "/cache/maxMemory", Type.UINT64, kbunit,
+                    "Maximum memory that can be used by the parameter cache");
+        }
+        spCacheNumTables = collector.createSystemParameter(serviceName + "/cache/numTables", Type.UINT32,
+                "Number of tables (groups of parameters received together) in the parameter cache");
+        spCacheNumEvictions = collector.createSystemParameter(serviceName + "/cache/numEvictions", Type.UINT64,
+                "Number of times data has been evicted from the parameter cache to stay within the memory limit");
+        collector.registerProducer(this);
+    }
+
+    @Override
+    public Collection<ParameterValue> getSystemParameters(long gentime) {
+        List<ParameterValue> pvlist = new ArrayList<>();
+        pvlist.add(SystemParametersService.getPV(spCacheMemoryUsage, gentime, pcache.getMemoryUsage() / 1024));
+        if (spCacheMaxMemory != null) {
+            pvlist.add(SystemParametersService.getPV(spCacheMaxMemory, gentime, cacheConfig.maxMemory / 1024));
+        }
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spCacheNumTables, gentime, pcache.getNumTables()));
+        pvlist.add(SystemParametersService.getPV(spCacheNumEvictions, gentime, pcache.getNumEvictions()));
+        return pvlist;
+    }
+
+    @Override
+    public int getFrequency() {
+        return 10;
+    }
+
     /**
      * Retrieves a single scalar parameter or aggregate/array member.
      */
@@ -623,8 +673,8 @@ public class ParameterRetrievalService extends AbstractYamcsService {
         }
 
         replayOpts.setParameterRequest(prrb.build());
-        Processor processor = ProcessorFactory.create(yamcsInstance, "api_replay" + count.incrementAndGet(),
-                "ArchiveRetrieval", "internal", replayOpts);
+        Processor processor = ReplayProcessorPool.createReplayProcessor(yamcsInstance,
+                "api_replay" + count.incrementAndGet(), "ArchiveRetrieval", "internal", replayOpts);
 
         TimeAndCount tc = new TimeAndCount(Instant.MIN_INSTANT, 0);
 
@@ -25,6 +25,8 @@ import org.yamcs.Spec.OptionType;
 import org.yamcs.StandardTupleDefinitions;
 import org.yamcs.YConfiguration;
 import org.yamcs.YamcsServer;
+import org.yamcs.http.HttpParameterProducer;
+import org.yamcs.http.HttpServer;
 import org.yamcs.mdb.Mdb;
 import org.yamcs.protobuf.Yamcs;
 import org.yamcs.time.TimeService;
@@ -88,7 +90,7 @@ public class SystemParametersService extends AbstractYamcsService implements Run
         spec.addOption("producers", OptionType.LIST)
                 .withRequired(false)
                 .withElementType(OptionType.STRING)
-                .withChoices("diskstats", "fs", "jvm", "loadavg", "rocksdb");
+                .withChoices("diskstats", "fs", "http", "jvm", "loadavg", "rocksdb");
         return spec;
     }
 
@@ -143,6 +145,15 @@ public class SystemParametersService extends AbstractYamcsService implements Run
             providers.add(new SysVarProducer(new LoadavgParameterProducer(this)));
         }
 
+        if (producers.contains("http")) {
+            HttpServer httpServer = YamcsServer.getServer().getGlobalService(HttpServer.class);
+            if (httpServer != null) {
+                providers.add(new SysVarProducer(new HttpParameterProducer(this, httpServer)));
+            } else {
+                log.info("No HTTP server, cannot produce http parameters");
+            }
+        }
+
         synchronized (instances) {
             instances.put(yamcsInstance, this);
         }
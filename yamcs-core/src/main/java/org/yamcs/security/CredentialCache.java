@@ -0,0 +1,89 @@
+package org.yamcs.security;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Short-lived cache of successful credential verifications.
+ * <p>
+ * Verifying a password against its PBKDF2 hash is deliberately expensive. Clients that send HTTP Basic credentials with
+ * every request would otherwise cost one such computation per request.
+ * <p>
+ * The credentials are not stored: an entry contains an HMAC of the credentials, keyed with a random key generated when
+ * the cache is created, and is compared in constant time. An entry is also bound to the stored hash against which the
+ * credentials were verified, so that it no longer matches once the password is changed.
+ */
+public class CredentialCache {
+
+    private final HashFunction hmac = Hashing.hmacSha256(CryptoUtils.generateRandomSecretKey());
+    private final Cache<String, Entry> entries;
+
+    /**
+     * @param ttl
+     *            time in milliseconds after which a verification has to be done again
+     * @param maxSize
+     *            maximum number of cached verifications
+     */
+    public CredentialCache(long ttl, int maxSize) {
+        entries = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Returns true if the secret of the account has been successfully verified against the stored hash, and the entry
+     * has not expired.
+     */
+    public boolean contains(String name, String storedHash, char[] secret) {
+        Entry entry = entries.getIfPresent(name);
+        if (entry == null || !Objects.equals(entry.storedHash, storedHash)) {
+            return false;
+        }
+        return MessageDigest.isEqual(entry.digest, digest(name, secret));
+    }
+
+    /**
+     * Records a successful verification.
+     */
+    public void put(String name, String storedHash, char[] secret) {
+        entries.put(name, new Entry(storedHash, digest(name, secret)));
+    }
+
+    /**
+     * Discards the verification of an account, for example because its password was changed or it was disabled.
+     */
+    public void invalidate(String name) {
+        entries.invalidate(name);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    private byte[] digest(String name, char[] secret) {
+        return hmac.newHasher()
+                .putString(name, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(CharBuffer.wrap(secret), StandardCharsets.UTF_8)
+                .hash().asBytes();
+    }
+
+    private static final class Entry {
+        final String storedHash;
+        final byte[] digest;
+
+        Entry(String storedHash, byte[] digest) {
+            this.storedHash = storedHash;
+            this.digest = digest;
+        }
+    }
+}
@@ -45,6 +45,10 @@ public class Directory {
     private static final String GROUP_COLLECTION = "groups";
     private static final PasswordHasher hasher = new PBKDF2PasswordHasher();
 
+    // Successful password verifications, avoiding a PBKDF2 computation for every request with Basic credentials
+    private static final long CREDENTIAL_CACHE_TTL = 60_000;
+    private static final int CREDENTIAL_CACHE_SIZE = 1000;
+
     // Reserve first few ids for potential future use
     // (also not to overlap with system and guest users which are not currently in the directory)
     @Deprecated
@@ -53,6 +57,7 @@ public class Directory {
     private AtomicInteger groupIdSequence = new AtomicInteger((int) ID_START);
 
     private Map<String, Role> roles = new ConcurrentHashMap<>();
+    private CredentialCache credentialCache = new CredentialCache(CREDENTIAL_CACHE_TTL, CREDENTIAL_CACHE_SIZE);
 
     private DirectoryDb db;
     private ProtobufDatabase protobufDatabase;
@@ -147,6 +152,9 @@ public class Directory {
         }
         setUserPrivileges(user);
         db.updateAccount(user);
+        if (!user.isActive()) {
+            credentialCache.invalidate(user.getName());
+        }
     }
 
     private void setUserPrivileges(User user) {
@@ -167,6 +175,7 @@ public class Directory {
     public synchronized void deleteUser(User user) throws IOException {
         verifyDirectoryUser(user);
         log.info("Removing user {}", user);
+        credentialCache.invalidate(user.getName());
         var groups = db.listGroups();
         for (var group : groups) {
             if (group.removeMember(user.getId())) {
@@ -275,13 +284,23 @@ public class Directory {
 
     /**
      * Validates the provided password against the stored password hash of a user.
+     * <p>
+     * Successful verifications are cached for a short time, see {@link CredentialCache}.
      * 
      * @return true if the password is correct, false otherwise
      */
     public boolean validateUserPassword(String username, char[] password) {
         var account = db.findAccountByName(username);
         if (account instanceof User && ((User) account).getHash() != null) {
-            return hasher.validatePassword(password, ((User) account).getHash());
+            String hash = ((User) account).getHash();
+            if (credentialCache.contains(username, hash, password)) {
+                return true;
+            }
+            boolean valid = hasher.validatePassword(password, hash);
+            if (valid) {
+                credentialCache.put(username, hash, password);
+            }
+            return valid;
         } else {
             return false;
         }
@@ -314,6 +333,7 @@ public class Directory {
             String hash = hasher.createHash(password);
             user.setHash(hash);
             db.updateAccount(user);
+            credentialCache.invalidate(user.getName());
         }
     }
 
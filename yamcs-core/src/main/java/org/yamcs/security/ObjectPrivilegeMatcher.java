@@ -0,0 +1,93 @@
+package org.yamcs.security;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.yamcs.logging.Log;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Matches objects against the object privileges of a user.
+ * <p>
+ * The patterns of all the privileges of one type are combined in a single regular expression, compiled once. The
+ * decisions are cached, so that checking the same object again (for example a parameter in a subscription or in an
+ * archive retrieval) does not run the regular expression.
+ * <p>
+ * Instances are immutable with respect to the privileges; a new matcher is created when the privileges change.
+ */
+class ObjectPrivilegeMatcher {
+
+    private static final Log log = new Log(ObjectPrivilegeMatcher.class);
+
+    /**
+     * Maximum number of decisions cached for each privilege type
+     */
+    static final int CACHE_SIZE = 10000;
+
+    private final Map<ObjectPrivilegeType, TypeMatcher> matchers = new HashMap<>();
+
+    ObjectPrivilegeMatcher(Map<ObjectPrivilegeType, Set<ObjectPrivilege>> objectPrivileges) {
+        objectPrivileges.forEach((type, privileges) -> {
+            Pattern pattern = compile(privileges);
+            if (pattern != null) {
+                matchers.put(type, new TypeMatcher(pattern));
+            }
+        });
+    }
+
+    /**
+     * Returns true if the object matches one of the privileges of the given type
+     */
+    boolean matches(ObjectPrivilegeType type, String object) {
+        TypeMatcher matcher = matchers.get(type);
+        return matcher != null && matcher.matches(object);
+    }
+
+    /**
+     * Combines the privileges in a single pattern, matching any of them. Privileges that are not valid regular
+     * expressions are skipped: they could never grant anything.
+     */
+    private static Pattern compile(Set<ObjectPrivilege> privileges) {
+        List<String> alternatives = new ArrayList<>(privileges.size());
+        for (ObjectPrivilege privilege : privileges) {
+            String regex = privilege.getObject();
+            try {
+                Pattern.compile(regex);
+                alternatives.add("(?:" + regex + ")");
+            } catch (PatternSyntaxException e) {
+                log.warn("Ignoring privilege {}: invalid pattern", privilege, e);
+            }
+        }
+        if (alternatives.isEmpty()) {
+            return null;
+        }
+        return Pattern.compile(String.join("|", alternatives));
+    }
+
+    private static class TypeMatcher {
+        private final Pattern pattern;
+        private final Cache<String, Boolean> decisions = CacheBuilder.newBuilder()
+                .maximumSize(CACHE_SIZE)
+                .build();
+
+        TypeMatcher(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        boolean matches(String object) {
+            Boolean decision = decisions.getIfPresent(object);
+            if (decision == null) {
+                decision = pattern.matcher(object).matches();
+                decisions.put(object, decision);
+            }
+            return decision;
+        }
+    }
+}
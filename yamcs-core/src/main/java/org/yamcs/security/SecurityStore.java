@@ -1,6 +1,7 @@
 package org.yamcs.security;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +21,9 @@ import org.yamcs.YConfiguration;
 import org.yamcs.logging.Log;
 import org.yamcs.utils.YObjectLoader;
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
 /**
  * Responsible for Identity and Access Management (IAM).
  * <p>
@@ -79,8 +83,11 @@ public class SecurityStore {
 
     /**
      * In-memory API keys. These are experimental, and used to provide authorization to calling programs.
+     * <p>
+     * The keys are indexed by their keyed hash, so that they are not kept or compared in clear.
      */
     private Map<String, String> apiKey2username = new ConcurrentHashMap<>();
+    private HashFunction apiKeyHash = Hashing.hmacSha256(CryptoUtils.generateRandomSecretKey());
 
     // Perform login procedures from a single thread
     private ExecutorService loginExecutor = Executors.newSingleThreadExecutor();
@@ -509,16 +516,20 @@ public class SecurityStore {
     }
 
     public String getUsernameForApiKey(String apiKey) {
-        return apiKey2username.get(apiKey);
+        return apiKey2username.get(digestApiKey(apiKey));
     }
 
     public String generateApiKey(String username) {
         var apiKey = UUID.randomUUID().toString();
-        apiKey2username.put(apiKey, username);
+        apiKey2username.put(digestApiKey(apiKey), username);
         return apiKey;
     }
 
     public void removeApiKey(String apiKey) {
-        apiKey2username.remove(apiKey);
+        apiKey2username.remove(digestApiKey(apiKey));
+    }
+
+    private String digestApiKey(String apiKey) {
+        return apiKeyHash.hashString(apiKey, StandardCharsets.UTF_8).toString();
     }
 }
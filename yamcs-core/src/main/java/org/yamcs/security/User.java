@@ -55,6 +55,10 @@ public class User extends Account {
     private Set<SystemPrivilege> systemPrivileges = new HashSet<>();
     private Map<ObjectPrivilegeType, Set<ObjectPrivilege>> objectPrivileges = new HashMap<>();
 
+    // Compiled form of the effective object privileges. Reset whenever they change.
+    private volatile ObjectPrivilegeMatcher objectPrivilegeMatcher;
+    private final Object objectPrivilegeMatcherLock = new Object();
+
     private Set<ClearanceListener> clearanceListeners = new CopyOnWriteArraySet<>();
 
     private final String PRIVILEGE_OPS_NAME_PREFIX = "ops://";
@@ -216,6 +220,7 @@ public class User extends Account {
             objectPrivileges.put(objectPrivilege.getType(), privilegesForType);
         }
         privilegesForType.add(objectPrivilege);
+        resetObjectPrivilegeMatcher();
     }
 
     /**
@@ -227,6 +232,7 @@ public class User extends Account {
 
         objectPrivileges.clear();
         objectPrivileges.putAll(externalObjectPrivileges);
+        resetObjectPrivilegeMatcher();
     }
 
     public boolean hasSystemPrivilege(SystemPrivilege systemPrivilege) {
@@ -242,13 +248,27 @@ public class User extends Account {
             return true;
         }
 
-        for (ObjectPrivilege privilege : getObjectPrivileges(type)) {
-            if (object.matches(privilege.getObject())) {
-                return true;
+        var matcher = objectPrivilegeMatcher;
+        if (matcher == null) {
+            synchronized (objectPrivilegeMatcherLock) {
+                matcher = objectPrivilegeMatcher;
+                if (matcher == null) {
+                    matcher = new ObjectPrivilegeMatcher(objectPrivileges);
+                    objectPrivilegeMatcher = matcher;
+                }
             }
         }
+        return matcher.matches(type, object);
+    }
 
-        return false;
+    /**
+     * Discards the compiled object privileges and the cached decisions. Called after the privileges have been
+     * modified; the lock ensures that a matcher being built concurrently from the previous privileges is not kept.
+     */
+    private void resetObjectPrivilegeMatcher() {
+        synchronized (objectPrivilegeMatcherLock) {
+            objectPrivilegeMatcher = null;
+        }
     }
 
     /**
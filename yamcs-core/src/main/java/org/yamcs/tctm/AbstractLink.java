@@ -28,6 +28,9 @@ import org.yamcs.xtce.UnitType;
 import com.google.common.util.concurrent.AbstractService;
 import com.google.common.util.concurrent.Service;
 
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 
 /**
@@ -61,6 +64,11 @@ public abstract class AbstractLink extends AbstractService
      */
     static NioEventLoopGroup nelg = new NioEventLoopGroup();
 
+    /**
+     * Counterpart of {@link #nelg} for links using the native epoll transport. Created on first use.
+     */
+    private static EpollEventLoopGroup epollElg;
+
     @Override
     public void init(String instance, String name, YConfiguration config) throws ConfigurationException {
         this.yamcsInstance = instance;
@@ -103,6 +111,17 @@ public abstract class AbstractLink extends AbstractService
         return nelg;
     }
 
+    /**
+     * Returns the event loop group shared by the links using the native epoll transport, or {@code null} if that
+     * transport is not available on this platform.
+     */
+    protected static synchronized EventLoopGroup getEpollEventLoop() {
+        if (epollElg == null && Epoll.isAvailable()) {
+            epollElg = new EpollEventLoopGroup();
+        }
+        return epollElg;
+    }
+
     /**
      * Sets the disabled to false such that getNextPacket does not ignore the received datagrams
      */
@@ -0,0 +1,221 @@
+package org.yamcs.tctm;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.yamcs.ConfigurationException;
+import org.yamcs.Spec;
+import org.yamcs.TmPacket;
+import org.yamcs.YConfiguration;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+/**
+ * Non-blocking variant of {@link TcpTmDataLink}.
+ * <p>
+ * Instead of a dedicated thread per link, the connection is served by the event loop shared by all links, and data is
+ * read into pooled buffers. It accepts the same options as {@link TcpTmDataLink}, plus the socket options of
+ * {@link NettyTransport}.
+ * <p>
+ * The packets are split with a {@link LengthFieldBasedFrameDecoder}. This limits the supported
+ * {@code packetInputStreamClassName} to {@link CcsdsPacketInputStream} and {@link GenericPacketInputStream}, whose
+ * options are interpreted in the same way.
+ */
+public class NettyTcpTmDataLink extends TcpTmDataLink {
+
+    static final int RECONNECT_DELAY_SECS = 10;
+
+    private NettyTransport transport;
+    private volatile Channel channel;
+
+    // Set while a connection attempt is in progress, retries and enable requests do not start another one
+    private final AtomicBoolean connecting = new AtomicBoolean();
+
+    // Framing, as configured by the packetInputStreamArgs
+    private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+    private int maxPacketLength;
+    private int lengthFieldOffset;
+    private int lengthFieldLength;
+    private int lengthAdjustment;
+    private int initialBytesToStrip;
+
+    @Override
+    public Spec getSpec() {
+        var spec = super.getSpec();
+        NettyTransport.addOptions(spec);
+        return spec;
+    }
+
+    @Override
+    public void init(String instance, String name, YConfiguration config) throws ConfigurationException {
+        super.init(instance, name, config);
+        transport = new NettyTransport(config, log);
+
+        var args = packetInputStreamArgs;
+        if (CcsdsPacketInputStream.class.getName().equals(packetInputStreamClassName)) {
+            // 6 bytes primary header, followed by (packet data length + 1) bytes
+            maxPacketLength = args.getInt("maxPacketLength", 1500);
+            lengthFieldOffset = 4;
+            lengthFieldLength = 2;
+            lengthAdjustment = 1;
+            initialBytesToStrip = 0;
+        } else if (GenericPacketInputStream.class.getName().equals(packetInputStreamClassName)) {
+            maxPacketLength = args.getInt("maxPacketLength");
+            lengthFieldOffset = args.getInt("lengthFieldOffset");
+            lengthFieldLength = args.getInt("lengthFieldLength");
+            initialBytesToStrip = args.getInt("initialBytesToStrip");
+            byteOrder = AbstractPacketPreprocessor.getByteOrder(args);
+            if (lengthFieldLength < 1 || lengthFieldLength > 4) {
+                throw new ConfigurationException("Unsupported lengthFieldLength, supported values are 1,2,3 or 4");
+            }
+            // GenericPacketInputStream adjusts to the length of the whole packet, Netty to the length after the
+            // length field
+            lengthAdjustment = args.getInt("lengthAdjustment") - lengthFieldOffset - lengthFieldLength;
+        } else {
+            throw new ConfigurationException(getClass().getSimpleName() + " does not support packetInputStreamClassName "
+                    + packetInputStreamClassName + ", use " + TcpTmDataLink.class.getName() + " instead");
+        }
+    }
+
+    @Override
+    public void doStart() {
+        var eventLoopGroup = getEventLoop();
+        eventLoopGroup.schedule(() -> connect(), initialDelay, TimeUnit.MILLISECONDS);
+        notifyStarted();
+    }
+
+    @Override
+    public void doStop() {
+        doDisable();
+        notifyStopped();
+    }
+
+    @Override
+    public void doEnable() {
+        connect();
+    }
+
+    @Override
+    public void doDisable() {
+        var ch = channel;
+        if (ch != null) {
+            channel = null;
+            ch.close();
+        }
+    }
+
+    @Override
+    public void run() {
+        // Nothing to do, data is received on the event loop
+    }
+
+    private void connect() {
+        if (!isRunningAndEnabled()) {
+            return;
+        }
+        var current = channel;
+        if (current != null && current.isActive()) {
+            return;
+        }
+        if (!connecting.compareAndSet(false, true)) {
+            return;
+        }
+
+        var b = transport.newSocketBootstrap()
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 1000)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(byteOrder, maxPacketLength,
+                                lengthFieldOffset, lengthFieldLength, lengthAdjustment, initialBytesToStrip, true));
+                        ch.pipeline().addLast(new PacketHandler());
+                    }
+                });
+        b.connect(host, port).addListener((ChannelFuture f) -> {
+            if (f.isSuccess()) {
+                log.info("Link established to {}:{}", host, port);
+                var ch = f.channel();
+                channel = ch;
+                connecting.set(false);
+                ch.closeFuture().addListener(closeFuture -> {
+                    if (channel != ch) { // Closed by doDisable, or already replaced
+                        return;
+                    }
+                    channel = null;
+                    if (isRunningAndEnabled()) {
+                        log.warn("TM socket connection to {}:{} closed. Reconnecting in {}s.", host, port,
+                                RECONNECT_DELAY_SECS);
+                        ch.eventLoop().schedule(() -> connect(), RECONNECT_DELAY_SECS, TimeUnit.SECONDS);
+                    }
+                });
+                if (!isRunningAndEnabled()) { // Disabled while connecting
+                    ch.close();
+                }
+            } else {
+                connecting.set(false);
+                if (isRunningAndEnabled()) {
+                    log.warn("Cannot open TM socket {}:{}: {}. Retrying in {} seconds.", host, port,
+                            f.cause().getMessage(), RECONNECT_DELAY_SECS);
+                    getEventLoop().schedule(() -> connect(), RECONNECT_DELAY_SECS, TimeUnit.SECONDS);
+                }
+            }
+        });
+    }
+
+    private void handlePacket(ByteBuf buf) {
+        byte[] packet = new byte[buf.readableBytes()];
+        buf.readBytes(packet);
+        updateStats(packet.length);
+
+        TmPacket tmPacket = new TmPacket(timeService.getMissionTime(), packet);
+        tmPacket.setEarthReceptionTime(timeService.getHresMissionTime());
+        tmPacket = packetPreprocessor.process(tmPacket);
+        if (tmPacket != null) {
+            processPacket(tmPacket);
+        }
+    }
+
+    @Override
+    public String getDetailedStatus() {
+        if (isDisabled()) {
+            return String.format("DISABLED (should connect to %s:%d)", host, port);
+        }
+        if (channel == null) {
+            return String.format("Not connected to %s:%d", host, port);
+        } else {
+            return String.format("OK, connected to %s:%d", host, port);
+        }
+    }
+
+    @Override
+    protected Status connectionStatus() {
+        var ch = channel;
+        return (ch != null && ch.isActive()) ? Status.OK : Status.UNAVAIL;
+    }
+
+    private class PacketHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+            if (isRunningAndEnabled()) {
+                handlePacket(msg);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // Also raised by the decoder for packets longer than maxPacketLength
+            log.warn("Error reading from TM socket {}:{}: {}", host, port, cause.toString());
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.yamcs.tctm;
+
+import org.yamcs.Spec;
+import org.yamcs.Spec.OptionType;
+import org.yamcs.YConfiguration;
+import org.yamcs.logging.Log;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Socket options shared by the Netty based TM links, and the creation of their bootstraps.
+ * <p>
+ * All links share the event loop groups of {@link AbstractLink}, so that they do not need a thread each. Received data
+ * is read into pooled buffers.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code receiveBufferSize} - the size in bytes of the socket receive buffer ({@code SO_RCVBUF}). Default: OS
+ * default</li>
+ * <li>{@code epoll} - use the native epoll transport, if available. Default: false</li>
+ * <li>{@code receiveBatchSize} - (UDP only) the maximum number of datagrams that are received with a single
+ * {@code recvmmsg} system call when using the epoll transport. Default: 16</li>
+ * </ul>
+ */
+public class NettyTransport {
+
+    static final int DEFAULT_RECEIVE_BATCH_SIZE = 16;
+
+    private final Log log;
+    private final int receiveBufferSize;
+    private final boolean epoll;
+    private final int receiveBatchSize;
+
+    public NettyTransport(YConfiguration config, Log log) {
+        this.log = log;
+        receiveBufferSize = config.getInt("receiveBufferSize", -1);
+        epoll = config.getBoolean("epoll", false);
+        receiveBatchSize = config.getInt("receiveBatchSize", DEFAULT_RECEIVE_BATCH_SIZE);
+    }
+
+    public static void addOptions(Spec spec) {
+        spec.addOption("receiveBufferSize", OptionType.INTEGER);
+        spec.addOption("epoll", OptionType.BOOLEAN).withDefault(false);
+    }
+
+    public static void addDatagramOptions(Spec spec) {
+        addOptions(spec);
+        spec.addOption("receiveBatchSize", OptionType.INTEGER).withDefault(DEFAULT_RECEIVE_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a bootstrap for receiving datagrams.
+     *
+     * @param maxLength
+     *            the maximum length of a datagram. Longer datagrams are truncated.
+     */
+    public Bootstrap newDatagramBootstrap(int maxLength) {
+        var b = new Bootstrap();
+        var epollGroup = getEpollGroup();
+        if (epollGroup != null) {
+            // Room for multiple datagrams in one buffer makes the channel read them with recvmmsg
+            b.group(epollGroup)
+                    .channel(EpollDatagramChannel.class)
+                    .option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, maxLength)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR,
+                            new FixedRecvByteBufAllocator(maxLength * Math.max(1, receiveBatchSize)));
+        } else {
+            b.group(AbstractLink.getEventLoop())
+                    .channel(NioDatagramChannel.class)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(maxLength));
+        }
+        return setCommonOptions(b);
+    }
+
+    /**
+     * Creates a bootstrap for a TCP client connection.
+     */
+    public Bootstrap newSocketBootstrap() {
+        var b = new Bootstrap();
+        var epollGroup = getEpollGroup();
+        if (epollGroup != null) {
+            b.group(epollGroup).channel(EpollSocketChannel.class);
+        } else {
+            b.group(AbstractLink.getEventLoop()).channel(NioSocketChannel.class);
+        }
+        return setCommonOptions(b);
+    }
+
+    private Bootstrap setCommonOptions(Bootstrap b) {
+        b.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        if (receiveBufferSize > 0) {
+            b.option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+        }
+        return b;
+    }
+
+    private EventLoopGroup getEpollGroup() {
+        if (!epoll) {
+            return null;
+        }
+        var group = AbstractLink.getEpollEventLoop();
+        if (group == null) {
+            log.warn("Native epoll transport is not available, using NIO instead: {}",
+                    Epoll.unavailabilityCause().toString());
+        }
+        return group;
+    }
+}
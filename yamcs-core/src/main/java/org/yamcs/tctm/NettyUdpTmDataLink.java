@@ -0,0 +1,117 @@
+package org.yamcs.tctm;
+
+import org.yamcs.ConfigurationException;
+import org.yamcs.Spec;
+import org.yamcs.TmPacket;
+import org.yamcs.YConfiguration;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+
+/**
+ * Non-blocking variant of {@link UdpTmDataLink}. One UDP datagram = one TM packet.
+ * <p>
+ * Instead of a dedicated thread per link, datagrams are received on the event loop shared by all links, into pooled
+ * buffers. It accepts the same options as {@link UdpTmDataLink}, plus the socket options of {@link NettyTransport}.
+ */
+public class NettyUdpTmDataLink extends UdpTmDataLink {
+
+    private NettyTransport transport;
+    private volatile Channel channel;
+
+    @Override
+    public Spec getSpec() {
+        var spec = super.getSpec();
+        NettyTransport.addDatagramOptions(spec);
+        return spec;
+    }
+
+    @Override
+    public void init(String instance, String name, YConfiguration config) throws ConfigurationException {
+        super.init(instance, name, config);
+        transport = new NettyTransport(config, log);
+    }
+
+    @Override
+    public void doStart() {
+        if (!isDisabled()) {
+            try {
+                doEnable();
+            } catch (Exception e) {
+                notifyFailed(e);
+                return;
+            }
+        }
+        notifyStarted();
+    }
+
+    @Override
+    public void doEnable() {
+        channel = transport.newDatagramBootstrap(maxLength)
+                .handler(new DatagramHandler())
+                .bind(port)
+                .syncUninterruptibly()
+                .channel();
+    }
+
+    @Override
+    public void doDisable() {
+        var ch = channel;
+        if (ch != null) {
+            channel = null;
+            // Release the port before returning, so that the link can be enabled again right away
+            ch.close().awaitUninterruptibly();
+        }
+    }
+
+    @Override
+    public void run() {
+        // Nothing to do, datagrams are received on the event loop
+    }
+
+    private void handleDatagram(ByteBuf buf) {
+        int length = buf.readableBytes();
+        int pktLength = length - initialBytesToStrip;
+        if (pktLength <= 0) {
+            log.warn("received datagram of size {} <= {} (initialBytesToStrip); ignored.",
+                    length, initialBytesToStrip);
+            invalidDatagramCount++;
+            return;
+        }
+
+        updateStats(length);
+        byte[] packet = new byte[pktLength];
+        buf.getBytes(buf.readerIndex() + initialBytesToStrip, packet);
+
+        TmPacket tmPacket = new TmPacket(timeService.getMissionTime(), packet);
+        tmPacket.setEarthReceptionTime(timeService.getHresMissionTime());
+        tmPacket = packetPreprocessor.process(tmPacket);
+        if (tmPacket != null) {
+            processPacket(tmPacket);
+        }
+    }
+
+    @Override
+    protected Status connectionStatus() {
+        var ch = channel;
+        return (ch != null && ch.isActive()) ? Status.OK : Status.UNAVAIL;
+    }
+
+    private class DatagramHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+            if (isRunningAndEnabled()) {
+                handleDatagram(msg.content());
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Error processing datagram received on port {}", port, cause);
+        }
+    }
+}
@@ -411,6 +411,19 @@ public class ReplayService extends AbstractProcessorService
         return originalReplayRequest.toProtobuf();
     }
 
+    /**
+     * Replaces the replay request passed as spec when the processor has been created.
+     * <p>
+     * Used for the processors created in advance by the {@link org.yamcs.ReplayProcessorPool}; can only be called
+     * before the service is started.
+     */
+    public void setReplayOptions(ReplayOptions replayOptions) {
+        if (state() != State.NEW) {
+            throw new IllegalStateException("Cannot change the replay request in state " + state());
+        }
+        this.originalReplayRequest = replayOptions;
+    }
+
     @Override
     public ReplayRequest getCurrentReplayRequest() {
         return yarchReplay != null ? yarchReplay.getCurrentReplayRequest().toProtobuf() : getReplayRequest();
@@ -16,6 +16,8 @@ import org.yamcs.tctm.TcTmException;
 import org.yamcs.tctm.ccsds.TransferFrameDecoder.CcsdsFrameType;
 import org.yamcs.time.Instant;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 public abstract class AbstractTmFrameLink extends AbstractLink implements AggregatedDataLink {
     // all the TM frame links should move the TM frame config under this section, to allow having both TM and TC frame
     // in the same link
@@ -64,6 +66,10 @@ public abstract class AbstractTmFrameLink extends AbstractLink implements Aggreg
 
         spec.addOption("rawFrameDecoder", OptionType.MAP).withSpec(Spec.ANY);
 
+        spec.addOption("pipelined", OptionType.BOOLEAN).withDefault(false);
+        spec.addOption("pipelineQueueSize", OptionType.INTEGER)
+                .withDefault(MasterChannelFrameHandler.DEFAULT_PIPELINE_QUEUE_SIZE);
+
         return spec;
     }
 
@@ -78,6 +84,17 @@ public abstract class AbstractTmFrameLink extends AbstractLink implements Aggreg
         }
 
         frameHandler = new MasterChannelFrameHandler(yamcsInstance, name, config);
+        addListener(new Listener() {
+            @Override
+            public void terminated(State from) {
+                frameHandler.stop();
+            }
+
+            @Override
+            public void failed(State from, Throwable failure) {
+                frameHandler.stop();
+            }
+        }, MoreExecutors.directExecutor());
 
         if (dfl != -1) {
             int mindfl = frameHandler.getMinFrameSize();
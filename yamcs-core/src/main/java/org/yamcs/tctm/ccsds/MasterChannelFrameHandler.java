@@ -1,8 +1,12 @@
 package org.yamcs.tctm.ccsds;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.yamcs.ConfigurationException;
 import org.yamcs.YConfiguration;
@@ -13,11 +17,19 @@ import org.yamcs.time.Instant;
 
 /**
  * Handles incoming TM frames by distributing them to different VirtualChannelHandlers
+ * <p>
+ * By default the VC handlers are called synchronously from {@link #handleFrame(Instant, byte[], int, int)}. With the
+ * {@code pipelined} option, that method only decodes and validates the frame, and then queues it for a worker thread
+ * dedicated to its VC handler. The frames of one VC are still processed in order, but different VCs are processed in
+ * parallel. The worker threads are started on demand, and have to be stopped with {@link #stop()}.
  * 
  * @author nm
  *
  */
 public class MasterChannelFrameHandler {
+    static final int DEFAULT_PIPELINE_QUEUE_SIZE = 1024;
+    static final long WORKER_STOP_TIMEOUT_MILLIS = 5000;
+
     CcsdsFrameType frameType;
     TransferFrameDecoder frameDecoder;
     Map<Integer, VcDownlinkHandler> handlers = new HashMap<>();
@@ -30,14 +42,21 @@ public class MasterChannelFrameHandler {
     final FrameStreamHelper frameStreamHelper;
 
     String yamcsInstance;
+    String linkName;
     Log log;
 
+    // null if not pipelined
+    Map<Integer, VcWorker> workers;
+    volatile boolean stopped;
+
     /**
      * Constructs based on the configuration
      * 
      * @param config
      */
     public MasterChannelFrameHandler(String yamcsInstance, String linkName, YConfiguration config) {
+        this.yamcsInstance = yamcsInstance;
+        this.linkName = linkName;
         log = new Log(getClass(), yamcsInstance);
         log.setContext(linkName);
 
@@ -71,9 +90,39 @@ public class MasterChannelFrameHandler {
             throw new ConfigurationException("Unsupported frame type '" + frameType + "'");
         }
         handlers = params.createVcHandlers(yamcsInstance, linkName);
+
+        if (config.getBoolean("pipelined", false)) {
+            int queueSize = config.getInt("pipelineQueueSize", DEFAULT_PIPELINE_QUEUE_SIZE);
+            // One worker per handler, in case a handler serves multiple VCs
+            Map<VcDownlinkHandler, VcWorker> handlerWorkers = new IdentityHashMap<>();
+            workers = new HashMap<>();
+            for (var entry : handlers.entrySet()) {
+                VcWorker worker = handlerWorkers.computeIfAbsent(entry.getValue(),
+                        h -> new VcWorker(h, entry.getKey(), queueSize));
+                workers.put(entry.getKey(), worker);
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads, if pipelined, and waits for them to exit. The frames that are still queued are
+     * discarded, and so are the frames received afterwards.
+     */
+    public void stop() {
+        stopped = true;
+        if (workers != null) {
+            // A worker may serve multiple VCs
+            workers.values().stream().distinct().forEach(VcWorker::stop);
+        }
     }
 
     public void handleFrame(Instant ertime, byte[] data, int offset, int length) throws TcTmException {
+        if (workers != null) {
+            // The frame outlives this call, whereas the caller may reuse its buffer
+            data = Arrays.copyOfRange(data, offset, offset + length);
+            offset = 0;
+        }
+
         DownlinkTransferFrame frame = null;
         try {
             frame = frameDecoder.decode(data, offset, length);
@@ -111,7 +160,11 @@ public class MasterChannelFrameHandler {
         if (vch == null) {
             throw new TcTmException("No handler for vcId: " + vcid);
         }
-        vch.handle(frame);
+        if (workers != null) {
+            workers.get(vcid).put(frame);
+        } else {
+            vch.handle(frame);
+        }
     }
 
     public int getMaxFrameSize() {
@@ -134,4 +187,84 @@ public class MasterChannelFrameHandler {
         return frameType;
     }
 
-}
\ No newline at end of file
+    /**
+     * Passes the frames of one VC handler from the receiving thread to a dedicated thread.
+     * <p>
+     * When the queue is full, the receiving thread waits, just like it would when handling the frame itself.
+     */
+    class VcWorker implements Runnable {
+        final VcDownlinkHandler handler;
+        final int vcId;
+        final BlockingQueue<DownlinkTransferFrame> queue;
+        private Thread thread; // guarded by this
+
+        VcWorker(VcDownlinkHandler handler, int vcId, int queueSize) {
+            this.handler = handler;
+            this.vcId = vcId;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        void put(DownlinkTransferFrame frame) {
+            if (!ensureStarted()) {
+                return;
+            }
+            try {
+                queue.put(frame);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private synchronized boolean ensureStarted() {
+            if (stopped) {
+                return false;
+            }
+            if (thread == null) {
+                thread = new Thread(this);
+                thread.setName("VcWorker-" + linkName + ".vc" + vcId);
+                thread.start();
+            }
+            return true;
+        }
+
+        synchronized Thread getThread() {
+            return thread;
+        }
+
+        /**
+         * Called after {@link MasterChannelFrameHandler#stopped} is set, so that no thread is started afterwards.
+         */
+        void stop() {
+            Thread t = getThread();
+            if (t != null) {
+                t.interrupt();
+                try {
+                    t.join(WORKER_STOP_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (t.isAlive()) {
+                    log.warn("Worker for VC {} did not stop within {} ms", vcId, WORKER_STOP_TIMEOUT_MILLIS);
+                }
+            }
+            // Unblock the receiving thread, if it waits for room in the queue
+            queue.clear();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    DownlinkTransferFrame frame = queue.take();
+                    try {
+                        handler.handle(frame);
+                    } catch (Exception e) {
+                        log.error("Error processing frame for VC {}", vcId, e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Stopped
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.yamcs.tctm.ccsds;
+
+import org.yamcs.ConfigurationException;
+import org.yamcs.Spec;
+import org.yamcs.YConfiguration;
+import org.yamcs.tctm.NettyTransport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+
+/**
+ * Non-blocking variant of {@link UdpTmFrameLink}. One UDP datagram = one TM frame.
+ * <p>
+ * Instead of a dedicated thread per link, datagrams are received on the event loop shared by all links, into pooled
+ * buffers. It accepts the same options as {@link UdpTmFrameLink}, plus the socket options of {@link NettyTransport}.
+ */
+public class NettyUdpTmFrameLink extends UdpTmFrameLink {
+
+    private NettyTransport transport;
+    private volatile Channel channel;
+    private int port;
+    private int maxLength;
+
+    /**
+     * Frames are decoded synchronously on the event loop, so one buffer is enough for the datagrams that are not
+     * backed by an array
+     */
+    private byte[] frameBuffer;
+
+    @Override
+    public Spec getSpec() {
+        var spec = super.getSpec();
+        NettyTransport.addDatagramOptions(spec);
+        return spec;
+    }
+
+    @Override
+    public void init(String instance, String name, YConfiguration config) throws ConfigurationException {
+        super.init(instance, name, config);
+        port = config.getInt("port");
+        maxLength = frameHandler.getMaxFrameSize() + initialBytesToStrip;
+        frameBuffer = new byte[maxLength];
+        transport = new NettyTransport(config, log);
+    }
+
+    @Override
+    public void doStart() {
+        if (!isDisabled()) {
+            try {
+                doEnable();
+            } catch (Exception e) {
+                notifyFailed(e);
+                return;
+            }
+        }
+        notifyStarted();
+    }
+
+    @Override
+    public void doStop() {
+        doDisable();
+        notifyStopped();
+    }
+
+    @Override
+    protected void doEnable() {
+        channel = transport.newDatagramBootstrap(maxLength)
+                .handler(new DatagramHandler())
+                .bind(port)
+                .syncUninterruptibly()
+                .channel();
+    }
+
+    @Override
+    protected void doDisable() {
+        var ch = channel;
+        if (ch != null) {
+            channel = null;
+            // Release the port before returning, so that the link can be enabled again right away
+            ch.close().awaitUninterruptibly();
+        }
+    }
+
+    @Override
+    public void run() {
+        // Nothing to do, datagrams are received on the event loop
+    }
+
+    private void handleDatagram(ByteBuf buf) {
+        int length = buf.readableBytes();
+        if (log.isTraceEnabled()) {
+            log.trace("Received datagram of length {}: {}", length, ByteBufUtil.hexDump(buf));
+        }
+        dataIn(1, length);
+
+        byte[] data;
+        int offset;
+        if (buf.hasArray()) {
+            data = buf.array();
+            offset = buf.arrayOffset() + buf.readerIndex();
+        } else {
+            buf.getBytes(buf.readerIndex(), frameBuffer, 0, length);
+            data = frameBuffer;
+            offset = 0;
+        }
+        handleFrame(timeService.getHresMissionTime(), data, offset + initialBytesToStrip,
+                length - initialBytesToStrip);
+    }
+
+    @Override
+    protected Status connectionStatus() {
+        var ch = channel;
+        return (ch != null && ch.isActive()) ? Status.OK : Status.UNAVAIL;
+    }
+
+    private class DatagramHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+            if (isRunningAndEnabled()) {
+                handleDatagram(msg.content());
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.error("Error processing frame", cause);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.yamcs.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.yamcs.mdb.DataEncodingUtils;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterWithId;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.ArrowStreamWriter.ColumnType;
+import org.yamcs.xtce.BaseDataType;
+import org.yamcs.xtce.ParameterType;
+
+/**
+ * Formats parameters as an Apache Arrow IPC stream.
+ * <p>
+ * Rows are assembled exactly like the CSV rows of {@link ParameterFormatter}, but the generation time becomes a UTC
+ * timestamp column and each parameter becomes a column typed after its MDB type, so that values are written in binary
+ * form. Values that cannot be represented in the type of their column are written as null.
+ */
+public class ArrowParameterFormatter extends ParameterFormatter {
+
+    static final int BATCH_SIZE = 8192;
+
+    private final ArrowStreamWriter arrowWriter = new ArrowStreamWriter();
+    private OutputStream out;
+    private boolean schemaWritten;
+
+    /**
+     * @param header
+     *            how to name the parameter columns. Arrow columns always have a name, so {@link Header#NONE} is
+     *            treated as {@link Header#QUALIFIED_NAME}.
+     */
+    public ArrowParameterFormatter(OutputStream out, List<ParameterWithId> params, boolean addRaw,
+            boolean addMonitoring, Header header) {
+        super(null, ids(params));
+        this.out = out;
+        printRaw = addRaw;
+        printMonitoring = addMonitoring;
+
+        arrowWriter.addColumn("Time", ColumnType.TIMESTAMP);
+        Set<NamedObjectId> added = new HashSet<>();
+        for (ParameterWithId pwid : params) {
+            if (!added.add(pwid.getId())) { // Same column order as subscribedParameters
+                continue;
+            }
+            String name = pwid.getId().getName();
+            if (header == Header.SHORT_NAME) {
+                name = name.substring(name.lastIndexOf('/') + 1);
+            }
+            ParameterType ptype = pwid.getParameter().getParameterType();
+            if (ptype != null && pwid.getPath() != null) {
+                ptype = AggregateUtil.getMemberType(ptype, pwid.getPath());
+            }
+            arrowWriter.addColumn(name, ptype == null ? ColumnType.UTF8 : getColumnType(ptype.getValueType()));
+            if (addRaw) {
+                ColumnType rawType = ColumnType.UTF8;
+                if (pwid.getPath() == null && ptype instanceof BaseDataType
+                        && ((BaseDataType) ptype).getEncoding() != null) {
+                    rawType = getColumnType(DataEncodingUtils.rawValueType(((BaseDataType) ptype).getEncoding()));
+                }
+                arrowWriter.addColumn(name + "_RAW", rawType);
+            }
+            if (addMonitoring) {
+                arrowWriter.addColumn(name + "_MONITORING", ColumnType.UTF8);
+            }
+        }
+    }
+
+    private static List<NamedObjectId> ids(List<ParameterWithId> params) {
+        List<NamedObjectId> ids = new ArrayList<>(params.size());
+        for (ParameterWithId pwid : params) {
+            ids.add(pwid.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public void updateWriter(OutputStream outputStream, Charset charset) {
+        this.out = outputStream;
+    }
+
+    @Override
+    protected void writeParameters() throws IOException {
+        if (unsavedLineCount == 0) {
+            return;
+        }
+        if (allParametersPresent && subscribedParameters.containsValue(null)) {
+            unsavedLineCount = 0;
+            return;
+        }
+
+        arrowWriter.setLong(0, TimeEncoding.toUnixMillisec(lastLineInstant));
+        int colIdx = 1;
+        for (Entry<NamedObjectId, ParameterValue> entry : subscribedParameters.entrySet()) {
+            ParameterValue pv = entry.getValue();
+            if (pv != null) {
+                setValue(colIdx, pv.getEngValue());
+            }
+            colIdx++;
+            if (printRaw) {
+                if (pv != null) {
+                    setValue(colIdx, pv.getRawValue());
+                }
+                colIdx++;
+            }
+            if (printMonitoring) {
+                MonitoringResult mr = pv != null ? pv.getMonitoringResult() : null;
+                if (mr != null) {
+                    arrowWriter.setString(colIdx, mr.name());
+                }
+                colIdx++;
+            }
+        }
+        arrowWriter.endRow();
+        linesSaved++;
+        unsavedLineCount = 0;
+    }
+
+    private void setValue(int colIdx, Value v) {
+        if (v == null) {
+            return;
+        }
+        try {
+            switch (arrowWriter.getColumnType(colIdx)) {
+            case BOOL:
+                if (v.getType() == Type.BOOLEAN) {
+                    arrowWriter.setBoolean(colIdx, v.getBooleanValue());
+                }
+                break;
+            case UINT32:
+                if (v.getType() == Type.UINT32) {
+                    arrowWriter.setLong(colIdx, v.getUint32Value());
+                } else {
+                    arrowWriter.setLong(colIdx, v.toLong());
+                }
+                break;
+            case UINT64:
+                if (v.getType() == Type.UINT64) {
+                    arrowWriter.setLong(colIdx, v.getUint64Value());
+                } else {
+                    arrowWriter.setLong(colIdx, v.toLong());
+                }
+                break;
+            case INT32:
+            case INT64:
+                arrowWriter.setLong(colIdx, v.toLong());
+                break;
+            case FLOAT32:
+            case FLOAT64:
+                arrowWriter.setDouble(colIdx, v.toDouble());
+                break;
+            case TIMESTAMP:
+                if (v.getType() == Type.TIMESTAMP) {
+                    arrowWriter.setLong(colIdx, TimeEncoding.toUnixMillisec(v.getTimestampValue()));
+                }
+                break;
+            case BINARY:
+                if (v.getType() == Type.BINARY) {
+                    arrowWriter.setBinary(colIdx, v.getBinaryValue());
+                }
+                break;
+            default:
+                arrowWriter.setString(colIdx, v.toString());
+            }
+        } catch (UnsupportedOperationException e) {
+            // Not convertible to the column type, leave it null
+        }
+    }
+
+    /**
+     * Writes out the pending rows if there are enough of them to make a record batch.
+     */
+    @Override
+    public void flush() {
+        try {
+            writeSchemaIfNeeded();
+            if (arrowWriter.getRowCount() >= BATCH_SIZE) {
+                arrowWriter.writeBatch(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeParameters();
+        writeSchemaIfNeeded();
+        arrowWriter.writeBatch(out);
+        arrowWriter.writeEnd(out);
+    }
+
+    private void writeSchemaIfNeeded() throws IOException {
+        if (!schemaWritten) {
+            arrowWriter.writeSchema(out);
+            schemaWritten = true;
+        }
+    }
+
+    static ColumnType getColumnType(Type type) {
+        if (type == null) {
+            return ColumnType.UTF8;
+        }
+        switch (type) {
+        case FLOAT:
+            return ColumnType.FLOAT32;
+        case DOUBLE:
+            return ColumnType.FLOAT64;
+        case UINT32:
+            return ColumnType.UINT32;
+        case SINT32:
+            return ColumnType.INT32;
+        case UINT64:
+            return ColumnType.UINT64;
+        case SINT64:
+            return ColumnType.INT64;
+        case BOOLEAN:
+            return ColumnType.BOOL;
+        case BINARY:
+            return ColumnType.BINARY;
+        case TIMESTAMP:
+            return ColumnType.TIMESTAMP;
+        default: // Strings, enumerations, aggregates and arrays
+            return ColumnType.UTF8;
+        }
+    }
+}
@@ -0,0 +1,636 @@
+package org.yamcs.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes tabular data in the Apache Arrow IPC streaming format.
+ * <p>
+ * Values are set column by column for the current row, and accumulated in typed, little-endian column buffers. The
+ * accumulated rows are written out as one record batch with {@link #writeBatch(OutputStream)}, so that a stream of
+ * arbitrary length can be produced with bounded memory.
+ * <p>
+ * The output can be read directly by Arrow implementations, for example with <code>pyarrow.ipc.open_stream</code> or
+ * <code>polars.read_ipc_stream</code>. Only flat, nullable columns are supported, without dictionary encoding or
+ * compression.
+ */
+public class ArrowStreamWriter {
+
+    public enum ColumnType {
+        BOOL,
+        INT32,
+        UINT32,
+        INT64,
+        UINT64,
+        FLOAT32,
+        FLOAT64,
+        UTF8,
+        BINARY,
+        /**
+         * Milliseconds since the Unix epoch, UTC
+         */
+        TIMESTAMP;
+    }
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final short METADATA_V5 = 4;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+
+    // Arrow type ids (the Type union of Schema.fbs)
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_TIMESTAMP = 10;
+
+    private final List<Column> columns = new ArrayList<>();
+    private int rowCount;
+
+    /**
+     * Adds a column. All columns have to be added before the first row.
+     *
+     * @return the index of the column
+     */
+    public int addColumn(String name, ColumnType type) {
+        if (rowCount > 0) {
+            throw new IllegalStateException("Cannot add columns after the first row");
+        }
+        columns.add(new Column(name, type));
+        return columns.size() - 1;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public ColumnType getColumnType(int colIdx) {
+        return columns.get(colIdx).type;
+    }
+
+    /**
+     * Returns the number of rows that were added since the last written batch.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Sets the value of a column of type BOOL in the current row.
+     */
+    public void setBoolean(int colIdx, boolean value) {
+        Column col = getColumn(colIdx, ColumnType.BOOL);
+        col.markValid(rowCount);
+        if (value) {
+            col.values.setBit(rowCount);
+        }
+    }
+
+    /**
+     * Sets the value of an integer or TIMESTAMP column in the current row. Values of 32-bit columns are truncated.
+     */
+    public void setLong(int colIdx, long value) {
+        Column col = columns.get(colIdx);
+        switch (col.type) {
+        case INT32:
+        case UINT32:
+            col.markValid(rowCount);
+            col.values.putInt((int) value);
+            break;
+        case INT64:
+        case UINT64:
+        case TIMESTAMP:
+            col.markValid(rowCount);
+            col.values.putLong(value);
+            break;
+        default:
+            throw new IllegalArgumentException("Column " + col.name + " is of type " + col.type);
+        }
+    }
+
+    /**
+     * Sets the value of a floating point column in the current row.
+     */
+    public void setDouble(int colIdx, double value) {
+        Column col = columns.get(colIdx);
+        if (col.type == ColumnType.FLOAT32) {
+            col.markValid(rowCount);
+            col.values.putInt(Float.floatToRawIntBits((float) value));
+        } else if (col.type == ColumnType.FLOAT64) {
+            col.markValid(rowCount);
+            col.values.putLong(Double.doubleToRawLongBits(value));
+        } else {
+            throw new IllegalArgumentException("Column " + col.name + " is of type " + col.type);
+        }
+    }
+
+    /**
+     * Sets the value of a UTF8 column in the current row.
+     */
+    public void setString(int colIdx, String value) {
+        Column col = getColumn(colIdx, ColumnType.UTF8);
+        col.markValid(rowCount);
+        col.values.putBytes(value.getBytes(StandardCharsets.UTF_8));
+        col.offsets.putInt(col.values.size);
+    }
+
+    /**
+     * Sets the value of a BINARY column in the current row.
+     */
+    public void setBinary(int colIdx, byte[] value) {
+        Column col = getColumn(colIdx, ColumnType.BINARY);
+        col.markValid(rowCount);
+        col.values.putBytes(value);
+        col.offsets.putInt(col.values.size);
+    }
+
+    /**
+     * Completes the current row. Columns without a value are set to null.
+     */
+    public void endRow() {
+        for (Column col : columns) {
+            if (!col.set) {
+                col.appendNull();
+            }
+            col.set = false;
+        }
+        rowCount++;
+    }
+
+    private Column getColumn(int colIdx, ColumnType expectedType) {
+        Column col = columns.get(colIdx);
+        if (col.type != expectedType) {
+            throw new IllegalArgumentException("Column " + col.name + " is of type " + col.type);
+        }
+        return col;
+    }
+
+    /**
+     * Writes the schema message, which must be the first message of the stream.
+     */
+    public void writeSchema(OutputStream out) throws IOException {
+        List<Table> fields = new ArrayList<>();
+        for (Column col : columns) {
+            Table field = new Table();
+            field.addRef(0, new StringObj(col.name));
+            field.addByte(1, (byte) 1); // nullable
+            field.addByte(2, col.getTypeId());
+            field.addRef(3, col.getTypeTable());
+            field.addRef(5, new TableVector(Collections.emptyList())); // children
+            fields.add(field);
+        }
+        Table schema = new Table();
+        schema.addShort(0, (short) 0); // little endian
+        schema.addRef(1, new TableVector(fields));
+
+        writeMessage(out, HEADER_SCHEMA, schema, null);
+    }
+
+    /**
+     * Writes the rows accumulated since the last batch as a record batch, and clears them.
+     * <p>
+     * Nothing is written if there are no rows.
+     */
+    public void writeBatch(OutputStream out) throws IOException {
+        if (rowCount == 0) {
+            return;
+        }
+        Buf body = new Buf(1024);
+        Buf nodes = new Buf(16 * columns.size());
+        Buf buffers = new Buf(48 * columns.size());
+        for (Column col : columns) {
+            nodes.putLong(rowCount);
+            nodes.putLong(col.nullCount);
+
+            col.validity.ensureCapacity((rowCount + 7) / 8);
+            addBuffer(body, buffers, col.validity, (rowCount + 7) / 8);
+            if (col.type == ColumnType.UTF8 || col.type == ColumnType.BINARY) {
+                addBuffer(body, buffers, col.offsets, col.offsets.size);
+                addBuffer(body, buffers, col.values, col.values.size);
+            } else if (col.type == ColumnType.BOOL) {
+                col.values.ensureCapacity((rowCount + 7) / 8);
+                addBuffer(body, buffers, col.values, (rowCount + 7) / 8);
+            } else {
+                addBuffer(body, buffers, col.values, col.values.size);
+            }
+        }
+
+        Table batch = new Table();
+        batch.addLong(0, rowCount);
+        batch.addRef(1, new StructVector(nodes, columns.size()));
+        batch.addRef(2, new StructVector(buffers, buffers.size / 16));
+
+        writeMessage(out, HEADER_RECORD_BATCH, batch, body);
+
+        for (Column col : columns) {
+            col.clear();
+        }
+        rowCount = 0;
+    }
+
+    /**
+     * Writes the end-of-stream marker.
+     */
+    public void writeEnd(OutputStream out) throws IOException {
+        Buf buf = new Buf(8);
+        buf.putInt(CONTINUATION);
+        buf.putInt(0);
+        out.write(buf.data, 0, buf.size);
+    }
+
+    private static void addBuffer(Buf body, Buf buffers, Buf data, int length) {
+        buffers.putLong(body.size);
+        buffers.putLong(length);
+        body.putBytes(data.data, 0, length);
+        body.align(8);
+    }
+
+    private static void writeMessage(OutputStream out, byte headerType, Table header, Buf body) throws IOException {
+        Table message = new Table();
+        message.addShort(0, METADATA_V5);
+        message.addByte(1, headerType);
+        message.addRef(2, header);
+        message.addLong(3, body == null ? 0 : body.size);
+
+        Buf metadata = new Buf(256);
+        metadata.putInt(CONTINUATION);
+        metadata.putInt(0); // Size, set below
+        int fbStart = metadata.size;
+        metadata.putInt(0); // Root offset, set below
+        int root = message.write(metadata, fbStart);
+        metadata.setInt(fbStart, root - fbStart);
+        metadata.align(8);
+        metadata.setInt(4, metadata.size - fbStart);
+
+        out.write(metadata.data, 0, metadata.size);
+        if (body != null) {
+            out.write(body.data, 0, body.size);
+        }
+    }
+
+    private static final class Column {
+        final String name;
+        final ColumnType type;
+        final Buf validity = new Buf(64);
+        final Buf values = new Buf(256);
+        final Buf offsets; // For variable length types
+        int nullCount;
+        boolean set; // Whether a value was set in the current row
+
+        Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+            if (type == ColumnType.UTF8 || type == ColumnType.BINARY) {
+                offsets = new Buf(256);
+                offsets.putInt(0);
+            } else {
+                offsets = null;
+            }
+        }
+
+        void markValid(int row) {
+            if (set) {
+                throw new IllegalStateException("Value of column " + name + " already set");
+            }
+            set = true;
+            validity.setBit(row);
+        }
+
+        void appendNull() {
+            nullCount++;
+            switch (type) {
+            case BOOL:
+                break;
+            case INT32:
+            case UINT32:
+            case FLOAT32:
+                values.putInt(0);
+                break;
+            case UTF8:
+            case BINARY:
+                offsets.putInt(values.size);
+                break;
+            default:
+                values.putLong(0);
+            }
+        }
+
+        void clear() {
+            validity.clear();
+            values.clear();
+            if (offsets != null) {
+                offsets.clear();
+                offsets.putInt(0);
+            }
+            nullCount = 0;
+        }
+
+        byte getTypeId() {
+            switch (type) {
+            case BOOL:
+                return TYPE_BOOL;
+            case INT32:
+            case UINT32:
+            case INT64:
+            case UINT64:
+                return TYPE_INT;
+            case FLOAT32:
+            case FLOAT64:
+                return TYPE_FLOATING_POINT;
+            case UTF8:
+                return TYPE_UTF8;
+            case BINARY:
+                return TYPE_BINARY;
+            case TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            default:
+                throw new IllegalStateException("Unexpected type " + type);
+            }
+        }
+
+        Table getTypeTable() {
+            Table t = new Table();
+            switch (type) {
+            case INT32:
+            case UINT32:
+            case INT64:
+            case UINT64:
+                boolean is64 = type == ColumnType.INT64 || type == ColumnType.UINT64;
+                t.addInt(0, is64 ? 64 : 32); // bitWidth
+                t.addByte(1, (byte) (type == ColumnType.INT32 || type == ColumnType.INT64 ? 1 : 0)); // is_signed
+                break;
+            case FLOAT32:
+                t.addShort(0, (short) 1); // SINGLE
+                break;
+            case FLOAT64:
+                t.addShort(0, (short) 2); // DOUBLE
+                break;
+            case TIMESTAMP:
+                t.addShort(0, (short) 1); // MILLISECOND
+                t.addRef(1, new StringObj("UTC"));
+                break;
+            default: // Types without parameters
+            }
+            return t;
+        }
+    }
+
+    /*
+     * Minimal FlatBuffers serialization of the Arrow message metadata.
+     *
+     * Objects are written front to back: each table is preceded by its vtable, and followed by the objects it refers
+     * to, so that all references are forward (unsigned) offsets.
+     */
+
+    private abstract static class FbObject {
+        /**
+         * Writes this object and returns the position that references to it have to point to.
+         */
+        abstract int write(Buf buf, int fbStart);
+    }
+
+    private static final class Table extends FbObject {
+        // Each field is {index, size}, in the order of addition. A size of 0 denotes a reference.
+        private final List<int[]> fields = new ArrayList<>();
+        private final List<Object> fieldValues = new ArrayList<>();
+
+        void addByte(int index, byte value) {
+            add(index, 1, (long) value);
+        }
+
+        void addShort(int index, short value) {
+            add(index, 2, (long) value);
+        }
+
+        void addInt(int index, int value) {
+            add(index, 4, (long) value);
+        }
+
+        void addLong(int index, long value) {
+            add(index, 8, value);
+        }
+
+        void addRef(int index, FbObject value) {
+            add(index, 0, value);
+        }
+
+        private void add(int index, int size, Object value) {
+            fields.add(new int[] { index, size });
+            fieldValues.add(value);
+        }
+
+        @Override
+        int write(Buf buf, int fbStart) {
+            // Lay out the fields, largest first, to limit padding
+            Integer[] order = new Integer[fields.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i1, i2) -> Integer.compare(slotSize(i2), slotSize(i1)));
+
+            int numSlots = 0;
+            int[] offsets = new int[fields.size()];
+            int inlineSize = 4; // soffset to the vtable
+            for (int i : order) {
+                int size = slotSize(i);
+                inlineSize = (inlineSize + size - 1) / size * size;
+                offsets[i] = inlineSize;
+                inlineSize += size;
+                numSlots = Math.max(numSlots, fields.get(i)[0] + 1);
+            }
+
+            buf.align(2);
+            int vtablePos = buf.size;
+            short[] vtable = new short[numSlots];
+            for (int i = 0; i < fields.size(); i++) {
+                vtable[fields.get(i)[0]] = (short) offsets[i];
+            }
+            buf.putShort((short) (4 + 2 * numSlots));
+            buf.putShort((short) inlineSize);
+            for (short s : vtable) {
+                buf.putShort(s);
+            }
+
+            buf.alignRelative(8, fbStart);
+            int tablePos = buf.size;
+            buf.putInt(tablePos - vtablePos);
+            buf.putBytes(new byte[inlineSize - 4]);
+            for (int i = 0; i < fields.size(); i++) {
+                int pos = tablePos + offsets[i];
+                int size = fields.get(i)[1];
+                if (size > 0) {
+                    buf.setLong(pos, (Long) fieldValues.get(i), size);
+                }
+            }
+
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i)[1] == 0) {
+                    int pos = tablePos + offsets[i];
+                    int target = ((FbObject) fieldValues.get(i)).write(buf, fbStart);
+                    buf.setInt(pos, target - pos);
+                }
+            }
+            return tablePos;
+        }
+
+        private int slotSize(int i) {
+            int size = fields.get(i)[1];
+            return size == 0 ? 4 : size;
+        }
+    }
+
+    private static final class StringObj extends FbObject {
+        private final byte[] bytes;
+
+        StringObj(String s) {
+            bytes = s.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        int write(Buf buf, int fbStart) {
+            buf.alignRelative(4, fbStart);
+            int pos = buf.size;
+            buf.putInt(bytes.length);
+            buf.putBytes(bytes);
+            buf.putBytes(new byte[1]); // Null terminator
+            return pos;
+        }
+    }
+
+    private static final class TableVector extends FbObject {
+        private final List<Table> tables;
+
+        TableVector(List<Table> tables) {
+            this.tables = tables;
+        }
+
+        @Override
+        int write(Buf buf, int fbStart) {
+            buf.alignRelative(4, fbStart);
+            int pos = buf.size;
+            buf.putInt(tables.size());
+            buf.putBytes(new byte[4 * tables.size()]);
+            for (int i = 0; i < tables.size(); i++) {
+                int slot = pos + 4 + 4 * i;
+                int target = tables.get(i).write(buf, fbStart);
+                buf.setInt(slot, target - slot);
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Vector of 8-byte aligned structs, given as their serialized form
+     */
+    private static final class StructVector extends FbObject {
+        private final Buf data;
+        private final int count;
+
+        StructVector(Buf data, int count) {
+            this.data = data;
+            this.count = count;
+        }
+
+        @Override
+        int write(Buf buf, int fbStart) {
+            buf.alignRelative(8, fbStart);
+            buf.putInt(0); // The elements, which follow the length, must be 8-byte aligned
+            int pos = buf.size;
+            buf.putInt(count);
+            buf.putBytes(data.data, 0, data.size);
+            return pos;
+        }
+    }
+
+    /**
+     * Growable little-endian byte buffer
+     */
+    private static final class Buf {
+        byte[] data;
+        int size;
+
+        Buf(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity > data.length) {
+                data = Arrays.copyOf(data, Math.max(capacity, 2 * data.length));
+            }
+        }
+
+        void putShort(short x) {
+            ensureCapacity(size + 2);
+            data[size++] = (byte) x;
+            data[size++] = (byte) (x >> 8);
+        }
+
+        void putInt(int x) {
+            ensureCapacity(size + 4);
+            setLong(size, x, 4);
+            size += 4;
+        }
+
+        void putLong(long x) {
+            ensureCapacity(size + 8);
+            setLong(size, x, 8);
+            size += 8;
+        }
+
+        void putBytes(byte[] b) {
+            putBytes(b, 0, b.length);
+        }
+
+        void putBytes(byte[] b, int offset, int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(b, offset, data, size, length);
+            size += length;
+        }
+
+        void setInt(int pos, int x) {
+            setLong(pos, x, 4);
+        }
+
+        /**
+         * Writes the lowest <code>numBytes</code> bytes of x at the given position
+         */
+        void setLong(int pos, long x, int numBytes) {
+            for (int i = 0; i < numBytes; i++) {
+                data[pos + i] = (byte) (x >> (8 * i));
+            }
+        }
+
+        /**
+         * Sets the bit at the given index, growing the buffer to the byte that contains it
+         */
+        void setBit(int idx) {
+            int byteIdx = idx >> 3;
+            if (byteIdx >= size) {
+                ensureCapacity(byteIdx + 1);
+                size = byteIdx + 1;
+            }
+            data[byteIdx] |= 1 << (idx & 7);
+        }
+
+        void align(int alignment) {
+            alignRelative(alignment, 0);
+        }
+
+        void alignRelative(int alignment, int start) {
+            int padding = (alignment - (size - start) % alignment) % alignment;
+            ensureCapacity(size + padding);
+            size += padding;
+        }
+
+        void clear() {
+            Arrays.fill(data, 0, size, (byte) 0);
+            size = 0;
+        }
+    }
+}
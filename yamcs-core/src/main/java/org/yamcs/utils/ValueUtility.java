@@ -30,19 +30,78 @@ import org.yamcs.yarch.DataType;
 import com.google.protobuf.ByteString;
 
 public class ValueUtility {
+    /*
+     * The values are immutable so the small integers which are very common in telemetry (flags, counters, raw values of
+     * enumerations) are shared flyweight instances instead of being allocated for each sample. Their protobuf
+     * representation is cached as well such that the API encoders do not allocate for them either.
+     */
+    static final int CACHE_LOW = -128;
+    static final int CACHE_HIGH = 1023;
+    private static final Value[] UINT32_CACHE = new Value[CACHE_HIGH + 1];
+    private static final Value[] UINT64_CACHE = new Value[CACHE_HIGH + 1];
+    private static final Value[] SINT32_CACHE = new Value[CACHE_HIGH - CACHE_LOW + 1];
+    private static final Value[] SINT64_CACHE = new Value[CACHE_HIGH - CACHE_LOW + 1];
+    private static final org.yamcs.protobuf.Yamcs.Value[] UINT32_GPB_CACHE =
+            new org.yamcs.protobuf.Yamcs.Value[CACHE_HIGH + 1];
+    private static final org.yamcs.protobuf.Yamcs.Value[] UINT64_GPB_CACHE =
+            new org.yamcs.protobuf.Yamcs.Value[CACHE_HIGH + 1];
+    private static final org.yamcs.protobuf.Yamcs.Value[] SINT32_GPB_CACHE =
+            new org.yamcs.protobuf.Yamcs.Value[CACHE_HIGH - CACHE_LOW + 1];
+    private static final org.yamcs.protobuf.Yamcs.Value[] SINT64_GPB_CACHE =
+            new org.yamcs.protobuf.Yamcs.Value[CACHE_HIGH - CACHE_LOW + 1];
+    private static final org.yamcs.protobuf.Yamcs.Value GPB_TRUE = org.yamcs.protobuf.Yamcs.Value.newBuilder()
+            .setType(Type.BOOLEAN).setBooleanValue(true).build();
+    private static final org.yamcs.protobuf.Yamcs.Value GPB_FALSE = org.yamcs.protobuf.Yamcs.Value.newBuilder()
+            .setType(Type.BOOLEAN).setBooleanValue(false).build();
+
+    // direct mapped cache for the enumerated values; a slot is overwritten in case of collision
+    private static final int ENUM_CACHE_SIZE = 4096;
+    private static final EnumeratedValue[] ENUM_CACHE = new EnumeratedValue[ENUM_CACHE_SIZE];
+
+    static {
+        for (int i = 0; i <= CACHE_HIGH; i++) {
+            UINT32_CACHE[i] = new UInt32Value(i);
+            UINT64_CACHE[i] = new UInt64Value(i);
+            UINT32_GPB_CACHE[i] = org.yamcs.protobuf.Yamcs.Value.newBuilder().setType(Type.UINT32)
+                    .setUint32Value(i).build();
+            UINT64_GPB_CACHE[i] = org.yamcs.protobuf.Yamcs.Value.newBuilder().setType(Type.UINT64)
+                    .setUint64Value(i).build();
+        }
+        for (int i = CACHE_LOW; i <= CACHE_HIGH; i++) {
+            SINT32_CACHE[i - CACHE_LOW] = new SInt32Value(i);
+            SINT64_CACHE[i - CACHE_LOW] = new SInt64Value(i);
+            SINT32_GPB_CACHE[i - CACHE_LOW] = org.yamcs.protobuf.Yamcs.Value.newBuilder().setType(Type.SINT32)
+                    .setSint32Value(i).build();
+            SINT64_GPB_CACHE[i - CACHE_LOW] = org.yamcs.protobuf.Yamcs.Value.newBuilder().setType(Type.SINT64)
+                    .setSint64Value(i).build();
+        }
+    }
+
     public static Value getUint32Value(int x) {
+        if (x >= 0 && x <= CACHE_HIGH) {
+            return UINT32_CACHE[x];
+        }
         return new UInt32Value(x);
     }
 
     public static Value getSint32Value(int x) {
+        if (x >= CACHE_LOW && x <= CACHE_HIGH) {
+            return SINT32_CACHE[x - CACHE_LOW];
+        }
         return new SInt32Value(x);
     }
 
     public static Value getUint64Value(long x) {
+        if (x >= 0 && x <= CACHE_HIGH) {
+            return UINT64_CACHE[(int) x];
+        }
         return new UInt64Value(x);
     }
 
     public static Value getSint64Value(long x) {
+        if (x >= CACHE_LOW && x <= CACHE_HIGH) {
+            return SINT64_CACHE[(int) x - CACHE_LOW];
+        }
         return new SInt64Value(x);
     }
 
@@ -275,6 +334,10 @@ public class ValueUtility {
     }
 
     public static org.yamcs.protobuf.Yamcs.Value toGbp(Value v) {
+        org.yamcs.protobuf.Yamcs.Value cached = getCachedGbp(v);
+        if (cached != null) {
+            return cached;
+        }
         org.yamcs.protobuf.Yamcs.Value.Builder b = org.yamcs.protobuf.Yamcs.Value.newBuilder();
         b.setType(v.getType());
 
@@ -314,6 +377,32 @@ public class ValueUtility {
         }
     }
 
+    // returns the pre-built protobuf value for the flyweight values or null if the value is not cached
+    private static org.yamcs.protobuf.Yamcs.Value getCachedGbp(Value v) {
+        switch (v.getType()) {
+        case BOOLEAN:
+            return v.getBooleanValue() ? GPB_TRUE : GPB_FALSE;
+        case UINT32: {
+            int x = v.getUint32Value();
+            return (x >= 0 && x <= CACHE_HIGH) ? UINT32_GPB_CACHE[x] : null;
+        }
+        case UINT64: {
+            long x = v.getUint64Value();
+            return (x >= 0 && x <= CACHE_HIGH) ? UINT64_GPB_CACHE[(int) x] : null;
+        }
+        case SINT32: {
+            int x = v.getSint32Value();
+            return (x >= CACHE_LOW && x <= CACHE_HIGH) ? SINT32_GPB_CACHE[x - CACHE_LOW] : null;
+        }
+        case SINT64: {
+            long x = v.getSint64Value();
+            return (x >= CACHE_LOW && x <= CACHE_HIGH) ? SINT64_GPB_CACHE[(int) x - CACHE_LOW] : null;
+        }
+        default:
+            return null;
+        }
+    }
+
     private static void fillInArray(Builder b, ArrayValue av) {
         int n = av.flatLength();
         for (int i = 0; i < n; i++) {
@@ -340,15 +429,15 @@ public class ValueUtility {
         case BINARY:
             return new BinaryValue(v.getBinaryValue().toByteArray());
         case BOOLEAN:
-            return new BooleanValue(v.getBooleanValue());
+            return getBooleanValue(v.getBooleanValue());
         case DOUBLE:
             return new DoubleValue(v.getDoubleValue());
         case FLOAT:
             return new FloatValue(v.getFloatValue());
         case SINT32:
-            return new SInt32Value(v.getSint32Value());
+            return getSint32Value(v.getSint32Value());
         case SINT64:
-            return new SInt64Value(v.getSint64Value());
+            return getSint64Value(v.getSint64Value());
         case STRING:
             return new StringValue(v.getStringValue());
         case TIMESTAMP:
@@ -361,9 +450,9 @@ public class ValueUtility {
             }
 
         case UINT32:
-            return new UInt32Value(v.getUint32Value());
+            return getUint32Value(v.getUint32Value());
         case UINT64:
-            return new UInt64Value(v.getUint64Value());
+            return getUint64Value(v.getUint64Value());
         case ARRAY:
             return fromGbpArray(v);
         case AGGREGATE:
@@ -494,7 +583,16 @@ public class ValueUtility {
     }
 
     public static EnumeratedValue getEnumeratedValue(long longValue, String stringValue) {
-        return new EnumeratedValue(longValue, stringValue);
+        if (stringValue == null) {
+            return new EnumeratedValue(longValue, stringValue);
+        }
+        int idx = (31 * Long.hashCode(longValue) + stringValue.hashCode()) & (ENUM_CACHE_SIZE - 1);
+        EnumeratedValue ev = ENUM_CACHE[idx];
+        if (ev == null || ev.getSint64Value() != longValue || !stringValue.equals(ev.getStringValue())) {
+            ev = new EnumeratedValue(longValue, stringValue);
+            ENUM_CACHE[idx] = ev;
+        }
+        return ev;
     }
 
     /**
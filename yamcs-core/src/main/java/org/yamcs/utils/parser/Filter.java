@@ -1,10 +1,13 @@
 package org.yamcs.utils.parser;
 
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 import org.yamcs.utils.parser.ast.AndExpression;
@@ -18,13 +21,20 @@ public abstract class Filter<T> {
 
     private FilterParser<T> parser;
     private AndExpression expression;
+    private Predicate<T> predicate;
 
     public Filter(String query) {
         parser = new FilterParser<>(new StringReader(query));
     }
 
+    /**
+     * Parses the query and compiles it to a predicate. The fields have to be added before calling this method.
+     */
     public void parse() throws ParseException {
         expression = parser.parse();
+        if (expression != null) {
+            predicate = compileAndExpression(expression);
+        }
     }
 
     /**
@@ -82,7 +92,7 @@ public abstract class Filter<T> {
             return true;
         } else {
             beforeItem(item);
-            return matchAndExpression(expression, item);
+            return predicate.test(item);
         }
     }
 
@@ -98,6 +108,41 @@ public abstract class Filter<T> {
         return expression.toString("  ");
     }
 
+    /**
+     * Returns a predicate on the value of a field, that is satisfied by the field value of any item matching the query.
+     * <p>
+     * The predicate combines the top-level clauses of the query that only compare this field, also within parentheses.
+     * It allows to select candidate items by other means, for example with conditions in a database query, but the
+     * filter still has to be applied to the candidates.
+     * <p>
+     * Supported for string, enum, number, boolean and binary fields. The type of the predicate argument is the type
+     * returned by the field resolver.
+     *
+     * @return the predicate, or null if the query does not restrict the field.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Predicate<V> getFieldConstraint(String field) {
+        if (expression == null) {
+            return null;
+        }
+        return (Predicate<V>) compileFieldConstraint(expression, field.toLowerCase());
+    }
+
+    /**
+     * Combines the clauses of the expression that restrict the field. The result may be satisfied by more values than
+     * the expression, as the other clauses are ignored.
+     */
+    private Predicate<Object> compileFieldConstraint(AndExpression expression, String field) {
+        Predicate<Object> constraint = null;
+        for (OrExpression clause : expression.getClauses()) {
+            Predicate<Object> clausePredicate = compileFieldClause(clause, field);
+            if (clausePredicate != null) {
+                constraint = constraint == null ? clausePredicate : constraint.and(clausePredicate);
+            }
+        }
+        return constraint;
+    }
+
     /**
      * Implementatinos must search the provided item for the given literal in a manner that makes sense to the type of
      * item. Search should be exact and case-insensitive.
@@ -109,211 +154,231 @@ public abstract class Filter<T> {
      */
     protected abstract boolean matchesLiteral(T item, String lowercaseLiteral);
 
-    private boolean matchOrExpression(OrExpression expression, T item) {
-        for (UnaryExpression clause : expression.getClauses()) {
-            if (matchUnaryExpression(clause, item)) {
-                return true;
+    /**
+     * Returns the predicate of the clause on the field value, or null if one of the alternatives does not restrict
+     * that field.
+     */
+    private Predicate<Object> compileFieldClause(OrExpression clause, String field) {
+        Predicate<Object> result = null;
+        for (UnaryExpression expr : clause.getClauses()) {
+            Predicate<Object> p;
+            Comparison comparison = expr.getComparison();
+            if (comparison == null) {
+                // Parenthesized expression. Its constraint may be satisfied by more values than the expression,
+                // so it cannot be negated.
+                if (expr.isNot()) {
+                    return null;
+                }
+                p = compileFieldConstraint(expr.getAndExpression(), field);
+            } else if (comparison.comparator == null || !comparison.comparable.equals(field)) {
+                return null;
+            } else {
+                p = compileValuePredicate(comparison);
+                if (p != null && expr.isNot()) {
+                    p = p.negate();
+                }
+            }
+            if (p == null) {
+                return null;
             }
+            result = result == null ? p : result.or(p);
         }
-        return false;
+        return result;
     }
 
-    private boolean matchAndExpression(AndExpression expression, T item) {
+    private Predicate<T> compileAndExpression(AndExpression expression) {
+        List<Predicate<T>> clauses = new ArrayList<>();
         for (OrExpression clause : expression.getClauses()) {
-            if (!matchOrExpression(clause, item)) {
-                return false;
+            clauses.add(compileOrExpression(clause));
+        }
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        return item -> {
+            for (int i = 0; i < clauses.size(); i++) {
+                if (!clauses.get(i).test(item)) {
+                    return false;
+                }
             }
+            return true;
+        };
+    }
+
+    private Predicate<T> compileOrExpression(OrExpression expression) {
+        List<Predicate<T>> clauses = new ArrayList<>();
+        for (UnaryExpression clause : expression.getClauses()) {
+            clauses.add(compileUnaryExpression(clause));
         }
-        return true;
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        return item -> {
+            for (int i = 0; i < clauses.size(); i++) {
+                if (clauses.get(i).test(item)) {
+                    return true;
+                }
+            }
+            return false;
+        };
     }
 
-    private boolean matchUnaryExpression(UnaryExpression expression, T item) {
-        boolean res;
+    private Predicate<T> compileUnaryExpression(UnaryExpression expression) {
+        Predicate<T> res;
         if (expression.getComparison() != null) {
-            res = matchComparison(expression.getComparison(), item);
+            res = compileComparison(expression.getComparison());
         } else {
-            res = matchAndExpression(expression.getAndExpression(), item);
+            res = compileAndExpression(expression.getAndExpression());
         }
-        return expression.isNot() ? !res : res;
+        return expression.isNot() ? res.negate() : res;
     }
 
-    private boolean matchComparison(Comparison comparison, T item) {
+    private Predicate<T> compileComparison(Comparison comparison) {
         if (comparison.comparator == null) {
-            return matchesLiteral(item, comparison.comparable);
+            var literal = comparison.comparable;
+            return item -> matchesLiteral(item, literal);
         }
 
-        var stringResolver = parser.getStringResolver(comparison.comparable);
-        if (stringResolver != null) {
-            var fieldValue = stringResolver.apply(item);
-            return matchStringComparison(comparison, fieldValue);
-        }
-
-        var enumResolver = parser.getEnumResolver(comparison.comparable);
-        if (enumResolver != null) {
-            return matchEnumComparison(comparison, item, enumResolver);
-        }
-
-        var numberResolver = parser.getNumberResolver(comparison.comparable);
-        if (numberResolver != null) {
-            return matchNumberComparison(comparison, item, numberResolver);
-        }
-
-        var booleanResolver = parser.getBooleanResolver(comparison.comparable);
-        if (booleanResolver != null) {
-            return matchBooleanComparison(comparison, item, booleanResolver);
-        }
-
-        var binaryResolver = parser.getBinaryResolver(comparison.comparable);
-        if (binaryResolver != null) {
-            return matchBinaryComparison(comparison, item, binaryResolver);
+        var resolver = getFieldResolver(comparison.comparable);
+        if (resolver != null) {
+            var valuePredicate = compileValuePredicate(comparison);
+            return item -> valuePredicate.test(resolver.apply(item));
         }
 
         var prefixResolver = parser.getPrefixResolver(comparison.comparable);
         if (prefixResolver != null) {
-            var fieldValue = prefixResolver.apply(item, comparison.comparable);
-            return matchStringComparison(comparison, fieldValue);
+            var field = comparison.comparable;
+            var valuePredicate = compileStringComparison(comparison);
+            return item -> valuePredicate.test(prefixResolver.apply(item, field));
         }
 
         var stringCollectionResolver = parser.getStringCollectionResolver(comparison.comparable);
         if (stringCollectionResolver != null) {
-            var fieldValue = stringCollectionResolver.apply(item);
-            return matchStringCollectionComparison(comparison, fieldValue);
+            var valuePredicate = compileStringComparison(comparison);
+            return item -> anyMatch(stringCollectionResolver.apply(item), valuePredicate);
         }
 
         var numberCollectionResolver = parser.getNumberCollectionResolver(comparison.comparable);
         if (numberCollectionResolver != null) {
-            return matchNumberCollectionComparison(comparison, item, numberCollectionResolver);
+            var valuePredicate = compileNumberComparison(comparison);
+            return item -> anyMatch(numberCollectionResolver.apply(item), valuePredicate);
         }
 
         throw new IllegalArgumentException("Unexpected field '" + comparison.comparable + "'");
     }
 
-    private boolean matchStringComparison(Comparison comparison, String fieldValue) {
-        switch (comparison.comparator) {
-        case EQUAL_TO:
-            return isEqual(fieldValue, comparison.value); // Faster than compare
-        case NOT_EQUAL_TO:
-            return !isEqual(fieldValue, comparison.value); // Faster than compare
-        case GREATER_THAN:
-            return compareStringField(fieldValue, comparison.value) > 0;
-        case GREATER_THAN_OR_EQUAL_TO:
-            return compareStringField(fieldValue, comparison.value) >= 0;
-        case LESS_THAN:
-            return compareStringField(fieldValue, comparison.value) < 0;
-        case LESS_THAN_OR_EQUAL_TO:
-            return compareStringField(fieldValue, comparison.value) <= 0;
-        case HAS:
-            return testStringFieldContains(fieldValue, comparison.value);
-        case RE_EQUAL_TO:
-            return testRegexMatch(fieldValue, comparison.pattern);
-        case RE_NOT_EQUAL_TO:
-            return !testRegexMatch(fieldValue, comparison.pattern);
-        default:
-            throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
+    /**
+     * Returns the resolver of a single-valued field
+     */
+    private Function<T, ?> getFieldResolver(String field) {
+        Function<T, ?> resolver = parser.getStringResolver(field);
+        if (resolver == null) {
+            resolver = parser.getEnumResolver(field);
+        }
+        if (resolver == null) {
+            resolver = parser.getNumberResolver(field);
+        }
+        if (resolver == null) {
+            resolver = parser.getBooleanResolver(field);
+        }
+        if (resolver == null) {
+            resolver = parser.getBinaryResolver(field);
         }
+        return resolver;
     }
 
-    private boolean matchStringCollectionComparison(Comparison comparison, Collection<String> fieldValue) {
+    /**
+     * Compiles the comparison of a single-valued field to a predicate on the field value.
+     * 
+     * @return the predicate or null if the field is not a single-valued field.
+     */
+    private Predicate<Object> compileValuePredicate(Comparison comparison) {
+        String field = comparison.comparable;
+        if (parser.getStringResolver(field) != null) {
+            var p = compileStringComparison(comparison);
+            return v -> p.test((String) v);
+        } else if (parser.getEnumResolver(field) != null) {
+            var p = compileEnumComparison(comparison);
+            return v -> p.test((Enum<?>) v);
+        } else if (parser.getNumberResolver(field) != null) {
+            var p = compileNumberComparison(comparison);
+            return v -> p.test((Number) v);
+        } else if (parser.getBooleanResolver(field) != null) {
+            var p = compileBooleanComparison(comparison);
+            return v -> p.test((Boolean) v);
+        } else if (parser.getBinaryResolver(field) != null) {
+            var p = compileBinaryComparison(comparison);
+            return v -> p.test((byte[]) v);
+        } else {
+            return null;
+        }
+    }
+
+    private static <V> boolean anyMatch(Collection<? extends V> fieldValue, Predicate<V> predicate) {
+        for (var fieldItem : fieldValue) {
+            if (predicate.test(fieldItem)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Predicate<String> compileStringComparison(Comparison comparison) {
+        var comparand = comparison.value;
+        var pattern = comparison.pattern;
         switch (comparison.comparator) {
         case EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (isEqual(fieldItem, comparison.value)) { // Faster than compare
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> isEqual(fieldValue, comparand); // Faster than compare
         case NOT_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (!isEqual(fieldItem, comparison.value)) { // Faster than compare
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> !isEqual(fieldValue, comparand); // Faster than compare
         case GREATER_THAN:
-            for (var fieldItem : fieldValue) {
-                if (compareStringField(fieldItem, comparison.value) > 0) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> compareStringField(fieldValue, comparand) > 0;
         case GREATER_THAN_OR_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (compareStringField(fieldItem, comparison.value) >= 0) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> compareStringField(fieldValue, comparand) >= 0;
         case LESS_THAN:
-            for (var fieldItem : fieldValue) {
-                if (compareStringField(fieldItem, comparison.value) < 0) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> compareStringField(fieldValue, comparand) < 0;
         case LESS_THAN_OR_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (compareStringField(fieldItem, comparison.value) <= 0) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> compareStringField(fieldValue, comparand) <= 0;
         case HAS:
-            for (var fieldItem : fieldValue) {
-                if (testStringFieldContains(fieldItem, comparison.value)) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> testStringFieldContains(fieldValue, comparand);
         case RE_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (testRegexMatch(fieldItem, comparison.pattern)) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> testRegexMatch(fieldValue, pattern);
         case RE_NOT_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (!testRegexMatch(fieldItem, comparison.pattern)) {
-                    return true;
-                }
-            }
-            return false;
+            return fieldValue -> !testRegexMatch(fieldValue, pattern);
         default:
             throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
         }
     }
 
-    private boolean matchEnumComparison(Comparison comparison, T item, Function<T, ? extends Enum<?>> resolver) {
+    private Predicate<Enum<?>> compileEnumComparison(Comparison comparison) {
         Class<? extends Enum<?>> enumClass = parser.getEnumClass(comparison.comparable);
         Enum<?> comparand = null;
         if (enumClass != null) {
             comparand = parser.findEnum(enumClass, comparison.value);
         }
 
-        var fieldValue = resolver.apply(item);
+        var c = comparand;
         switch (comparison.comparator) {
         case EQUAL_TO:
         case HAS:
         case RE_EQUAL_TO:
-            return compareEnumField(fieldValue, comparand) == 0;
+            return fieldValue -> compareEnumField(fieldValue, c) == 0;
         case NOT_EQUAL_TO:
         case RE_NOT_EQUAL_TO:
-            return compareEnumField(fieldValue, comparand) != 0;
+            return fieldValue -> compareEnumField(fieldValue, c) != 0;
         case GREATER_THAN:
-            return compareEnumField(fieldValue, comparand) > 0;
+            return fieldValue -> compareEnumField(fieldValue, c) > 0;
         case GREATER_THAN_OR_EQUAL_TO:
-            return compareEnumField(fieldValue, comparand) >= 0;
+            return fieldValue -> compareEnumField(fieldValue, c) >= 0;
         case LESS_THAN:
-            return compareEnumField(fieldValue, comparand) < 0;
+            return fieldValue -> compareEnumField(fieldValue, c) < 0;
         case LESS_THAN_OR_EQUAL_TO:
-            return compareEnumField(fieldValue, comparand) <= 0;
+            return fieldValue -> compareEnumField(fieldValue, c) <= 0;
         default:
             throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
         }
     }
 
-    private boolean matchNumberComparison(Comparison comparison, T item, Function<T, Number> resolver) {
-        var fieldValue = resolver.apply(item);
+    private Predicate<Number> compileNumberComparison(Comparison comparison) {
         var comparand = comparison.value.equalsIgnoreCase("null")
                 ? null
                 : Double.parseDouble(comparison.value);
@@ -322,83 +387,24 @@ public abstract class Filter<T> {
         case EQUAL_TO:
         case HAS:
         case RE_EQUAL_TO:
-            return compareNumberField(fieldValue, comparand) == 0;
+            return fieldValue -> compareNumberField(fieldValue, comparand) == 0;
         case NOT_EQUAL_TO:
         case RE_NOT_EQUAL_TO:
-            return compareNumberField(fieldValue, comparand) != 0;
+            return fieldValue -> compareNumberField(fieldValue, comparand) != 0;
         case GREATER_THAN:
-            return compareNumberField(fieldValue, comparand) > 0;
+            return fieldValue -> compareNumberField(fieldValue, comparand) > 0;
         case GREATER_THAN_OR_EQUAL_TO:
-            return compareNumberField(fieldValue, comparand) >= 0;
+            return fieldValue -> compareNumberField(fieldValue, comparand) >= 0;
         case LESS_THAN:
-            return compareNumberField(fieldValue, comparand) < 0;
+            return fieldValue -> compareNumberField(fieldValue, comparand) < 0;
         case LESS_THAN_OR_EQUAL_TO:
-            return compareNumberField(fieldValue, comparand) <= 0;
-        default:
-            throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
-        }
-    }
-
-    private boolean matchNumberCollectionComparison(Comparison comparison, T item,
-            Function<T, Collection<? extends Number>> resolver) {
-        var fieldValue = resolver.apply(item);
-        var comparand = comparison.value.equalsIgnoreCase("null")
-                ? null
-                : Double.parseDouble(comparison.value);
-
-        switch (comparison.comparator) {
-        case EQUAL_TO:
-        case HAS:
-        case RE_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (compareNumberField(fieldItem, comparand) == 0) {
-                    return true;
-                }
-            }
-            return false;
-        case NOT_EQUAL_TO:
-        case RE_NOT_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (compareNumberField(fieldItem, comparand) != 0) {
-                    return true;
-                }
-            }
-            return false;
-        case GREATER_THAN:
-            for (var fieldItem : fieldValue) {
-                if (compareNumberField(fieldItem, comparand) > 0) {
-                    return true;
-                }
-            }
-            return false;
-        case GREATER_THAN_OR_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (compareNumberField(fieldItem, comparand) >= 0) {
-                    return true;
-                }
-            }
-            return false;
-        case LESS_THAN:
-            for (var fieldItem : fieldValue) {
-                if (compareNumberField(fieldItem, comparand) < 0) {
-                    return true;
-                }
-            }
-            return false;
-        case LESS_THAN_OR_EQUAL_TO:
-            for (var fieldItem : fieldValue) {
-                if (compareNumberField(fieldItem, comparand) <= 0) {
-                    return true;
-                }
-                return false;
-            }
+            return fieldValue -> compareNumberField(fieldValue, comparand) <= 0;
         default:
             throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
         }
     }
 
-    private boolean matchBooleanComparison(Comparison comparison, T item, Function<T, Boolean> resolver) {
-        var fieldValue = resolver.apply(item);
+    private Predicate<Boolean> compileBooleanComparison(Comparison comparison) {
         var comparand = comparison.value.equalsIgnoreCase("null")
                 ? null
                 : Boolean.parseBoolean(comparison.value);
@@ -407,44 +413,43 @@ public abstract class Filter<T> {
         case EQUAL_TO:
         case HAS:
         case RE_EQUAL_TO:
-            return compareBooleanField(fieldValue, comparand) == 0;
+            return fieldValue -> compareBooleanField(fieldValue, comparand) == 0;
         case NOT_EQUAL_TO:
         case RE_NOT_EQUAL_TO:
-            return compareBooleanField(fieldValue, comparand) != 0;
+            return fieldValue -> compareBooleanField(fieldValue, comparand) != 0;
         case GREATER_THAN:
-            return compareBooleanField(fieldValue, comparand) > 0;
+            return fieldValue -> compareBooleanField(fieldValue, comparand) > 0;
         case GREATER_THAN_OR_EQUAL_TO:
-            return compareBooleanField(fieldValue, comparand) >= 0;
+            return fieldValue -> compareBooleanField(fieldValue, comparand) >= 0;
         case LESS_THAN:
-            return compareBooleanField(fieldValue, comparand) < 0;
+            return fieldValue -> compareBooleanField(fieldValue, comparand) < 0;
         case LESS_THAN_OR_EQUAL_TO:
-            return compareBooleanField(fieldValue, comparand) <= 0;
+            return fieldValue -> compareBooleanField(fieldValue, comparand) <= 0;
         default:
             throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
         }
     }
 
-    private boolean matchBinaryComparison(Comparison comparison, T item, Function<T, byte[]> resolver) {
-        var fieldValue = resolver.apply(item);
+    private Predicate<byte[]> compileBinaryComparison(Comparison comparison) {
         var comparand = comparison.binary;
 
         switch (comparison.comparator) {
         case EQUAL_TO:
         case RE_EQUAL_TO:
-            return Arrays.equals(fieldValue, comparand);
+            return fieldValue -> Arrays.equals(fieldValue, comparand);
         case HAS:
-            return Bytes.indexOf(fieldValue, comparand) != -1;
+            return fieldValue -> Bytes.indexOf(fieldValue, comparand) != -1;
         case NOT_EQUAL_TO:
         case RE_NOT_EQUAL_TO:
-            return !Arrays.equals(fieldValue, comparand);
+            return fieldValue -> !Arrays.equals(fieldValue, comparand);
         case GREATER_THAN:
-            return compareBinaryField(fieldValue, comparand) > 0;
+            return fieldValue -> compareBinaryField(fieldValue, comparand) > 0;
         case GREATER_THAN_OR_EQUAL_TO:
-            return compareBinaryField(fieldValue, comparand) >= 0;
+            return fieldValue -> compareBinaryField(fieldValue, comparand) >= 0;
         case LESS_THAN:
-            return compareBinaryField(fieldValue, comparand) < 0;
+            return fieldValue -> compareBinaryField(fieldValue, comparand) < 0;
         case LESS_THAN_OR_EQUAL_TO:
-            return compareBinaryField(fieldValue, comparand) <= 0;
+            return fieldValue -> compareBinaryField(fieldValue, comparand) <= 0;
         default:
             throw new IllegalStateException("Unexpected comparator " + comparison.comparator);
         }
@@ -0,0 +1,172 @@
+package org.yamcs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.archive.ReplayOptions;
+import org.yamcs.archive.SpeedSpec;
+import org.yamcs.protobuf.Yamcs.EndAction;
+import org.yamcs.tctm.ReplayService;
+import org.yamcs.utils.FileUtils;
+
+import com.google.common.util.concurrent.Service.State;
+
+public class ReplayProcessorPoolTest {
+    static final String INSTANCE = "pool-test";
+    ReplayProcessorPool pool;
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        FileUtils.deleteRecursivelyIfExists(Path.of(System.getProperty("java.io.tmpdir"), "yamcs-pool-data"));
+        YConfiguration.setupTest("ReplayProcessorPoolTest");
+        YamcsServer.getServer().prepareStart();
+        YamcsServer.getServer().start();
+    }
+
+    @AfterAll
+    public static void afterClass() throws Exception {
+        YamcsServer.getServer().shutDown();
+    }
+
+    @BeforeEach
+    public void before() throws Exception {
+        pool = new ReplayProcessorPool();
+        var config = pool.getSpec().validate(YConfiguration.wrap(Map.of("size", 1)));
+        pool.init(INSTANCE, "pool", config);
+        pool.startAsync().awaitRunning();
+    }
+
+    @AfterEach
+    public void after() {
+        pool.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        Processor pooled = awaitIdle();
+        var ysi = YamcsServer.getServer().getInstance(INSTANCE);
+        assertFalse(ysi.getProcessors().contains(pooled));
+
+        var replayOptions = replayOptions();
+        Processor proc = pool.acquire("replay1", "user1", replayOptions);
+        assertSame(pooled, proc);
+        assertEquals("replay1", proc.getName());
+        assertEquals("user1", proc.getCreator());
+        assertSame(proc, ysi.getProcessor("replay1"));
+        assertEquals(1, pool.hits.get());
+        assertEquals(1, pool.inUse.get());
+
+        // a replacement is created in the background, again without being registered
+        Processor replacement = awaitIdle();
+        assertNotSame(proc, replacement);
+        assertFalse(ysi.getProcessors().contains(replacement));
+
+        proc.start();
+        proc.quit();
+        assertNull(ysi.getProcessor("replay1"));
+        assertEquals(0, pool.inUse.get());
+    }
+
+    @Test
+    public void testReplayOptions() throws Exception {
+        awaitIdle();
+        var replayOptions = replayOptions();
+        replayOptions.setRangeStart(1000);
+        Processor proc = pool.acquire("replay2", "user1", replayOptions);
+        ReplayService rs = proc.getServices().stream()
+                .map(ProcessorServiceWithConfig::getService)
+                .filter(ReplayService.class::isInstance)
+                .map(ReplayService.class::cast)
+                .findFirst().get();
+        assertEquals(replayOptions.toProtobuf(), rs.getReplayRequest());
+        proc.quit();
+    }
+
+    @Test
+    public void testMiss() throws Exception {
+        awaitIdle();
+        List<Processor> procs = new ArrayList<>();
+        // the replacements are created one by one on the pool executor, drain faster than they are created
+        Processor proc;
+        int i = 0;
+        while ((proc = pool.acquire("replay-miss" + i++, "user1", replayOptions())) != null) {
+            procs.add(proc);
+        }
+        assertEquals(1, pool.misses.get());
+        assertEquals(procs.size(), pool.hits.get());
+        for (var p : procs) {
+            p.quit();
+        }
+    }
+
+    @Test
+    public void testDiscardOnNameClash() throws Exception {
+        Processor pooled = awaitIdle();
+        Processor existing = ProcessorFactory.create(INSTANCE, "clash", "ArchiveRetrieval", "user1",
+                replayOptions());
+        try {
+            assertThrows(ProcessorException.class, () -> pool.acquire("clash", "user2", replayOptions()));
+            assertDisposed(pooled);
+            var ysi = YamcsServer.getServer().getInstance(INSTANCE);
+            assertSame(existing, ysi.getProcessor("clash"));
+            assertEquals(0, pool.hits.get());
+            assertEquals(0, pool.inUse.get());
+        } finally {
+            existing.quit();
+        }
+    }
+
+    @Test
+    public void testDiscardOnStop() throws Exception {
+        Processor pooled = awaitIdle();
+        pool.stopAsync().awaitTerminated();
+        assertDisposed(pooled);
+        assertTrue(pool.idle.isEmpty());
+    }
+
+    private static void assertDisposed(Processor proc) throws InterruptedException {
+        assertEquals(State.TERMINATED, proc.state());
+        assertTrue(proc.getTimer().awaitTermination(5, TimeUnit.SECONDS));
+        for (var swc : proc.getServices()) {
+            assertEquals(State.TERMINATED, swc.getService().state());
+        }
+    }
+
+    private static ReplayOptions replayOptions() {
+        var replayOptions = new ReplayOptions();
+        replayOptions.setSpeed(new SpeedSpec(SpeedSpec.Type.ORIGINAL, 1));
+        replayOptions.setEndAction(EndAction.STOP);
+        replayOptions.setAutostart(false);
+        return replayOptions;
+    }
+
+    private Processor awaitIdle() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            Processor proc = pool.idle.peek();
+            if (proc != null) {
+                return proc;
+            }
+            Thread.sleep(50);
+        }
+        Processor proc = pool.idle.peek();
+        assertNotNull(proc, "No idle processor created");
+        return proc;
+    }
+}
@@ -0,0 +1,185 @@
+package org.yamcs.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.parameter.LastValueCache;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.AlgorithmStatus;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Algorithm;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.OnParameterUpdateTrigger;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.TriggerSetType;
+
+public class AlgorithmExecutionContextTest {
+    AlgorithmExecutionContext execCtx;
+
+    @BeforeEach
+    public void before() {
+        execCtx = new AlgorithmExecutionContext("test", null, 10);
+    }
+
+    @Test
+    public void testChain() {
+        // p0 -> p1 -> ... -> p10
+        Parameter[] params = createParameters("p", 11);
+        List<IncrementExecutor> chain = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            chain.add(addAlgorithm(params[i], params[i + 1]));
+        }
+        // q0 -> q1, not related to the chain above
+        Parameter[] qparams = createParameters("q", 2);
+        IncrementExecutor qexec = addAlgorithm(qparams[0], qparams[1]);
+
+        ProcessingContext pctx = process(params[0], 5);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(5 + i, pctx.getTmParams().getLastInserted(params[i]).getEngValue().getSint64Value());
+        }
+        for (IncrementExecutor exec : chain) {
+            assertEquals(1, exec.updateCount);
+        }
+        assertEquals(0, qexec.updateCount);
+
+        pctx = process(qparams[0], 1);
+        assertEquals(2, pctx.getTmParams().getLastInserted(qparams[1]).getEngValue().getSint64Value());
+        assertEquals(1, qexec.updateCount);
+        assertEquals(1, chain.get(0).updateCount);
+    }
+
+    @Test
+    public void testNoTriggerSet() {
+        Parameter[] params = createParameters("p", 2);
+        IncrementExecutor exec = addAlgorithm(params[0], params[1]);
+        Parameter[] qparams = createParameters("q", 2);
+        IncrementExecutor qexec = addAlgorithm(qparams[0], qparams[1]);
+        qexec.getAlgorithm().setTriggerSet(null);
+        // the index has to be rebuilt after the trigger set changed
+        execCtx.removeAlgorithm(qexec.getAlgorithm());
+        execCtx.addAlgorithm(new ActiveAlgorithm(qexec.getAlgorithm(), execCtx, qexec));
+
+        process(params[0], 1);
+        assertEquals(1, exec.updateCount);
+        // algorithms without trigger are updated with each delivery
+        assertEquals(1, qexec.updateCount);
+    }
+
+    @Test
+    public void testParallel() {
+        AlgorithmExecutionContext seqCtx = execCtx;
+        AlgorithmExecutionContext parCtx = new AlgorithmExecutionContext("parallel", null, 10);
+        parCtx.setParallelExecution(4);
+
+        // p -> x_i -> y_i and all the x_i -> z
+        Parameter[] p = createParameters("p", 1);
+        Parameter[] x = createParameters("x", 50);
+        Parameter[] y = createParameters("y", 50);
+        Parameter[] z = createParameters("z", 1);
+        for (AlgorithmExecutionContext ctx : List.of(seqCtx, parCtx)) {
+            execCtx = ctx;
+            for (int i = 0; i < 50; i++) {
+                addAlgorithm(p[0], x[i]);
+                addAlgorithm(x[i], y[i]);
+                addAlgorithm(x[i], z[0]);
+            }
+        }
+
+        execCtx = seqCtx;
+        List<ParameterValue> seqResult = process(p[0], 1).getTmParams();
+        execCtx = parCtx;
+        List<ParameterValue> parResult = process(p[0], 1).getTmParams();
+
+        assertEquals(151, seqResult.size());
+        assertEquals(seqResult.size(), parResult.size());
+        // the values of each parameter are in the same order
+        assertEquals(valuesByParameter(seqResult), valuesByParameter(parResult));
+        assertEquals(50, valuesByParameter(parResult).get(z[0]).size());
+
+        AlgorithmStatus status = parCtx.getAlgorithmStatus("/test/algo_y7");
+        assertEquals(1, status.getRunCount());
+        assertTrue(status.getMinExecTimeNs() <= status.getMaxExecTimeNs());
+    }
+
+    private ProcessingContext process(Parameter p, long value) {
+        ProcessingContext pctx = ProcessingContext.createForTmProcessing(new LastValueCache(), 0);
+        ParameterValue pv = new ParameterValue(p);
+        pv.setEngValue(ValueUtility.getSint64Value(value));
+        pctx.addTmParam(pv);
+        execCtx.process(0, pctx);
+        return pctx;
+    }
+
+    private Map<Parameter, List<Value>> valuesByParameter(List<ParameterValue> pvList) {
+        Map<Parameter, List<Value>> m = new HashMap<>();
+        for (ParameterValue pv : pvList) {
+            m.computeIfAbsent(pv.getParameter(), k -> new ArrayList<>()).add(pv.getEngValue());
+        }
+        return m;
+    }
+
+    private Parameter[] createParameters(String prefix, int n) {
+        Parameter[] params = new Parameter[n];
+        for (int i = 0; i < n; i++) {
+            Parameter p = new Parameter(prefix + i);
+            p.setQualifiedName("/test/" + prefix + i);
+            p.setDataSource(DataSource.DERIVED);
+            params[i] = p;
+        }
+        return params;
+    }
+
+    private IncrementExecutor addAlgorithm(Parameter input, Parameter output) {
+        CustomAlgorithm algo = new CustomAlgorithm("algo_" + output.getName());
+        algo.setQualifiedName("/test/algo_" + output.getName());
+        algo.addInput(new InputParameter(new ParameterInstanceRef(input), "x"));
+        algo.addOutput(new OutputParameter(output, "y"));
+        TriggerSetType triggerSet = new TriggerSetType();
+        triggerSet.addOnParameterUpdateTrigger(new OnParameterUpdateTrigger(input));
+        algo.setTriggerSet(triggerSet);
+
+        IncrementExecutor executor = new IncrementExecutor(algo, execCtx);
+        execCtx.addAlgorithm(new ActiveAlgorithm(algo, execCtx, executor));
+        return executor;
+    }
+
+    static class IncrementExecutor extends AbstractAlgorithmExecutor {
+        int updateCount;
+
+        IncrementExecutor(Algorithm algorithmDef, AlgorithmExecutionContext execCtx) {
+            super(algorithmDef, execCtx);
+        }
+
+        @Override
+        public synchronized boolean update(ProcessingContext processingCtx) {
+            updateCount++;
+            return super.update(processingCtx);
+        }
+
+        @Override
+        public boolean isParallelSafe() {
+            return true;
+        }
+
+        @Override
+        public AlgorithmExecutionResult execute(long acqTime, long genTime, ProcessingContext processingCtx) {
+            ParameterValue in = (ParameterValue) inputValues.get(0);
+            ParameterValue out = new ParameterValue(getOutputParameter(0));
+            out.setEngValue(ValueUtility.getSint64Value(in.getEngValue().getSint64Value() + 1));
+            return new AlgorithmExecutionResult(out);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.yamcs.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.ConfigurationException;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.YConfiguration;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.mdb.ProcessorData;
+import org.yamcs.parameter.LastValueCache;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.FloatParameterType;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.OnParameterUpdateTrigger;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.TriggerSetType;
+
+public class ScriptAlgorithmExecutorTest {
+    static Mdb mdb;
+    Parameter x = createParameter("x");
+    Parameter y = createParameter("y");
+
+    @BeforeAll
+    public static void beforeClass() throws ConfigurationException {
+        YConfiguration.setupTest(null);
+        mdb = MdbFactory.createInstanceByConfig("refmdb");
+    }
+
+    @Test
+    public void testSharedEngine() {
+        // count is a global variable, each factory (i.e. processor) has its own
+        CustomAlgorithm algo = createAlgorithm("if (typeof count === 'undefined') count = 0;\n"
+                + "count++;\n"
+                + "y.value = x.value * count + Offset;");
+
+        AlgorithmExecutionContext ctx1 = createContext("ctx1");
+        AlgorithmExecutionContext ctx2 = createContext("ctx2");
+        ScriptAlgorithmExecutorFactory factory1 = createFactory(10);
+        ScriptAlgorithmExecutorFactory factory2 = createFactory(20);
+        assertNotNull(factory1.sharedEngine);
+        assertSame(factory1.sharedEngine, factory2.sharedEngine);
+
+        ctx1.addAlgorithm(new ActiveAlgorithm(algo, ctx1, factory1.makeExecutor(algo, ctx1)));
+        ctx2.addAlgorithm(new ActiveAlgorithm(algo, ctx2, factory2.makeExecutor(algo, ctx2)));
+
+        assertEquals(11, process(ctx1, 1), 1e-9);
+        assertEquals(12, process(ctx1, 1), 1e-9);
+        assertEquals(21, process(ctx2, 1), 1e-9);
+        assertEquals(16, process(ctx1, 2), 1e-9);
+        assertEquals(24, process(ctx2, 2), 1e-9);
+    }
+
+    @Test
+    public void testCompiledScriptsShared() {
+        CustomAlgorithm algo = createAlgorithm("y.value = x.value + Offset;");
+        ScriptAlgorithmExecutorFactory factory1 = createFactory(1);
+        ScriptAlgorithmExecutorFactory factory2 = createFactory(2);
+        factory1.makeExecutor(algo, createContext("ctx1"));
+        factory2.makeExecutor(algo, createContext("ctx2"));
+
+        // the cache only references the scripts weakly, the factories keep them
+        assertEquals(1, factory1.compiledScripts.size());
+        assertEquals(factory1.compiledScripts, factory2.compiledScripts);
+    }
+
+    @Test
+    public void testError() {
+        CustomAlgorithm algo = createAlgorithm("y.value = x.value;\nundefinedFunction();");
+        AlgorithmExecutionContext ctx = createContext("ctx");
+        ScriptAlgorithmExecutor executor = createFactory(0).makeExecutor(algo, ctx);
+
+        ProcessingContext pctx = createProcessingContext(1);
+        executor.update(pctx);
+        AlgorithmException e = assertThrows(AlgorithmException.class, () -> executor.execute(0, 0, pctx));
+        assertTrue(e.getMessage().contains("undefinedFunction"));
+    }
+
+    private double process(AlgorithmExecutionContext ctx, double value) {
+        ProcessingContext pctx = createProcessingContext(value);
+        ctx.process(0, pctx);
+        return pctx.getTmParams().getLastInserted(y).getEngValue().getFloatValue();
+    }
+
+    private ProcessingContext createProcessingContext(double value) {
+        ProcessingContext pctx = ProcessingContext.createForTmProcessing(new LastValueCache(), 0);
+        ParameterValue pv = new ParameterValue(x);
+        pv.setEngValue(ValueUtility.getDoubleValue(value));
+        pctx.addTmParam(pv);
+        return pctx;
+    }
+
+    private ScriptAlgorithmExecutorFactory createFactory(int offset) {
+        ScriptEngineManager sem = new ScriptEngineManager();
+        sem.put("Offset", offset);
+        return new ScriptAlgorithmExecutorFactory(sem, "JavaScript", null);
+    }
+
+    private AlgorithmExecutionContext createContext(String name) {
+        ProcessorData pdata = new ProcessorData("test", mdb, new ProcessorConfig());
+        return new AlgorithmExecutionContext(name, pdata, 10);
+    }
+
+    private CustomAlgorithm createAlgorithm(String text) {
+        CustomAlgorithm algo = new CustomAlgorithm("algo");
+        algo.setQualifiedName("/test/algo");
+        algo.setLanguage("JavaScript");
+        algo.setAlgorithmText(text);
+        algo.addInput(new InputParameter(new ParameterInstanceRef(x), "x"));
+        algo.addOutput(new OutputParameter(y, "y"));
+        TriggerSetType triggerSet = new TriggerSetType();
+        triggerSet.addOnParameterUpdateTrigger(new OnParameterUpdateTrigger(x));
+        algo.setTriggerSet(triggerSet);
+        return algo;
+    }
+
+    private static Parameter createParameter(String name) {
+        Parameter p = new Parameter(name);
+        p.setQualifiedName("/test/" + name);
+        p.setDataSource(DataSource.DERIVED);
+        p.setParameterType(new FloatParameterType.Builder().setName(name).build());
+        return p;
+    }
+}
@@ -0,0 +1,74 @@
+package org.yamcs.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.utils.TimeInterval;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.protobuf.Db.Event;
+
+public class EventIndexTest extends YarchTestCase {
+
+    EventIndex index;
+    Stream stream;
+
+    @BeforeEach
+    public void createTable() throws Exception {
+        ydb.execute("create table " + EventRecorder.TABLE_NAME
+                + "(gentime timestamp, source enum, seqNum int, body PROTOBUF('" + Event.class.getName()
+                + "'), primary key(gentime, source, seqNum))");
+        ydb.execute("create stream events_in" + StandardTupleDefinitions.EVENT.getStringDefinition());
+        ydb.execute("insert into " + EventRecorder.TABLE_NAME + " select * from events_in");
+        stream = ydb.getStream("events_in");
+        index = new EventIndex(instance);
+        stream.addSubscriber(index);
+    }
+
+    @Test
+    public void testTokenize() {
+        assertEquals(Arrays.asList("battery", "voltage", "12", "5v", "low"),
+                List.copyOf(EventIndex.tokenize("Battery voltage: 12.5V (low) -- LOW")));
+        assertEquals(0, EventIndex.tokenize(" -- ").size());
+        assertEquals(EventIndex.MAX_TOKEN_LENGTH, EventIndex.tokenize("x".repeat(100)).iterator().next().length());
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        emit(1000, "src1", 1, "Battery voltage low");
+        emit(2000, "src2", 2, "Battery temperature high");
+        emit(3000, "src1", 3, "Voltage restored");
+        emit(4000, "src1", 4, "Switching to battery 2, voltage nominal");
+
+        assertEquals(Arrays.asList(1, 4), search("battery volt", new TimeInterval(), true));
+        assertEquals(Arrays.asList(4, 1), search("VOLT batt", new TimeInterval(), false));
+        assertEquals(Arrays.asList(1, 3, 4), search("voltage", new TimeInterval(), true));
+        assertEquals(Arrays.asList(3), search("voltage", new TimeInterval(2000, 4000), true));
+        assertEquals(Arrays.asList(), search("battery restored", new TimeInterval(), true));
+        assertEquals(Arrays.asList(), search("current", new TimeInterval(), true));
+
+        assertNull(index.newSearchStream("volt%", new TimeInterval(), true));
+        assertNull(index.newSearchStream("--", new TimeInterval(), true));
+    }
+
+    private void emit(long gentime, String source, int seqNum, String message) {
+        Event event = Event.newBuilder().setGenerationTime(gentime).setSource(source).setSeqNumber(seqNum)
+                .setMessage(message).build();
+        stream.emitTuple(new Tuple(StandardTupleDefinitions.EVENT, new Object[] { gentime, source, seqNum, event }));
+    }
+
+    private List<Integer> search(String q, TimeInterval interval, boolean ascending) throws Exception {
+        Stream s = index.newSearchStream(q, interval, ascending);
+        return fetchAll(s.getName()).stream()
+                .map(t -> (Integer) t.getColumn(StandardTupleDefinitions.SEQNUM_COLUMN))
+                .collect(Collectors.toList());
+    }
+}
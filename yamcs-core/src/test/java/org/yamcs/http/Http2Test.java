@@ -0,0 +1,189 @@
+package org.yamcs.http;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.YamcsServer;
+import org.yamcs.protobuf.ClientConnectionInfo;
+import org.yamcs.protobuf.HttpTraffic;
+import org.yamcs.utils.FileUtils;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Requests over HTTP/2. Static files cannot use the zero-copy transfer on an HTTP/2 stream.
+ */
+public class Http2Test {
+    static Path dir = Path.of(System.getProperty("java.io.tmpdir"), "yamcs-http2-web");
+    static byte[] content;
+    static Path file;
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        FileUtils.deleteRecursivelyIfExists(Path.of(System.getProperty("java.io.tmpdir"), "yamcs-http2-data"));
+        YConfiguration.setupTest("Http2Test");
+        YamcsServer.getServer().prepareStart();
+        YamcsServer.getServer().start();
+
+        Files.createDirectories(dir);
+        content = new byte[100_000];
+        new Random().nextBytes(content);
+        file = Files.write(dir.resolve("test.bin"), content);
+
+        var staticFileHandler = new StaticFileHandler("/static", dir);
+        YamcsServer.getServer().getGlobalService(HttpServer.class).addRoute("static", () -> staticFileHandler);
+    }
+
+    @AfterAll
+    public static void afterClass() throws Exception {
+        YamcsServer.getServer().shutDown();
+        FileUtils.deleteRecursivelyIfExists(dir);
+    }
+
+    @Test
+    public void testH2c() throws Exception {
+        // the first request is upgraded from HTTP/1.1, the second one uses the same HTTP/2 connection
+        HttpClient client = HttpClient.newBuilder().version(Version.HTTP_2).build();
+        fetch(client, "http://localhost:9194/static/test.bin", Version.HTTP_2);
+        fetch(client, "http://localhost:9194/static/test.bin", Version.HTTP_2);
+    }
+
+    @Test
+    public void testH2cEpoll() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(Version.HTTP_2).build();
+        fetch(client, "http://localhost:9196/static/test.bin", Version.HTTP_2);
+        fetch(client, "http://localhost:9196/static/test.bin", Version.HTTP_2);
+    }
+
+    @Test
+    public void testH2() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(Version.HTTP_2)
+                .sslContext(trustTestCertificate())
+                .build();
+        fetch(client, "https://localhost:9195/static/test.bin", Version.HTTP_2);
+    }
+
+    @Test
+    public void testApiH2c() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(Version.HTTP_2).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:9194/api"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(Version.HTTP_2, response.version());
+    }
+
+    @Test
+    public void testZeroCopy() throws Exception {
+        // like an accepted HTTP/1.1 connection, the channel has a parent (the server channel)
+        var staticFileHandler = new StaticFileHandler("/static", dir);
+        var serverChannel = new EmbeddedChannel();
+        var channel = new EmbeddedChannel(serverChannel, DefaultChannelId.newInstance(), true, false,
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        var req = (io.netty.handler.codec.http.HttpRequest) msg;
+                        staticFileHandler.handle(new HandlerContext("", ctx, req, null));
+                    }
+                });
+        channel.writeInbound(new DefaultFullHttpRequest(HTTP_1_1, HttpMethod.GET, "/static/test.bin"));
+
+        List<Object> written = new ArrayList<>();
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            written.add(msg);
+            ReferenceCountUtil.release(msg);
+        }
+        assertTrue(written.stream().anyMatch(FileRegion.class::isInstance), "Written: " + written);
+        channel.finishAndReleaseAll();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testConnectionTraffic() throws Exception {
+        // the byte counts of an HTTP/2 stream are those of its connection
+        checkConnectionTraffic(Version.HTTP_1_1, "HTTP/1.1");
+        checkConnectionTraffic(Version.HTTP_2, "HTTP/2");
+    }
+
+    @Test
+    public void testHttp11() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(Version.HTTP_1_1).build();
+        fetch(client, "http://localhost:9194/static/test.bin", Version.HTTP_1_1);
+    }
+
+    private static void fetch(HttpClient client, String uri, Version expectedVersion) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<byte[]> response = client.send(request, BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertEquals(expectedVersion, response.version());
+        assertArrayEquals(content, response.body());
+    }
+
+    private static void checkConnectionTraffic(Version version, String expectedProtocol) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(version).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:9194/api/http-traffic"))
+                .header("Accept", MediaType.PROTOBUF.toString())
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<byte[]> response = client.send(request, BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+
+        // the connection of this request is listed while the request is handled
+        HttpTraffic traffic = HttpTraffic.parseFrom(response.body());
+        ClientConnectionInfo connection = traffic.getConnectionsList().stream()
+                .filter(c -> c.getHttpRequest().getUri().equals("/api/http-traffic"))
+                .filter(c -> c.getHttpRequest().getProtocol().equals(expectedProtocol))
+                .findFirst().get();
+        assertTrue(connection.getReadBytes() > 0);
+    }
+
+    private static SSLContext trustTestCertificate() throws Exception {
+        KeyStore ks = KeyStore.getInstance(KeyStore.getDefaultType());
+        ks.load(null, null);
+        try (InputStream in = Files.newInputStream(Path.of("src/test/resources/Http2Test/cert.pem"))) {
+            ks.setCertificateEntry("localhost", CertificateFactory.getInstance("X.509").generateCertificate(in));
+        }
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(ks);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, tmf.getTrustManagers(), null);
+        return sslContext;
+    }
+}
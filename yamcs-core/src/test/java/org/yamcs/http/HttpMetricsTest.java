@@ -0,0 +1,171 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.YamcsServer;
+import org.yamcs.protobuf.ClientMessage;
+import org.yamcs.protobuf.Reply;
+import org.yamcs.protobuf.Table.ResultSet;
+import org.yamcs.security.User;
+import org.yamcs.utils.FileUtils;
+
+import com.google.protobuf.Timestamp;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+
+/**
+ * Metrics of routes and topics, as reported by ListRoutes and ListTopics.
+ */
+public class HttpMetricsTest {
+
+    static HttpServer httpServer;
+    static User user;
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        FileUtils.deleteRecursivelyIfExists(Path.of(System.getProperty("java.io.tmpdir"), "yamcs-http-metrics-data"));
+        YConfiguration.setupTest("HttpMetricsTest");
+        YamcsServer.getServer().prepareStart();
+        YamcsServer.getServer().start();
+        httpServer = YamcsServer.getServer().getGlobalService(HttpServer.class);
+        user = new User("test", null);
+        user.setSuperuser(true);
+    }
+
+    @AfterAll
+    public static void afterClass() throws Exception {
+        YamcsServer.getServer().shutDown();
+    }
+
+    @Test
+    public void testChunkedRequest() {
+        Route route = getRoute("ExecuteSql");
+        long requestCount = route.getRequestCount();
+        long errorCount = route.getErrorCount();
+        long requestBytes = route.getRequestBytes();
+        long latencyCount = route.getLatencyTimer().getCount();
+
+        // Without Content-Length, the body bytes are counted as received
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestHandler(httpServer));
+        HttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                "/api/archive/unknown:executeSql");
+        req.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        req.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        byte[] part1 = "{\"statement\": ".getBytes(StandardCharsets.UTF_8);
+        byte[] part2 = "\"select * from tm\"}".getBytes(StandardCharsets.UTF_8);
+        channel.writeInbound(req);
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(part1)));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(part2)));
+
+        HttpResponse response = channel.readOutbound();
+        assertEquals(404, response.status().code());
+        assertEquals(requestCount + 1, route.getRequestCount());
+        assertEquals(errorCount + 1, route.getErrorCount());
+        assertEquals(requestBytes + part1.length + part2.length, route.getRequestBytes());
+        assertEquals(latencyCount + 1, route.getLatencyTimer().getCount());
+        assertEquals(0, route.getInFlightCount());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testStreamingFailure() {
+        Route route = getRoute("ExecuteStreamingSql");
+        long errorCount = route.getErrorCount();
+        long latencyCount = route.getLatencyTimer().getCount();
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        RouteContext ctx = createRouteContext(channel, route, "/api/archive/unknown:executeStreamingSql");
+        assertEquals(1, route.getInFlightCount());
+
+        // Fails before the response is started, the call ends with an error
+        ServerStreamingObserver observer = new ServerStreamingObserver(ctx);
+        observer.completeExceptionally(new RuntimeException("test"));
+        assertTrue(ctx.requestFuture.isCompletedExceptionally());
+        assertFalse(channel.isOpen());
+        assertEquals(0, route.getInFlightCount());
+        assertEquals(errorCount + 1, route.getErrorCount());
+        assertEquals(latencyCount + 1, route.getLatencyTimer().getCount());
+        channel.finishAndReleaseAll();
+
+        // Fails after the status 200 was sent, the call ends without error
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ctx = createRouteContext(channel, route, "/api/archive/unknown:executeStreamingSql");
+        observer = new ServerStreamingObserver(ctx);
+        observer.next(ResultSet.getDefaultInstance());
+        assertEquals(1, route.getInFlightCount());
+        observer.completeExceptionally(new RuntimeException("test"));
+        assertTrue(ctx.requestFuture.isCompletedExceptionally());
+        assertEquals(0, route.getInFlightCount());
+        assertEquals(errorCount + 1, route.getErrorCount());
+        assertEquals(latencyCount + 2, route.getLatencyTimer().getCount());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testTopicMetrics() {
+        Topic topic = httpServer.getTopics().stream()
+                .filter(t -> t.getName().equals("time"))
+                .findFirst().get();
+        long subscriptionCount = topic.getSubscriptionCount();
+        long activeCount = topic.getActiveSubscriptionCount();
+        long messageCount = topic.getMessageCount();
+        long messageBytes = topic.getMessageBytes();
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext nettyContext = channel.pipeline().firstContext();
+        ClientMessage clientMessage = ClientMessage.newBuilder().setType("time").build();
+        TopicContext ctx = new TopicContext(httpServer, nettyContext, user, clientMessage, topic);
+        assertEquals(subscriptionCount + 1, topic.getSubscriptionCount());
+        assertEquals(activeCount + 1, topic.getActiveSubscriptionCount());
+
+        WebSocketObserver observer = new WebSocketObserver(ctx);
+        Timestamp message = Timestamp.newBuilder().setSeconds(1000).build();
+        observer.next(message); // Held until the reply
+        assertEquals(messageCount, topic.getMessageCount());
+        observer.sendReply(Reply.getDefaultInstance());
+        observer.next(message);
+        assertEquals(messageCount + 2, topic.getMessageCount());
+        assertEquals(messageBytes + 2 * message.getSerializedSize(), topic.getMessageBytes());
+
+        ctx.cancel(null);
+        ctx.cancel(null);
+        assertEquals(subscriptionCount + 1, topic.getSubscriptionCount());
+        assertEquals(activeCount, topic.getActiveSubscriptionCount());
+        channel.finishAndReleaseAll();
+    }
+
+    private static RouteContext createRouteContext(EmbeddedChannel channel, Route route, String uri) {
+        HttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, route.getHttpMethod(), uri);
+        Matcher matcher = route.matchURI(uri);
+        assertTrue(matcher.matches());
+        return new RouteContext(httpServer, channel.pipeline().firstContext(), user, req, route, matcher);
+    }
+
+    private static Route getRoute(String method) {
+        return httpServer.getRoutes().stream()
+                .filter(r -> r.getDescriptor().getMethod().equals(method))
+                .findFirst().get();
+    }
+}
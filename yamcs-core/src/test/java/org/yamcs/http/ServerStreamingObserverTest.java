@@ -0,0 +1,240 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.YamcsServer;
+import org.yamcs.api.HttpBody;
+import org.yamcs.security.User;
+import org.yamcs.utils.FileUtils;
+
+import com.google.protobuf.ByteString;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Backpressure of streaming responses. The test channel cannot write while its flushes are held back, and becomes
+ * unwritable as soon as a chunk is pending.
+ */
+public class ServerStreamingObserverTest {
+
+    static HttpServer httpServer;
+    static User user;
+    static EventLoopGroup group;
+
+    UnpooledByteBufAllocator alloc;
+    FlushGate flushGate;
+    Channel serverChannel;
+    Channel clientChannel;
+    ChannelHandlerContext nettyContext;
+    AtomicLong receivedBytes = new AtomicLong();
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        FileUtils.deleteRecursivelyIfExists(
+                Path.of(System.getProperty("java.io.tmpdir"), "yamcs-streaming-observer-data"));
+        YConfiguration.setupTest("ServerStreamingObserverTest");
+        YamcsServer.getServer().prepareStart();
+        YamcsServer.getServer().start();
+        httpServer = YamcsServer.getServer().getGlobalService(HttpServer.class);
+        user = new User("test", null);
+        user.setSuperuser(true);
+        group = new DefaultEventLoopGroup(1);
+    }
+
+    @AfterAll
+    public static void afterClass() throws Exception {
+        group.shutdownGracefully().sync();
+        YamcsServer.getServer().shutDown();
+    }
+
+    @BeforeEach
+    public void before() throws Exception {
+        // Without cleaner, the direct memory is tracked by the allocator metric
+        alloc = new UnpooledByteBufAllocator(true, false, false);
+        flushGate = new FlushGate();
+        var address = new LocalAddress("ServerStreamingObserverTest");
+        var serverContext = new CompletableFuture<ChannelHandlerContext>();
+        serverChannel = new ServerBootstrap().group(group)
+                .channel(LocalServerChannel.class)
+                .childOption(ChannelOption.ALLOCATOR, alloc)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(1024, 2048))
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ch.pipeline().addLast(flushGate, new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelActive(ChannelHandlerContext ctx) {
+                                serverContext.complete(ctx);
+                            }
+                        });
+                    }
+                })
+                .bind(address).sync().channel();
+        clientChannel = new Bootstrap().group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        int n = msg instanceof ByteBufHolder holder ? holder.content().readableBytes() : 0;
+                        ReferenceCountUtil.release(msg);
+                        receivedBytes.addAndGet(n);
+                    }
+                })
+                .connect(address).sync().channel();
+        nettyContext = serverContext.get(5, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        RouteContext ctx = createRouteContext();
+        ServerStreamingObserver observer = new ServerStreamingObserver(ctx);
+        byte[] data = new byte[65536];
+
+        flushGate.hold(true);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            observer.next(body(new byte[100])); // Buffered
+            observer.next(body(data)); // Written as a chunk of its own, after the buffered data
+            done.countDown();
+        });
+        producer.start();
+
+        // the producer waits for the channel to become writable again
+        assertFalse(done.await(500, TimeUnit.MILLISECONDS));
+        assertTrue(producer.isAlive());
+        assertFalse(nettyContext.channel().isWritable());
+
+        flushGate.hold(false);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        observer.complete();
+        ctx.requestFuture.get(5, TimeUnit.SECONDS);
+        awaitReceivedBytes(100 + data.length);
+        assertEquals(0, alloc.metric().usedDirectMemory());
+    }
+
+    @Test
+    public void testClosedWhileBlocked() throws Exception {
+        RouteContext ctx = createRouteContext();
+        ServerStreamingObserver observer = new ServerStreamingObserver(ctx);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        observer.setCancelHandler(() -> cancelled.set(true));
+
+        flushGate.hold(true);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            observer.next(body(new byte[100]));
+            observer.next(body(new byte[65536]));
+            done.countDown();
+        });
+        producer.start();
+        assertFalse(done.await(500, TimeUnit.MILLISECONDS));
+
+        // closing the channel cancels the call, without exception for the producer
+        clientChannel.close().sync();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(observer.isCancelled());
+        assertTrue(cancelled.get());
+
+        // the pending chunks are released by the channel, the buffer by the observer
+        observer.next(body(new byte[100]));
+        observer.complete();
+        assertTrue(ctx.requestFuture.isDone());
+        assertEquals(0, alloc.metric().usedDirectMemory());
+    }
+
+    private void awaitReceivedBytes(long n) throws InterruptedException {
+        for (int i = 0; i < 100 && receivedBytes.get() < n; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(n, receivedBytes.get());
+    }
+
+    private static HttpBody body(byte[] data) {
+        return HttpBody.newBuilder()
+                .setContentType("application/octet-stream")
+                .setData(ByteString.copyFrom(data))
+                .build();
+    }
+
+    private RouteContext createRouteContext() {
+        Route route = httpServer.getRoutes().stream()
+                .filter(r -> r.getDescriptor().getMethod().equals("ExportPackets"))
+                .findFirst().get();
+        String uri = "/api/archive/unknown:exportPackets";
+        HttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, route.getHttpMethod(), uri);
+        Matcher matcher = route.matchURI(uri);
+        assertTrue(matcher.matches());
+        return new RouteContext(httpServer, nettyContext, user, req, route, matcher);
+    }
+
+    /**
+     * Holds back the flushes, so that the written data stays in the outbound buffer of the channel.
+     */
+    static class FlushGate extends ChannelOutboundHandlerAdapter {
+        volatile boolean holding;
+        ChannelHandlerContext ctx;
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            if (!holding) {
+                ctx.flush();
+            }
+        }
+
+        void hold(boolean holding) throws Exception {
+            ctx.executor().submit(() -> {
+                this.holding = holding;
+                if (!holding) {
+                    ctx.flush();
+                }
+            }).sync();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.ServerMessage;
+import org.yamcs.protobuf.SubscribeParametersData;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+
+import com.google.protobuf.Any;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+public class SharedMessageTest {
+
+    @Test
+    public void testEncoding() throws Exception {
+        SubscribeParametersData data = SubscribeParametersData.newBuilder()
+                .putMapping(1, NamedObjectId.newBuilder().setName("/REFMDB/SUBSYS1/IntegerPara1_1_7").build())
+                .build();
+        SharedMessage shared = new SharedMessage(data);
+        ByteBuf encoded = shared.getEncodedData();
+        assertSame(encoded, shared.getEncodedData());
+
+        for (int call = 1; call < 3; call++) {
+            SharedServerMessage msg = new SharedServerMessage("parameters", call, 5, shared);
+            ByteBuf buf = Unpooled.wrappedBuffer(msg.getHeader().toByteArray(), ByteBufUtil.getBytes(encoded));
+            ServerMessage decoded = ServerMessage.parseFrom(ByteBufUtil.getBytes(buf));
+
+            ServerMessage expected = ServerMessage.newBuilder()
+                    .setType("parameters")
+                    .setCall(call)
+                    .setSeq(5)
+                    .setData(Any.pack(data, HttpServer.TYPE_URL_PREFIX))
+                    .build();
+            assertEquals(expected, decoded);
+        }
+
+        assertEquals(1, shared.refCnt());
+        shared.retain();
+        shared.release();
+        shared.release();
+        assertEquals(0, shared.refCnt());
+        assertEquals(0, encoded.refCnt());
+    }
+}
@@ -0,0 +1,82 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.ServerMessage;
+
+import com.google.protobuf.CodedInputStream;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+
+public class WebSocketBatchMessageHandlerTest {
+
+    @Test
+    public void testHighPriorityFlushesBatch() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketBatchMessageHandler(null, 1000, 65536));
+
+        channel.attr(WebSocketFramePriority.ATTR).set(WebSocketFramePriority.NORMAL);
+        channel.writeAndFlush(message("parameters", 1));
+        channel.writeAndFlush(message("parameters", 2));
+        assertNull(channel.readOutbound());
+
+        channel.attr(WebSocketFramePriority.ATTR).set(WebSocketFramePriority.HIGH);
+        channel.writeAndFlush(message("reply", 3));
+
+        List<ServerMessage> messages = decode(channel.readOutbound());
+        assertEquals(3, messages.size());
+        assertEquals(1, messages.get(0).getSeq());
+        assertEquals("reply", messages.get(2).getType());
+        assertNull(channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testFlushInterval() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketBatchMessageHandler(null, 50, 65536));
+
+        channel.attr(WebSocketFramePriority.ATTR).set(WebSocketFramePriority.NORMAL);
+        channel.writeAndFlush(message("parameters", 1));
+        assertNull(channel.readOutbound());
+
+        Thread.sleep(60);
+        channel.runScheduledPendingTasks();
+        assertEquals(1, decode(channel.readOutbound()).size());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketBatchMessageHandler(null, 1000, 30));
+
+        channel.attr(WebSocketFramePriority.ATTR).set(WebSocketFramePriority.NORMAL);
+        channel.writeAndFlush(message("parameters", 1));
+        channel.writeAndFlush(message("parameters", 2));
+        assertEquals(2, decode(channel.readOutbound()).size());
+        channel.finishAndReleaseAll();
+    }
+
+    private static ServerMessage message(String type, int seq) {
+        return ServerMessage.newBuilder().setType(type).setCall(1).setSeq(seq).build();
+    }
+
+    private static List<ServerMessage> decode(BinaryWebSocketFrame frame) throws Exception {
+        List<ServerMessage> messages = new ArrayList<>();
+        try {
+            CodedInputStream in = CodedInputStream.newInstance(ByteBufUtil.getBytes(frame.content()));
+            while (!in.isAtEnd()) {
+                int length = in.readRawVarint32();
+                messages.add(ServerMessage.parseFrom(in.readRawBytes(length)));
+            }
+        } finally {
+            frame.release();
+        }
+        return messages;
+    }
+}
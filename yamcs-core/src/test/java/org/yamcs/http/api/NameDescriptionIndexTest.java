@@ -0,0 +1,85 @@
+package org.yamcs.http.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.xtce.Parameter;
+
+public class NameDescriptionIndexTest {
+
+    static Mdb mdb;
+    static Mdb xtceMdb;
+
+    @BeforeAll
+    public static void setUpBeforeClass() throws Exception {
+        YConfiguration.setupTest("refmdb");
+        MdbFactory.reset();
+        mdb = MdbFactory.createInstanceByConfig("refmdb");
+        xtceMdb = MdbFactory.createInstanceByConfig("refxtce");
+    }
+
+    @Test
+    public void testSameResultAsScan() {
+        NameDescriptionIndex<Parameter> index = new NameDescriptionIndex<>();
+        index.addAll(mdb.getParameters());
+        index.addAll(mdb.getParameters()); // No duplicates
+        assertEquals(mdb.getParameters().size(), index.size());
+
+        for (String q : List.of("/REFMDB/CcSdS-APID", "ap ReFmDB_CC", "para", "float para1", "a", "xyz-not-there")) {
+            NameDescriptionSearchMatcher matcher = new NameDescriptionSearchMatcher(q);
+            List<Parameter> expected = mdb.getParameters().stream()
+                    .filter(matcher::matches)
+                    .collect(Collectors.toList());
+            assertEquals(expected, index.search(q), q);
+        }
+    }
+
+    @Test
+    public void testIndexedMatcher() {
+        NameDescriptionIndex<Parameter> index = MdbSearchIndex.get(mdb).getParameters();
+        for (String q : List.of("ccsds-apid", "float para1", "a")) {
+            NameDescriptionSearchMatcher matcher = new NameDescriptionSearchMatcher(q);
+            NameDescriptionSearchMatcher indexedMatcher = new NameDescriptionSearchMatcher(q, index);
+            for (Parameter p : mdb.getParameters()) {
+                assertEquals(matcher.matches(p), indexedMatcher.matches(p), q);
+            }
+        }
+    }
+
+    @Test
+    public void testEntryCandidates() {
+        NameDescriptionIndex<Parameter> index = MdbSearchIndex.get(xtceMdb).getParameterEntries();
+        int totalMatches = 0;
+        for (String q : List.of("m1", "aggregate", "para.m2", "ARRAY", "[2].m1", "xyz-not-there.m1", "xyz-not-there")) {
+            Set<Parameter> candidates = MdbSearchHelpers.getEntryCandidates(index, q);
+            int numMatches = 0;
+            for (Parameter p : xtceMdb.getParameters()) {
+                if (!MdbSearchHelpers.searchEntries(p, q).isEmpty()) {
+                    assertTrue(candidates == null || candidates.contains(p), q + ": " + p.getQualifiedName());
+                    numMatches++;
+                }
+            }
+            if (candidates != null) {
+                assertTrue(candidates.size() >= numMatches);
+            }
+            totalMatches += numMatches;
+        }
+        assertTrue(totalMatches > 0);
+
+        // the index excludes the parameters without aggregate members or array entries
+        Set<Parameter> candidates = MdbSearchHelpers.getEntryCandidates(index, "/RefXtce");
+        assertFalse(candidates.isEmpty());
+        assertTrue(candidates.size() < xtceMdb.getParameters().size());
+        assertTrue(MdbSearchHelpers.getEntryCandidates(index, "xyz-not-there").isEmpty());
+    }
+}
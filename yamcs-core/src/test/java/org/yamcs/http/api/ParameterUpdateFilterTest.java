@@ -0,0 +1,127 @@
+package org.yamcs.http.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterValueWithId;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.utils.ValueUtility;
+
+public class ParameterUpdateFilterTest {
+    NamedObjectId id1 = NamedObjectId.newBuilder().setName("/test/p1").build();
+    NamedObjectId id2 = NamedObjectId.newBuilder().setName("/test/p2").build();
+
+    @Test
+    public void testInactive() {
+        ParameterUpdateFilter filter = new ParameterUpdateFilter();
+        assertFalse(filter.isActive());
+        assertEquals(1, filter.filter(List.of(pv(id1, 1)), 0).size());
+        assertEquals(1, filter.filter(List.of(pv(id1, 1)), 0).size());
+    }
+
+    @Test
+    public void testDeadband() {
+        ParameterUpdateFilter filter = new ParameterUpdateFilter();
+        filter.setDeadband(0.5);
+        assertTrue(filter.isActive());
+
+        assertEquals(1, filter.filter(List.of(pv(id1, 10)), 0).size());
+        assertEquals(0, filter.filter(List.of(pv(id1, 10.4)), 0).size());
+        assertEquals(0, filter.filter(List.of(pv(id1, 9.6)), 0).size());
+        assertEquals(1, filter.filter(List.of(pv(id1, 10.6)), 0).size());
+        // compared with the last sent value 10.6
+        assertEquals(0, filter.filter(List.of(pv(id1, 10.2)), 0).size());
+
+        // a status change is always sent
+        ParameterValueWithId pvwi = pv(id1, 10.6);
+        pvwi.getParameterValue().setMonitoringResult(MonitoringResult.WARNING);
+        assertEquals(1, filter.filter(List.of(pvwi), 0).size());
+    }
+
+    @Test
+    public void testRelativeDeadband() {
+        ParameterUpdateFilter filter = new ParameterUpdateFilter();
+        filter.setRelativeDeadband(0.1);
+
+        assertEquals(1, filter.filter(List.of(pv(id1, 100)), 0).size());
+        assertEquals(0, filter.filter(List.of(pv(id1, 109)), 0).size());
+        assertEquals(1, filter.filter(List.of(pv(id1, 111)), 0).size());
+    }
+
+    @Test
+    public void testOnChangeOnly() {
+        ParameterUpdateFilter filter = new ParameterUpdateFilter();
+        filter.setOnChangeOnly(true);
+
+        assertEquals(1, filter.filter(List.of(pv(id1, "a")), 0).size());
+        assertEquals(0, filter.filter(List.of(pv(id1, "a")), 0).size());
+        assertEquals(1, filter.filter(List.of(pv(id1, "b")), 0).size());
+
+        filter.sent(id2, pv(id2, "x").getParameterValue());
+        assertEquals(0, filter.filter(List.of(pv(id2, "x")), 0).size());
+    }
+
+    @Test
+    public void testMaxRate() {
+        ParameterUpdateFilter filter = new ParameterUpdateFilter();
+        filter.setMaxRate(2);
+
+        assertEquals(2, filter.filter(Arrays.asList(pv(id1, 1), pv(id2, 1)), 1000).size());
+        assertEquals(-1, filter.scheduleFlush(1000));
+
+        assertEquals(0, filter.filter(List.of(pv(id1, 2)), 1100).size());
+        ParameterValueWithId latest = pv(id1, 3);
+        assertEquals(0, filter.filter(List.of(latest), 1200).size());
+        assertEquals(300, filter.scheduleFlush(1200));
+        // already scheduled
+        assertEquals(-1, filter.scheduleFlush(1200));
+
+        List<ParameterValueWithId> flushed = filter.flush(1500);
+        assertEquals(1, flushed.size());
+        assertSame(latest, flushed.get(0));
+
+        // the interval has passed since the flush
+        assertEquals(1, filter.filter(List.of(pv(id2, 2)), 2000).size());
+    }
+
+    @Test
+    public void testMaxRateClear() {
+        ParameterUpdateFilter filter = new ParameterUpdateFilter();
+        filter.setMaxRate(1);
+
+        // the first update is sent whatever the time
+        assertEquals(1, filter.filter(List.of(pv(id1, 1)), 0).size());
+        assertEquals(0, filter.filter(List.of(pv(id1, 2)), 100).size());
+        assertEquals(900, filter.scheduleFlush(100));
+
+        // after a clear, nothing is pending and the next update is again sent immediately
+        filter.clear();
+        assertEquals(-1, filter.scheduleFlush(200));
+        assertEquals(1, filter.filter(List.of(pv(id1, 3)), 200).size());
+        assertEquals(0, filter.filter(List.of(pv(id1, 4)), 300).size());
+        assertEquals(900, filter.scheduleFlush(300));
+    }
+
+    private static ParameterValueWithId pv(NamedObjectId id, double v) {
+        return pv(id, ValueUtility.getDoubleValue(v));
+    }
+
+    private static ParameterValueWithId pv(NamedObjectId id, String v) {
+        return pv(id, ValueUtility.getStringValue(v));
+    }
+
+    private static ParameterValueWithId pv(NamedObjectId id, Value v) {
+        ParameterValue pv = new ParameterValue(id.getName());
+        pv.setEngValue(v);
+        return new ParameterValueWithId(pv, id);
+    }
+}
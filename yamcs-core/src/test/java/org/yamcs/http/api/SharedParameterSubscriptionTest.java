@@ -0,0 +1,308 @@
+package org.yamcs.http.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.InvalidIdentification;
+import org.yamcs.Processor;
+import org.yamcs.ProcessorFactory;
+import org.yamcs.YConfiguration;
+import org.yamcs.YamcsServer;
+import org.yamcs.api.Observer;
+import org.yamcs.http.SharedMessage;
+import org.yamcs.http.SharedMessageObserver;
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.parameter.ParameterProcessor;
+import org.yamcs.parameter.ParameterProvider;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.SubscribeParametersData;
+import org.yamcs.protobuf.SubscribeParametersRequest;
+import org.yamcs.protobuf.SubscribeParametersRequest.Action;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.security.User;
+import org.yamcs.utils.FileUtils;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+
+import com.google.common.util.concurrent.AbstractService;
+
+public class SharedParameterSubscriptionTest {
+    static final String INSTANCE = "shared-test";
+    static final String PROCESSOR = "shared-test";
+
+    static Processor processor;
+    static User user;
+    static NamedObjectId id1 = id("/REFMDB/SUBSYS1/IntegerPara1_1_6");
+    static NamedObjectId id2 = id("/REFMDB/SUBSYS1/IntegerPara1_1_7");
+    static NamedObjectId id3 = id("/REFMDB/SUBSYS1/FloatPara1_1_2");
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        FileUtils.deleteRecursivelyIfExists(Path.of(System.getProperty("java.io.tmpdir"), "yamcs-shared-sub-data"));
+        YConfiguration.setupTest("SharedParameterSubscriptionTest");
+        YamcsServer.getServer().prepareStart();
+        YamcsServer.getServer().start();
+        processor = ProcessorFactory.create(INSTANCE, PROCESSOR, new TestParameterProvider());
+        user = new User("test", null);
+        user.setSuperuser(true);
+    }
+
+    @AfterAll
+    public static void afterClass() throws Exception {
+        processor.quit();
+        YamcsServer.getServer().shutDown();
+    }
+
+    @Test
+    public void testJoinLeave() throws Exception {
+        RecordingObserver obs1 = new RecordingObserver();
+        RecordingObserver obs2 = new RecordingObserver();
+        SubscribeParameterObserver call1 = new SubscribeParameterObserver(user, obs1);
+        SubscribeParameterObserver call2 = new SubscribeParameterObserver(user, obs2);
+        call1.next(request(Action.REPLACE, id1, id2));
+        call2.next(request(Action.REPLACE, id2, id1));
+
+        SharedParameterSubscription sub = call1.getSharedSubscription();
+        assertNotNull(sub);
+        assertSame(sub, call2.getSharedSubscription());
+        assertEquals(2, sub.getMemberCount());
+        assertEquals(obs1.initial.get(0).getMappingMap(), obs2.initial.get(0).getMappingMap());
+
+        // the update is encoded once and written to both calls
+        publish(id1, 5);
+        assertEquals(1, obs1.messages.size());
+        assertSame(obs1.messages.get(0), obs2.messages.get(0));
+        assertEquals(5, obs1.values().get(0).getEngValue().getUint32Value());
+
+        call1.complete();
+        assertEquals(1, sub.getMemberCount());
+        publish(id1, 6);
+        assertEquals(1, obs1.messages.size());
+        assertEquals(2, obs2.messages.size());
+
+        // the last member closes the subscription, the next call starts a new one
+        call2.complete();
+        assertEquals(0, sub.getMemberCount());
+        publish(id1, 7);
+        assertEquals(2, obs2.messages.size());
+
+        RecordingObserver obs3 = new RecordingObserver();
+        SubscribeParameterObserver call3 = new SubscribeParameterObserver(user, obs3);
+        call3.next(request(Action.REPLACE, id1, id2));
+        assertNotNull(call3.getSharedSubscription());
+        assertNotSame(sub, call3.getSharedSubscription());
+        call3.complete();
+    }
+
+    @Test
+    public void testLateJoiner() throws Exception {
+        RecordingObserver obs1 = new RecordingObserver();
+        SubscribeParameterObserver call1 = new SubscribeParameterObserver(user, obs1);
+        call1.next(request(Action.REPLACE, id2, id3));
+        publish(id2, 1);
+
+        RecordingObserver obs2 = new RecordingObserver();
+        SubscribeParameterObserver call2 = new SubscribeParameterObserver(user, obs2);
+        // join while the update is delivered to the first member, before the processor updates its cache
+        obs1.onMessage = () -> call2.next(request(Action.REPLACE, id2, id3));
+        publish(id2, 2);
+        obs1.onMessage = null;
+
+        // the value is in the initial message of the new member, and not sent again
+        SubscribeParametersData initial = obs2.initial.get(0);
+        int numericId = numericId(initial, id2);
+        assertEquals(1, initial.getValuesCount());
+        assertEquals(numericId, initial.getValues(0).getNumericId());
+        assertEquals(2, initial.getValues(0).getEngValue().getUint32Value());
+        assertTrue(obs2.messages.isEmpty());
+
+        publish(id2, 3);
+        assertEquals(1, obs2.messages.size());
+        assertEquals(3, obs2.values().get(0).getEngValue().getUint32Value());
+        assertEquals(3, obs1.messages.size());
+
+        call1.complete();
+        call2.complete();
+    }
+
+    @Test
+    public void testNumericIdsAfterLeaving() throws Exception {
+        RecordingObserver obs1 = new RecordingObserver();
+        RecordingObserver obs2 = new RecordingObserver();
+        SubscribeParameterObserver call1 = new SubscribeParameterObserver(user, obs1);
+        SubscribeParameterObserver call2 = new SubscribeParameterObserver(user, obs2);
+        call1.next(request(Action.REPLACE, id1, id2));
+        call2.next(request(Action.REPLACE, id1, id2));
+        SubscribeParametersData initial = obs1.initial.get(0);
+        int numericId1 = numericId(initial, id1);
+        int numericId2 = numericId(initial, id2);
+
+        // adding a parameter makes the call continue with its own subscription, keeping the ids
+        call1.next(request(Action.ADD, id3));
+        assertNull(call1.getSharedSubscription());
+        assertEquals(1, call2.getSharedSubscription().getMemberCount());
+        SubscribeParametersData added = obs1.initial.get(1);
+        assertEquals(Map.of(3, id3), added.getMappingMap());
+
+        publish(id1, 10);
+        publish(id2, 20);
+        publish(id3, 30);
+        List<org.yamcs.protobuf.Pvalue.ParameterValue> values = obs1.values();
+        assertEquals(3, values.size());
+        assertEquals(numericId1, values.get(0).getNumericId());
+        assertEquals(numericId2, values.get(1).getNumericId());
+        assertEquals(3, values.get(2).getNumericId());
+
+        // the other call still uses the shared subscription
+        assertEquals(2, obs2.messages.size());
+        assertEquals(numericId1, obs2.values().get(0).getNumericId());
+
+        call1.complete();
+        call2.complete();
+    }
+
+    private static void publish(NamedObjectId id, int v) {
+        Parameter p = processor.getMdb().getParameter(id.getName());
+        ParameterValue pv = new ParameterValue(p);
+        pv.setEngValue(ValueUtility.getUint32Value(v));
+        processor.getParameterProcessorManager().process(ProcessingContext.createForTestTm(pv));
+    }
+
+    private static SubscribeParametersRequest request(Action action, NamedObjectId... ids) {
+        return SubscribeParametersRequest.newBuilder()
+                .setInstance(INSTANCE)
+                .setProcessor(PROCESSOR)
+                .setAction(action)
+                .addAllId(List.of(ids))
+                .build();
+    }
+
+    private static int numericId(SubscribeParametersData data, NamedObjectId id) {
+        return data.getMappingMap().entrySet().stream()
+                .filter(me -> me.getValue().equals(id))
+                .findFirst().get().getKey();
+    }
+
+    private static NamedObjectId id(String name) {
+        return NamedObjectId.newBuilder().setName(name).build();
+    }
+
+    static class RecordingObserver implements Observer<SubscribeParametersData>, SharedMessageObserver {
+        List<SubscribeParametersData> initial = new ArrayList<>();
+        List<Object> messages = new ArrayList<>();
+        Runnable onMessage;
+
+        @Override
+        public void next(SubscribeParametersData message) {
+            if (message.getMappingCount() > 0 || initial.isEmpty()) {
+                initial.add(message);
+            } else {
+                messages.add(message);
+            }
+            runHook();
+        }
+
+        @Override
+        public void nextShared(SharedMessage message) {
+            messages.add(message);
+            runHook();
+        }
+
+        private void runHook() {
+            if (onMessage != null) {
+                Runnable r = onMessage;
+                onMessage = null;
+                r.run();
+            }
+        }
+
+        /**
+         * The values of all updates received after the initial message(s)
+         */
+        List<org.yamcs.protobuf.Pvalue.ParameterValue> values() {
+            List<org.yamcs.protobuf.Pvalue.ParameterValue> values = new ArrayList<>();
+            for (Object o : messages) {
+                SubscribeParametersData data = (SubscribeParametersData) (o instanceof SharedMessage sm
+                        ? sm.getMessage()
+                        : o);
+                values.addAll(data.getValuesList());
+            }
+            return values;
+        }
+
+        @Override
+        public void completeExceptionally(Throwable t) {
+        }
+
+        @Override
+        public void complete() {
+        }
+    }
+
+    static class TestParameterProvider extends AbstractService implements ParameterProvider {
+        Processor processor;
+
+        @Override
+        public void init(Processor processor, YConfiguration config, Object spec) {
+            this.processor = processor;
+            processor.getParameterProcessorManager().addParameterProvider(this);
+        }
+
+        @Override
+        public void setParameterProcessor(ParameterProcessor parameterProcessor) {
+        }
+
+        @Override
+        public void startProviding(Parameter paramDef) {
+        }
+
+        @Override
+        public void startProvidingAll() {
+        }
+
+        @Override
+        public void stopProviding(Parameter paramDef) {
+        }
+
+        @Override
+        public boolean canProvide(NamedObjectId paraId) {
+            return processor.getMdb().getParameter(paraId.getName()) != null;
+        }
+
+        @Override
+        public Parameter getParameter(NamedObjectId paraId) throws InvalidIdentification {
+            Parameter p = processor.getMdb().getParameter(paraId.getName());
+            if (p == null) {
+                throw new InvalidIdentification(paraId);
+            }
+            return p;
+        }
+
+        @Override
+        public boolean canProvide(Parameter param) {
+            return true;
+        }
+
+        @Override
+        protected void doStart() {
+            notifyStarted();
+        }
+
+        @Override
+        protected void doStop() {
+            notifyStopped();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.xtce.PolynomialCalibrator;
+import org.yamcs.xtce.SplineCalibrator;
+import org.yamcs.xtce.SplinePoint;
+
+public class BatchCalibrationTest {
+    double[] input = { -10, -1.5, 0, 0.3, 2, 2, 7.5, 3, 100, 1e6, -3 };
+
+    @Test
+    public void testPolynomial() {
+        PolynomialCalibratorProc c = new PolynomialCalibratorProc(
+                new PolynomialCalibrator(new double[] { 1.5, -2, 0.25, 3e-3 }));
+        checkSameAsScalar(c);
+    }
+
+    @Test
+    public void testPolynomialInPlace() {
+        PolynomialCalibratorProc c = new PolynomialCalibratorProc(new PolynomialCalibrator(new double[] { 1, 2 }));
+        double[] values = { 1, 2, 3 };
+        c.calibrate(values, values, 3);
+        assertEquals(3, values[0]);
+        assertEquals(5, values[1]);
+        assertEquals(7, values[2]);
+    }
+
+    @Test
+    public void testSpline() {
+        SplineCalibratorProc c = new SplineCalibratorProc(new SplineCalibrator(Arrays.asList(
+                new SplinePoint(-2, 10), new SplinePoint(0, 0), new SplinePoint(2, 4), new SplinePoint(5, -1))));
+        checkSameAsScalar(c);
+    }
+
+    @Test
+    public void testUnsortedSpline() {
+        SplineCalibratorProc c = new SplineCalibratorProc(new SplineCalibrator(Arrays.asList(
+                new SplinePoint(3, 10), new SplinePoint(0, 0), new SplinePoint(8, 4))));
+        checkSameAsScalar(c);
+    }
+
+    private void checkSameAsScalar(NumericCalibrator c) {
+        double[] out = new double[input.length];
+        c.calibrate(input, out, input.length);
+        for (int i = 0; i < input.length; i++) {
+            assertEquals(c.calibrate(input[i]), out[i]);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codehaus.commons.compiler.CompileException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yamcs.xtce.JavaExpressionCalibrator;
+
+public class CompiledClassCacheTest {
+    static final String SOURCE = "package org.yamcs.mdb.test;\n"
+            + "public class Twice implements org.yamcs.mdb.NumericCalibrator {\n"
+            + "  public double calibrate(double v) {\n"
+            + "    return new java.util.function.DoubleUnaryOperator() {\n"
+            + "      public double applyAsDouble(double x) { return 2 * x; }\n"
+            + "    }.applyAsDouble(v);\n"
+            + "  }\n"
+            + "}\n";
+
+    @AfterEach
+    public void after() {
+        CompiledClassCache.setPersistenceDirectory(null);
+        CompiledClassCache.clear();
+    }
+
+    @Test
+    public void testSameSource() throws Exception {
+        Class<?> c1 = CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+        Class<?> c2 = CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+        assertSame(c1, c2);
+    }
+
+    @Test
+    public void testCalibrators() {
+        NumericCalibrator c1 = JavaExpressionNumericCalibratorFactory.compile(new JavaExpressionCalibrator("v + 1"));
+        NumericCalibrator c2 = JavaExpressionNumericCalibratorFactory.compile(new JavaExpressionCalibrator("v + 1"));
+        NumericCalibrator c3 = JavaExpressionNumericCalibratorFactory.compile(new JavaExpressionCalibrator("v + 2"));
+
+        assertNotSame(c1, c2);
+        assertSame(c1.getClass(), c2.getClass());
+        assertEquals(3, c2.calibrate(2));
+        assertEquals(4, c3.calibrate(2));
+    }
+
+    @Test
+    public void testPersistence(@TempDir Path dir) throws Exception {
+        CompiledClassCache.setPersistenceDirectory(dir);
+        Class<?> c1 = CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+
+        // simulates a restart
+        CompiledClassCache.clear();
+        Class<?> c2 = CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+        assertNotSame(c1, c2);
+        assertEquals(CompiledClassCache.BytecodeClassLoader.class, c2.getClassLoader().getClass());
+
+        NumericCalibrator nc = (NumericCalibrator) c2.getDeclaredConstructor().newInstance();
+        assertEquals(6, nc.calibrate(3));
+    }
+
+    @Test
+    public void testOtherBuild(@TempDir Path dir) throws Exception {
+        CompiledClassCache.setPersistenceDirectory(dir);
+        CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+
+        // simulates an upgrade: the saved bytecode has been compiled by another build
+        Path file;
+        try (var files = Files.list(dir)) {
+            file = files.findFirst().get();
+        }
+        byte[] rest;
+        try (var in = new DataInputStream(Files.newInputStream(file))) {
+            in.readInt();
+            in.readUTF();
+            rest = in.readAllBytes();
+        }
+        try (var out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(CompiledClassCache.FORMAT_VERSION);
+            out.writeUTF("0.0.0-old");
+            out.write(rest);
+        }
+
+        CompiledClassCache.clear();
+        Class<?> c1 = CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+        assertNotEquals(CompiledClassCache.BytecodeClassLoader.class, c1.getClassLoader().getClass());
+
+        // the recompiled bytecode has replaced the old one
+        CompiledClassCache.clear();
+        Class<?> c2 = CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE);
+        assertEquals(CompiledClassCache.BytecodeClassLoader.class, c2.getClassLoader().getClass());
+    }
+
+    @Test
+    public void testUnload() throws Exception {
+        var ref = new WeakReference<>(CompiledClassCache.getClass("org.yamcs.mdb.test.Twice", SOURCE));
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+        assertNull(CompiledClassCache.classes.getIfPresent(SOURCE));
+    }
+
+    @Test
+    public void testCompileError() {
+        assertThrows(CompileException.class,
+                () -> CompiledClassCache.getClass("org.yamcs.mdb.test.Bad", "package org.yamcs.mdb.test; class {"));
+        assertEquals(0, CompiledClassCache.size());
+    }
+}
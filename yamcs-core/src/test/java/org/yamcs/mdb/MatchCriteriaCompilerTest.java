@@ -0,0 +1,152 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.mdb.MatchCriteriaEvaluator.MatchResult;
+import org.yamcs.parameter.LastValueCache;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.Value;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.ANDedConditions;
+import org.yamcs.xtce.BooleanParameterType;
+import org.yamcs.xtce.Comparison;
+import org.yamcs.xtce.Condition;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.FloatParameterType;
+import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.MatchCriteria;
+import org.yamcs.xtce.ORedConditions;
+import org.yamcs.xtce.OperatorType;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.ParameterType;
+import org.yamcs.xtce.StringParameterType;
+
+public class MatchCriteriaCompilerTest {
+    Parameter a = createParameter("a", new IntegerParameterType.Builder().setName("a").setSizeInBits(32));
+    Parameter b = createParameter("b", new IntegerParameterType.Builder().setName("b").setSizeInBits(32)
+            .setSigned(false));
+    Parameter f = createParameter("f", new FloatParameterType.Builder().setName("f"));
+    Parameter s = createParameter("s", new StringParameterType.Builder().setName("s"));
+    Parameter bool = createParameter("bool", new BooleanParameterType.Builder().setName("bool"));
+
+    @Test
+    public void testIntegers() {
+        for (OperatorType op : OperatorType.values()) {
+            Comparison c = new Comparison(new ParameterInstanceRef(a), "3", op);
+            for (int v = 1; v < 6; v++) {
+                checkSame(c, a, ValueUtility.getSint32Value(v));
+                checkSame(c, a, ValueUtility.getSint64Value(v));
+            }
+        }
+    }
+
+    @Test
+    public void testUnsigned() {
+        // the constant is signed so the comparison is signed, as in the interpreted evaluator
+        Comparison c = new Comparison(new ParameterInstanceRef(b), "10", OperatorType.LARGERTHAN);
+        checkSame(c, b, ValueUtility.getUint32Value(0xFFFFFFFF));
+        checkSame(c, b, ValueUtility.getUint32Value(20));
+        checkSame(c, b, ValueUtility.getUint64Value(-1L));
+    }
+
+    @Test
+    public void testFloatStringBoolean() {
+        Comparison cf = new Comparison(new ParameterInstanceRef(f), "2.5", OperatorType.SMALLEROREQUALTHAN);
+        checkSame(cf, f, ValueUtility.getFloatValue(2.5f));
+        checkSame(cf, f, ValueUtility.getDoubleValue(2.6));
+
+        Comparison cs = new Comparison(new ParameterInstanceRef(s), "abc", OperatorType.LARGERTHAN);
+        checkSame(cs, s, ValueUtility.getStringValue("abd"));
+        checkSame(cs, s, ValueUtility.getStringValue("abc"));
+
+        Comparison cb = new Comparison(new ParameterInstanceRef(bool), "True", OperatorType.EQUALITY);
+        checkSame(cb, bool, ValueUtility.getBooleanValue(true));
+        checkSame(cb, bool, ValueUtility.getBooleanValue(false));
+    }
+
+    @Test
+    public void testTypeMismatch() {
+        // the value does not have the type of the parameter, the interpreted evaluator is used
+        Comparison c = new Comparison(new ParameterInstanceRef(f), "2.5", OperatorType.SMALLERTHAN);
+        checkSame(c, f, ValueUtility.getSint32Value(1));
+    }
+
+    @Test
+    public void testAndOr() {
+        ANDedConditions and = new ANDedConditions();
+        and.addConditionExpression(new Condition(OperatorType.EQUALITY, new ParameterInstanceRef(a), "1"));
+        and.addConditionExpression(new Condition(OperatorType.LARGERTHAN, new ParameterInstanceRef(f), "2"));
+        ORedConditions or = new ORedConditions();
+        or.addConditionExpression(new Condition(OperatorType.EQUALITY, new ParameterInstanceRef(a), "1"));
+        or.addConditionExpression(new Condition(OperatorType.LARGERTHAN, new ParameterInstanceRef(f), "2"));
+
+        MatchCriteriaEvaluator compiledAnd = MatchCriteriaCompiler.getEvaluator(and);
+        MatchCriteriaEvaluator compiledOr = MatchCriteriaCompiler.getEvaluator(or);
+        assertTrue(compiledAnd instanceof CompiledMatchCriteriaEvaluator);
+        assertTrue(compiledOr instanceof CompiledMatchCriteriaEvaluator);
+
+        // f is not set
+        ProcessingContext ctx = createContext(a, ValueUtility.getSint32Value(1));
+        assertEquals(MatchResult.UNDEF, compiledAnd.evaluate(ctx));
+        assertEquals(MatchResult.OK, compiledOr.evaluate(ctx));
+
+        ctx = createContext(a, ValueUtility.getSint32Value(0));
+        assertEquals(MatchResult.NOK, compiledAnd.evaluate(ctx));
+        assertEquals(MatchResult.UNDEF, compiledOr.evaluate(ctx));
+
+        ctx.addTmParam(createPv(f, ValueUtility.getFloatValue(3)));
+        assertEquals(MatchResult.NOK, compiledAnd.evaluate(ctx));
+        assertEquals(MatchResult.OK, compiledOr.evaluate(ctx));
+        assertEquals(MatchCriteriaEvaluatorFactory.getEvaluator(and).toExpressionString(),
+                compiledAnd.toExpressionString());
+    }
+
+    @Test
+    public void testSharedClass() {
+        Comparison c1 = new Comparison(new ParameterInstanceRef(a), "3", OperatorType.LARGERTHAN);
+        Comparison c2 = new Comparison(new ParameterInstanceRef(a), "5", OperatorType.LARGERTHAN);
+        MatchCriteriaEvaluator e1 = MatchCriteriaCompiler.getEvaluator(c1);
+        MatchCriteriaEvaluator e2 = MatchCriteriaCompiler.getEvaluator(c2);
+
+        assertSame(e1, MatchCriteriaCompiler.getEvaluator(c1));
+        assertNotSame(e1, e2);
+        assertSame(e1.getClass(), e2.getClass());
+
+        ProcessingContext ctx = createContext(a, ValueUtility.getSint32Value(4));
+        assertEquals(MatchResult.OK, e1.evaluate(ctx));
+        assertEquals(MatchResult.NOK, e2.evaluate(ctx));
+    }
+
+    private void checkSame(MatchCriteria mc, Parameter p, Value v) {
+        MatchCriteriaEvaluator compiled = MatchCriteriaCompiler.getEvaluator(mc);
+        assertTrue(compiled instanceof CompiledMatchCriteriaEvaluator);
+        ProcessingContext ctx = createContext(p, v);
+        assertEquals(MatchCriteriaEvaluatorFactory.getEvaluator(mc).evaluate(ctx), compiled.evaluate(ctx),
+                mc + " with value " + v);
+    }
+
+    private ProcessingContext createContext(Parameter p, Value v) {
+        ProcessingContext ctx = ProcessingContext.createForTmProcessing(new LastValueCache(), 0);
+        ctx.addTmParam(createPv(p, v));
+        return ctx;
+    }
+
+    private ParameterValue createPv(Parameter p, Value v) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setEngValue(v);
+        return pv;
+    }
+
+    private static Parameter createParameter(String name, ParameterType.Builder<?> ptb) {
+        Parameter p = new Parameter(name);
+        p.setQualifiedName("/test/" + name);
+        p.setDataSource(DataSource.TELEMETERED);
+        p.setParameterType(ptb.build());
+        return p;
+    }
+}
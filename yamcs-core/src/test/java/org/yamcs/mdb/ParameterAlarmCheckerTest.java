@@ -0,0 +1,150 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.ConfigurationException;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.YConfiguration;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Pvalue.RangeCondition;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.AlarmRanges;
+import org.yamcs.xtce.Comparison;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.FloatParameterType;
+import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.OperatorType;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.util.DoubleRange;
+
+public class ParameterAlarmCheckerTest {
+    static Mdb mdb;
+    ProcessorData pdata;
+    ParameterAlarmChecker checker;
+    Parameter mode;
+
+    @BeforeAll
+    public static void beforeClass() throws ConfigurationException {
+        YConfiguration.setupTest(null);
+        mdb = MdbFactory.createInstanceByConfig("refmdb");
+    }
+
+    @BeforeEach
+    public void before() {
+        pdata = new ProcessorData("test", mdb, new ProcessorConfig());
+        checker = new ParameterAlarmChecker(pdata);
+        mode = new Parameter("mode");
+        mode.setQualifiedName("/test/mode");
+        mode.setDataSource(DataSource.TELEMETERED);
+        IntegerParameterType.Builder ptb = new IntegerParameterType.Builder().setName("mode");
+        mode.setParameterType(ptb.build());
+    }
+
+    @Test
+    public void testContextChange() {
+        Parameter voltage = createFloatParameter("voltage");
+        setMode(0);
+
+        assertEquals(MonitoringResult.IN_LIMITS, check(voltage, 7).getMonitoringResult());
+        // same value and context, the previous result is reused
+        ParameterValue pv = check(voltage, 7);
+        assertEquals(MonitoringResult.IN_LIMITS, pv.getMonitoringResult());
+        assertNull(pv.getRangeCondition());
+        assertEquals(new DoubleRange(0, 10), pv.getWarningRange());
+
+        // same value but a new context value
+        setMode(1);
+        pv = check(voltage, 7);
+        assertEquals(MonitoringResult.CRITICAL, pv.getMonitoringResult());
+        assertEquals(RangeCondition.HIGH, pv.getRangeCondition());
+        assertEquals(new DoubleRange(0, 5), pv.getCriticalRange());
+
+        pv = check(voltage, 7);
+        assertEquals(MonitoringResult.CRITICAL, pv.getMonitoringResult());
+        assertEquals(RangeCondition.HIGH, pv.getRangeCondition());
+
+        setMode(0);
+        pv = check(voltage, -1);
+        assertEquals(MonitoringResult.WARNING, pv.getMonitoringResult());
+        assertEquals(RangeCondition.LOW, pv.getRangeCondition());
+        pv = check(voltage, -1);
+        assertEquals(MonitoringResult.WARNING, pv.getMonitoringResult());
+        assertEquals(RangeCondition.LOW, pv.getRangeCondition());
+    }
+
+    @Test
+    public void testCompiledRanges() {
+        AlarmRanges ar = new AlarmRanges();
+        ar.addWatchRange(new DoubleRange(-10, 10, false, true));
+        ar.addWarningRange(new DoubleRange(-20, Double.NaN, true, false));
+        ar.addCriticalRange(new DoubleRange(Double.NaN, 30, false, false));
+        ar.addSevereRange(new DoubleRange(-100, 100));
+        CompiledAlarmRanges car = new CompiledAlarmRanges(ar);
+
+        double[] values = { -1000, -100, -99, -20, -19, -10, -9, 0, 10, 11, 30, 29, 100, 101, Double.NaN,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        Parameter p = new Parameter("p");
+        for (double v : values) {
+            ParameterValue pv1 = new ParameterValue(p);
+            car.check(pv1, v);
+            ParameterValue pv2 = new ParameterValue(p);
+            checkWithDoubleRanges(pv2, v, ar);
+            assertEquals(pv2.getMonitoringResult(), pv1.getMonitoringResult(), "value " + v);
+            assertEquals(pv2.getRangeCondition(), pv1.getRangeCondition(), "value " + v);
+        }
+    }
+
+    private void checkWithDoubleRanges(ParameterValue pv, double v, AlarmRanges ar) {
+        DoubleRange[] ranges = { ar.getSevereRange(), ar.getCriticalRange(), ar.getDistressRange(),
+                ar.getWarningRange(), ar.getWatchRange() };
+        MonitoringResult[] levels = { MonitoringResult.SEVERE, MonitoringResult.CRITICAL, MonitoringResult.DISTRESS,
+                MonitoringResult.WARNING, MonitoringResult.WATCH };
+        pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+        for (int i = 0; i < ranges.length; i++) {
+            if (ranges[i] == null) {
+                continue;
+            }
+            int x = ranges[i].inRange(v);
+            if (x != 0) {
+                pv.setMonitoringResult(levels[i]);
+                pv.setRangeCondition(x < 0 ? RangeCondition.LOW : RangeCondition.HIGH);
+                break;
+            }
+        }
+    }
+
+    private Parameter createFloatParameter(String name) {
+        Parameter p = new Parameter(name);
+        p.setQualifiedName("/test/" + name);
+        p.setDataSource(DataSource.TELEMETERED);
+
+        FloatParameterType.Builder ptb = new FloatParameterType.Builder().setName(name);
+        ptb.setDefaultWarningAlarmRange(new DoubleRange(0, 10));
+        Comparison modeIsOne = new Comparison(new ParameterInstanceRef(mode), "1", OperatorType.EQUALITY);
+        modeIsOne.validateValueType();
+        ptb.addCriticalAlarmRange(modeIsOne, new DoubleRange(0, 5));
+        p.setParameterType(ptb.build());
+        return p;
+    }
+
+    private void setMode(int m) {
+        ParameterValue pv = new ParameterValue(mode);
+        pv.setEngValue(ValueUtility.getSint32Value(m));
+        pdata.getLastValueCache().add(pv);
+    }
+
+    private ParameterValue check(Parameter p, double v) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setEngValue(ValueUtility.getDoubleValue(v));
+        ProcessingContext ctx = ProcessingContext.createForTmProcessing(pdata.getLastValueCache(), 0);
+        ctx.addTmParam(pv);
+        checker.performAlarmChecking(ctx, ctx.getTmParams().iterator());
+        return pv;
+    }
+}
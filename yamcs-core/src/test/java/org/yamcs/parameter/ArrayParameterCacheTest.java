@@ -1,7 +1,10 @@
 package org.yamcs.parameter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -198,6 +201,98 @@ public class ArrayParameterCacheTest {
 
     }
 
+    @Test
+    public void testOffHeap() {
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 2000, 4096, true, -1);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        List<ParameterValue> expectedPVlist = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            ParameterValue pv = getUint64ParameterValue(p1, i * 10L);
+            if (i % 3 == 0) {
+                pv.setInvalid();
+            }
+            expectedPVlist.add(pv);
+            ParameterValue pv2 = getFloatParameterValue(p2, i * 10L);
+            pcache.update(Arrays.asList(pv, pv2));
+        }
+
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(256, pvlist.size());
+        for (int i = 0; i < 256; i++) {
+            TestUtils.checkEquals(expectedPVlist.get(255 - i), pvlist.get(i));
+        }
+        TestUtils.checkEquals(getFloatParameterValue(p2, 2550), pcache.getLastValue(p2));
+
+        pcache.clear();
+        assertEquals(0, pcache.getMemoryUsage());
+        assertNull(pcache.getLastValue(p1));
+    }
+
+    @Test
+    public void testMaxMemory() {
+        // one row for p1 uses 26 bytes: generation time, uint64 value, status index and acquisition time
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 2000, 4096, true, 26 * 64);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        List<ParameterValue> expectedPVlist = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ParameterValue pv = getUint64ParameterValue(p1, i * 10L);
+            expectedPVlist.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        // the table stops growing at the limit, and overwrites its oldest rows instead of being shrunk
+        assertEquals(26 * 64, pcache.getMemoryUsage());
+        assertEquals(0, pcache.getNumEvictions());
+
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(64, pvlist.size());
+        for (int i = 0; i < 64; i++) {
+            TestUtils.checkEquals(expectedPVlist.get(99 - i), pvlist.get(i));
+        }
+
+        // a new table causes the oldest data of p1 to be evicted
+        ParameterValue pv2 = getFloatParameterValue(p2, 1000);
+        pcache.update(Arrays.asList(pv2));
+        assertTrue(pcache.getMemoryUsage() <= 26 * 64);
+        assertEquals(2, pcache.getNumTables());
+        TestUtils.checkEquals(pv2, pcache.getLastValue(p2));
+
+        assertEquals(1, pcache.getNumEvictions());
+
+        pvlist = pcache.getAllValues(p1);
+        assertEquals(32, pvlist.size());
+        TestUtils.checkEquals(expectedPVlist.get(99), pvlist.get(0));
+
+        // the shrunk table does not grow again
+        for (int i = 100; i < 200; i++) {
+            pcache.update(Arrays.asList(getUint64ParameterValue(p1, i * 10L)));
+        }
+        assertEquals(1, pcache.getNumEvictions());
+        assertEquals(32, pcache.getAllValues(p1).size());
+    }
+
+    @Test
+    public void testAddToReleasedTable() {
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 2000, 4096, true, 26 * 64);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        pcache.update(Arrays.asList(getUint64ParameterValue(p1, 0)));
+        long tableSize = pcache.getMemoryUsage();
+
+        // the table is released by an eviction after it has been looked up for the next update
+        var entry = pcache.tables.entrySet().iterator().next();
+        var table = entry.getValue();
+        table.release();
+        assertEquals(0, pcache.getMemoryUsage());
+        assertFalse(table.add(10, Arrays.asList(getUint64ParameterValue(p1, 10))));
+
+        // the update goes to a new table
+        ParameterValue pv = getUint64ParameterValue(p1, 20);
+        pcache.update(Arrays.asList(pv));
+        assertNotSame(table, pcache.tables.get(entry.getKey()));
+        assertEquals(tableSize, pcache.getMemoryUsage());
+        TestUtils.checkEquals(pv, pcache.getLastValue(p1));
+        pcache.clear();
+    }
+
     ParameterValue getUint64ParameterValue(Parameter p, long t) {
         ParameterValue pv = new ParameterValue(p);
         pv.setGenerationTime(t);
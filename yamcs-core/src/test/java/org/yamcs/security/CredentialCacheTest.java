@@ -0,0 +1,34 @@
+package org.yamcs.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CredentialCacheTest {
+
+    @Test
+    public void testVerification() {
+        CredentialCache cache = new CredentialCache(60000, 10);
+        assertFalse(cache.contains("user1", "hash1", "secret".toCharArray()));
+
+        cache.put("user1", "hash1", "secret".toCharArray());
+        assertTrue(cache.contains("user1", "hash1", "secret".toCharArray()));
+        assertFalse(cache.contains("user1", "hash1", "secreT".toCharArray()));
+        assertFalse(cache.contains("user2", "hash1", "secret".toCharArray()));
+
+        // Password changed
+        assertFalse(cache.contains("user1", "hash2", "secret".toCharArray()));
+
+        cache.invalidate("user1");
+        assertFalse(cache.contains("user1", "hash1", "secret".toCharArray()));
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        CredentialCache cache = new CredentialCache(20, 10);
+        cache.put("user1", "hash1", "secret".toCharArray());
+        Thread.sleep(40);
+        assertFalse(cache.contains("user1", "hash1", "secret".toCharArray()));
+    }
+}
@@ -0,0 +1,65 @@
+package org.yamcs.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.TimeEncoding;
+
+public class UserTest {
+
+    @BeforeAll
+    public static void setUp() {
+        TimeEncoding.setUp();
+    }
+
+    @Test
+    public void testObjectPrivilegePatterns() {
+        User user = new User("test", null);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/YSS/SIMULATOR/.*"), false);
+        user.addObjectPrivilege(
+                new ObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS1/FloatPara1_1_2"), false);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Command, "/YSS/SIMULATOR/SWITCH_VOLTAGE_ON"),
+                false);
+
+        for (int i = 0; i < 2; i++) { // second time from the cache
+            assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/YSS/SIMULATOR/BatteryVoltage1"));
+            assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS1/FloatPara1_1_2"));
+            assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS1/FloatPara1_1_3"));
+            assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "x/YSS/SIMULATOR/Altitude"));
+            assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.Command, "/YSS/SIMULATOR/BatteryVoltage1"));
+            assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tm_realtime"));
+        }
+    }
+
+    @Test
+    public void testInvalidPatternIsIgnored() {
+        User user = new User("test", null);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tm_(realtime"), false);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tm_dump"), false);
+
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tm_dump"));
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tm_(realtime"));
+    }
+
+    @Test
+    public void testPrivilegeChanges() {
+        User user = new User("test", null);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tm_.*"), true);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tc_.*"), false);
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tm_realtime"));
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tc_realtime"));
+
+        // Only the external privileges remain
+        user.clearDirectoryPrivileges();
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tm_realtime"));
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tc_realtime"));
+
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tc_realtime"), false);
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tc_realtime"));
+
+        user.setSuperuser(true);
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "sys_var"));
+    }
+}
@@ -0,0 +1,182 @@
+package org.yamcs.tctm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.ConfigurationException;
+import org.yamcs.LoggingUtils;
+import org.yamcs.TmPacket;
+import org.yamcs.YConfiguration;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.tctm.Link.Status;
+import org.yamcs.utils.TimeEncoding;
+
+public class NettyTcpTmDataLinkTest {
+
+    Random rand = new Random();
+    ArrayBlockingQueue<TmPacket> pktQueue = new ArrayBlockingQueue<>(100);
+    ServerSocket serverSocket;
+    NettyTcpTmDataLink link;
+
+    @BeforeAll
+    public static void beforeClass() {
+        EventProducerFactory.setMockup(false);
+        TimeEncoding.setUp();
+        LoggingUtils.configureLogging(Level.SEVERE);
+    }
+
+    @BeforeEach
+    public void before() throws IOException {
+        serverSocket = new ServerSocket(0);
+        serverSocket.setSoTimeout(10000);
+    }
+
+    @AfterEach
+    public void after() throws IOException {
+        if (link != null) {
+            link.stopAsync().awaitTerminated();
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    public void testCcsds() throws Exception {
+        startLink(Map.of());
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        List<byte[]> packets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // The packet data length is the number of bytes after the primary header, minus 1
+            byte[] packet = new byte[16 + rand.nextInt(500)];
+            rand.nextBytes(packet);
+            packet[0] &= 0xF7; // No secondary header, so no checksum verification
+            ByteBuffer.wrap(packet).putShort(4, (short) (packet.length - 7));
+            packets.add(packet);
+            stream.write(packet);
+        }
+
+        try (Socket socket = serverSocket.accept()) {
+            writeFragmented(socket.getOutputStream(), stream.toByteArray());
+            for (byte[] packet : packets) {
+                TmPacket pkt = pktQueue.poll(5, TimeUnit.SECONDS);
+                assertNotNull(pkt);
+                assertArrayEquals(packet, pkt.getPacket());
+            }
+        }
+    }
+
+    @Test
+    public void testGeneric() throws Exception {
+        // Length of the data after an 8 bytes header, in little endian. The first 2 bytes are stripped.
+        Map<String, Object> args = new HashMap<>();
+        args.put("maxPacketLength", 1000);
+        args.put("lengthFieldOffset", 4);
+        args.put("lengthFieldLength", 3);
+        args.put("lengthAdjustment", 8);
+        args.put("initialBytesToStrip", 2);
+        args.put("byteOrder", "LITTLE_ENDIAN");
+        startLink(Map.of(
+                "packetInputStreamClassName", GenericPacketInputStream.class.getName(),
+                "packetInputStreamArgs", args));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            int dataLength = 10 + rand.nextInt(500);
+            byte[] packet = new byte[8 + dataLength];
+            rand.nextBytes(packet);
+            packet[4] = (byte) dataLength;
+            packet[5] = (byte) (dataLength >> 8);
+            packet[6] = 0;
+            stream.write(packet);
+        }
+        byte[] data = stream.toByteArray();
+
+        // Same packets as with the blocking input stream
+        GenericPacketInputStream in = new GenericPacketInputStream();
+        in.init(new ByteArrayInputStream(data), YConfiguration.wrap(args));
+
+        try (Socket socket = serverSocket.accept()) {
+            writeFragmented(socket.getOutputStream(), data);
+            for (int i = 0; i < 10; i++) {
+                TmPacket pkt = pktQueue.poll(5, TimeUnit.SECONDS);
+                assertNotNull(pkt);
+                assertArrayEquals(in.readPacket(), pkt.getPacket());
+            }
+        }
+    }
+
+    @Test
+    public void testReconnect() throws Exception {
+        startLink(Map.of());
+        try (Socket socket = serverSocket.accept()) {
+            link.disable();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+
+        link.enable();
+        link.enable();
+        try (Socket socket = serverSocket.accept()) {
+            // Only one connection, while the first one is in progress or established
+            serverSocket.setSoTimeout(2000);
+            assertThrows(SocketTimeoutException.class, () -> serverSocket.accept());
+            assertEquals(Status.OK, link.connectionStatus());
+        }
+    }
+
+    @Test
+    public void testUnsupportedInputStream() {
+        NettyTcpTmDataLink link = new NettyTcpTmDataLink();
+        Map<String, Object> config = new HashMap<>();
+        config.put("host", "localhost");
+        config.put("port", serverSocket.getLocalPort());
+        config.put("packetInputStreamClassName", FixedPacketInputStream.class.getName());
+        assertThrows(ConfigurationException.class, () -> link.init("test", "test", YConfiguration.wrap(config)));
+    }
+
+    private void startLink(Map<String, Object> extraConfig) {
+        link = new NettyTcpTmDataLink();
+        Map<String, Object> config = new HashMap<>(extraConfig);
+        config.put("host", "localhost");
+        config.put("port", serverSocket.getLocalPort());
+        link.init("test", "test", YConfiguration.wrap(config));
+        link.setTmSink(p -> pktQueue.add(p));
+        link.startAsync().awaitRunning();
+    }
+
+    /**
+     * Writes the data in pieces that do not match the packet boundaries
+     */
+    private void writeFragmented(OutputStream out, byte[] data) throws IOException, InterruptedException {
+        int offset = 0;
+        while (offset < data.length) {
+            int n = Math.min(data.length - offset, 1 + rand.nextInt(300));
+            out.write(data, offset, n);
+            out.flush();
+            offset += n;
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.yamcs.tctm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.LoggingUtils;
+import org.yamcs.TmPacket;
+import org.yamcs.YConfiguration;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.tctm.Link.Status;
+import org.yamcs.utils.TimeEncoding;
+
+public class NettyUdpTmDataLinkTest {
+
+    @BeforeAll
+    public static void beforeClass() {
+        EventProducerFactory.setMockup(false);
+        TimeEncoding.setUp();
+        LoggingUtils.configureLogging(Level.SEVERE);
+    }
+
+    @Test
+    public void testNio() throws Exception {
+        testLoopback(false);
+    }
+
+    @Test
+    public void testEpoll() throws Exception {
+        // Falls back to NIO where the native transport is not available
+        testLoopback(true);
+    }
+
+    private void testLoopback(boolean epoll) throws Exception {
+        ArrayBlockingQueue<TmPacket> pktQueue = new ArrayBlockingQueue<>(100);
+        Random rand = new Random();
+        int port = 20000 + rand.nextInt(10000);
+        InetAddress addr = InetAddress.getLoopbackAddress();
+
+        NettyUdpTmDataLink link = new NettyUdpTmDataLink();
+        Map<String, Object> config = new HashMap<>();
+        config.put("initialBytesToStrip", 3);
+        config.put("port", port);
+        config.put("epoll", epoll);
+        config.put("receiveBatchSize", 4);
+        link.init("test", "test", YConfiguration.wrap(config));
+        link.setTmSink(p -> pktQueue.add(p));
+        link.startAsync().awaitRunning();
+        assertEquals(Status.OK, link.connectionStatus());
+
+        // More datagrams than the batch size, of different lengths
+        byte[][] datagrams = new byte[10][];
+        try (DatagramSocket socket = new DatagramSocket()) {
+            for (int i = 0; i < datagrams.length; i++) {
+                datagrams[i] = new byte[20 + rand.nextInt(1000)];
+                rand.nextBytes(datagrams[i]);
+                socket.send(new DatagramPacket(datagrams[i], datagrams[i].length, addr, port));
+            }
+            for (byte[] datagram : datagrams) {
+                TmPacket pkt = pktQueue.poll(5, TimeUnit.SECONDS);
+                assertNotNull(pkt);
+                assertArrayEquals(Arrays.copyOfRange(datagram, 3, datagram.length), pkt.getPacket());
+            }
+
+            // Not longer than initialBytesToStrip
+            socket.send(new DatagramPacket(datagrams[0], 3, addr, port));
+            assertNull(pktQueue.poll(1, TimeUnit.SECONDS));
+
+            var extra = link.getExtraInfo();
+            assertEquals(10L, extra.get("Valid datagrams"));
+            assertEquals(1L, extra.get("Invalid datagrams"));
+
+            link.disable();
+            assertEquals(Status.DISABLED, link.getLinkStatus());
+            link.enable();
+            assertEquals(Status.OK, link.connectionStatus());
+            socket.send(new DatagramPacket(datagrams[1], datagrams[1].length, addr, port));
+            TmPacket pkt = pktQueue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(pkt);
+            assertArrayEquals(Arrays.copyOfRange(datagrams[1], 3, datagrams[1].length), pkt.getPacket());
+        } finally {
+            link.stopAsync().awaitTerminated();
+        }
+        assertEquals(Status.UNAVAIL, link.connectionStatus());
+    }
+}
@@ -0,0 +1,165 @@
+package org.yamcs.tctm.ccsds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.time.Instant;
+import org.yamcs.utils.TimeEncoding;
+
+public class MasterChannelFrameHandlerTest {
+    static final int SCID = 35;
+    static final int FRAME_LENGTH = 32;
+    static final int NUM_VCS = 3;
+
+    // filled by the handlers, per VC
+    static Map<Integer, List<Integer>> received = new ConcurrentHashMap<>();
+    static Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+    static volatile CountDownLatch blockVc0;
+
+    @BeforeAll
+    public static void beforeClass() {
+        YConfiguration.setupTest(null);
+        TimeEncoding.setUp();
+    }
+
+    @BeforeEach
+    public void before() {
+        received.clear();
+        threads.clear();
+        blockVc0 = null;
+    }
+
+    @Test
+    public void testPipelined() throws Exception {
+        MasterChannelFrameHandler mcfh = new MasterChannelFrameHandler("mcfh-test", "pipelined", config(4));
+        int n = 500;
+        for (int i = 0; i < n; i++) {
+            for (int vcId = 0; vcId < NUM_VCS; vcId++) {
+                mcfh.handleFrame(Instant.get(0), frame(vcId, i), 0, FRAME_LENGTH);
+            }
+        }
+        awaitReceived(n);
+
+        for (int vcId = 0; vcId < NUM_VCS; vcId++) {
+            List<Integer> seqs = received.get(vcId);
+            assertEquals(n, seqs.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(i & 0xFF, seqs.get(i));
+            }
+        }
+        // each VC is handled on its own thread, not on the receiving one
+        assertNotSame(threads.get(0), threads.get(1));
+        assertNotSame(Thread.currentThread(), threads.get(0));
+
+        mcfh.stop();
+        for (Thread t : threads.values()) {
+            assertFalse(t.isAlive());
+        }
+        // frames received after stop are dropped
+        mcfh.handleFrame(Instant.get(0), frame(0, 0), 0, FRAME_LENGTH);
+        assertEquals(n, received.get(0).size());
+    }
+
+    @Test
+    public void testStopWhileReceiverBlocked() throws Exception {
+        MasterChannelFrameHandler mcfh = new MasterChannelFrameHandler("mcfh-test", "blocked", config(2));
+        blockVc0 = new CountDownLatch(1);
+
+        // the handler of VC 0 does not return, so the receiving thread ends up waiting for room in the queue
+        CountDownLatch receiverDone = new CountDownLatch(1);
+        Thread receiver = new Thread(() -> {
+            try {
+                for (int i = 0; i < 10; i++) {
+                    mcfh.handleFrame(Instant.get(0), frame(0, i), 0, FRAME_LENGTH);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            receiverDone.countDown();
+        });
+        receiver.start();
+        assertFalse(receiverDone.await(200, TimeUnit.MILLISECONDS));
+
+        mcfh.stop();
+        assertTrue(receiverDone.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.get(0).isAlive());
+        assertEquals(List.of(0), received.get(0));
+    }
+
+    private static void awaitReceived(int n) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (received.values().stream().mapToInt(List::size).sum() == n * NUM_VCS) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * TM frame without OCF and without CRC, the VC frame count is set to the sequence count
+     */
+    static byte[] frame(int vcId, int seq) {
+        byte[] frame = new byte[FRAME_LENGTH];
+        int gvcid = (SCID << 3) | vcId;
+        frame[0] = (byte) (gvcid >> 7);
+        frame[1] = (byte) (gvcid << 1);
+        frame[2] = (byte) seq;
+        frame[3] = (byte) seq;
+        return frame;
+    }
+
+    static YConfiguration config(int queueSize) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("frameType", "TM");
+        m.put("spacecraftId", SCID);
+        m.put("frameLength", FRAME_LENGTH);
+        m.put("errorDetection", "NONE");
+        m.put("pipelined", true);
+        m.put("pipelineQueueSize", queueSize);
+
+        List<Map<String, Object>> vclist = new ArrayList<>();
+        for (int vcId = 0; vcId < NUM_VCS; vcId++) {
+            Map<String, Object> vc = new HashMap<>();
+            vc.put("vcId", vcId);
+            vc.put("service", "VCA");
+            vc.put("vcaHandlerClassName", RecordingHandler.class.getName());
+            vclist.add(vc);
+        }
+        m.put("virtualChannels", vclist);
+        return YConfiguration.wrap(m);
+    }
+
+    public static class RecordingHandler implements VcDownlinkHandler {
+
+        @Override
+        public void handle(DownlinkTransferFrame frame) {
+            int vcId = frame.getVirtualChannelId();
+            threads.put(vcId, Thread.currentThread());
+            received.computeIfAbsent(vcId, k -> new CopyOnWriteArrayList<>()).add((int) frame.getVcFrameSeq());
+
+            CountDownLatch latch = blockVc0;
+            if (vcId == 0 && latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.yamcs.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterValueWithId;
+import org.yamcs.parameter.ParameterWithId;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.utils.ParameterFormatter.Header;
+import org.yamcs.xtce.BooleanParameterType;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.EnumeratedParameterType;
+import org.yamcs.xtce.FloatParameterType;
+import org.yamcs.xtce.IntegerDataEncoding;
+import org.yamcs.xtce.IntegerDataEncoding.Encoding;
+import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterType;
+
+class ArrowParameterFormatterTest {
+
+    static final long T0 = 1700000000000L;
+
+    private ParameterWithId temp;
+    private ParameterWithId count;
+    private ParameterWithId flag;
+    private ParameterWithId mode;
+    private ParameterWithId untyped;
+    private ByteArrayOutputStream out;
+
+    @BeforeAll
+    static void beforeAll() {
+        TimeEncoding.setUp();
+    }
+
+    @BeforeEach
+    void setUp() {
+        temp = createParameter("temp", new FloatParameterType.Builder().setName("temp").setSizeInBits(32)
+                .setEncoding(new IntegerDataEncoding.Builder().setSizeInBits(16).setEncoding(Encoding.UNSIGNED)));
+        count = createParameter("count", new IntegerParameterType.Builder().setName("count").setSizeInBits(64));
+        flag = createParameter("flag", new BooleanParameterType.Builder().setName("flag"));
+        mode = createParameter("mode", new EnumeratedParameterType.Builder().setName("mode"));
+        untyped = createParameter("untyped", null);
+        out = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void testColumnTypes() throws IOException {
+        var formatter = new ArrowParameterFormatter(out, List.of(temp, count, flag, mode, untyped), true, true,
+                Header.SHORT_NAME);
+        formatter.close();
+
+        ArrowStreamReader reader = new ArrowStreamReader(out.toByteArray());
+        List<String> names = new ArrayList<>();
+        reader.fields.forEach(f -> names.add(f.name));
+        assertEquals(Arrays.asList("Time",
+                "temp", "temp_RAW", "temp_MONITORING",
+                "count", "count_RAW", "count_MONITORING",
+                "flag", "flag_RAW", "flag_MONITORING",
+                "mode", "mode_RAW", "mode_MONITORING",
+                "untyped", "untyped_RAW", "untyped_MONITORING"), names);
+        assertEquals(0, reader.getRowCount());
+
+        assertEquals(ArrowStreamReader.TYPE_TIMESTAMP, reader.getField("Time").typeId);
+        assertEquals(ArrowStreamReader.TYPE_FLOATING_POINT, reader.getField("temp").typeId);
+        assertEquals(1, reader.getField("temp").precision);
+        // The raw type follows the encoding
+        assertEquals(ArrowStreamReader.TYPE_INT, reader.getField("temp_RAW").typeId);
+        assertEquals(32, reader.getField("temp_RAW").bitWidth);
+        assertEquals(false, reader.getField("temp_RAW").signed);
+        assertEquals(ArrowStreamReader.TYPE_UTF8, reader.getField("temp_MONITORING").typeId);
+
+        assertEquals(ArrowStreamReader.TYPE_INT, reader.getField("count").typeId);
+        assertEquals(64, reader.getField("count").bitWidth);
+        assertEquals(true, reader.getField("count").signed);
+        // Without encoding, the raw value has no known type
+        assertEquals(ArrowStreamReader.TYPE_UTF8, reader.getField("count_RAW").typeId);
+
+        assertEquals(ArrowStreamReader.TYPE_BOOL, reader.getField("flag").typeId);
+        assertEquals(ArrowStreamReader.TYPE_UTF8, reader.getField("mode").typeId);
+        assertEquals(ArrowStreamReader.TYPE_UTF8, reader.getField("untyped").typeId);
+    }
+
+    @Test
+    void testQualifiedNames() throws IOException {
+        var formatter = new ArrowParameterFormatter(out, List.of(temp, count), false, false, Header.NONE);
+        formatter.close();
+
+        ArrowStreamReader reader = new ArrowStreamReader(out.toByteArray());
+        assertEquals(3, reader.fields.size());
+        assertEquals("/test/temp", reader.fields.get(1).name);
+        assertEquals("/test/count", reader.fields.get(2).name);
+    }
+
+    @Test
+    void testValues() throws IOException {
+        var formatter = new ArrowParameterFormatter(out, List.of(temp, count, flag, mode), true, true,
+                Header.SHORT_NAME);
+
+        ParameterValue tempValue = pv(temp, T0, ValueUtility.getFloatValue(1.5f));
+        tempValue.setRawValue(ValueUtility.getUint32Value(0xFFFF));
+        tempValue.setMonitoringResult(MonitoringResult.WARNING);
+        formatter.writeParameters(List.of(
+                pvwid(temp, tempValue),
+                pvwid(count, pv(count, T0, ValueUtility.getSint64Value(-7))),
+                pvwid(flag, pv(flag, T0, ValueUtility.getBooleanValue(true))),
+                pvwid(mode, pv(mode, T0, ValueUtility.getEnumeratedValue(1, "ON")))));
+
+        // Missing and unconvertible values become null
+        formatter.writeParameters(List.of(
+                pvwid(count, pv(count, T0 + 1000, ValueUtility.getStringValue("abc"))),
+                pvwid(flag, pv(flag, T0 + 1000, ValueUtility.getSint32Value(1)))));
+        formatter.close();
+
+        ArrowStreamReader reader = new ArrowStreamReader(out.toByteArray());
+        assertEquals(1, reader.batches.size());
+        assertEquals(List.of(T0, T0 + 1000), reader.getColumn("Time"));
+        assertEquals(Arrays.asList(1.5, null), reader.getColumn("temp"));
+        assertEquals(Arrays.asList(0xFFFFL, null), reader.getColumn("temp_RAW"));
+        assertEquals(Arrays.asList("WARNING", null), reader.getColumn("temp_MONITORING"));
+        assertEquals(Arrays.asList(-7L, null), reader.getColumn("count"));
+        assertEquals(Arrays.asList(null, null), reader.getColumn("count_MONITORING"));
+        assertEquals(Arrays.asList(true, null), reader.getColumn("flag"));
+        assertEquals(Arrays.asList("ON", null), reader.getColumn("mode"));
+        assertEquals(1, reader.batches.get(0).getNullCount(1)); // temp: the second row only
+    }
+
+    @Test
+    void testBatches() throws IOException {
+        var formatter = new ArrowParameterFormatter(out, List.of(count), false, false, Header.SHORT_NAME);
+        int n = ArrowParameterFormatter.BATCH_SIZE + 10;
+        for (int i = 0; i < n; i++) {
+            formatter.writeParameters(List.of(pvwid(count, pv(count, T0 + i, ValueUtility.getSint64Value(i)))));
+            formatter.flush();
+        }
+        formatter.close();
+
+        ArrowStreamReader reader = new ArrowStreamReader(out.toByteArray());
+        assertEquals(2, reader.batches.size());
+        assertEquals(ArrowParameterFormatter.BATCH_SIZE, reader.batches.get(0).length);
+        assertEquals(n, reader.getRowCount());
+        List<Object> values = reader.getColumn("count");
+        for (int i = 0; i < n; i++) {
+            assertEquals((long) i, values.get(i));
+        }
+    }
+
+    private static ParameterWithId createParameter(String name, ParameterType.Builder<?> ptb) {
+        Parameter p = new Parameter(name);
+        p.setQualifiedName("/test/" + name);
+        p.setDataSource(DataSource.TELEMETERED);
+        if (ptb != null) {
+            p.setParameterType(ptb.build());
+        }
+        return new ParameterWithId(p, NamedObjectId.newBuilder().setName(p.getQualifiedName()).build(), null);
+    }
+
+    private static ParameterValue pv(ParameterWithId pwid, long unixMillis, Value engValue) {
+        ParameterValue pv = new ParameterValue(pwid.getParameter());
+        pv.setEngValue(engValue);
+        pv.setGenerationTime(TimeEncoding.fromUnixMillisec(unixMillis));
+        return pv;
+    }
+
+    private static ParameterValueWithId pvwid(ParameterWithId pwid, ParameterValue pv) {
+        return new ParameterValueWithId(pv, pwid.getId());
+    }
+}
@@ -0,0 +1,288 @@
+package org.yamcs.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an Arrow IPC stream following the Arrow and FlatBuffers specifications, independently of
+ * {@link ArrowStreamWriter}. Supports the flat column types that the writer produces.
+ */
+public class ArrowStreamReader {
+
+    // Arrow type ids (the Type union of Schema.fbs)
+    public static final int TYPE_INT = 2;
+    public static final int TYPE_FLOATING_POINT = 3;
+    public static final int TYPE_BINARY = 4;
+    public static final int TYPE_UTF8 = 5;
+    public static final int TYPE_BOOL = 6;
+    public static final int TYPE_TIMESTAMP = 10;
+
+    public final List<Field> fields = new ArrayList<>();
+    public final List<RecordBatch> batches = new ArrayList<>();
+
+    public ArrowStreamReader(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        while (true) {
+            assertEquals(0xFFFFFFFF, buf.getInt());
+            int metadataLength = buf.getInt();
+            if (metadataLength == 0) {
+                break;
+            }
+            assertEquals(0, metadataLength % 8);
+            int fbStart = buf.position();
+            FbTable message = new FbTable(buf, fbStart + buf.getInt(fbStart));
+            assertEquals(4, message.getShort(0, 0)); // V5
+            int headerType = message.getByte(1, 0);
+            FbTable header = message.getTable(2);
+            long bodyLength = message.getLong(3, 0);
+            assertEquals(0, bodyLength % 8);
+            int bodyStart = fbStart + metadataLength;
+
+            if (headerType == 1) {
+                assertTrue(batches.isEmpty(), "Schema must be the first message");
+                assertEquals(0, header.getShort(0, 0)); // Little endian
+                for (int i = 0; i < header.getVectorLength(1); i++) {
+                    fields.add(new Field(header.getVectorTable(1, i)));
+                }
+            } else if (headerType == 3) {
+                batches.add(new RecordBatch(header, buf, bodyStart, bodyLength));
+            } else {
+                throw new AssertionError("Unexpected message header type " + headerType);
+            }
+            buf.position(bodyStart + (int) bodyLength);
+        }
+        assertEquals(data.length, buf.position());
+    }
+
+    /**
+     * Returns the number of rows over all batches
+     */
+    public int getRowCount() {
+        return batches.stream().mapToInt(b -> (int) b.length).sum();
+    }
+
+    /**
+     * Returns the values of a column over all batches.
+     */
+    public List<Object> getColumn(String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).name.equals(name)) {
+                int bufIdx = 0;
+                for (int j = 0; j < i; j++) {
+                    bufIdx += fields.get(j).getBufferCount();
+                }
+                List<Object> values = new ArrayList<>();
+                for (RecordBatch batch : batches) {
+                    for (int row = 0; row < batch.length; row++) {
+                        values.add(batch.getValue(fields.get(i), bufIdx, row));
+                    }
+                }
+                return values;
+            }
+        }
+        throw new AssertionError("No column " + name);
+    }
+
+    public Field getField(String name) {
+        return fields.stream().filter(f -> f.name.equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No column " + name));
+    }
+
+    public static class Field {
+        public final String name;
+        public final boolean nullable;
+        public final int typeId;
+        // Int
+        public int bitWidth;
+        public boolean signed;
+        // FloatingPoint: 1 = SINGLE, 2 = DOUBLE
+        public int precision;
+        // Timestamp: 1 = MILLISECOND
+        public int unit;
+        public String timezone;
+
+        Field(FbTable t) {
+            name = t.getString(0);
+            nullable = t.getByte(1, 0) != 0;
+            typeId = t.getByte(2, 0);
+            FbTable type = t.getTable(3);
+            switch (typeId) {
+            case TYPE_INT:
+                bitWidth = type.getInt(0, 0);
+                signed = type.getByte(1, 0) != 0;
+                break;
+            case TYPE_FLOATING_POINT:
+                precision = type.getShort(0, 0);
+                break;
+            case TYPE_TIMESTAMP:
+                unit = type.getShort(0, 0);
+                timezone = type.getString(1);
+                break;
+            default:
+            }
+            assertEquals(0, t.getVectorLength(5)); // No children
+        }
+
+        int getBufferCount() {
+            return typeId == TYPE_UTF8 || typeId == TYPE_BINARY ? 3 : 2;
+        }
+    }
+
+    public static class RecordBatch {
+        public final long length;
+        final long[] nullCounts;
+        final List<ByteBuffer> buffers = new ArrayList<>();
+
+        RecordBatch(FbTable t, ByteBuffer buf, int bodyStart, long bodyLength) {
+            length = t.getLong(0, 0);
+            int numNodes = t.getVectorLength(1);
+            nullCounts = new long[numNodes];
+            for (int i = 0; i < numNodes; i++) {
+                int pos = t.getVectorElement(1, i, 16);
+                assertEquals(length, buf.getLong(pos));
+                nullCounts[i] = buf.getLong(pos + 8);
+            }
+            for (int i = 0; i < t.getVectorLength(2); i++) {
+                int pos = t.getVectorElement(2, i, 16);
+                long offset = buf.getLong(pos);
+                long len = buf.getLong(pos + 8);
+                assertEquals(0, offset % 8);
+                assertTrue(offset + len <= bodyLength);
+                ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                b.position(bodyStart + (int) offset).limit(bodyStart + (int) (offset + len));
+                buffers.add(b.slice().order(ByteOrder.LITTLE_ENDIAN));
+            }
+        }
+
+        public long getNullCount(int colIdx) {
+            return nullCounts[colIdx];
+        }
+
+        /**
+         * Returns the value of a column in the given row. Integers and timestamps are returned as Long, floating point
+         * numbers as Double.
+         */
+        Object getValue(Field field, int bufIdx, int row) {
+            ByteBuffer validity = buffers.get(bufIdx);
+            if (validity.limit() > 0 && (validity.get(row >> 3) & (1 << (row & 7))) == 0) {
+                return null;
+            }
+            ByteBuffer values = buffers.get(bufIdx + 1);
+            switch (field.typeId) {
+            case TYPE_BOOL:
+                return (values.get(row >> 3) & (1 << (row & 7))) != 0;
+            case TYPE_INT:
+                if (field.bitWidth == 32) {
+                    int x = values.getInt(4 * row);
+                    return field.signed ? (long) x : Integer.toUnsignedLong(x);
+                } else {
+                    return values.getLong(8 * row);
+                }
+            case TYPE_FLOATING_POINT:
+                return field.precision == 1 ? (double) values.getFloat(4 * row) : values.getDouble(8 * row);
+            case TYPE_TIMESTAMP:
+                return values.getLong(8 * row);
+            case TYPE_UTF8:
+            case TYPE_BINARY:
+                ByteBuffer data = buffers.get(bufIdx + 2);
+                int start = values.getInt(4 * row);
+                int end = values.getInt(4 * (row + 1));
+                byte[] b = new byte[end - start];
+                data.get(start, b);
+                return field.typeId == TYPE_UTF8 ? new String(b, StandardCharsets.UTF_8) : b;
+            default:
+                throw new AssertionError("Unexpected type " + field.typeId);
+            }
+        }
+    }
+
+    /**
+     * Reads a FlatBuffers table
+     */
+    static class FbTable {
+        final ByteBuffer buf;
+        final int pos;
+        final int vtable;
+
+        FbTable(ByteBuffer buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+            this.vtable = pos - buf.getInt(pos);
+        }
+
+        /**
+         * Returns the position of the field, or 0 if it is absent
+         */
+        int fieldPos(int idx) {
+            int vtableSize = buf.getShort(vtable);
+            if (4 + 2 * idx >= vtableSize) {
+                return 0;
+            }
+            int offset = buf.getShort(vtable + 4 + 2 * idx);
+            return offset == 0 ? 0 : pos + offset;
+        }
+
+        int getByte(int idx, int defaultValue) {
+            int p = fieldPos(idx);
+            return p == 0 ? defaultValue : buf.get(p);
+        }
+
+        int getShort(int idx, int defaultValue) {
+            int p = fieldPos(idx);
+            return p == 0 ? defaultValue : buf.getShort(p);
+        }
+
+        int getInt(int idx, int defaultValue) {
+            int p = fieldPos(idx);
+            return p == 0 ? defaultValue : buf.getInt(p);
+        }
+
+        long getLong(int idx, long defaultValue) {
+            int p = fieldPos(idx);
+            return p == 0 ? defaultValue : buf.getLong(p);
+        }
+
+        private int deref(int idx) {
+            int p = fieldPos(idx);
+            return p == 0 ? 0 : p + buf.getInt(p);
+        }
+
+        FbTable getTable(int idx) {
+            int p = deref(idx);
+            return p == 0 ? null : new FbTable(buf, p);
+        }
+
+        String getString(int idx) {
+            int p = deref(idx);
+            if (p == 0) {
+                return null;
+            }
+            byte[] b = new byte[buf.getInt(p)];
+            buf.get(p + 4, b);
+            assertEquals(0, buf.get(p + 4 + b.length)); // Null terminated
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        int getVectorLength(int idx) {
+            int p = deref(idx);
+            return p == 0 ? 0 : buf.getInt(p);
+        }
+
+        int getVectorElement(int idx, int i, int elementSize) {
+            int p = deref(idx) + 4 + i * elementSize;
+            assertEquals(0, p % 8, "Structs must be 8-byte aligned");
+            return p;
+        }
+
+        FbTable getVectorTable(int idx, int i) {
+            int p = deref(idx) + 4 + 4 * i;
+            return new FbTable(buf, p + buf.getInt(p));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.yamcs.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.ArrowStreamReader.Field;
+import org.yamcs.utils.ArrowStreamWriter.ColumnType;
+
+public class ArrowStreamWriterTest {
+
+    @Test
+    public void testFraming() throws Exception {
+        ArrowStreamWriter writer = new ArrowStreamWriter();
+        writer.addColumn("time", ColumnType.TIMESTAMP);
+        writer.addColumn("value", ColumnType.FLOAT64);
+        writer.addColumn("status", ColumnType.UTF8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeSchema(out);
+        for (int i = 0; i < 10; i++) {
+            writer.setLong(0, 1700000000000L + i);
+            if (i % 2 == 0) {
+                writer.setDouble(1, i * 0.5);
+            }
+            writer.setString(2, "s" + i);
+            writer.endRow();
+        }
+        assertEquals(10, writer.getRowCount());
+        writer.writeBatch(out);
+        assertEquals(0, writer.getRowCount());
+        writer.writeBatch(out); // No rows, nothing written
+        writer.writeEnd(out);
+
+        List<Long> bodyLengths = readMessages(out.toByteArray());
+        assertEquals(2, bodyLengths.size());
+        assertEquals(0, (long) bodyLengths.get(0)); // Schema
+
+        // time: validity + values, value: validity + values, status: validity + offsets + data
+        long expected = 8 + 80 + 8 + 80 + 8 + 48 + 24;
+        assertEquals(expected, (long) bodyLengths.get(1));
+    }
+
+    @Test
+    public void testSchema() throws Exception {
+        ArrowStreamWriter writer = new ArrowStreamWriter();
+        for (ColumnType type : ColumnType.values()) {
+            writer.addColumn(type.name().toLowerCase(), type);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeSchema(out);
+        writer.writeEnd(out);
+
+        ArrowStreamReader reader = new ArrowStreamReader(out.toByteArray());
+        assertEquals(ColumnType.values().length, reader.fields.size());
+        assertEquals("bool", reader.fields.get(0).name);
+        assertTrue(reader.fields.stream().allMatch(f -> f.nullable));
+
+        assertEquals(ArrowStreamReader.TYPE_BOOL, reader.getField("bool").typeId);
+        assertInt(reader.getField("int32"), 32, true);
+        assertInt(reader.getField("uint32"), 32, false);
+        assertInt(reader.getField("int64"), 64, true);
+        assertInt(reader.getField("uint64"), 64, false);
+
+        Field float32 = reader.getField("float32");
+        assertEquals(ArrowStreamReader.TYPE_FLOATING_POINT, float32.typeId);
+        assertEquals(1, float32.precision);
+        assertEquals(2, reader.getField("float64").precision);
+
+        assertEquals(ArrowStreamReader.TYPE_UTF8, reader.getField("utf8").typeId);
+        assertEquals(ArrowStreamReader.TYPE_BINARY, reader.getField("binary").typeId);
+
+        Field timestamp = reader.getField("timestamp");
+        assertEquals(ArrowStreamReader.TYPE_TIMESTAMP, timestamp.typeId);
+        assertEquals(1, timestamp.unit);
+        assertEquals("UTC", timestamp.timezone);
+    }
+
+    @Test
+    public void testRecordBatches() throws Exception {
+        ArrowStreamWriter writer = new ArrowStreamWriter();
+        for (ColumnType type : ColumnType.values()) {
+            writer.addColumn(type.name().toLowerCase(), type);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeSchema(out);
+
+        // Every third row is null, and the rows are split over two batches
+        int n = 21;
+        for (int i = 0; i < n; i++) {
+            if (i % 3 != 0) {
+                writer.setBoolean(0, i % 2 == 0);
+                writer.setLong(1, -i);
+                writer.setLong(2, 0xFFFFFF00L + i);
+                writer.setLong(3, Long.MIN_VALUE + i);
+                writer.setLong(4, i);
+                writer.setDouble(5, i * 0.5);
+                writer.setDouble(6, i * 0.1);
+                writer.setString(7, "é" + i);
+                writer.setBinary(8, new byte[] { (byte) i, 1 });
+                writer.setLong(9, 1700000000000L + i);
+            }
+            writer.endRow();
+            if (i == 9) {
+                writer.writeBatch(out);
+            }
+        }
+        writer.writeBatch(out);
+        writer.writeEnd(out);
+
+        ArrowStreamReader reader = new ArrowStreamReader(out.toByteArray());
+        assertEquals(2, reader.batches.size());
+        assertEquals(10, reader.batches.get(0).length);
+        assertEquals(11, reader.batches.get(1).length);
+        for (int col = 0; col < ColumnType.values().length; col++) {
+            assertEquals(4, reader.batches.get(0).getNullCount(col));
+            assertEquals(3, reader.batches.get(1).getNullCount(col));
+        }
+
+        List<Object> bools = reader.getColumn("bool");
+        List<Object> int32s = reader.getColumn("int32");
+        List<Object> uint32s = reader.getColumn("uint32");
+        List<Object> int64s = reader.getColumn("int64");
+        List<Object> uint64s = reader.getColumn("uint64");
+        List<Object> float32s = reader.getColumn("float32");
+        List<Object> float64s = reader.getColumn("float64");
+        List<Object> strings = reader.getColumn("utf8");
+        List<Object> binaries = reader.getColumn("binary");
+        List<Object> timestamps = reader.getColumn("timestamp");
+        for (int i = 0; i < n; i++) {
+            if (i % 3 == 0) {
+                assertNull(bools.get(i));
+                assertNull(int32s.get(i));
+                assertNull(strings.get(i));
+                assertNull(binaries.get(i));
+                assertNull(timestamps.get(i));
+                continue;
+            }
+            assertEquals(i % 2 == 0, bools.get(i));
+            assertEquals((long) -i, int32s.get(i));
+            assertEquals(0xFFFFFF00L + i, uint32s.get(i));
+            assertEquals(Long.MIN_VALUE + i, int64s.get(i));
+            assertEquals((long) i, uint64s.get(i));
+            assertEquals(i * 0.5, float32s.get(i));
+            assertEquals(i * 0.1, float64s.get(i));
+            assertEquals("é" + i, strings.get(i));
+            assertArrayEquals(new byte[] { (byte) i, 1 }, (byte[]) binaries.get(i));
+            assertEquals(1700000000000L + i, timestamps.get(i));
+        }
+    }
+
+    @Test
+    public void testInvalidValues() {
+        ArrowStreamWriter writer = new ArrowStreamWriter();
+        writer.addColumn("a", ColumnType.INT32);
+        writer.addColumn("b", ColumnType.BOOL);
+
+        assertThrows(IllegalArgumentException.class, () -> writer.setString(0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> writer.setLong(1, 1));
+
+        writer.setLong(0, 1);
+        assertThrows(IllegalStateException.class, () -> writer.setLong(0, 2));
+        writer.endRow();
+        assertThrows(IllegalStateException.class, () -> writer.addColumn("c", ColumnType.UTF8));
+    }
+
+    private static void assertInt(Field field, int bitWidth, boolean signed) {
+        assertEquals(ArrowStreamReader.TYPE_INT, field.typeId);
+        assertEquals(bitWidth, field.bitWidth);
+        assertEquals(signed, field.signed);
+    }
+
+    /**
+     * Checks the message framing of an Arrow IPC stream, and returns the body lengths of the messages.
+     */
+    private static List<Long> readMessages(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        List<Long> bodyLengths = new ArrayList<>();
+        while (true) {
+            assertEquals(0xFFFFFFFF, buf.getInt());
+            int metadataLength = buf.getInt();
+            if (metadataLength == 0) {
+                break;
+            }
+            assertEquals(0, (8 + metadataLength) % 8);
+
+            // Message table: the root offset leads to the table, whose first field points to the vtable
+            int fbStart = buf.position();
+            int tablePos = fbStart + buf.getInt(fbStart);
+            int vtablePos = tablePos - buf.getInt(tablePos);
+            short bodyLengthOffset = buf.getShort(vtablePos + 4 + 2 * 3);
+            long bodyLength = buf.getLong(tablePos + bodyLengthOffset);
+            assertEquals(0, bodyLength % 8);
+            bodyLengths.add(bodyLength);
+
+            buf.position(fbStart + metadataLength + (int) bodyLength);
+        }
+        assertEquals(data.length, buf.position());
+        return bodyLengths;
+    }
+}
@@ -2,11 +2,13 @@ package org.yamcs.utils;
 
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.junit.jupiter.api.Test;
 import org.yamcs.protobuf.Event.EventSeverity;
@@ -334,6 +336,40 @@ public class FilterParserTest {
         assertEquals(asList(a, b), filterItems(filter));
     }
 
+    @Test
+    public void testFieldConstraint() throws ParseException {
+        var filter = new ItemFilter(
+                "(severity=WARNING OR severity=DISTRESS) AND name:o AND (order > 2 OR animal=true)");
+        Predicate<EventSeverity> severity = filter.getFieldConstraint("SEVERITY");
+        assertEquals(asList(EventSeverity.WARNING, EventSeverity.DISTRESS),
+                asList(EventSeverity.values()).stream().filter(severity).toList());
+
+        Predicate<String> name = filter.getFieldConstraint("name");
+        assertEquals(asList("round horn", "wacky hippo", "icy wombat", "lush ghost"),
+                allItems.stream().map(Item::name).filter(name).toList());
+
+        // Only in combination with another field
+        assertNull(filter.getFieldConstraint("order"));
+        assertNull(new ItemFilter("").getFieldConstraint("name"));
+    }
+
+    @Test
+    public void testNestedFieldConstraint() throws ParseException {
+        var filter = new ItemFilter("severity=INFO OR (severity=WARNING AND order > 2)");
+        Predicate<EventSeverity> severity = filter.getFieldConstraint("severity");
+        assertEquals(asList(EventSeverity.INFO, EventSeverity.WARNING),
+                asList(EventSeverity.values()).stream().filter(severity).toList());
+
+        filter = new ItemFilter("((severity=WARNING OR severity=DISTRESS)) AND -severity=DISTRESS");
+        severity = filter.getFieldConstraint("severity");
+        assertEquals(asList(EventSeverity.WARNING),
+                asList(EventSeverity.values()).stream().filter(severity).toList());
+
+        // The nested constraint is weaker than the expression
+        assertNull(new ItemFilter("NOT (severity=WARNING AND order > 2)").getFieldConstraint("severity"));
+        assertNull(new ItemFilter("severity=INFO OR (order > 2)").getFieldConstraint("severity"));
+    }
+
     public static record Item(String name, EventSeverity severity, Boolean animal, Integer order, byte[] binary,
             List<String> tags) {
         @Override
@@ -0,0 +1,60 @@
+package org.yamcs.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+
+public class ValueUtilityTest {
+
+    @Test
+    public void testFlyweightValues() {
+        assertSame(ValueUtility.getUint32Value(5), ValueUtility.getUint32Value(5));
+        assertSame(ValueUtility.getSint32Value(-128), ValueUtility.getSint32Value(-128));
+        assertSame(ValueUtility.getUint64Value(1023), ValueUtility.getUint64Value(1023));
+        assertSame(ValueUtility.getSint64Value(0), ValueUtility.getSint64Value(0));
+
+        // outside of the cached range
+        assertNotSame(ValueUtility.getUint32Value(1024), ValueUtility.getUint32Value(1024));
+        assertNotSame(ValueUtility.getUint32Value(-1), ValueUtility.getUint32Value(-1));
+        assertEquals(ValueUtility.getUint32Value(-1), ValueUtility.getUint32Value(-1));
+        assertNotSame(ValueUtility.getSint64Value(-129), ValueUtility.getSint64Value(-129));
+
+        assertEquals(Type.SINT32, ValueUtility.getSint32Value(3).getType());
+        assertEquals(Type.UINT64, ValueUtility.getUint64Value(3).getType());
+    }
+
+    @Test
+    public void testEnumeratedValues() {
+        var ev1 = ValueUtility.getEnumeratedValue(3, "ON");
+        assertSame(ev1, ValueUtility.getEnumeratedValue(3, "ON"));
+
+        var ev2 = ValueUtility.getEnumeratedValue(3, "OFF");
+        assertEquals(3, ev2.getSint64Value());
+        assertEquals("OFF", ev2.getStringValue());
+    }
+
+    @Test
+    public void testGpbRoundTrip() {
+        checkRoundTrip(ValueUtility.getUint32Value(7), Type.UINT32);
+        checkRoundTrip(ValueUtility.getUint32Value(0xFFFF_FFFF), Type.UINT32);
+        checkRoundTrip(ValueUtility.getSint32Value(-100), Type.SINT32);
+        checkRoundTrip(ValueUtility.getSint32Value(-100000), Type.SINT32);
+        checkRoundTrip(ValueUtility.getUint64Value(1000), Type.UINT64);
+        checkRoundTrip(ValueUtility.getSint64Value(-5), Type.SINT64);
+        checkRoundTrip(ValueUtility.getBooleanValue(true), Type.BOOLEAN);
+        checkRoundTrip(ValueUtility.getBooleanValue(false), Type.BOOLEAN);
+
+        assertSame(ValueUtility.toGbp(ValueUtility.getUint32Value(7)),
+                ValueUtility.toGbp(ValueUtility.getUint32Value(7)));
+    }
+
+    private void checkRoundTrip(Value v, Type type) {
+        org.yamcs.protobuf.Yamcs.Value gpb = ValueUtility.toGbp(v);
+        assertEquals(type, gpb.getType());
+        assertEquals(v, ValueUtility.fromGpb(gpb));
+    }
+}
@@ -323,6 +323,9 @@ export interface AlgorithmStatus {
   lastRun?: string;
   errorCount: number;
   execTimeNs: number;
+  lastExecTimeNs?: number;
+  minExecTimeNs?: number;
+  maxExecTimeNs?: number;
   errorMessage?: string;
   errorTime?: string;
 }
@@ -67,6 +67,10 @@ export interface SubscribeParametersRequest {
   updateOnExpiration: boolean;
   sendFromCache: boolean;
   maxBytes?: number;
+  deadband?: number;
+  relativeDeadband?: number;
+  maxRate?: number;
+  onChangeOnly?: boolean;
   action: 'REPLACE' | 'ADD' | 'REMOVE';
 }
 
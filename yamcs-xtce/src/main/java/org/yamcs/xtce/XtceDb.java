@@ -1,5 +1,7 @@
 package org.yamcs.xtce;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -12,6 +14,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -36,6 +39,10 @@ public class XtceDb implements Serializable {
     // that can change dynamically as of now
     ReadWriteLock rwLock = new ReentrantReadWriteLock();
 
+    // Source of versions, shared by all databases so that a reloaded database never reuses a version
+    private static final AtomicLong versionCounter = new AtomicLong(System.currentTimeMillis());
+    private transient volatile long version = versionCounter.incrementAndGet();
+
     /**
      * Namespaces system parameters
      */
@@ -94,6 +101,22 @@ public class XtceDb implements Serializable {
         this.rootSystem = spaceSystem;
     }
 
+    /**
+     * Returns a number that changes whenever parameters, types, commands or space systems are added to this database.
+     * <p>
+     * Versions are unique across all databases loaded by this JVM, so they may be used to detect that a database was
+     * modified or replaced.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Not serialized, a deserialized database is a new one
+        version = versionCounter.incrementAndGet();
+    }
+
     public SequenceContainer getSequenceContainer(String qualifiedName) {
         return sequenceContainers.get(qualifiedName);
     }
@@ -659,6 +682,7 @@ public class XtceDb implements Serializable {
                 }
             }
         } finally {
+            version = versionCounter.incrementAndGet();
             rwLock.writeLock().unlock();
         }
     }
@@ -719,6 +743,7 @@ public class XtceDb implements Serializable {
                 }
             }
         } finally {
+            version = versionCounter.incrementAndGet();
             rwLock.writeLock().unlock();
         }
 
@@ -780,6 +805,7 @@ public class XtceDb implements Serializable {
                 }
             }
         } finally {
+            version = versionCounter.incrementAndGet();
             rwLock.writeLock().unlock();
         }
 
@@ -830,6 +856,7 @@ public class XtceDb implements Serializable {
                 namespaces.addAll(aliases.getNamespaces());
             }
         } finally {
+            version = versionCounter.incrementAndGet();
             rwLock.writeLock().unlock();
         }
     }
@@ -884,6 +911,7 @@ public class XtceDb implements Serializable {
                 aliases.getNamespaces().forEach(ns -> namespaces.add(ns));
             }
         } finally {
+            version = versionCounter.incrementAndGet();
             rwLock.writeLock().unlock();
         }
     }
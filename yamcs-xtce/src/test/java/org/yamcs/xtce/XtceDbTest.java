@@ -0,0 +1,42 @@
+package org.yamcs.xtce;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+public class XtceDbTest {
+
+    @Test
+    public void testVersionAfterDeserialization() throws Exception {
+        SpaceSystem ss = new SpaceSystem("sat");
+        ss.setQualifiedName("/sat");
+        Parameter p = new Parameter("p1");
+        p.setQualifiedName("/sat/p1");
+        ss.addParameter(p);
+        XtceDb db = new XtceDb(ss);
+        db.buildIndexMaps();
+        assertTrue(db.getVersion() != 0);
+
+        var bout = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bout)) {
+            out.writeObject(db);
+        }
+        XtceDb copy;
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()))) {
+            copy = (XtceDb) in.readObject();
+        }
+
+        assertNotNull(copy.getParameter("/sat/p1"));
+
+        // The version is not serialized, the copy gets a new one
+        assertTrue(copy.getVersion() != 0);
+        assertNotEquals(db.getVersion(), copy.getVersion());
+    }
+}